@@ -0,0 +1,256 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.core.util;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Device;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.widgets.Display;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Shared, reference-counted cache of images derived from other images, e.g. the ghostly (grayed out) version of a node
+ * icon. All figures that request the same transformation of the same source image get the same native image, which is
+ * disposed once the last of them has released it (or the display is disposed). The cache is scoped by display, the
+ * methods must be called from the display's thread.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.2
+ */
+public final class DerivedImageCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(DerivedImageCache.class);
+
+    /**
+     * A transformation creating a derived image. Equal transformations must create equal images, as the derived
+     * images are shared by (source image, transformation).
+     */
+    @FunctionalInterface
+    public interface Transform {
+        /**
+         * @param device the device the images belong to
+         * @param source the image to derive from, not disposed
+         * @return a new image, owned by the cache
+         */
+        Image apply(Device device, Image source);
+    }
+
+    /** Grayed out, almost transparent version of an image (as used for nodes in non-editing modes). */
+    public static final Transform GHOSTLY = DerivedImageCache::makeGhostly;
+
+    /** Cache per display. */
+    private static final Map<Device, DerivedImageCache> CACHES = new HashMap<>();
+
+    private final Map<Key, Entry> m_entries = new HashMap<>();
+
+    /** The entries by their derived image, to release them. */
+    private final Map<Image, Entry> m_byImage = new IdentityHashMap<>();
+
+    private int m_references;
+
+    private DerivedImageCache() {
+    }
+
+    /**
+     * Returns the image derived from the source by the transformation, creating it if it's not yet cached. Each call
+     * must be paired with a call to {@link #release(Image)} once the image isn't used anymore.
+     *
+     * @param source the image to derive from; must not be disposed while derived images are in use
+     * @param transform the transformation, e.g. {@link #GHOSTLY}
+     * @return the shared derived image, don't dispose it
+     */
+    public static synchronized Image acquire(final Image source, final Transform transform) {
+        final Device device = source.getDevice();
+        DerivedImageCache cache = CACHES.get(device);
+        if (cache == null) {
+            cache = new DerivedImageCache();
+            CACHES.put(device, cache);
+            if (device instanceof Display) {
+                ((Display)device).disposeExec(() -> disposeAll(device));
+            }
+        }
+        return cache.acquireInternal(device, source, transform);
+    }
+
+    /**
+     * Releases an image returned by {@link #acquire(Image, Transform)}. The image is disposed if it isn't used
+     * anymore. Does nothing if the image is null or not from the cache, so images of other origin can be passed
+     * safely.
+     *
+     * @param derived the derived image
+     */
+    public static synchronized void release(final Image derived) {
+        if (derived == null) {
+            return;
+        }
+        final DerivedImageCache cache = CACHES.get(derived.getDevice());
+        if (cache != null) {
+            cache.releaseInternal(derived);
+        }
+    }
+
+    /**
+     * @return the number of native images currently held by the cache (over all displays)
+     */
+    public static synchronized int getLiveImageCount() {
+        int count = 0;
+        for (final DerivedImageCache cache : CACHES.values()) {
+            count += cache.m_byImage.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of references currently held on the cached images (over all displays), i.e. how many images
+     *         would exist without sharing
+     */
+    public static synchronized int getReferenceCount() {
+        int count = 0;
+        for (final DerivedImageCache cache : CACHES.values()) {
+            count += cache.m_references;
+        }
+        return count;
+    }
+
+    private Image acquireInternal(final Device device, final Image source, final Transform transform) {
+        final Key key = new Key(source, transform);
+        Entry entry = m_entries.get(key);
+        if (entry == null) {
+            entry = new Entry(key, transform.apply(device, source));
+            m_entries.put(key, entry);
+            m_byImage.put(entry.m_image, entry);
+            LOGGER.debug("Derived image created, " + m_byImage.size() + " live images for " + (m_references + 1)
+                + " references");
+        }
+        entry.m_count++;
+        m_references++;
+        return entry.m_image;
+    }
+
+    private void releaseInternal(final Image derived) {
+        final Entry entry = m_byImage.get(derived);
+        if (entry == null) {
+            return;
+        }
+        m_references--;
+        if (--entry.m_count == 0) {
+            m_byImage.remove(derived);
+            m_entries.remove(entry.m_key);
+            derived.dispose();
+            LOGGER.debug("Derived image disposed, " + m_byImage.size() + " live images for " + m_references
+                + " references");
+        }
+    }
+
+    private static synchronized void disposeAll(final Device device) {
+        final DerivedImageCache cache = CACHES.remove(device);
+        if (cache != null) {
+            for (final Image image : cache.m_byImage.keySet()) {
+                image.dispose();
+            }
+        }
+    }
+
+    private static Image makeGhostly(final Device device, final Image image) {
+        final Image gray = new Image(device, image, SWT.IMAGE_GRAY);
+
+        final ImageData id = gray.getImageData();
+        id.alpha = 32;
+        if (id.getTransparencyType() != SWT.TRANSPARENCY_ALPHA) {
+            id.transparentPixel = -1;
+            id.maskData = null;
+        }
+
+        final Image ghostlyImage = new Image(device, id);
+        gray.dispose();
+
+        return ghostlyImage;
+    }
+
+    /** Source image (by identity) and transformation. */
+    private static final class Key {
+        private final Image m_source;
+
+        private final Transform m_transform;
+
+        Key(final Image source, final Transform transform) {
+            m_source = source;
+            m_transform = transform;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(m_source) + m_transform.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key)obj;
+            return m_source == other.m_source && Objects.equals(m_transform, other.m_transform);
+        }
+    }
+
+    private static final class Entry {
+        private final Key m_key;
+
+        private final Image m_image;
+
+        private int m_count;
+
+        Entry(final Key key, final Image image) {
+            m_key = key;
+            m_image = image;
+        }
+    }
+}
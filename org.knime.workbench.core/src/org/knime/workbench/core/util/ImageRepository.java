@@ -50,6 +50,9 @@
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.Path;
@@ -93,6 +96,12 @@ public final class ImageRepository {
     // used for the missing icon
     private static final String MISSING_ICON_KEY = "###MISSING_ICON###";
 
+    // iconified images by registry key, each is loaded once (icons that can't be loaded are remembered as null)
+    private static final ConcurrentMap<String, CompletableFuture<Image>> ICONS = new ConcurrentHashMap<>();
+
+    // guards all accesses to the plug-in's image registry, which isn't thread-safe (icons are decoded concurrently)
+    private static final Object REGISTRY_LOCK = new Object();
+
     /**
      * Enumeration for shared images.
      *
@@ -387,7 +396,7 @@ public static ImageDescriptor getImageDescriptor(final URL url) {
         final String key = url.toString();
         // make sure the image is in the registry
         getImage(url);
-        return KNIMECorePlugin.getDefault().getImageRegistry().getDescriptor(key);
+        return registryGetDescriptor(key);
     }
 
     /**
@@ -430,7 +439,7 @@ public static Image getImage(final URL resourceURL) {
              return null;
          }
         final String key = resourceURL.toString();
-        Image img = KNIMECorePlugin.getDefault().getImageRegistry().get(key);
+        Image img = registryGet(key);
         if (img != null) {
             return img;
         }
@@ -441,7 +450,7 @@ public static Image getImage(final URL resourceURL) {
             LOGGER.coding("Unable to locate image " + resourceURL.toString() + ": " + e.getMessage(), e);
             return getMissingIcon();
         }
-        KNIMECorePlugin.getDefault().getImageRegistry().put(key, img);
+        registryPut(key, img);
         return img;
      }
 
@@ -465,7 +474,7 @@ public static ImageDescriptor getUnscaledImageDescriptor(final SharedImages imag
         final String key = image.getUrl().toString() + NOTSCALED_KEY;
         // make sure the image is in the registry
         getUnscaledImage(image.getUrl());
-        return KNIMECorePlugin.getDefault().getImageRegistry().getDescriptor(key);
+        return registryGetDescriptor(key);
     }
 
     /**
@@ -480,7 +489,7 @@ public static Image getUnscaledImage(final URL resourceURL) {
              return null;
          }
         final String key = resourceURL.toString() + NOTSCALED_KEY;
-        Image img = KNIMECorePlugin.getDefault().getImageRegistry().get(key);
+        Image img = registryGet(key);
         if (img != null) {
             return img;
         }
@@ -491,7 +500,7 @@ public static Image getUnscaledImage(final URL resourceURL) {
             LOGGER.coding("Unable to locate image " + resourceURL.toString() + ": " + e.getMessage(), e);
             return getMissingIcon();
         }
-        KNIMECorePlugin.getDefault().getImageRegistry().put(key, img);
+        registryPut(key, img);
         return img;
      }
 
@@ -541,7 +550,7 @@ public static Image getUnscaledIconImage(final URL resourceURL) {
               return null;
           }
          final String key = resourceURL.toString() + ICONIFIED_KEY + NOTSCALED_KEY;
-         Image img = KNIMECorePlugin.getDefault().getImageRegistry().get(key);
+         Image img = registryGet(key);
          if (img != null) {
              return img;
          }
@@ -552,7 +561,7 @@ public static Image getUnscaledIconImage(final URL resourceURL) {
              LOGGER.coding("Unable to locate node icon. Using default icon instead." + e.getMessage(), e);
              return getIconImage(SharedImages.DefaultNodeIcon);
          }
-         KNIMECorePlugin.getDefault().getImageRegistry().put(key, img);
+         registryPut(key, img);
          return img;
       }
 
@@ -618,7 +627,7 @@ public static ImageDescriptor getIconDescriptor(final SharedImages icon) {
         final String key = icon.getUrl().toString() + ICONIFIED_KEY;
         // make sure the image is in the repository!
         getIconImage(icon.getUrl());
-        return KNIMECorePlugin.getDefault().getImageRegistry().getDescriptor(key);
+        return registryGetDescriptor(key);
     }
      /**
      * Returns a 16x16px version of a node icon. If no icon is specified by the node factory the default node icon is
@@ -646,12 +655,55 @@ public static Image getIconImage(final NodeFactory<? extends NodeModel> nodeFact
      * @param resourceURL to the icon image
      * @return a potentially scaled image
      */
-     public static synchronized Image getIconImage(final URL resourceURL) {
+     public static Image getIconImage(final URL resourceURL) {
          if (resourceURL == null) {
              return null;
          }
-        final String key = resourceURL.toString() + ICONIFIED_KEY;
-        Image img = KNIMECorePlugin.getDefault().getImageRegistry().get(key);
+         return getIconImage(resourceURL, getIconKey(resourceURL));
+     }
+
+    /**
+     * Returns the key the icon for the given URL is cached with, see {@link #getIconImage(URL, String)}.
+     *
+     * @param resourceURL to the icon image
+     * @return the cache key
+     * @since 4.2
+     */
+    public static String getIconKey(final URL resourceURL) {
+        return resourceURL.toString() + ICONIFIED_KEY;
+    }
+
+    /**
+     * Same as {@link #getIconImage(URL)} but with the cache key already computed (which saves building it on each
+     * lookup). Lookups don't block each other; if the icon isn't loaded yet, it is loaded once by the first caller
+     * while other callers for the same icon wait for it.
+     *
+     * @param resourceURL to the icon image
+     * @param iconKey the key as returned by {@link #getIconKey(URL)} for the URL
+     * @return a potentially scaled image, <code>null</code> if the icon can't be loaded
+     * @since 4.2
+     */
+    public static Image getIconImage(final URL resourceURL, final String iconKey) {
+        CompletableFuture<Image> icon = ICONS.get(iconKey);
+        if (icon == null) {
+            final CompletableFuture<Image> newIcon = new CompletableFuture<>();
+            icon = ICONS.putIfAbsent(iconKey, newIcon);
+            if (icon == null) {
+                icon = newIcon;
+                try {
+                    newIcon.complete(loadIconImage(resourceURL, iconKey));
+                } catch (RuntimeException e) {
+                    // let the next caller try again
+                    ICONS.remove(iconKey, newIcon);
+                    newIcon.completeExceptionally(e);
+                }
+            }
+        }
+        return icon.join();
+    }
+
+    private static Image loadIconImage(final URL resourceURL, final String key) {
+        Image img = registryGet(key);
         if (img != null) {
             return img;
         }
@@ -663,9 +715,9 @@ public static synchronized Image getIconImage(final URL resourceURL) {
 //            return getIconImage(SharedImages.DefaultNodeIcon);
             return null;
         }
-        KNIMECorePlugin.getDefault().getImageRegistry().put(key, img);
+        registryPut(key, img);
         return img;
-     }
+    }
 
      public static ImageDescriptor getIconDescriptor(final URL resourceURL) {
          if (resourceURL == null) {
@@ -674,7 +726,7 @@ public static ImageDescriptor getIconDescriptor(final URL resourceURL) {
          final String key = resourceURL.toString() + ICONIFIED_KEY;
          // make sure the image is in the registry
          getIconImage(resourceURL);
-         return KNIMECorePlugin.getDefault().getImageRegistry().getDescriptor(key);
+         return registryGetDescriptor(key);
      }
 
     /**
@@ -709,12 +761,30 @@ public static ImageDescriptor getIconDescriptor(final String pluginID, final Str
      * @return a red 16x16 icon
      */
     public static Image getMissingIcon() {
-        Image img = KNIMECorePlugin.getDefault().getImageRegistry().get(MISSING_ICON_KEY);
+        Image img = registryGet(MISSING_ICON_KEY);
         if (img != null) {
             return img;
         }
         img = new Image(Display.getDefault(), KNIMEImageProvider.MISSING_IMAGE_DATA);
-        KNIMECorePlugin.getDefault().getImageRegistry().put(MISSING_ICON_KEY, img);
+        registryPut(MISSING_ICON_KEY, img);
         return img;
     }
+
+    private static Image registryGet(final String key) {
+        synchronized (REGISTRY_LOCK) {
+            return KNIMECorePlugin.getDefault().getImageRegistry().get(key);
+        }
+    }
+
+    private static ImageDescriptor registryGetDescriptor(final String key) {
+        synchronized (REGISTRY_LOCK) {
+            return KNIMECorePlugin.getDefault().getImageRegistry().getDescriptor(key);
+        }
+    }
+
+    private static void registryPut(final String key, final Image img) {
+        synchronized (REGISTRY_LOCK) {
+            KNIMECorePlugin.getDefault().getImageRegistry().put(key, img);
+        }
+    }
 }
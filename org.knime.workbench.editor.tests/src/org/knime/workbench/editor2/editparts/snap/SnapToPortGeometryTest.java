@@ -0,0 +1,136 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.editor2.editparts.snap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.port.flowvariable.FlowVariablePortObject;
+import org.knime.workbench.editor2.editparts.snap.SnapToPortGeometry.Entry;
+import org.knime.workbench.editor2.editparts.snap.SnapToPortGeometry.PortRowIndex;
+
+/**
+ * Testcases for the vertical port snapping of {@link SnapToPortGeometry}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class SnapToPortGeometryTest {
+
+    private static final PortType[] TYPES =
+        {BufferedDataTable.TYPE, BufferedDataTable.TYPE_OPTIONAL, FlowVariablePortObject.TYPE};
+
+    /**
+     * Compares the index based correction with the previous comparison of all pairs of rows and dragged ports, on
+     * random rows and ports. Offsets are drawn from small ranges, so there are many ties of equal distances.
+     */
+    @Test
+    public void testCorrectionSameAsAllPairs() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            int offsetRange = 1 + random.nextInt(i % 2 == 0 ? 20 : 400);
+            Entry[] rows = createEntries(random, random.nextInt(30), offsetRange);
+            Entry[] ys = createEntries(random, 1 + random.nextInt(6), offsetRange);
+            PortRowIndex index = new PortRowIndex(rows, ys);
+            for (int m = 0; m < 10; m++) {
+                int moveDelta = random.nextInt(2 * offsetRange + 1) - offsetRange;
+                double expected = getCorrectionForAllPairs(rows, ys, moveDelta);
+                if (Math.abs(expected) >= SnapToPortGeometry.THRESHOLD) {
+                    expected = SnapToPortGeometry.THRESHOLD;
+                }
+                assertThat("Correction for move delta " + moveDelta + " in case " + i, index.getCorrection(moveDelta),
+                    is(expected));
+            }
+        }
+    }
+
+    /**
+     * A dragged port without rows of its type and direction doesn't snap.
+     */
+    @Test
+    public void testNoMatchingRows() {
+        Entry[] rows = {new Entry(0, 10, true, BufferedDataTable.TYPE), new Entry(0, 12, false, TYPES[2])};
+        Entry[] ys = {new Entry(0, 10, true, BufferedDataTable.TYPE), new Entry(0, 11, false, TYPES[1])};
+        assertThat("Correction", new PortRowIndex(rows, ys).getCorrection(0), is(SnapToPortGeometry.THRESHOLD));
+        assertThat("Correction without rows", new PortRowIndex(new Entry[0], ys).getCorrection(0),
+            is(SnapToPortGeometry.THRESHOLD));
+    }
+
+    private static Entry[] createEntries(final Random random, final int count, final int offsetRange) {
+        Entry[] entries = new Entry[count];
+        for (int i = 0; i < count; i++) {
+            entries[i] = new Entry(0, random.nextInt(offsetRange), random.nextBoolean(),
+                TYPES[random.nextInt(TYPES.length)]);
+        }
+        return entries;
+    }
+
+    /**
+     * The correction as computed before the rows were indexed: the smallest distance of all pairs of a row and a
+     * dragged port of the same type and opposite direction, the first pair wins ties.
+     */
+    private static double getCorrectionForAllPairs(final Entry[] entries, final Entry[] ys, final int moveDelta) {
+        double result = Double.MAX_VALUE;
+        for (Entry entry : entries) {
+            for (Entry y : ys) {
+                if (!(entry.m_inport ^ y.m_inport)) {
+                    continue;
+                }
+                if (!entry.m_portType.equals(y.m_portType)) {
+                    continue;
+                }
+                double diff = entry.m_offset - (y.m_offset + moveDelta);
+                if (Math.abs(diff) < Math.abs(result)) {
+                    result = diff;
+                }
+            }
+        }
+        return Math.round(result);
+    }
+}
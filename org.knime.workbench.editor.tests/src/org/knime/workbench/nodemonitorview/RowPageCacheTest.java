@@ -0,0 +1,314 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.nodemonitorview;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Testcases for {@link RowPageCache}, on a table that counts how many rows are iterated.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowPageCacheTest {
+
+    private static final int PAGE = RowPageCache.PAGE_SIZE;
+
+    private static final Function<DataRow, String[]> FORMATTER =
+        row -> new String[]{row.getKey().getString(), row.getCell(0).toString()};
+
+    private RowPageCache m_cache;
+
+    /**
+     * Closes the cache.
+     */
+    @After
+    public void tearDown() {
+        if (m_cache != null) {
+            m_cache.close();
+        }
+    }
+
+    /**
+     * Jumping between pages only iterates from the nearest checkpoint before the requested page.
+     *
+     * @throws Exception if loading fails
+     */
+    @Test
+    public void testIteratesFromNearestCheckpoint() throws Exception {
+        CountingTable table = new CountingTable(100 * PAGE);
+        m_cache = new RowPageCache(table, table.m_numRows, FORMATTER);
+
+        // from row 0 to the end of page 50, the next page is prefetched
+        load(50);
+        assertThat("Rows read for page 50", table.m_rowsRead.get(), is(52L * PAGE));
+        // before all checkpoints, so from row 0 again
+        load(10);
+        assertThat("Rows read for page 10", table.m_rowsRead.get(), is((52L + 12) * PAGE));
+        // from the checkpoint after page 51
+        load(60);
+        assertThat("Rows read for page 60", table.m_rowsRead.get(), is((52L + 12 + 10) * PAGE));
+        // from the checkpoint after page 11
+        load(20);
+        assertThat("Rows read for page 20", table.m_rowsRead.get(), is((52L + 12 + 10 + 10) * PAGE));
+        assertThat("Number of iterators", table.m_iterators.size(), is(2));
+
+        String[][] page = m_cache.getCachedPage(20);
+        assertThat("First row of page 20", page[0], is(new String[]{"Row" + (20 * PAGE), "v" + (20 * PAGE)}));
+    }
+
+    /**
+     * Pages passed on the way to a requested page are cached and then served without iterating.
+     *
+     * @throws Exception if loading fails
+     */
+    @Test
+    public void testBackfilledPagesAreCached() throws Exception {
+        CountingTable table = new CountingTable(100 * PAGE);
+        m_cache = new RowPageCache(table, table.m_numRows, FORMATTER);
+
+        load(50);
+        // the pages before the requested one are formatted in the background
+        waitFor(() -> m_cache.getCachedPage(34) != null, "Backfilled pages not cached");
+        long rowsRead = table.m_rowsRead.get();
+        for (long p = 34; p < 50; p++) {
+            String[][] page = m_cache.loadPage(p).get(10, TimeUnit.SECONDS);
+            assertThat("First row of page " + p, page[0][0], is("Row" + (p * PAGE)));
+        }
+        assertThat("Rows read for backfilled pages", table.m_rowsRead.get(), is(rowsRead));
+        assertThat("Number of iterators", table.m_iterators.size(), is(1));
+    }
+
+    /**
+     * Closing the cache cancels the pending loads and closes all iterators, also the ones of loads in progress.
+     *
+     * @throws Exception if loading fails
+     */
+    @Test
+    public void testCloseCancelsAndClosesIterators() throws Exception {
+        CountingTable table = new CountingTable(20 * PAGE);
+        m_cache = new RowPageCache(table, table.m_numRows, FORMATTER);
+        load(2);
+
+        table.m_slowRow = 10L * PAGE + 5;
+        CompletableFuture<String[][]> inProgress = m_cache.loadPage(10);
+        assertThat("Slow row not reached", table.m_slowRowReached.await(10, TimeUnit.SECONDS), is(true));
+        // neither cached nor loaded, waits for the load in progress
+        CompletableFuture<String[][]> pending = m_cache.loadPage(15);
+
+        m_cache.close();
+        assertThat("Load in progress not canceled", inProgress.isCancelled(), is(true));
+        assertThat("Pending load not canceled", pending.isCancelled(), is(true));
+        assertThat("Load after close not canceled", m_cache.loadPage(5).isCancelled(), is(true));
+        waitFor(() -> table.m_iterators.stream().allMatch(it -> it.m_closed), "Iterators not closed");
+    }
+
+    /**
+     * Rows that can't be read or formatted are <code>null</code> instead of failing the load.
+     *
+     * @throws Exception if loading fails
+     */
+    @Test
+    public void testFailingRowsAreNull() throws Exception {
+        CountingTable table = new CountingTable(10 * PAGE);
+        table.m_failingRow = PAGE + 2;
+        m_cache = new RowPageCache(table, table.m_numRows, row -> {
+            if (row.getKey().getString().equals("Row3")) {
+                throw new IllegalArgumentException("Can't format row");
+            }
+            return FORMATTER.apply(row);
+        });
+
+        String[][] first = m_cache.loadPage(0).get(10, TimeUnit.SECONDS);
+        assertThat("Row that can't be formatted", first[3], is(nullValue()));
+        assertThat("Row after the one that can't be formatted", first[4], is(notNullValue()));
+
+        String[][] second = m_cache.loadPage(1).get(10, TimeUnit.SECONDS);
+        assertThat("Number of rows of the page that can't be read", second.length, is(PAGE));
+        for (String[] row : second) {
+            assertThat("Row of a page that can't be read", row, is(nullValue()));
+        }
+        assertThat("Page that can't be read not cached", m_cache.getCachedPage(1), is(second));
+    }
+
+    /**
+     * A table that can't be iterated fails the load, the page is cached with <code>null</code> rows.
+     *
+     * @throws Exception if loading fails
+     */
+    @Test
+    public void testFailingIterator() throws Exception {
+        CountingTable table = new CountingTable(10 * PAGE) {
+            @Override
+            public RowIterator iterator() {
+                throw new IllegalStateException("Table has been cleared");
+            }
+        };
+        m_cache = new RowPageCache(table, table.m_numRows, FORMATTER);
+        try {
+            m_cache.loadPage(3).get(10, TimeUnit.SECONDS);
+            throw new AssertionError("Load of a table that can't be iterated succeeded");
+        } catch (ExecutionException e) {
+            assertThat("Cause", e.getCause().getMessage(), is("Table has been cleared"));
+        }
+        String[][] page = m_cache.getCachedPage(3);
+        assertThat("Page that can't be read not cached", page, is(notNullValue()));
+        assertThat("Number of rows of the page that can't be read", page.length, is(PAGE));
+        assertThat("Row of a page that can't be read", page[0], is(nullValue()));
+    }
+
+    /** Loads a page and waits until the next page has been prefetched, so no load is running afterwards. */
+    private void load(final long pageIndex) throws Exception {
+        m_cache.loadPage(pageIndex).get(10, TimeUnit.SECONDS);
+        waitFor(() -> m_cache.getCachedPage(pageIndex + 1) != null, "Page " + (pageIndex + 1) + " not prefetched");
+    }
+
+    private static void waitFor(final BooleanSupplier condition, final String message) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end) {
+                throw new AssertionError(message);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /** A table with one string column that counts the rows read by all its iterators. */
+    private static class CountingTable implements DataTable {
+
+        private final long m_numRows;
+
+        private final AtomicLong m_rowsRead = new AtomicLong();
+
+        private final List<CountingIterator> m_iterators = new CopyOnWriteArrayList<>();
+
+        /** Reading this row fails. */
+        private volatile long m_failingRow = -1;
+
+        /** Reading this row takes a while. */
+        private volatile long m_slowRow = -1;
+
+        private final CountDownLatch m_slowRowReached = new CountDownLatch(1);
+
+        CountingTable(final long numRows) {
+            m_numRows = numRows;
+        }
+
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return new DataTableSpec();
+        }
+
+        @Override
+        public RowIterator iterator() {
+            CountingIterator it = new CountingIterator(this);
+            m_iterators.add(it);
+            return it;
+        }
+    }
+
+    private static final class CountingIterator extends CloseableRowIterator {
+
+        private final CountingTable m_table;
+
+        private long m_next;
+
+        private volatile boolean m_closed;
+
+        CountingIterator(final CountingTable table) {
+            m_table = table;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_next < m_table.m_numRows;
+        }
+
+        @Override
+        public DataRow next() {
+            long index = m_next++;
+            m_table.m_rowsRead.incrementAndGet();
+            if (index == m_table.m_failingRow) {
+                throw new IllegalStateException("Row " + index + " can't be read");
+            }
+            if (index == m_table.m_slowRow) {
+                m_table.m_slowRowReached.countDown();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new DefaultRow("Row" + index, new StringCell("v" + index));
+        }
+
+        @Override
+        public void close() {
+            m_closed = true;
+        }
+    }
+}
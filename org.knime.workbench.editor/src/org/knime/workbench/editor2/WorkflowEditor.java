@@ -265,6 +265,7 @@
 import org.knime.workbench.editor2.editparts.NodeAnnotationEditPart;
 import org.knime.workbench.editor2.editparts.NodeContainerEditPart;
 import org.knime.workbench.editor2.editparts.WorkflowRootEditPart;
+import org.knime.workbench.editor2.figures.AnimationScheduler;
 import org.knime.workbench.editor2.figures.ProgressPolylineConnection;
 import org.knime.workbench.editor2.figures.WorkflowFigure;
 import org.knime.workbench.editor2.menu.MRUFileMenuItem;
@@ -284,8 +285,8 @@
 import org.knime.workbench.explorer.view.ContentObject;
 import org.knime.workbench.explorer.view.dialogs.OverwriteAndMergeInfo;
 import org.knime.workbench.explorer.view.dialogs.SnapshotPanel;
+import org.knime.workbench.ui.BatchingUIDispatcher;
 import org.knime.workbench.ui.KNIMEUIPlugin;
-import org.knime.workbench.ui.SyncExecQueueDispatcher;
 import org.knime.workbench.ui.navigator.ProjectWorkflowMap;
 import org.knime.workbench.ui.navigator.WorkflowEditorAdapter;
 import org.knime.workbench.ui.preferences.PreferenceConstants;
@@ -436,6 +437,41 @@ public class WorkflowEditor extends GraphicalEditor implements
      */
     private int m_connectionLineWidth;
 
+    /** Whether a connection has been added since the last {@link #m_refreshContents}; only used in the UI thread. */
+    private boolean m_highlightAfterRefresh;
+
+    /**
+     * Highlights the connections of the selected nodes after connections have been added. It is queued by
+     * {@link #m_refreshContents} and hence runs in the next batch: for a connection that was added by dragging on the
+     * port of a not-currently-selected node, the selection of that node must complete first.
+     */
+    private final Runnable m_highlightConnections = () -> {
+        if (!isClosed()) {
+            m_connectionHighlighter.selectionChanged(this, getSite().getSelectionProvider().getSelection());
+        }
+    };
+
+    /**
+     * Refreshes the contents of the viewer; queued via {@link BatchingUIDispatcher#asyncExecOnce(Runnable)} so that
+     * a burst of workflow events results in a single refresh.
+     */
+    private final Runnable m_refreshContents = () -> {
+        if (!isClosed()) {
+            getViewer().getContents().refresh();
+            if (m_highlightAfterRefresh) {
+                m_highlightAfterRefresh = false;
+                BatchingUIDispatcher.asyncExec(m_highlightConnections);
+            }
+        }
+    };
+
+    /** Updates the actions once per batch of workflow events, see {@link #m_refreshContents}. */
+    private final Runnable m_updateActions = () -> {
+        if (!isClosed()) {
+            updateActions();
+        }
+    };
+
     /**
      * No arg constructor, creates the edit domain for this editor.
      */
@@ -1029,7 +1065,7 @@ protected void createGraphicalViewer(final Composite parent) {
         workflowFigure.setViewport(canvas.getViewport());
         // TODO don't we want the viewport and not the figure canvas for 'control listening'?
         canvas.addControlListener(workflowFigure);
-
+        AnimationScheduler.getInstance().registerCanvas(canvas);
 
         // add Help context
         WorkbenchHelpSystem.getInstance().setHelp(getGraphicalViewer().getControl(),
@@ -3497,7 +3533,7 @@ public static int getActiveEditorGridXOffset(final int xOffset) {
     @Override
     public void workflowChanged(final WorkflowEvent event) {
         LOGGER.debug("Workflow event triggered: " + event.toString());
-        SyncExecQueueDispatcher.asyncExec(() -> {
+        BatchingUIDispatcher.asyncExec(() -> {
             if (WorkflowEditor.this.isClosed()) {
                 return;
             }
@@ -3526,20 +3562,10 @@ public void workflowChanged(final WorkflowEvent event) {
                     }
                     break;
                 case CONNECTION_ADDED:
-                    SyncExecQueueDispatcher.asyncExec(() -> {
-                        // We need an additional cycle delay for the situation in which this connection add
-                        //  was achieved by dragging on the port of a not-currently-selected-node; in that case
-                        //  we need the seletion process of that node to complete before telling the connection
-                        //  highlighter to highlight connections based on the current workflow selection.
-                        if (WorkflowEditor.this.isClosed()) {
-                            return;
-                        }
-
-                        m_connectionHighlighter.selectionChanged(WorkflowEditor.this,
-                                                                 getSite().getSelectionProvider().getSelection());
-                    });
+                    // the new connection can only be highlighted once the refresh has created its edit part
+                    m_highlightAfterRefresh = true;
                 case CONNECTION_REMOVED:
-                    getViewer().getContents().refresh();
+                    BatchingUIDispatcher.asyncExecOnce(m_refreshContents);
                     break;
                 case WORKFLOW_DIRTY:
                     if (isComponentProjectWFM()) {
@@ -3556,7 +3582,7 @@ public void workflowChanged(final WorkflowEvent event) {
                 default:
                     // all other event types are handled somewhere else, e.g. in edit policies etc
             }
-            updateActions();
+            BatchingUIDispatcher.asyncExecOnce(m_updateActions);
         });
     }
 
@@ -3586,7 +3612,7 @@ public void nodePropertyChanged(final NodePropertyChangedEvent e) {
     private void unmarkDirty() {
         if (m_isDirty && !m_manager.isDirty()) {
             m_isDirty = false;
-            SyncExecQueueDispatcher.asyncExec(new Runnable() {
+            BatchingUIDispatcher.asyncExec(new Runnable() {
                 @Override
                 public void run() {
                     firePropertyChange(IEditorPart.PROP_DIRTY);
@@ -3606,7 +3632,7 @@ public void markDirty() {
             if (!m_isDirty && m_manager.isDirty()) {
                 m_isDirty = true;
 
-                SyncExecQueueDispatcher.asyncExec(new Runnable() {
+                BatchingUIDispatcher.asyncExec(new Runnable() {
                     @Override
                     public void run() {
                         if (!WorkflowEditor.this.isClosed()) {
@@ -4024,7 +4050,7 @@ private void notifyCloseEventListeners() {
         final Collection<WorkflowEditorEventListener> workflowEditorEventListeners =
             WorkflowEditorEventListeners.getListeners();
         if (!workflowEditorEventListeners.isEmpty()) {
-            SyncExecQueueDispatcher.asyncExec(() -> {
+            BatchingUIDispatcher.asyncExec(() -> {
                 final WorkflowEditorEvent event = WorkflowEditorEventListeners.createWorkflowEditorEvent(this);
                 for (final WorkflowEditorEventListener listener : workflowEditorEventListeners) {
                     try {
@@ -4041,7 +4067,7 @@ private void notifySaveEventListeners() {
         final Collection<WorkflowEditorEventListener> workflowEditorEventListeners =
             WorkflowEditorEventListeners.getListeners();
         if (!workflowEditorEventListeners.isEmpty()) {
-            SyncExecQueueDispatcher.asyncExec(() -> {
+            BatchingUIDispatcher.asyncExec(() -> {
                 final ActiveWorkflowEditorEvent event =
                     WorkflowEditorEventListeners.createActiveWorkflowEditorEvent(this);
                 for (final WorkflowEditorEventListener listener : workflowEditorEventListeners) {
@@ -48,10 +48,13 @@
 package org.knime.workbench.editor2.editparts.snap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.eclipse.draw2d.Connection;
 import org.eclipse.draw2d.IFigure;
@@ -144,7 +147,7 @@ public class SnapToPortGeometry extends SnapToHelper {
     /**
      * A vertical or horizontal snapping point. since 3.0
      */
-    private static class Entry {
+    static class Entry {
         /**
          * The side from which this entry was created. -1 is used to indicate
          * left or top, 0 indicates the middle or center, and 1 indicates right
@@ -203,11 +206,111 @@ public String toString() {
         }
     }
 
+    /**
+     * Index of the rows the ports of the dragged parts can snap to, built once per drag. The rows are bucketed by
+     * port type (interned to an id) and direction, each bucket holds the sorted distinct offsets. A move then only
+     * needs a binary search around the moved offset of each dragged port instead of comparing all pairs.
+     */
+    static final class PortRowIndex {
+        /** The offsets of the dragged ports. */
+        private final int[] m_yOffsets;
+
+        /** For each dragged port the sorted distinct offsets of the rows it can snap to, or null if there are none. */
+        private final int[][] m_offsets;
+
+        /** The index of the first row with the respective offset, earlier rows are preferred for equal distances. */
+        private final int[][] m_rowIndices;
+
+        PortRowIndex(final Entry[] rows, final Entry[] ys) {
+            Map<PortType, Integer> typeIds = new HashMap<PortType, Integer>();
+            Map<Integer, TreeMap<Integer, Integer>> buckets = new HashMap<Integer, TreeMap<Integer, Integer>>();
+            for (int i = 0; i < rows.length; i++) {
+                Integer typeId = typeIds.get(rows[i].m_portType);
+                if (typeId == null) {
+                    typeId = typeIds.size();
+                    typeIds.put(rows[i].m_portType, typeId);
+                }
+                int key = 2 * typeId + (rows[i].m_inport ? 1 : 0);
+                TreeMap<Integer, Integer> bucket = buckets.get(key);
+                if (bucket == null) {
+                    bucket = new TreeMap<Integer, Integer>();
+                    buckets.put(key, bucket);
+                }
+                bucket.putIfAbsent(rows[i].m_offset, i);
+            }
+
+            Map<Integer, int[][]> bucketArrays = new HashMap<Integer, int[][]>();
+            m_yOffsets = new int[ys.length];
+            m_offsets = new int[ys.length][];
+            m_rowIndices = new int[ys.length][];
+            for (int j = 0; j < ys.length; j++) {
+                m_yOffsets[j] = ys[j].m_offset;
+                Integer typeId = typeIds.get(ys[j].m_portType);
+                if (typeId == null) {
+                    continue;
+                }
+                // only inports and outports are aligned, as only opposite ports can be connected
+                int key = 2 * typeId + (ys[j].m_inport ? 0 : 1);
+                int[][] arrays = bucketArrays.get(key);
+                if (arrays == null) {
+                    TreeMap<Integer, Integer> bucket = buckets.get(key);
+                    if (bucket == null) {
+                        continue;
+                    }
+                    arrays = new int[2][bucket.size()];
+                    int k = 0;
+                    for (Map.Entry<Integer, Integer> e : bucket.entrySet()) {
+                        arrays[0][k] = e.getKey();
+                        arrays[1][k] = e.getValue();
+                        k++;
+                    }
+                    bucketArrays.put(key, arrays);
+                }
+                m_offsets[j] = arrays[0];
+                m_rowIndices[j] = arrays[1];
+            }
+        }
+
+        /**
+         * Returns the correction to the nearest row any dragged port can snap to.
+         *
+         * @param moveDelta the vertical move delta of the dragged parts
+         * @return the correction or THRESHOLD if no row is closer than THRESHOLD
+         */
+        double getCorrection(final int moveDelta) {
+            int bestDistance = Integer.MAX_VALUE;
+            int bestRow = Integer.MAX_VALUE;
+            int result = 0;
+            for (int j = 0; j < m_offsets.length; j++) {
+                int[] offsets = m_offsets[j];
+                if (offsets == null) {
+                    continue;
+                }
+                int target = m_yOffsets[j] + moveDelta;
+                int pos = Arrays.binarySearch(offsets, target);
+                if (pos < 0) {
+                    pos = -pos - 1;
+                }
+                // the nearest offsets below and at or above the target
+                for (int k = Math.max(0, pos - 1); k <= Math.min(offsets.length - 1, pos); k++) {
+                    int distance = Math.abs(offsets[k] - target);
+                    int row = m_rowIndices[j][k];
+                    if (distance < bestDistance || (distance == bestDistance && row < bestRow)) {
+                        bestDistance = distance;
+                        bestRow = row;
+                        result = offsets[k] - target;
+                    }
+                }
+            }
+            return bestDistance < THRESHOLD ? result : THRESHOLD;
+        }
+    }
+
     /**
      * The sensitivity of the snapping. Corrections greater than this value will
      * not occur.
      */
-    private static final double THRESHOLD = 5.0001;
+    static final double THRESHOLD = 5.0001;
 
     private boolean m_cachedCloneBool;
 
@@ -222,9 +325,9 @@ public String toString() {
     private Entry[] m_cols;
 
     /**
-     * The y port values of the dragged node.
+     * The rows the ports of the dragged node can snap to.
      */
-    private Entry[] m_yValues;
+    private PortRowIndex m_portRows;
 
     /**
      * The container editpart providing the coordinates and the children to
@@ -311,44 +414,6 @@ protected double getCorrectionFor(final Entry[] entries,
         return result;
     }
 
-    /**
-     * Returns the correction value for the given entries and sides. During a
-     * move, the left, right, or center is free to snap to a location.
-     *
-     * @param entries the entries
-     * @param extendedData the requests extended data
-     * @return the correction amount or THRESHOLD if no correction was made
-     */
-    protected double getCorrectionForY(final Entry[] entries,
-            final Map extendedData, final Entry[] ys, final int moveDelta) {
-
-        // get the smallest distance to the next y value
-        double result = Double.MAX_VALUE;
-        for (Entry entry : entries) {
-            for (Entry y : ys) {
-
-                // only compare inports to outports as only oposite parts
-                // can connect and must be alligned
-                if (!(entry.m_inport ^ y.m_inport)) {
-                    continue;
-                }
-
-                // and only ports of same type (data - data, model-model)
-                // are snaped
-                if (!entry.m_portType .equals(y.m_portType)) {
-                    continue;
-                }
-
-                double diff = entry.m_offset - (y.m_offset + moveDelta);
-                if (Math.abs(diff) < Math.abs(result)) {
-                    result = diff;
-                }
-            }
-        }
-
-        return Math.round(result);
-    }
-
     /**
      * Returns the correction value between {@link #THRESHOLD}, or the
      * THRESHOLD if no corrections were found.
@@ -582,7 +647,7 @@ public int snapRectangle(final Request request, int snapOrientation,
                         inport, port.getType());
                 i++;
             }
-            m_yValues = yValues;
+            m_portRows = new PortRowIndex(m_rows, yValues);
         }
 
         // get the move delta of the orignial location
@@ -590,9 +655,7 @@ public int snapRectangle(final Request request, int snapOrientation,
         WorkflowEditor.adaptZoom(m_zoomManager, moveDeltaPoint, false);
         int moveDelta = moveDeltaPoint.y;
         if ((snapOrientation & VERTICAL) != 0) {
-            double ycorrect = THRESHOLD;
-            ycorrect = getCorrectionForY(m_rows, changeBoundsRequest.getExtendedData(),
-                    m_yValues, moveDelta);
+            double ycorrect = m_portRows.getCorrection(moveDelta);
             if (Math.abs(ycorrect) < THRESHOLD) {
                 snapOrientation &= ~VERTICAL;
                 correction.preciseY += ycorrect;
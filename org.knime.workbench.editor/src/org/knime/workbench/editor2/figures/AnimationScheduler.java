@@ -0,0 +1,263 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.editor2.figures;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.draw2d.FigureCanvas;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.Viewport;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.swt.events.PaintListener;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Drives the animations of the workflow editor figures, i.e. the cycling bar of an unknown progress and the
+ * "marching ants" of connections that transport data. All animated figures are advanced in one
+ * {@link Display#timerExec(int, Runnable)} tick in the UI thread, rather than one thread or runnable per figure.
+ *
+ * <p>
+ * Figures that are not within the visible part of their viewport are not advanced. If no animated figure is visible,
+ * e.g. because the editor is hidden, the scheduler stops ticking; it resumes when a figure is added or a canvas
+ * registered via {@link #registerCanvas(FigureCanvas)} is painted again.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.2
+ */
+public final class AnimationScheduler {
+
+    /** Interval between two ticks in ms; the intervals of the animations should be multiples of it. */
+    static final int TICK_INTERVAL = 50;
+
+    private static AnimationScheduler instance;
+
+    private final Display m_display;
+
+    /** The animated figures, may be modified by any thread. */
+    private final Map<IFigure, Animation> m_animations = new ConcurrentHashMap<>();
+
+    /** Incremented whenever an animation is added, used to detect additions while the tick is stopping. */
+    private final AtomicInteger m_modificationCount = new AtomicInteger();
+
+    private final AtomicBoolean m_running = new AtomicBoolean();
+
+    /**
+     * The registered canvases by their viewport, used to find out whether a figure is visible; removed when the canvas
+     * is disposed. UI thread only.
+     */
+    private final Map<Viewport, FigureCanvas> m_canvases = new HashMap<>();
+
+    private final Runnable m_tick = this::tick;
+
+    private AnimationScheduler(final Display display) {
+        m_display = display;
+    }
+
+    /**
+     * Returns the scheduler bound to the default display.
+     *
+     * @return the singleton instance
+     */
+    public static synchronized AnimationScheduler getInstance() {
+        if (instance == null) {
+            instance = new AnimationScheduler(Display.getDefault());
+        }
+        return instance;
+    }
+
+    /**
+     * Registers the canvas of an editor so that the animation stops while the canvas is hidden and resumes when it
+     * is painted again. The canvas is unregistered when it is disposed. Must be called in the UI thread.
+     *
+     * @param canvas the canvas showing animated figures
+     */
+    public void registerCanvas(final FigureCanvas canvas) {
+        final Viewport viewport = canvas.getViewport();
+        final PaintListener paintListener = e -> schedule();
+        m_canvases.put(viewport, canvas);
+        canvas.addPaintListener(paintListener);
+        canvas.addDisposeListener(e -> {
+            canvas.removePaintListener(paintListener);
+            m_canvases.remove(viewport, canvas);
+        });
+    }
+
+    /**
+     * Adds a figure to be animated, replacing a previous animation of the same figure. Can be called from any thread.
+     *
+     * @param figure the animated figure
+     * @param interval the interval between two steps in ms
+     * @param step advances the animation in the UI thread, returns <code>false</code> if the animation has ended
+     */
+    void add(final IFigure figure, final int interval, final BooleanSupplier step) {
+        m_animations.put(figure, new Animation(interval, step));
+        m_modificationCount.incrementAndGet();
+        schedule();
+    }
+
+    /**
+     * Adds a figure to be animated unless it is animated already. Can be called from any thread.
+     *
+     * @param figure the animated figure
+     * @param interval the interval between two steps in ms
+     * @param step advances the animation in the UI thread, returns <code>false</code> if the animation has ended
+     */
+    void addIfAbsent(final IFigure figure, final int interval, final BooleanSupplier step) {
+        if (!m_animations.containsKey(figure)
+            && m_animations.putIfAbsent(figure, new Animation(interval, step)) == null) {
+            m_modificationCount.incrementAndGet();
+            schedule();
+        }
+    }
+
+    /**
+     * Stops animating a figure. Can be called from any thread.
+     *
+     * @param figure the figure
+     */
+    void remove(final IFigure figure) {
+        m_animations.remove(figure);
+    }
+
+    private void schedule() {
+        if (!m_animations.isEmpty() && !m_display.isDisposed() && m_running.compareAndSet(false, true)) {
+            m_display.asyncExec(m_tick);
+        }
+    }
+
+    private void tick() {
+        if (m_display.isDisposed()) {
+            return;
+        }
+        final int modificationCount = m_modificationCount.get();
+        final long now = System.currentTimeMillis();
+        // visible area per viewport, an empty rectangle if the viewport is hidden
+        final Map<Viewport, Rectangle> visibleAreas = new HashMap<>();
+        boolean anyVisible = false;
+        for (Map.Entry<IFigure, Animation> e : m_animations.entrySet()) {
+            IFigure figure = e.getKey();
+            Animation animation = e.getValue();
+            if (figure.getParent() == null) {
+                // removed from the editor (e.g. node deleted)
+                m_animations.remove(figure, animation);
+                continue;
+            }
+            if (!isVisible(figure, visibleAreas)) {
+                continue;
+            }
+            anyVisible = true;
+            if (now - animation.m_lastStep >= animation.m_interval) {
+                animation.m_lastStep = now;
+                if (!animation.m_step.getAsBoolean()) {
+                    m_animations.remove(figure, animation);
+                }
+            }
+        }
+        if (anyVisible) {
+            m_display.timerExec(TICK_INTERVAL, m_tick);
+        } else {
+            // nothing to animate, wait for new figures or the next paint of a canvas
+            m_running.set(false);
+            if (modificationCount != m_modificationCount.get()) {
+                schedule();
+            }
+        }
+    }
+
+    private boolean isVisible(final IFigure figure, final Map<Viewport, Rectangle> visibleAreas) {
+        if (!figure.isShowing()) {
+            return false;
+        }
+        Viewport viewport = getViewport(figure);
+        if (viewport == null) {
+            return true;
+        }
+        Rectangle visibleArea = visibleAreas.computeIfAbsent(viewport, this::getVisibleArea);
+        if (visibleArea.isEmpty()) {
+            return false;
+        }
+        Rectangle bounds = figure.getBounds().getCopy();
+        figure.translateToAbsolute(bounds);
+        return visibleArea.intersects(bounds);
+    }
+
+    private Rectangle getVisibleArea(final Viewport viewport) {
+        FigureCanvas canvas = m_canvases.get(viewport);
+        if (canvas != null && (canvas.isDisposed() || !canvas.isVisible())) {
+            return new Rectangle();
+        }
+        Rectangle area = viewport.getBounds().getCopy();
+        viewport.translateToAbsolute(area);
+        return area;
+    }
+
+    private static Viewport getViewport(final IFigure figure) {
+        for (IFigure f = figure.getParent(); f != null; f = f.getParent()) {
+            if (f instanceof Viewport) {
+                return (Viewport)f;
+            }
+        }
+        return null;
+    }
+
+    private static final class Animation {
+        private final int m_interval;
+
+        private final BooleanSupplier m_step;
+
+        /** Time stamp of the last step, UI thread only. */
+        private long m_lastStep;
+
+        Animation(final int interval, final BooleanSupplier step) {
+            m_interval = interval;
+            m_step = step;
+        }
+    }
+}
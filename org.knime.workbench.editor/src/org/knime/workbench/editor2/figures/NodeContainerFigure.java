@@ -94,6 +94,7 @@
 import org.knime.core.ui.util.SWTUtilities;
 import org.knime.core.ui.wrapper.Wrapper;
 import org.knime.workbench.KNIMEEditorPlugin;
+import org.knime.workbench.core.util.DerivedImageCache;
 import org.knime.workbench.core.util.ImageRepository;
 import org.knime.workbench.editor2.EditorModeParticipant;
 import org.knime.workbench.editor2.WorkflowEditor;
@@ -536,21 +537,9 @@ private static String wrapText(final String text) {
         return text;
     }
 
-    // TODO general image utilities class (along with AnnotationEditPart and other locations)
+    // creates an unshared ghostly image, only used for the class-static images
     private static Image makeImageGhostly(final Image image) {
-        final Image i = new Image(Display.getCurrent(), image, SWT.IMAGE_GRAY);
-
-        final ImageData id = i.getImageData();
-        id.alpha = 32;
-        if (id.getTransparencyType() != SWT.TRANSPARENCY_ALPHA) {
-            id.transparentPixel = -1;
-            id.maskData = null;
-        }
-
-        final Image ghostlyImage = new Image(Display.getCurrent(), id);
-        i.dispose();
-
-        return ghostlyImage;
+        return DerivedImageCache.GHOSTLY.apply(Display.getCurrent(), image);
     }
 
     /**
@@ -880,11 +869,9 @@ private abstract class GhostlySupportingFigure extends Figure {
         protected Image m_ghostlyIcon;
 
         void disposeGhostlyImage() {
-            if (m_ghostlyIcon != null) {
-                m_ghostlyIcon.dispose();
-
-                m_ghostlyIcon = null;
-            }
+            // the ghostly icon is shared with other figures showing the same icon (or class-static, which is ignored)
+            DerivedImageCache.release(m_ghostlyIcon);
+            m_ghostlyIcon = null;
         }
 
         /**
@@ -896,7 +883,7 @@ void setIcon(final Image icon) {
             m_originalIcon = icon;
 
             disposeGhostlyImage();
-            m_ghostlyIcon = makeImageGhostly(icon);
+            m_ghostlyIcon = DerivedImageCache.acquire(icon, DerivedImageCache.GHOSTLY);
 
             updateFigure();
         }
@@ -909,6 +896,7 @@ void setIcon(final Image icon) {
          */
         void setIcon(final Image icon, final Image ghostly) {
             m_originalIcon = icon;
+            disposeGhostlyImage();
             m_ghostlyIcon = ghostly;
 
             updateFigure();
@@ -1134,12 +1122,10 @@ void setType(final NodeType type, final boolean isComponent) {
             m_nodeType = type;
             m_isComponent = isComponent;
 
-            if (m_ghostlyBackgroundIcon != null) {
-                m_ghostlyBackgroundIcon.dispose();
-            }
+            DerivedImageCache.release(m_ghostlyBackgroundIcon);
 
             m_originalBackgroundIcon = getBackgroundImage();
-            m_ghostlyBackgroundIcon = makeImageGhostly(m_originalBackgroundIcon);
+            m_ghostlyBackgroundIcon = DerivedImageCache.acquire(m_originalBackgroundIcon, DerivedImageCache.GHOSTLY);
 
             updateFigure();
         }
@@ -1147,11 +1133,8 @@ void setType(final NodeType type, final boolean isComponent) {
         @Override
         void disposeGhostlyImage() {
             super.disposeGhostlyImage();
-            if (m_ghostlyBackgroundIcon != null) {
-                m_ghostlyBackgroundIcon.dispose();
-
-                m_ghostlyBackgroundIcon = null;
-            }
+            DerivedImageCache.release(m_ghostlyBackgroundIcon);
+            m_ghostlyBackgroundIcon = null;
         }
 
         @Override
@@ -47,10 +47,11 @@
  */
 package org.knime.workbench.editor2.figures;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.draw2d.ColorConstants;
 import org.eclipse.draw2d.DelegatingLayout;
@@ -87,6 +88,18 @@ public class ProgressFigure extends RectangleFigure implements MouseMotionListen
 
     private static final int UNKNOW_PROGRESS_BAR_WIDTH = 10;
 
+    /** Minimum time between two repaints of progress updates in ms (25 frames per second). */
+    private static final int PROGRESS_FRAME_INTERVAL = 40;
+
+    /** Figures with a pending progress update, drained by {@link #pumpProgressUpdates()} in the UI thread. */
+    private static final Queue<ProgressFigure> DIRTY_FIGURES = new ConcurrentLinkedQueue<>();
+
+    /** Whether {@link #pumpProgressUpdates()} is scheduled to run in the UI thread. */
+    private static final AtomicBoolean PUMP_SCHEDULED = new AtomicBoolean();
+
+    /** Time stamp ({@link System#nanoTime()}) of the last run of {@link #pumpProgressUpdates()}, UI thread only. */
+    private static long lastPumpNanos;
+
     private static final Font PROGRESS_FONT;
 
     private static final Font QUEUED_FONT;
@@ -97,8 +110,6 @@ public class ProgressFigure extends RectangleFigure implements MouseMotionListen
 
     private static final Color PROGRESS_BAR_COLOR = ColorConstants.darkBlue;
 
-    private static final UnknownProgressTimer unknownProgressTimer;
-
     static {
         Display current = Display.getCurrent();
         Font systemFont = current.getSystemFont();
@@ -111,10 +122,6 @@ public class ProgressFigure extends RectangleFigure implements MouseMotionListen
         PROGRESS_FONT = new Font(current, name, height, SWT.NORMAL);
         QUEUED_FONT = new Font(current, name, 7, SWT.NORMAL);
         QUEUED_FONT_SMALL = new Font(current, name, 6, SWT.NORMAL);
-
-        // instantiate and start the unkown progress timer
-        unknownProgressTimer = new UnknownProgressTimer();
-        unknownProgressTimer.start();
     }
 
     private boolean m_unknownProgress = false;
@@ -151,19 +158,14 @@ public static enum ProgressMode {
 
     private String m_stateMessage;
 
-    private Display m_currentDisplay = Display.getCurrent();
+    private volatile Display m_currentDisplay = Display.getCurrent();
 
     private MouseEvent m_mouseEvent;
 
     private ProgressToolTipHelper m_toolTipHelper;
 
-    private final Runnable m_repaintObject = new Runnable() {
-        @Override
-        public void run() {
-
-            repaint();
-        }
-    };
+    /** Latest progress not yet shown or null ... used to avoid intermediate updates. */
+    private final AtomicReference<NodeProgress> m_pendingProgress = new AtomicReference<>();
 
     /**
      * Creates a new node figure.
@@ -317,7 +319,7 @@ public void paintFigure(final Graphics graphics) {
      */
     public void stopUnknownProgress() {
         m_unknownProgress = false;
-        unknownProgressTimer.removeFigure(this);
+        AnimationScheduler.getInstance().remove(this);
     }
 
     /**
@@ -340,7 +342,16 @@ public void activateUnknownProgress() {
             return;
         }
 
-        unknownProgressTimer.addFigure(this);
+        AnimationScheduler.getInstance().add(this, AnimationScheduler.TICK_INTERVAL, this::stepUnknownProgress);
+    }
+
+    /** Repaints the cycling bar unless it got updated by an ordinary repaint recently; called by the scheduler. */
+    private boolean stepUnknownProgress() {
+        long timestamp = System.currentTimeMillis();
+        if (timestamp - m_unknownProgressBarRenderingStatus.m_lastUpdateTimestamp > UNKNOWN_PROGRESS_UPDATE_INTERVAL) {
+            repaint();
+        }
+        return true;
     }
 
     /**
@@ -362,11 +373,57 @@ public ProgressMode getProgressMode() {
     }
 
     /**
-     * Updates UI after progress has changed.
+     * Updates UI after progress has changed. This method can be called from any thread and never blocks: the
+     * progress is stored and shown with the next frame in the UI thread. Intermediate updates that arrive within a
+     * frame are dropped.
      *
      * @param pe the new progress to display
      */
-    public synchronized void progressChanged(final NodeProgress pe) {
+    public void progressChanged(final NodeProgress pe) {
+        if (m_pendingProgress.getAndSet(pe) == null) {
+            DIRTY_FIGURES.add(this);
+        }
+        schedulePump(m_currentDisplay);
+    }
+
+    /** Schedules {@link #pumpProgressUpdates()} unless it's already scheduled. */
+    private static void schedulePump(final Display display) {
+        if ((display == null) || display.isDisposed() || !PUMP_SCHEDULED.compareAndSet(false, true)) {
+            return;
+        }
+        display.asyncExec(() -> {
+            if (display.isDisposed()) {
+                return;
+            }
+            long wait = PROGRESS_FRAME_INTERVAL - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastPumpNanos);
+            if (wait > 0) {
+                display.timerExec((int)wait, ProgressFigure::pumpProgressUpdates);
+            } else {
+                pumpProgressUpdates();
+            }
+        });
+    }
+
+    /** Shows the pending progress of all dirty figures; runs in the UI thread at most once per frame. */
+    private static void pumpProgressUpdates() {
+        // reset first so that updates arriving from now on schedule the next frame
+        PUMP_SCHEDULED.set(false);
+        lastPumpNanos = System.nanoTime();
+        // only process the figures queued so far, updates arriving meanwhile are shown with the next frame
+        for (int i = DIRTY_FIGURES.size(); i > 0; i--) {
+            ProgressFigure figure = DIRTY_FIGURES.poll();
+            if (figure == null) {
+                break;
+            }
+            NodeProgress pe = figure.m_pendingProgress.getAndSet(null);
+            if (pe != null) {
+                figure.progressChangedInternal(pe);
+            }
+        }
+    }
+
+    /** Applies the progress to this figure, called in the UI thread. */
+    private void progressChangedInternal(final NodeProgress pe) {
         int newWorked = m_currentWorked;
         if (pe.hasProgress()) {
             double progress = pe.getProgress().doubleValue();
@@ -382,7 +439,7 @@ public synchronized void progressChanged(final NodeProgress pe) {
             // for unknown redering triggering started in
             // activateUnknownProgress
             m_unknownProgress = false;
-            unknownProgressTimer.removeFigure(this);
+            AnimationScheduler.getInstance().remove(this);
 
             m_currentWorked = newWorked;
 
@@ -400,26 +457,14 @@ public synchronized void progressChanged(final NodeProgress pe) {
             String meString = m_currentProgressMessage;
             m_currentProgressMessage = message == null ? "" : m_stateMessage + " - " + message;
 
-            if (!m_currentProgressMessage.equals(meString) && (m_mouseEvent != null) && (m_currentDisplay != null)
-                && !m_currentDisplay.isDisposed() /* bugfix: 1392 */) {
-                m_currentDisplay.syncExec(new Runnable() {
-                    @Override
-                    public void run() {
-                        if (m_mouseEvent != null) {
-                            getToolTipHelper().displayToolTipNear(ProgressFigure.this,
-                                new Label(m_currentProgressMessage), m_mouseEvent.x, m_mouseEvent.y);
-                        }
-                    }
-                });
+            if (!m_currentProgressMessage.equals(meString) && (m_mouseEvent != null)) {
+                getToolTipHelper().displayToolTipNear(ProgressFigure.this, new Label(m_currentProgressMessage),
+                    m_mouseEvent.x, m_mouseEvent.y);
             }
         }
 
-        if (m_currentDisplay == null) {
-            return;
-        }
-
         if (changed) {
-            m_currentDisplay.syncExec(m_repaintObject);
+            repaint();
         }
     }
 
@@ -439,10 +484,12 @@ public void setStateMessage(final String stateMessage) {
      * Resets the work amount and message text.
      */
     public void reset() {
+        // drop progress of a previous execution that has not been shown yet
+        m_pendingProgress.set(null);
         m_currentProgressMessage = "";
         m_currentWorked = -1;
         m_unknownProgress = true;
-        unknownProgressTimer.removeFigure(this);
+        AnimationScheduler.getInstance().remove(this);
         m_mouseEvent = null;
 
         if (getToolTipHelper() != null) {
@@ -525,89 +572,4 @@ public void mouseHover(final MouseEvent me) {
     public void mouseMoved(final MouseEvent me) {
     }
 
-    /**
-     * Implements a thread that updates all figures passed to it. The thread for updating the unknown progress figures
-     * (cycling figures) is intended to run just one time. The advantage is that the expensive rendering on the display
-     * thread is only invoked once for all figures to render.
-     *
-     * @author Christoph Sieb, University of Konstanz
-     */
-    private static class UnknownProgressTimer extends Thread {
-
-        private final List<ProgressFigure> m_figuresToPaint = new ArrayList<ProgressFigure>();
-
-        /**
-         * Creats an unknown progress timer for cycling progress bar rendering.
-         */
-        public UnknownProgressTimer() {
-            super("Unknown Progress Timer");
-        }
-
-        @Override
-        public void run() {
-            while (!isInterrupted()) {
-                // if the queue is empty wait for the next
-                // figure to render
-                synchronized (m_figuresToPaint) {
-                    while (m_figuresToPaint.size() == 0) {
-                        try {
-                            m_figuresToPaint.wait();
-                        } catch (InterruptedException e) {
-                            break;
-                        }
-                    }
-                    long timestamp = System.currentTimeMillis();
-
-                    // a map Display to list of prog-figures - presumably this is always a single entry map
-                    Map<Display, List<ProgressFigure>> byDisplayMap = m_figuresToPaint.stream()
-                            // filter those that need updating - some got updated by ordinary repaint events
-                            .filter(p -> (timestamp - p.m_unknownProgressBarRenderingStatus.m_lastUpdateTimestamp
-                                    > UNKNOWN_PROGRESS_UPDATE_INTERVAL))
-                            .collect(Collectors.groupingBy(ProgressFigure::getCurrentDisplay));
-                    for (final Map.Entry<Display, List<ProgressFigure>> entry : byDisplayMap.entrySet()) {
-                        Display dp = entry.getKey();
-                        if ((dp != null) && !dp.isDisposed()) {
-                            dp.asyncExec(new Runnable() {
-                                @Override
-                                public void run() {
-                                    entry.getValue().stream().forEach(f -> f.repaint());
-                                }
-                            });
-                        }
-                    }
-                }
-
-                // figure updates with some delay
-                try {
-                    Thread.sleep(UNKNOWN_PROGRESS_UPDATE_INTERVAL);
-                } catch (InterruptedException e) {
-                    break;
-                }
-            }
-        }
-
-        /**
-         * Add a progress figure that should be rendered regularly. (Intended for cycling progress bars)
-         *
-         * @param figure The figure to render regularly
-         */
-        public void addFigure(final ProgressFigure figure) {
-            synchronized (m_figuresToPaint) {
-                m_figuresToPaint.add(figure);
-                m_figuresToPaint.notify();
-            }
-        }
-
-        /**
-         * Remove a figure that is no longer intended to be rendered regulary.
-         *
-         * @param figure the figure to remove
-         */
-        public void removeFigure(final ProgressFigure figure) {
-            synchronized (m_figuresToPaint) {
-                m_figuresToPaint.remove(figure);
-            }
-        }
-    }
-
 }
@@ -45,11 +45,6 @@
  */
 package org.knime.workbench.editor2.figures;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.draw2d.ConnectionLocator;
@@ -96,15 +91,8 @@ public static void setHighlightColor(final RGB rgb) {
     }
 
 
-    /** Service to make the marching ants go slow ... not updating with each event. */
-    private static ScheduledExecutorService UI_PROGESS_UPDATE_SERVICE = Executors.newSingleThreadScheduledExecutor(
-        new ThreadFactory() {
-            private final AtomicInteger m_threadCreateCounter = new AtomicInteger();
-            @Override
-            public Thread newThread(final Runnable r) {
-                return new Thread(r, "Delayed Progress Updater-" + m_threadCreateCounter.getAndIncrement());
-            }
-        });
+    /** Interval in ms to make the marching ants go slow ... not updating with each event. */
+    private static final int PROGRESS_UPDATE_INTERVAL = 250;
 
     /** line dash style that we cycle through to create a flow animation--need 3
      * patterns to create a smooth animation. */
@@ -202,20 +190,25 @@ public void setHighlighted(final boolean flag, final boolean renderAsInport) {
      */
     public void progressChanged(final ConnectionProgress e) {
         if (m_atomicConnectionProgressReference.getAndSet(e) == null) {
-            UI_PROGESS_UPDATE_SERVICE.schedule(new Runnable() {
-                @Override
-                public void run() {
-                    Display.getDefault().asyncExec(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (!Display.getDefault().isDisposed()) {
-                                progressChangedInternal(m_atomicConnectionProgressReference.getAndSet(null));
-                            }
-                        }
-                    });
-                }
-            }, 250, TimeUnit.MILLISECONDS);
+            AnimationScheduler.getInstance().addIfAbsent(this, PROGRESS_UPDATE_INTERVAL, this::stepProgress);
+        }
+    }
+
+    /** Shows the pending progress, if any; called by the animation scheduler in the UI thread. */
+    private boolean stepProgress() {
+        ConnectionProgress e = m_atomicConnectionProgressReference.getAndSet(null);
+        if (e == null) {
+            // no event since the last step, stop animating until the next one arrives (re-check after removal as
+            // progressChanged doesn't add the connection again while it's still animated)
+            AnimationScheduler scheduler = AnimationScheduler.getInstance();
+            scheduler.remove(this);
+            if (m_atomicConnectionProgressReference.get() != null) {
+                scheduler.addIfAbsent(this, PROGRESS_UPDATE_INTERVAL, this::stepProgress);
+            }
+            return true;
         }
+        progressChangedInternal(e);
+        return true;
     }
 
     private void progressChangedInternal(final ConnectionProgress e) {
@@ -48,7 +48,11 @@
  */
 package org.knime.workbench.nodemonitorview;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Button;
@@ -63,10 +67,9 @@
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTable;
-import org.knime.core.data.RowIterator;
-import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.workflow.NodeContainer;
 import org.knime.core.ui.node.workflow.NodeContainerUI;
@@ -81,6 +84,8 @@
  */
 public class MonitorDataTable implements NodeMonitorTable {
 
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(MonitorDataTable.class);
+
     /**
      * Number of rows to 'pre-load' in view when data table is shown.
      */
@@ -91,9 +96,12 @@ public class MonitorDataTable implements NodeMonitorTable {
      */
     private static final int MAX_NUM_COLUMN = 100;
 
-    private RowIterator m_it;
+    /**
+     * Control characters are replaced in the shown cell values.
+     */
+    private static final Pattern CONTROL_CHARACTERS = Pattern.compile("\\p{Cntrl}");
 
-    private long m_currentIndex = -1;
+    private RowPageCache m_rows;
 
     private DataTable m_dataTable;
 
@@ -103,16 +111,18 @@ public class MonitorDataTable implements NodeMonitorTable {
 
     private boolean m_autoLoad;
 
-    /* --- in case of deactivated auto-load */
-
-    private RowIterator m_manualIt;
-
     private AddDataRowListener m_addDataRowListener;
 
     private final int m_portIndex;
 
     private Table m_table;
 
+    /** Whether the columns have been packed to the rows of the first page (and not only to the placeholders). */
+    private boolean m_columnsPacked;
+
+    /** Pages of {@link #m_rows} that are being loaded and whose rows are redrawn once loaded; UI thread only. */
+    private final Set<Long> m_requestedPages = new HashSet<>();
+
     /**
      * Creates a new monitor table to display node's data the given port index.
      *
@@ -188,6 +198,12 @@ public void setupTable(final Table table) {
             column = new TableColumn(table, SWT.NONE);
             column.setText("(remaining columns skipped)");
         }
+        //get right column count: without id column (and 'remaining column skipped'-column)
+        final int colCount = table.getColumnCount() == MAX_NUM_COLUMN ? table.getColumnCount() - 2
+            : table.getColumnCount() - 1;
+        final boolean skipped = table.getColumnCount() == MAX_NUM_COLUMN;
+        m_rows = new RowPageCache(m_dataTable, m_numRows, row -> toStrings(row, colCount, skipped));
+        m_requestedPages.clear();
 
         //needs to be added before calling 'setItemCount'
         //- first items will be empty otherwise
@@ -235,30 +251,74 @@ public void dispose(final Table table) {
         if (m_addDataRowListener != null) {
             table.removeListener(SWT.SetData, m_addDataRowListener);
         }
-        closeIterator();
+        if (m_rows != null) {
+            // cancels the loads still in progress
+            m_rows.close();
+            m_rows = null;
+        }
+        m_requestedPages.clear();
     }
 
     private void loadChunk(final int chunkIdx) {
-        if (m_manualIt == null) {
-            m_manualIt = m_dataTable.iterator();
-        }
-        long startRowIdx = chunkIdx * NUM_LOOK_AHEAD_ROWS;
-        long endRowIdx = Math.min(m_numRows, (chunkIdx + 1) * NUM_LOOK_AHEAD_ROWS);
-        for (long i = startRowIdx; i < endRowIdx; i++) {
-            m_manualIt.next();
-        }
-        m_numLoadedRows = endRowIdx;
+        // rows are read when they are shown
+        m_numLoadedRows = Math.min(m_numRows, (chunkIdx + 1) * (long)NUM_LOOK_AHEAD_ROWS);
         if (m_table != null) {
             Display.getDefault().asyncExec(() -> m_table.setItemCount((int)m_numLoadedRows));
         }
     }
 
-    private void closeIterator() {
-        if (m_it instanceof CloseableRowIterator) {
-            ((CloseableRowIterator)m_it).close();
+    /** Called by the row cache from its worker threads. */
+    private static String[] toStrings(final DataRow row, final int colCount, final boolean skipped) {
+        String[] strings = new String[colCount + (skipped ? 2 : 1)];
+        strings[0] = row.getKey().getString();
+        for (int i = 0; i < colCount; i++) {
+            DataCell c = row.getCell(i);
+            strings[i + 1] = sanitize(c.toString());
         }
-        if (m_manualIt instanceof CloseableRowIterator) {
-            ((CloseableRowIterator)m_manualIt).close();
+        if (skipped) {
+            strings[colCount + 1] = "...";
+        }
+        return strings;
+    }
+
+    private static String sanitize(final String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isISOControl(s.charAt(i))) {
+                return CONTROL_CHARACTERS.matcher(s).replaceAll("_");
+            }
+        }
+        return s;
+    }
+
+    /** Redraws the rows of a page after it has been loaded. */
+    private void pageLoaded(final RowPageCache rows, final long pageIndex) {
+        if (rows != m_rows || m_table == null || m_table.isDisposed()) {
+            // selection has changed in the meantime
+            return;
+        }
+        m_requestedPages.remove(pageIndex);
+        long start = pageIndex * RowPageCache.PAGE_SIZE;
+        long end = Math.min(start + RowPageCache.PAGE_SIZE, m_table.getItemCount()) - 1;
+        String[][] page = rows.getCachedPage(pageIndex);
+        if (pageIndex == 0 && !m_columnsPacked && page != null) {
+            // the columns have been packed to the placeholders, pack them to the first rows
+            m_columnsPacked = true;
+            for (int i = 0; i <= end; i++) {
+                setRowText(m_table.getItem(i), page[i], i);
+            }
+            for (int i = 0; i < m_table.getColumnCount(); i++) {
+                m_table.getColumn(i).pack();
+            }
+        } else if (start <= end) {
+            m_table.clear((int)start, (int)end);
+        }
+    }
+
+    private static void setRowText(final TableItem item, final String[] row, final int index) {
+        if (row != null) {
+            item.setText(row);
+        } else {
+            item.setText("Row " + index + " couldn't be read.");
         }
     }
 
@@ -273,34 +333,33 @@ public void handleEvent(final Event event) {
             } else {
                 m_table.setItemCount((int) m_numLoadedRows);
             }
-            DataRow row = null;
-            if (index == m_currentIndex) {
-                m_currentIndex++;
-                row = m_it.next();
-            } else {
-                //reset row iterator and go to required index
-                closeIterator();
-                m_it = m_dataTable.iterator();
-                for (m_currentIndex = 0; m_currentIndex <= index; m_currentIndex++) {
-                    row = m_it.next();
+            long pageIndex = index / RowPageCache.PAGE_SIZE;
+            String[][] page = m_rows.getCachedPage(pageIndex);
+            if (page == null) {
+                // the items are updated once the page has been loaded
+                item.setText(0, "...");
+                if (!m_requestedPages.add(pageIndex)) {
+                    // another row of the page has requested it already
+                    return;
                 }
+                final RowPageCache rows = m_rows;
+                final Display display = m_table.getDisplay();
+                rows.loadPage(pageIndex).whenComplete((p, e) -> {
+                    if (e instanceof CancellationException) {
+                        // closed, e.g. another port has been selected
+                        return;
+                    }
+                    if (e != null) {
+                        // the page is cached as unreadable, its rows are shown as such
+                        LOGGER.debug("Unable to load rows of page " + pageIndex + ": " + e.getMessage(), e);
+                    }
+                    if (!display.isDisposed()) {
+                        display.asyncExec(() -> pageLoaded(rows, pageIndex));
+                    }
+                });
+                return;
             }
-            if (row != null) {
-                item.setText(0, row.getKey().getString());
-                //get right row count: without id column (and 'remaining column skipped'-column)
-                int colCount = m_table.getColumnCount() == MAX_NUM_COLUMN ? m_table.getColumnCount() - 2
-                    : m_table.getColumnCount() - 1;
-                for (int i = 0; i < colCount; i++) {
-                    DataCell c = row.getCell(i);
-                    String s = c.toString().replaceAll("\\p{Cntrl}", "_");
-                    item.setText(i + 1, s);
-                }
-                if (m_table.getColumnCount() == MAX_NUM_COLUMN) {
-                    item.setText(MAX_NUM_COLUMN - 1, "...");
-                }
-            } else {
-                item.setText("Row " + m_currentIndex + " couln't be read.");
-            }
+            setRowText(item, page[(int)(index - pageIndex * RowPageCache.PAGE_SIZE)], index);
         }
     }
 }
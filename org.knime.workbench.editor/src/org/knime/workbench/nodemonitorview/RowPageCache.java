@@ -0,0 +1,375 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.nodemonitorview;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Random access to the (formatted) rows of a data table, which itself can only be iterated. Rows are read and formatted
+ * in pages on a pool of worker threads and kept in a LRU cache. Iterators are not closed after reading a page but kept
+ * (up to a limit) as checkpoints at their current position, so that reading a page only iterates from the nearest
+ * checkpoint before it instead of from the first row. When a far page is read, the pages passed on the way are cached
+ * as well (to scroll back), and after each requested page the next one is prefetched. Iterating is sequential, the rows
+ * are formatted outside the lock so that several pages can be formatted in parallel.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class RowPageCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(RowPageCache.class);
+
+    /** Number of rows in a page. */
+    static final int PAGE_SIZE = 128;
+
+    /** Maximum number of cached pages. */
+    private static final int MAX_PAGES = 128;
+
+    /** Maximum number of iterators kept as checkpoints. */
+    private static final int MAX_CHECKPOINTS = 8;
+
+    /** Number of pages before a requested page that are cached while iterating to it. */
+    private static final int BACKFILL_PAGES = 16;
+
+    private static final int MAX_THREADS = 4;
+
+    /** Shared by all caches, the loads of closed caches stop after the current row. */
+    private static final ExecutorService WORKERS;
+
+    static {
+        final AtomicInteger threadCount = new AtomicInteger();
+        WORKERS = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS)), r -> {
+                Thread t = new Thread(r, "Node Monitor row loader " + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+    }
+
+    private final DataTable m_table;
+
+    private final long m_numRows;
+
+    private final Function<DataRow, String[]> m_formatter;
+
+    /** Cached pages by page index, in access order; guarded by itself. */
+    private final Map<Long, String[][]> m_pages = new LinkedHashMap<Long, String[][]>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Long, String[][]> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    /** Pages currently loaded by index; guarded by {@link #m_pages}. */
+    private final Map<Long, CompletableFuture<String[][]>> m_loading = new HashMap<>();
+
+    /** Open iterators with the index of the row they return next, most recently used last; guarded by this. */
+    private final List<Checkpoint> m_checkpoints = new ArrayList<>();
+
+    private volatile boolean m_closed;
+
+    /**
+     * @param table the table to read
+     * @param numRows the number of rows in the table
+     * @param formatter converts a row into the strings to display, called from the worker threads
+     */
+    RowPageCache(final DataTable table, final long numRows, final Function<DataRow, String[]> formatter) {
+        m_table = table;
+        m_numRows = numRows;
+        m_formatter = formatter;
+    }
+
+    /**
+     * Returns a cached page.
+     *
+     * @param pageIndex the index of the page, i.e. the index of its first row divided by {@link #PAGE_SIZE}
+     * @return the page's rows, a row is <code>null</code> if it couldn't be read; <code>null</code> if the page isn't
+     *         cached
+     */
+    String[][] getCachedPage(final long pageIndex) {
+        synchronized (m_pages) {
+            return m_pages.get(pageIndex);
+        }
+    }
+
+    /**
+     * Loads a page in the background (if it isn't cached or already being loaded) and afterwards prefetches the next
+     * page.
+     *
+     * @param pageIndex the index of the page
+     * @return a future for the page's rows, cancelled if the cache is closed before the page is loaded; if the page
+     *         can't be read, the future fails and the page is cached with all rows <code>null</code>
+     */
+    CompletableFuture<String[][]> loadPage(final long pageIndex) {
+        final CompletableFuture<String[][]> page = load(pageIndex);
+        final long next = pageIndex + 1;
+        if (next * PAGE_SIZE < m_numRows) {
+            page.thenRun(() -> load(next));
+        }
+        return page;
+    }
+
+    /**
+     * Cancels all loads and closes all iterators. The cache must not be used afterwards.
+     */
+    void close() {
+        m_closed = true;
+        final List<CompletableFuture<String[][]>> loading;
+        synchronized (m_pages) {
+            loading = new ArrayList<>(m_loading.values());
+            m_loading.clear();
+            m_pages.clear();
+        }
+        for (CompletableFuture<String[][]> f : loading) {
+            f.cancel(false);
+        }
+        // loads still running close their iterators themselves
+        synchronized (this) {
+            for (Checkpoint c : m_checkpoints) {
+                c.close();
+            }
+            m_checkpoints.clear();
+        }
+    }
+
+    private CompletableFuture<String[][]> load(final long pageIndex) {
+        final CompletableFuture<String[][]> future;
+        synchronized (m_pages) {
+            final String[][] page = m_pages.get(pageIndex);
+            if (page != null) {
+                return CompletableFuture.completedFuture(page);
+            }
+            if (m_closed) {
+                future = new CompletableFuture<>();
+                future.cancel(false);
+                return future;
+            }
+            final CompletableFuture<String[][]> loading = m_loading.get(pageIndex);
+            if (loading != null) {
+                return loading;
+            }
+            future = new CompletableFuture<>();
+            m_loading.put(pageIndex, future);
+        }
+        WORKERS.execute(() -> {
+            try {
+                future.complete(read(pageIndex));
+            } catch (CancellationException e) {
+                future.cancel(false);
+            } catch (Throwable e) {
+                // e.g. the iterator couldn't be created; don't try again, the rows are shown as not readable
+                LOGGER.debug("Unable to read page " + pageIndex + ": " + e.getMessage(), e);
+                final long start = pageIndex * PAGE_SIZE;
+                putPage(pageIndex, new String[(int)Math.max(0, Math.min(start + PAGE_SIZE, m_numRows) - start)][]);
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (m_pages) {
+                    m_loading.remove(pageIndex, future);
+                }
+            }
+        });
+        return future;
+    }
+
+    /** Reads the page (and possibly pages before it) from the nearest checkpoint and formats them. */
+    private String[][] read(final long pageIndex) {
+        final long start = pageIndex * PAGE_SIZE;
+        final long end = Math.min(start + PAGE_SIZE, m_numRows);
+        if (start >= end) {
+            return new String[0][];
+        }
+        final List<DataRow[]> rawPages = new ArrayList<>();
+        long firstPage = pageIndex;
+        synchronized (this) {
+            checkOpen();
+            final Checkpoint checkpoint = takeCheckpoint(start);
+            try {
+                // also read the pages passed on the way shortly before the requested one
+                final long backfillStart = Math.max(checkpoint.m_next, start - BACKFILL_PAGES * PAGE_SIZE);
+                firstPage = (backfillStart + PAGE_SIZE - 1) / PAGE_SIZE;
+                while (checkpoint.m_next < firstPage * PAGE_SIZE) {
+                    checkOpen();
+                    checkpoint.m_it.next();
+                    checkpoint.m_next++;
+                }
+                for (long p = firstPage; p * PAGE_SIZE < end; p++) {
+                    final DataRow[] rows =
+                        new DataRow[(int)(Math.min((p + 1) * PAGE_SIZE, m_numRows) - p * PAGE_SIZE)];
+                    for (int i = 0; i < rows.length; i++) {
+                        checkOpen();
+                        rows[i] = checkpoint.m_it.next();
+                        checkpoint.m_next++;
+                    }
+                    rawPages.add(rows);
+                }
+                putCheckpoint(checkpoint);
+            } catch (CancellationException e) {
+                checkpoint.close();
+                throw e;
+            } catch (RuntimeException e) {
+                LOGGER.debug("Unable to read rows " + start + " to " + end + ": " + e.getMessage(), e);
+                checkpoint.close();
+                // don't try again, the rows are shown as not readable
+                final String[][] page = new String[(int)(end - start)][];
+                putPage(pageIndex, page);
+                return page;
+            }
+        }
+
+        final int last = rawPages.size() - 1;
+        final long firstPageIndex = firstPage;
+        final String[][] page = format(rawPages.get(last));
+        putPage(pageIndex, page);
+        if (last > 0) {
+            // format the pages passed on the way after the requested one is available
+            WORKERS.execute(() -> {
+                try {
+                    for (int p = last - 1; p >= 0; p--) {
+                        if (getCachedPage(firstPageIndex + p) == null) {
+                            putPage(firstPageIndex + p, format(rawPages.get(p)));
+                        }
+                    }
+                } catch (CancellationException e) {
+                    // closed
+                }
+            });
+        }
+        return page;
+    }
+
+    private String[][] format(final DataRow[] rows) {
+        final String[][] page = new String[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            checkOpen();
+            try {
+                page[i] = m_formatter.apply(rows[i]);
+            } catch (RuntimeException e) {
+                LOGGER.debug("Unable to format row " + rows[i].getKey() + ": " + e.getMessage(), e);
+            }
+        }
+        return page;
+    }
+
+    private void putPage(final long pageIndex, final String[][] page) {
+        synchronized (m_pages) {
+            if (!m_closed) {
+                m_pages.put(pageIndex, page);
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (m_closed) {
+            throw new CancellationException();
+        }
+    }
+
+    private Checkpoint takeCheckpoint(final long rowIndex) {
+        Checkpoint best = null;
+        for (Checkpoint c : m_checkpoints) {
+            if (c.m_next <= rowIndex && (best == null || c.m_next > best.m_next)) {
+                best = c;
+            }
+        }
+        if (best != null) {
+            m_checkpoints.remove(best);
+            return best;
+        }
+        return new Checkpoint(m_table.iterator());
+    }
+
+    private void putCheckpoint(final Checkpoint checkpoint) {
+        if (checkpoint.m_next >= m_numRows) {
+            checkpoint.close();
+            return;
+        }
+        m_checkpoints.add(checkpoint);
+        if (m_checkpoints.size() > MAX_CHECKPOINTS) {
+            // drop the least recently used one
+            for (Iterator<Checkpoint> it = m_checkpoints.iterator(); it.hasNext();) {
+                final Checkpoint c = it.next();
+                if (c != checkpoint) {
+                    it.remove();
+                    c.close();
+                    break;
+                }
+            }
+        }
+    }
+    /** An open iterator and the index of the row it returns next. */
+    private static final class Checkpoint {
+        private final RowIterator m_it;
+
+        private long m_next;
+
+        Checkpoint(final RowIterator it) {
+            m_it = it;
+        }
+
+        void close() {
+            if (m_it instanceof CloseableRowIterator) {
+                ((CloseableRowIterator)m_it).close();
+            }
+        }
+    }
+}
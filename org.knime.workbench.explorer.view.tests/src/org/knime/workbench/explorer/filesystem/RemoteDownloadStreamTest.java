@@ -0,0 +1,208 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.filesystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests the readiness API of {@link RemoteDownloadStream}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RemoteDownloadStreamTest {
+
+    private static class TestStream extends RemoteDownloadStream {
+        private final long m_readyAt;
+
+        private final AtomicInteger m_checks = new AtomicInteger();
+
+        TestStream(final long readyAfter) {
+            m_readyAt = System.currentTimeMillis() + readyAfter;
+        }
+
+        @Override
+        public boolean readyForDownload() {
+            m_checks.incrementAndGet();
+            return System.currentTimeMillis() >= m_readyAt;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return -1;
+        }
+
+        @Override
+        public long length() {
+            return 0;
+        }
+
+        @Override
+        public List<String> getMessages() {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * A small download that is ready shortly after it was requested is noticed with little delay (a fixed one second
+     * poll interval took at least a second).
+     *
+     * @throws Exception if waiting fails
+     */
+    @Test
+    public void testTimeToReady() throws Exception {
+        long start = System.currentTimeMillis();
+        TestStream stream = new TestStream(30);
+        stream.whenReadyForDownload().get(5, TimeUnit.SECONDS);
+        long waited = System.currentTimeMillis() - start;
+        assertTrue("Readiness noticed after " + waited + " ms", waited < 250);
+    }
+
+    /**
+     * A readiness check that hangs (e.g. because the server doesn't respond) doesn't delay the checks of other
+     * downloads.
+     *
+     * @throws Exception if waiting fails
+     */
+    @Test
+    public void testHangingCheckDoesntBlockOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TestStream hanging = new TestStream(0) {
+            @Override
+            public boolean readyForDownload() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        try {
+            CompletableFuture<Void> hangingReady = hanging.whenReadyForDownload();
+            long start = System.currentTimeMillis();
+            new TestStream(0).whenReadyForDownload().get(5, TimeUnit.SECONDS);
+            long waited = System.currentTimeMillis() - start;
+            assertTrue("Readiness noticed after " + waited + " ms", waited < 250);
+            assertTrue("Hanging check completed", !hangingReady.isDone());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * The readiness checks back off and stop when the future is canceled.
+     *
+     * @throws Exception if waiting fails
+     */
+    @Test
+    public void testBackoffAndCancel() throws Exception {
+        TestStream stream = new TestStream(Long.MAX_VALUE / 2);
+        CompletableFuture<Void> ready = stream.whenReadyForDownload();
+        assertTrue("Same future expected", ready == stream.whenReadyForDownload());
+        Thread.sleep(1600);
+        int checks = stream.m_checks.get();
+        // 0, 25, 75, 175, 375, 775, 1575 ms
+        assertTrue("Unexpected number of checks: " + checks, checks >= 4 && checks <= 8);
+
+        ready.cancel(false);
+        Thread.sleep(1200);
+        assertTrue("Checks continued after cancel", stream.m_checks.get() <= checks + 1);
+    }
+
+    /**
+     * Implementations that notify readiness themselves are not polled.
+     *
+     * @throws Exception if waiting fails
+     */
+    @Test
+    public void testNotification() throws Exception {
+        TestStream stream = new TestStream(0) {
+            @Override
+            protected boolean supportsReadyNotification() {
+                return true;
+            }
+        };
+        CompletableFuture<Void> ready = stream.whenReadyForDownload();
+        Thread.sleep(100);
+        assertTrue("Completed without notification", !ready.isDone());
+        stream.notifyReadyForDownload();
+        ready.get(1, TimeUnit.SECONDS);
+        assertEquals("Readiness polled", 0, stream.m_checks.get());
+    }
+
+    /**
+     * A failing readiness check completes the future exceptionally.
+     *
+     * @throws Exception if waiting fails
+     */
+    @Test
+    public void testFailure() throws Exception {
+        TestStream stream = new TestStream(0) {
+            @Override
+            public boolean readyForDownload() {
+                throw new IllegalStateException("Server error");
+            }
+        };
+        try {
+            stream.whenReadyForDownload().get(5, TimeUnit.SECONDS);
+            fail("Expected the readiness check to fail");
+        } catch (ExecutionException e) {
+            assertEquals("Server error", e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.localworkspace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.util.FileUtil;
+import org.knime.workbench.explorer.localworkspace.LocalWorkspaceChangeWatcher.DirectoryChanges;
+
+/**
+ * Tests that the {@link LocalWorkspaceChangeWatcher} reports the changes of watched directories coalesced per
+ * directory.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class LocalWorkspaceChangeWatcherTest {
+
+    /** Generous, some platforms poll for changes. */
+    private static final long TIMEOUT_MS = 30000;
+
+    private final List<Collection<DirectoryChanges>> m_batches = new CopyOnWriteArrayList<>();
+
+    private File m_dir;
+
+    private LocalWorkspaceChangeWatcher m_watcher;
+
+    /**
+     * Creates the watched directory and the watcher.
+     *
+     * @throws Exception if the directory or watcher cannot be created
+     */
+    @Before
+    public void setup() throws Exception {
+        m_dir = FileUtil.createTempDir(getClass().getSimpleName());
+        m_watcher = new LocalWorkspaceChangeWatcher("Test watcher", m_batches::add, 500);
+        m_watcher.watch(m_dir);
+    }
+
+    /**
+     * Closes the watcher and deletes the directory.
+     */
+    @After
+    public void tearDown() {
+        m_watcher.close();
+        FileUtil.deleteRecursively(m_dir);
+    }
+
+    /**
+     * Checks that a burst of created files is reported with few batches and that the reported names match.
+     *
+     * @throws Exception if files cannot be created
+     */
+    @Test
+    public void testBurstIsCoalesced() throws Exception {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            String name = "file" + i + ".csv";
+            Files.createFile(new File(m_dir, name).toPath());
+            expected.add(name);
+        }
+        Set<String> created = waitForCreated(expected.size());
+        assertEquals("Unexpected created files", expected, created);
+        assertTrue("Burst not coalesced: " + m_batches.size() + " batches", m_batches.size() <= 5);
+        for (Collection<DirectoryChanges> batch : m_batches) {
+            assertEquals("One entry per directory expected", 1, batch.size());
+        }
+    }
+
+    /**
+     * Checks that a file created and deleted within one batch is not reported as created and that unwatched
+     * directories are not reported.
+     *
+     * @throws Exception if files cannot be created
+     */
+    @Test
+    public void testCreateDeleteAndUnwatched() throws Exception {
+        Path sub = Files.createDirectory(new File(m_dir, "sub").toPath());
+        Files.createFile(sub.resolve("inner.txt"));
+        Path tmp = Files.createFile(new File(m_dir, "tmp.txt").toPath());
+        Files.delete(tmp);
+        waitForCreated(1);
+
+        Set<String> created = new HashSet<>();
+        for (Collection<DirectoryChanges> batch : m_batches) {
+            for (DirectoryChanges c : batch) {
+                assertEquals("Unwatched directory reported", m_dir.toPath(), c.getDirectory());
+                created.addAll(c.getCreated());
+            }
+        }
+        assertTrue("Directory not reported", created.contains("sub"));
+        assertFalse("Deleted file reported as created", created.contains("tmp.txt"));
+        assertFalse("Sub directory is watched", m_watcher.isWatched(sub.toFile()));
+    }
+
+    private Set<String> waitForCreated(final int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        Set<String> created = new HashSet<>();
+        while (System.nanoTime() < deadline) {
+            created.clear();
+            for (Collection<DirectoryChanges> batch : m_batches) {
+                for (DirectoryChanges c : batch) {
+                    created.addAll(c.getCreated());
+                }
+            }
+            if (created.size() >= count) {
+                return created;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Expected " + count + " created files, got " + created);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.localworkspace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.knime.workbench.explorer.filesystem.AbstractExplorerFileStore.isDataFile;
+import static org.knime.workbench.explorer.filesystem.AbstractExplorerFileStore.isWorkflow;
+import static org.knime.workbench.explorer.filesystem.AbstractExplorerFileStore.isWorkflowGroup;
+import static org.knime.workbench.explorer.filesystem.AbstractExplorerFileStore.isWorkflowTemplate;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.runtime.CoreException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.workflow.WorkflowPersistor;
+import org.knime.core.util.FileUtil;
+import org.knime.workbench.explorer.ExplorerMountTable;
+import org.knime.workbench.explorer.filesystem.AbstractExplorerFileStore;
+import org.knime.workbench.explorer.filesystem.LocalExplorerFileStore;
+
+/**
+ * Tests that the {@link LocalWorkspaceFileInfoCache} bounds the number of file system probes needed to show the
+ * children of a workflow group, that it picks up changes after a listing or refresh and that its size is bounded.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class LocalWorkspaceFileInfoCacheTest {
+
+    private static final int WORKFLOWS = 20;
+
+    private static final int GROUPS = 5;
+
+    private static final int DATA_FILES = 10;
+
+    private LocalWorkspaceContentProvider m_provider;
+
+    private LocalExplorerFileStore m_group;
+
+    private File m_groupDir;
+
+    /**
+     * Mounts the local workspace and creates a workflow group with workflows, sub-groups and data files.
+     *
+     * @throws Exception if the group cannot be created
+     */
+    @Before
+    public void setup() throws Exception {
+        m_provider = (LocalWorkspaceContentProvider)ExplorerMountTable.mount("LOCAL",
+            LocalWorkspaceContentProviderFactory.ID, null);
+        LocalExplorerFileStore root = (LocalExplorerFileStore)m_provider.getRootStore();
+        m_group = root.getChild("fileInfoCacheTest_" + System.nanoTime());
+        m_group.mkdir(EFS.NONE, null);
+        m_groupDir = m_group.toLocalFile();
+        for (int i = 0; i < WORKFLOWS; i++) {
+            File wf = new File(m_groupDir, "workflow" + i);
+            Files.createDirectories(wf.toPath());
+            Files.createFile(new File(wf, WorkflowPersistor.WORKFLOW_FILE).toPath());
+        }
+        for (int i = 0; i < GROUPS; i++) {
+            Files.createDirectories(new File(m_groupDir, "group" + i).toPath());
+        }
+        for (int i = 0; i < DATA_FILES; i++) {
+            Files.createFile(new File(m_groupDir, "data" + i + ".csv").toPath());
+        }
+    }
+
+    /**
+     * Deletes the test group.
+     */
+    @After
+    public void tearDown() {
+        FileUtil.deleteRecursively(m_groupDir);
+    }
+
+    /**
+     * Checks that resolving the types of all children needs a bounded number of probes per child and none at all
+     * when done again.
+     *
+     * @throws CoreException if the group cannot be listed
+     */
+    @Test
+    public void testProbesPerChildAreBounded() throws CoreException {
+        LocalWorkspaceFileInfoCache cache = m_provider.getFileInfoCache();
+        int children = WORKFLOWS + GROUPS + DATA_FILES;
+
+        long before = cache.getStatCount();
+        AbstractExplorerFileStore[] stores = m_group.childStores(EFS.NONE, null);
+        assertEquals("Unexpected number of children", children, stores.length);
+        int workflows = resolveTypes(stores);
+        assertEquals("Unexpected number of workflows", WORKFLOWS, workflows);
+        long firstPass = cache.getStatCount() - before;
+        // one stat plus three probes per directory; the group and its parent are resolved once
+        assertTrue("Too many probes: " + firstPass, firstPass <= 4 * children + 8);
+
+        before = cache.getStatCount();
+        resolveTypes(stores);
+        assertEquals("Second pass must be served from the cache", 0, cache.getStatCount() - before);
+    }
+
+    /**
+     * Checks that changes are picked up when the group is listed or refreshed again.
+     *
+     * @throws Exception if the group cannot be listed or changed
+     */
+    @Test
+    public void testListingAndRefreshInvalidate() throws Exception {
+        LocalExplorerFileStore group = m_group.getChild("group0");
+        m_group.childStores(EFS.NONE, null);
+        assertTrue("Expected a workflow group", isWorkflowGroup(group));
+
+        Files.createFile(new File(group.toLocalFile(), WorkflowPersistor.WORKFLOW_FILE).toPath());
+        assertTrue("Cached entry expected before listing again", isWorkflowGroup(group));
+        m_group.childStores(EFS.NONE, null);
+        assertTrue("Expected a workflow after listing again", isWorkflow(group));
+
+        assertTrue("Workflow could not be deleted", FileUtil.deleteRecursively(group.toLocalFile()));
+        assertTrue("Cached entry expected before refresh", isWorkflow(group));
+        m_group.refresh();
+        assertFalse("Expected a deleted workflow after refresh", group.fetchInfo().exists());
+    }
+
+    /**
+     * Checks that only the entries of the most recently used directories are kept.
+     */
+    @Test
+    public void testLeastRecentlyUsedDirectoriesAreDropped() {
+        LocalWorkspaceFileInfoCache cache = new LocalWorkspaceFileInfoCache(2);
+        File group0 = new File(m_groupDir, "group0");
+        File group1 = new File(m_groupDir, "group1");
+        cache.get(new File(group0, "a"));
+        cache.get(new File(group1, "a"));
+        cache.get(new File(group0, "a"));
+        cache.get(new File(new File(m_groupDir, "group2"), "a"));
+        assertEquals("Unexpected number of cached directories", 2, cache.getDirectoryCount());
+
+        long before = cache.getStatCount();
+        cache.get(new File(group0, "a"));
+        assertEquals("Recently used directory must be served from the cache", 0, cache.getStatCount() - before);
+        cache.get(new File(group1, "a"));
+        assertEquals("Least recently used directory must have been dropped", 1, cache.getStatCount() - before);
+    }
+
+    private static int resolveTypes(final AbstractExplorerFileStore[] stores) {
+        int workflows = 0;
+        for (AbstractExplorerFileStore s : stores) {
+            if (isWorkflow(s)) {
+                workflows++;
+            }
+            isWorkflowGroup(s);
+            isWorkflowTemplate(s);
+            isDataFile(s);
+        }
+        return workflows;
+    }
+}
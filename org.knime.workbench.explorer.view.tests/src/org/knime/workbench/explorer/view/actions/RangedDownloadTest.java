@@ -0,0 +1,409 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.view.actions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.knime.workbench.explorer.filesystem.RemoteDownloadStream;
+import org.knime.workbench.explorer.filesystem.RemoteExplorerFileStore;
+import org.knime.workbench.explorer.view.actions.WorkflowDownload.DownloadRunnable;
+
+/**
+ * Tests the {@link RangedDownload} and its use by {@link WorkflowDownload} against a stubbed stream that supports
+ * ranged reads.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RangedDownloadTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /** Temporary folder for the downloaded files. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    private File m_partFile;
+
+    /**
+     * Deletes the part file used by a test of the {@link WorkflowDownload}.
+     */
+    @After
+    public void tearDown() {
+        if (m_partFile != null) {
+            m_partFile.delete();
+            new File(m_partFile.getPath() + ".state").delete();
+        }
+    }
+
+    private static byte[] createData(final int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Downloads all ranges in parallel.
+     *
+     * @throws Exception if the download fails
+     */
+    @Test
+    public void testDownload() throws Exception {
+        RangeStream stream = new RangeStream(createData(CHUNK_SIZE * 10 + 1234));
+        File target = new File(m_tempFolder.getRoot(), "download.tmp");
+        RangedDownload download = new RangedDownload(stream, target, CHUNK_SIZE);
+        AtomicLong reported = new AtomicLong();
+        assertTrue("Download not finished", download.download(reported::set, () -> false));
+
+        assertArrayEquals("Downloaded data", stream.m_data, Files.readAllBytes(target.toPath()));
+        assertEquals("Reported progress", stream.m_data.length, reported.get());
+        assertEquals("Number of range requests", 11, stream.m_requestedOffsets.size());
+        assertFalse("State file not deleted", new File(target.getPath() + ".state").exists());
+    }
+
+    /**
+     * Ranges that are cut off are continued at the offset where they stopped.
+     *
+     * @throws Exception if the download fails
+     */
+    @Test
+    public void testContinueInterruptedRange() throws Exception {
+        RangeStream stream = new RangeStream(createData(CHUNK_SIZE * 10 + 1234));
+        stream.m_truncateOnce.add(0L);
+        stream.m_truncateOnce.add(3L * CHUNK_SIZE);
+        File target = new File(m_tempFolder.getRoot(), "download.tmp");
+        RangedDownload download = new RangedDownload(stream, target, CHUNK_SIZE);
+        assertTrue("Download not finished", download.download(l -> {}, () -> false));
+
+        assertArrayEquals("Downloaded data", stream.m_data, Files.readAllBytes(target.toPath()));
+        assertTrue("First range not continued", stream.m_requestedOffsets.contains((long)CHUNK_SIZE / 2));
+        assertTrue("Fourth range not continued",
+            stream.m_requestedOffsets.contains(3L * CHUNK_SIZE + CHUNK_SIZE / 2));
+    }
+
+    /**
+     * A failed download is continued by a new download into the same file, only fetching the missing ranges.
+     *
+     * @throws Exception if the download fails
+     */
+    @Test
+    public void testResumeFailedDownload() throws Exception {
+        RangeStream stream = new RangeStream(createData(CHUNK_SIZE * 10 + 1234));
+        stream.m_entityTag = "v1";
+        stream.m_brokenFrom = 6L * CHUNK_SIZE;
+        File target = new File(m_tempFolder.getRoot(), "download.tmp");
+        try {
+            new RangedDownload(stream, target, CHUNK_SIZE).download(l -> {}, () -> false);
+            fail("Download with broken ranges succeeded");
+        } catch (IOException e) {
+            // expected
+        }
+        assertTrue("State file missing", new File(target.getPath() + ".state").exists());
+
+        stream.m_brokenFrom = Long.MAX_VALUE;
+        stream.m_servedBytes.set(0);
+        RangedDownload resumed = new RangedDownload(stream, target, CHUNK_SIZE);
+        assertTrue("Previous progress not restored", resumed.getDownloaded() >= 6L * CHUNK_SIZE);
+        assertTrue("Resumed download not finished", resumed.download(l -> {}, () -> false));
+
+        assertArrayEquals("Downloaded data", stream.m_data, Files.readAllBytes(target.toPath()));
+        assertEquals("Served bytes when resuming", stream.m_data.length - 6L * CHUNK_SIZE,
+            stream.m_servedBytes.get());
+    }
+
+    /**
+     * A failed download is not continued if the entity tag of the data changed.
+     *
+     * @throws Exception if the download fails
+     */
+    @Test
+    public void testDontResumeChangedData() throws Exception {
+        RangeStream stream = new RangeStream(createData(CHUNK_SIZE * 10 + 1234));
+        stream.m_entityTag = "v1";
+        stream.m_brokenFrom = 6L * CHUNK_SIZE;
+        File target = new File(m_tempFolder.getRoot(), "download.tmp");
+        try {
+            new RangedDownload(stream, target, CHUNK_SIZE).download(l -> {}, () -> false);
+            fail("Download with broken ranges succeeded");
+        } catch (IOException e) {
+            // expected
+        }
+
+        RangeStream changed = new RangeStream(createData(CHUNK_SIZE * 10 + 1234));
+        changed.m_data[0]++;
+        changed.m_entityTag = "v2";
+        RangedDownload restarted = new RangedDownload(changed, target, CHUNK_SIZE);
+        assertEquals("Progress of different data restored", 0, restarted.getDownloaded());
+        assertTrue("Download not finished", restarted.download(l -> {}, () -> false));
+
+        assertArrayEquals("Downloaded data", changed.m_data, Files.readAllBytes(target.toPath()));
+        assertEquals("Served bytes", changed.m_data.length, changed.m_servedBytes.get());
+    }
+
+    /**
+     * A failed download is not continued if the source has no entity tag, since the data may have changed.
+     *
+     * @throws Exception if the download fails
+     */
+    @Test
+    public void testDontResumeWithoutEntityTag() throws Exception {
+        RangeStream stream = new RangeStream(createData(CHUNK_SIZE * 10 + 1234));
+        stream.m_brokenFrom = 6L * CHUNK_SIZE;
+        File target = new File(m_tempFolder.getRoot(), "download.tmp");
+        try {
+            new RangedDownload(stream, target, CHUNK_SIZE).download(l -> {}, () -> false);
+            fail("Download with broken ranges succeeded");
+        } catch (IOException e) {
+            // expected
+        }
+
+        stream.m_brokenFrom = Long.MAX_VALUE;
+        stream.m_servedBytes.set(0);
+        RangedDownload restarted = new RangedDownload(stream, target, CHUNK_SIZE);
+        assertEquals("Progress of unknown data restored", 0, restarted.getDownloaded());
+        assertTrue("Download not finished", restarted.download(l -> {}, () -> false));
+
+        assertArrayEquals("Downloaded data", stream.m_data, Files.readAllBytes(target.toPath()));
+        assertEquals("Served bytes", stream.m_data.length, stream.m_servedBytes.get());
+    }
+
+    /**
+     * Part files and their state are deleted once they haven't been modified for a while, unless they are claimed.
+     *
+     * @throws Exception if the files can't be created
+     */
+    @Test
+    public void testDeleteStalePartFiles() throws Exception {
+        File dir = m_tempFolder.getRoot();
+        long old = System.currentTimeMillis() - RangedDownload.PART_FILE_MAX_AGE - 60_000;
+        File stale = new File(dir, RangedDownload.getPartFile("stale").getName());
+        File staleState = new File(stale.getPath() + ".state");
+        File recent = new File(dir, RangedDownload.getPartFile("recent").getName());
+        File claimed = new File(dir, RangedDownload.getPartFile("claimed").getName());
+        File other = new File(dir, "other.part");
+        for (File f : new File[]{stale, staleState, recent, claimed, other}) {
+            assertTrue("Could not create " + f, f.createNewFile());
+        }
+        for (File f : new File[]{stale, staleState, claimed, other}) {
+            assertTrue("Could not set time of " + f, f.setLastModified(old));
+        }
+
+        assertTrue("Part file already claimed", RangedDownload.claimPartFile(claimed));
+        try {
+            RangedDownload.deleteStalePartFiles(dir, RangedDownload.PART_FILE_MAX_AGE);
+        } finally {
+            RangedDownload.releasePartFile(claimed);
+        }
+        assertFalse("Stale part file not deleted", stale.exists());
+        assertFalse("Stale state file not deleted", staleState.exists());
+        assertTrue("Recent part file deleted", recent.exists());
+        assertTrue("Claimed part file deleted", claimed.exists());
+        assertTrue("Unrelated file deleted", other.exists());
+    }
+
+    /**
+     * A canceled download returns false and can be discarded.
+     *
+     * @throws Exception if the download fails
+     */
+    @Test
+    public void testCancel() throws Exception {
+        RangeStream stream = new RangeStream(createData(CHUNK_SIZE * 10 + 1234));
+        stream.m_delay = 200;
+        File target = new File(m_tempFolder.getRoot(), "download.tmp");
+        RangedDownload download = new RangedDownload(stream, target, CHUNK_SIZE);
+        assertFalse("Canceled download finished", download.download(l -> {}, () -> true));
+        assertTrue("Downloaded all data", download.getDownloaded() < stream.m_data.length);
+        download.discard();
+        assertFalse("Target not deleted", target.exists());
+        assertFalse("State file not deleted", new File(target.getPath() + ".state").exists());
+    }
+
+    /**
+     * A second, separate download of a workflow continues the failed first download of the same workflow.
+     *
+     * @throws Exception if the download fails
+     */
+    @Test
+    public void testWorkflowDownloadResumesPreviousDownload() throws Exception {
+        RemoteExplorerFileStore source = mock(RemoteExplorerFileStore.class);
+        when(source.getRemoteHostID()).thenReturn("test-host");
+        when(source.getMountIDWithFullPath()).thenReturn("Server:/" + UUID.randomUUID() + "/workflow");
+        when(source.getFullName()).thenReturn("/workflow");
+        byte[] data = createData(RangedDownload.CHUNK_SIZE * 2 + 1234);
+
+        RangeStream broken = new RangeStream(data);
+        broken.m_entityTag = "v1";
+        broken.m_brokenFrom = RangedDownload.CHUNK_SIZE;
+        DownloadRunnable first = new DownloadRunnable(source, broken);
+        first.run();
+        assertTrue("First download not done", first.finished());
+        assertNull("First download succeeded", first.getTempFile());
+        assertNotNull("No error message for the first download", first.getErrorMessage());
+
+        m_partFile = RangedDownload.getPartFile("test-host|" + source.getMountIDWithFullPath());
+        assertTrue("Part file deleted", m_partFile.isFile());
+        assertTrue("State file deleted", new File(m_partFile.getPath() + ".state").isFile());
+        long previouslyDownloaded = new RangedDownload(broken, m_partFile, RangedDownload.CHUNK_SIZE).getDownloaded();
+        assertTrue("Nothing downloaded by the first download", previouslyDownloaded > 0);
+
+        RangeStream working = new RangeStream(data);
+        working.m_entityTag = "v1";
+        DownloadRunnable second = new DownloadRunnable(source, working);
+        second.run();
+        assertTrue("Second download not successful", second.waitUntilDone());
+        File downloaded = second.getTempFile();
+        assertNotNull("Second download failed: " + second.getErrorMessage(), downloaded);
+        try {
+            assertArrayEquals("Downloaded data", data, Files.readAllBytes(downloaded.toPath()));
+            assertEquals("Served bytes of the second download", data.length - previouslyDownloaded,
+                working.m_servedBytes.get());
+            assertFalse("Part file not moved", m_partFile.exists());
+            assertFalse("State file not deleted", new File(m_partFile.getPath() + ".state").exists());
+        } finally {
+            downloaded.delete();
+        }
+    }
+
+    /**
+     * A download that serves ranges of an array and can be told to fail, cut off or delay ranges.
+     */
+    private static final class RangeStream extends RemoteDownloadStream {
+
+        private final byte[] m_data;
+
+        /** Ranges starting at or after this offset fail. */
+        private volatile long m_brokenFrom = Long.MAX_VALUE;
+
+        /** Offsets of ranges that are cut in half once. */
+        private final Set<Long> m_truncateOnce = ConcurrentHashMap.newKeySet();
+
+        /** Delay before a range is served, in ms. */
+        private volatile long m_delay;
+
+        private volatile String m_entityTag;
+
+        private final AtomicLong m_servedBytes = new AtomicLong();
+
+        private final Set<Long> m_requestedOffsets = ConcurrentHashMap.newKeySet();
+
+        RangeStream(final byte[] data) {
+            m_data = data;
+        }
+
+        @Override
+        public int read() throws IOException {
+            throw new IOException("Only ranged reads in this test");
+        }
+
+        @Override
+        public boolean readyForDownload() {
+            return true;
+        }
+
+        @Override
+        public long length() {
+            return m_data.length;
+        }
+
+        @Override
+        public List<String> getMessages() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean supportsRangedRead() {
+            return true;
+        }
+
+        @Override
+        public String getEntityTag() {
+            return m_entityTag;
+        }
+
+        @Override
+        public InputStream openRange(final long offset, final long length) throws IOException {
+            m_requestedOffsets.add(offset);
+            if (m_delay > 0) {
+                try {
+                    Thread.sleep(m_delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (offset >= m_brokenFrom) {
+                throw new IOException("Range " + offset + " not available");
+            }
+            // a truncated range ends too early
+            int send = (int)(m_truncateOnce.remove(offset) ? length / 2 : length);
+            m_servedBytes.addAndGet(send);
+            return new ByteArrayInputStream(m_data, (int)offset, send);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.view.actions.export;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.ui.internal.wizards.datatransfer.ZipLeveledStructureProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that archives written by the parallel {@link Zipper} are read by the workflow import
+ * ({@link ZipLeveledStructureProvider}) exactly like archives written sequentially with a {@link ZipOutputStream}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@SuppressWarnings("restriction")
+public class ZipperImportCompatibilityTest {
+
+    /** Temporary folder for the files and archives. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    private File m_root;
+
+    private List<File> m_files;
+
+    /**
+     * Creates a workflow-like folder with small, large, compressible, incompressible and empty files.
+     *
+     * @throws IOException if the files cannot be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        m_root = m_tempFolder.newFolder("files");
+        File workflow = new File(m_root, "Group/Workflow 1");
+        File node = new File(workflow, "Node (#1)");
+        File port = new File(node, "port_0");
+        assertTrue(port.mkdirs());
+        assertTrue(new File(workflow, "empty folder").mkdirs());
+
+        Random random = new Random(42);
+        StringBuilder xml = new StringBuilder();
+        for (int i = 0; xml.length() < 100_000; i++) {
+            xml.append("<entry key=\"key_").append(i).append("\" value=\"").append(i % 17).append("\"/>\n");
+        }
+        write(new File(workflow, "workflow.knime"), xml.toString().getBytes(StandardCharsets.UTF_8));
+        write(new File(node, "settings.xml"), xml.substring(0, 5000).getBytes(StandardCharsets.UTF_8));
+        write(new File(workflow, ".knimeLock"), new byte[0]);
+        write(new File(node, "image.png"), randomBytes(random, 50_000));
+        write(new File(node, "small random.bin"), randomBytes(random, 30_000));
+        write(new File(port, "data.parquet"), randomBytes(random, (int)Zipper.LARGE_FILE_SIZE + 123_456));
+        // compressible and larger than a few blocks, not a multiple of the block size
+        byte[] large = new byte[3 * (int)Zipper.LARGE_FILE_SIZE + 7];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte)((i / 1000) % 50 + (random.nextInt(4) == 0 ? random.nextInt(3) : 0));
+        }
+        write(new File(port, "data.bin"), large);
+        // incompressible, exactly a multiple of the block size
+        write(new File(port, "random.bin"), randomBytes(random, 2 * (int)Zipper.LARGE_FILE_SIZE));
+
+        try (Stream<Path> s = Files.walk(m_root.toPath())) {
+            m_files = s.map(Path::toFile).filter(f -> f.isFile() || f.list().length == 0)
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Compares what the import reads from both archives.
+     *
+     * @throws Exception if reading or writing fails
+     */
+    @Test
+    public void testImportReadsSameContent() throws Exception {
+        int stripOff = m_root.toPath().getNameCount();
+        File expectedZip = m_tempFolder.newFile("expected.zip");
+        zipSequentially(m_files, expectedZip, stripOff);
+        File actualZip = m_tempFolder.newFile("actual.zip");
+        Zipper.zipFiles(m_files, actualZip, stripOff, new NullProgressMonitor());
+
+        Map<String, byte[]> expected = readAsImport(expectedZip);
+        Map<String, byte[]> actual = readAsImport(actualZip);
+        assertEquals("Archive entries", expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> e : expected.entrySet()) {
+            assertArrayEquals("Content of " + e.getKey(), e.getValue(), actual.get(e.getKey()));
+        }
+        assertTrue("Empty folder missing", actual.containsKey("Group/Workflow 1/empty folder/"));
+
+        try (ZipFile zip = new ZipFile(actualZip)) {
+            String node = "Group/Workflow 1/Node (#1)/";
+            assertEquals("Compressed image must be stored", ZipEntry.STORED, zip.getEntry(node + "image.png").getMethod());
+            assertEquals("Compressed data must be stored", ZipEntry.STORED,
+                zip.getEntry(node + "port_0/data.parquet").getMethod());
+            assertEquals("Incompressible file must be stored", ZipEntry.STORED,
+                zip.getEntry(node + "small random.bin").getMethod());
+            ZipEntry large = zip.getEntry(node + "port_0/data.bin");
+            assertEquals("Large file must be deflated", ZipEntry.DEFLATED, large.getMethod());
+            assertTrue("Large file not compressed", large.getCompressedSize() < large.getSize() / 2);
+            ZipEntry xml = zip.getEntry("Group/Workflow 1/workflow.knime");
+            assertEquals("XML must be deflated", ZipEntry.DEFLATED, xml.getMethod());
+        }
+    }
+
+    /**
+     * Checks that a canceled export fails and doesn't leave a partial archive.
+     *
+     * @throws Exception if the test setup fails
+     */
+    @Test
+    public void testCancelDeletesArchive() throws Exception {
+        File zip = m_tempFolder.newFile("canceled.zip");
+        NullProgressMonitor monitor = new NullProgressMonitor() {
+            private int m_work;
+
+            @Override
+            public void worked(final int work) {
+                m_work += work;
+                if (m_work > 1000) {
+                    setCanceled(true);
+                }
+            }
+        };
+        try {
+            Zipper.zipFiles(m_files, zip, m_root.toPath().getNameCount(), monitor);
+            fail("Expected the export to be canceled");
+        } catch (IOException e) {
+            assertEquals("Canceled.", e.getMessage());
+        }
+        assertFalse("Partial archive not deleted", zip.exists());
+    }
+
+    /** Reads all entries like the import does, folders map to an empty array. */
+    private static Map<String, byte[]> readAsImport(final File zipFile) throws IOException {
+        Map<String, byte[]> result = new TreeMap<>();
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            ZipLeveledStructureProvider provider = new ZipLeveledStructureProvider(zip);
+            readAsImport(provider, provider.getRoot(), result);
+        }
+        return result;
+    }
+
+    private static void readAsImport(final ZipLeveledStructureProvider provider, final Object entry,
+        final Map<String, byte[]> result) throws IOException {
+        if (provider.isFolder(entry)) {
+            String path = provider.getFullPath(entry);
+            if (!path.isEmpty() && !"/".equals(path)) {
+                result.put(StringUtils.appendIfMissing(path, "/"), new byte[0]);
+            }
+            for (Object child : provider.getChildren(entry)) {
+                readAsImport(provider, child, result);
+            }
+        } else {
+            try (InputStream in = provider.getContents(entry)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buf = new byte[8192];
+                int read;
+                while ((read = in.read(buf)) >= 0) {
+                    out.write(buf, 0, read);
+                }
+                result.put(provider.getFullPath(entry), out.toByteArray());
+            }
+        }
+    }
+
+    /** Writes the archive the way the export did before it was parallelized. */
+    private static void zipSequentially(final List<File> files, final File outputFile, final int stripOff)
+        throws IOException {
+        try (ZipOutputStream zout = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+            zout.setLevel(9);
+            for (File f : files) {
+                Path path = f.toPath().toAbsolutePath();
+                String name = Arrays.stream(path.subpath(stripOff, path.getNameCount()).toString().split("[/\\\\]"))
+                    .collect(Collectors.joining("/"));
+                if (f.isDirectory()) {
+                    zout.putNextEntry(new ZipEntry(name + "/"));
+                } else {
+                    zout.putNextEntry(new ZipEntry(name));
+                    zout.write(Files.readAllBytes(f.toPath()));
+                }
+                zout.closeEntry();
+            }
+        }
+    }
+
+    private static byte[] randomBytes(final Random random, final int length) {
+        byte[] b = new byte[length];
+        random.nextBytes(b);
+        return b;
+    }
+
+    private static void write(final File f, final byte[] content) throws IOException {
+        Files.write(f.toPath(), content);
+    }
+}
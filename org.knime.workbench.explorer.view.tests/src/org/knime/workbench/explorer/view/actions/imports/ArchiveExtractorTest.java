@@ -0,0 +1,187 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.view.actions.imports;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.ui.internal.wizards.datatransfer.ZipLeveledStructureProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the {@link ArchiveExtractor} used by the workflow import.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@SuppressWarnings("restriction")
+public class ArchiveExtractorTest {
+
+    private static final int WORKFLOWS = 20;
+
+    private static final int FILES_PER_NODE = 10;
+
+    /** Temporary folder for the archive and the extracted files. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    private File m_archive;
+
+    /**
+     * Creates an archive with a workflow group containing workflows with nodes (and implicit directories, i.e.
+     * directories without an entry of their own).
+     *
+     * @throws IOException if the archive cannot be written
+     */
+    @Before
+    public void setUp() throws IOException {
+        m_archive = m_tempFolder.newFile("group.knar");
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(m_archive)))) {
+            zip.putNextEntry(new ZipEntry("Group/"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("Group/Empty/"));
+            zip.closeEntry();
+            for (int w = 0; w < WORKFLOWS; w++) {
+                zip.putNextEntry(new ZipEntry("Group/Workflow " + w + "/workflow.knime"));
+                zip.write(content("Group/Workflow " + w + "/workflow.knime"));
+                zip.closeEntry();
+                for (int f = 0; f < FILES_PER_NODE; f++) {
+                    String name = "Group/Workflow " + w + "/Node (#1)/file" + f + ".xml";
+                    zip.putNextEntry(new ZipEntry(name));
+                    zip.write(content(name));
+                    zip.closeEntry();
+                }
+            }
+        }
+    }
+
+    /**
+     * Extracts all but one workflow and checks the content of all files.
+     *
+     * @throws Exception if extracting fails
+     */
+    @Test
+    public void testExtractWithUncheckedWorkflow() throws Exception {
+        File target = new File(m_tempFolder.getRoot(), "extracted");
+        try (ZipFile zipFile = new ZipFile(m_archive)) {
+            ZipLeveledStructureProvider provider = new ZipLeveledStructureProvider(zipFile);
+            Object group = provider.getChildren(provider.getRoot()).get(0);
+            Object unchecked = null;
+            for (Object child : provider.getChildren(group)) {
+                if (provider.getFullPath(child).startsWith("Group/Workflow 3")) {
+                    unchecked = child;
+                }
+            }
+            Set<Object> skipped = new HashSet<>(Collections.singleton(unchecked));
+            List<String> paths =
+                new ArchiveExtractor(provider, skipped).extract(group, target, new NullProgressMonitor());
+            // group, empty dir, workflows with node dir and files
+            assertEquals("Extracted entries", 2 + (WORKFLOWS - 1) * (3 + FILES_PER_NODE), paths.size());
+        }
+
+        assertTrue("Empty directory missing", new File(target, "Empty").isDirectory());
+        assertFalse("Unchecked workflow extracted", new File(target, "Workflow 3").exists());
+        for (int w = 0; w < WORKFLOWS; w++) {
+            if (w == 3) {
+                continue;
+            }
+            String wf = "Workflow " + w;
+            assertArrayEquals("Content of " + wf, content("Group/" + wf + "/workflow.knime"),
+                Files.readAllBytes(new File(target, wf + "/workflow.knime").toPath()));
+            for (int f = 0; f < FILES_PER_NODE; f++) {
+                String name = wf + "/Node (#1)/file" + f + ".xml";
+                assertArrayEquals("Content of " + name, content("Group/" + name),
+                    Files.readAllBytes(new File(target, name).toPath()));
+            }
+        }
+    }
+
+    /**
+     * Checks that a canceled extraction fails.
+     *
+     * @throws Exception if the test setup fails
+     */
+    @Test
+    public void testCancel() throws Exception {
+        NullProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+        try (ZipFile zipFile = new ZipFile(m_archive)) {
+            ZipLeveledStructureProvider provider = new ZipLeveledStructureProvider(zipFile);
+            new ArchiveExtractor(provider, Collections.emptySet()).extract(provider.getRoot(),
+                new File(m_tempFolder.getRoot(), "canceled"), monitor);
+            fail("Expected the extraction to be canceled");
+        } catch (IOException e) {
+            assertEquals("Canceled.", e.getMessage());
+        }
+    }
+
+    private static byte[] content(final String name) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            b.append(name).append(' ').append(i).append('\n');
+        }
+        return b.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -44,8 +44,18 @@
  */
 package org.knime.workbench.explorer.filesystem;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Used to download server items from a remote store location.
@@ -55,6 +65,16 @@
  */
 public abstract class RemoteDownloadStream extends InputStream {
 
+    /** First delay between two checks of {@link #readyForDownload()} in ms, doubled after each check. */
+    private static final long MIN_READY_POLL_DELAY = 25;
+
+    /** Maximum delay between two checks of {@link #readyForDownload()} in ms. */
+    private static final long MAX_READY_POLL_DELAY = 1000;
+
+    private final CompletableFuture<Void> m_ready = new CompletableFuture<>();
+
+    private final AtomicBoolean m_pollingStarted = new AtomicBoolean();
+
     /**
      * @return true, if the server finished packing the flow and is ready to
      *         provide data for downlaod. If false is returned, other methods
@@ -62,6 +82,87 @@ public abstract class RemoteDownloadStream extends InputStream {
      */
     public abstract boolean readyForDownload();
 
+    /**
+     * Returns a future that completes once the server is ready to provide the data, without blocking a thread while
+     * waiting. Unless the implementation {@link #supportsReadyNotification() notifies} about readiness itself,
+     * {@link #readyForDownload()} is checked on a shared, bounded pool of background threads, first immediately and
+     * then with increasing delays (up to one second). The future is shared by all callers, canceling it stops the
+     * checks.
+     *
+     * @return a future that completes when the download is ready, or exceptionally if checking the readiness failed
+     * @since 8.6
+     */
+    public CompletableFuture<Void> whenReadyForDownload() {
+        if (!supportsReadyNotification() && m_pollingStarted.compareAndSet(false, true)) {
+            pollReadiness(0);
+        }
+        return m_ready;
+    }
+
+    /**
+     * Whether the implementation calls {@link #notifyReadyForDownload()} (or {@link #notifyDownloadFailed(Throwable)})
+     * itself, e.g. because the server pushes a notification. In this case {@link #readyForDownload()} is not polled by
+     * {@link #whenReadyForDownload()}. The default implementation returns false.
+     *
+     * @return true, if readiness is notified by the implementation
+     * @since 8.6
+     */
+    protected boolean supportsReadyNotification() {
+        return false;
+    }
+
+    /**
+     * Completes the future returned by {@link #whenReadyForDownload()}. Can be called from any thread.
+     *
+     * @since 8.6
+     */
+    protected final void notifyReadyForDownload() {
+        m_ready.complete(null);
+    }
+
+    /**
+     * Completes the future returned by {@link #whenReadyForDownload()} exceptionally, e.g. if the server failed to
+     * prepare the download. Can be called from any thread.
+     *
+     * @param cause the reason of the failure
+     * @since 8.6
+     */
+    protected final void notifyDownloadFailed(final Throwable cause) {
+        m_ready.completeExceptionally(cause);
+    }
+
+    private void pollReadiness(final long delay) {
+        Runnable check = () -> {
+            if (m_ready.isDone()) {
+                // ready, failed or canceled
+                return;
+            }
+            try {
+                if (readyForDownload()) {
+                    m_ready.complete(null);
+                } else {
+                    pollReadiness(Math.min(Math.max(MIN_READY_POLL_DELAY, 2 * delay), MAX_READY_POLL_DELAY));
+                }
+            } catch (RuntimeException e) {
+                m_ready.completeExceptionally(e);
+            }
+        };
+        try {
+            if (delay == 0) {
+                ReadinessPoller.CHECKS.execute(check);
+            } else {
+                // the scheduler only waits, the (blocking) check runs on the pool
+                ReadinessPoller.SCHEDULER.schedule(() -> {
+                    if (!m_ready.isDone()) {
+                        ReadinessPoller.CHECKS.execute(check);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            m_ready.completeExceptionally(e);
+        }
+    }
+
     /**
      * @return the number of bytes in the stream (if known), or -1 (if not
      *         known).
@@ -76,4 +177,72 @@ public abstract class RemoteDownloadStream extends InputStream {
      */
     public abstract List<String> getMessages();
 
+    /**
+     * Whether the data of this download can also be fetched in independent ranges via {@link #openRange(long, long)},
+     * e.g. because the server supports HTTP range requests. Only asked after {@link #readyForDownload()} returned
+     * true. The default implementation returns false.
+     *
+     * @return true, if {@link #openRange(long, long)} is supported and {@link #length()} is known
+     * @since 8.6
+     */
+    public boolean supportsRangedRead() {
+        return false;
+    }
+
+    /**
+     * Opens a new stream on a range of the data of this download. The returned stream is independent of this stream
+     * and of other ranges, i.e. several ranges can be read concurrently from different threads. Only called if
+     * {@link #supportsRangedRead()} returns true.
+     *
+     * @param offset the offset of the first byte of the range
+     * @param length the number of bytes in the range
+     * @return a stream providing the bytes of the range
+     * @throws IOException if the range can't be opened; the default implementation always throws it, as ranged reads
+     *             aren't supported
+     * @since 8.6
+     */
+    public InputStream openRange(final long offset, final long length) throws IOException {
+        throw new IOException("Ranged reads are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Identifies the version of the data of this download, e.g. the HTTP entity tag sent by the server. A partially
+     * downloaded file is only continued by a later download of the same item if length and tag are unchanged. Only
+     * asked if {@link #supportsRangedRead()} returns true. The default implementation returns null, i.e. only the
+     * length is compared.
+     *
+     * @return an identifier of the version of the data, or null if not known
+     * @since 8.6
+     */
+    public String getEntityTag() {
+        return null;
+    }
+
+    /**
+     * Lazily creates the threads that check the readiness of all downloads. A single thread waits for the delays
+     * between the checks, the checks themselves (server round-trips) run on a bounded pool, so a slow server doesn't
+     * delay the checks of other downloads.
+     */
+    private static final class ReadinessPoller {
+        private static final int MAX_CHECK_THREADS = 8;
+
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "KNIME remote download readiness scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+
+        private static final ThreadPoolExecutor CHECKS;
+
+        static {
+            AtomicInteger threadCount = new AtomicInteger();
+            CHECKS = new ThreadPoolExecutor(MAX_CHECK_THREADS, MAX_CHECK_THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "KNIME remote download readiness " + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+            CHECKS.allowCoreThreadTimeOut(true);
+        }
+    }
 }
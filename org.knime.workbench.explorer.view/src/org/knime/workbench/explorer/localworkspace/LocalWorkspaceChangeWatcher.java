@@ -0,0 +1,280 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.localworkspace;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Watches the directories of a local workspace mount that have been listed and reports the changes in batches.
+ * Events are collected until no new event arrived for the debounce delay (but at most for {@link #MAX_DELAY_MS})
+ * and are coalesced per directory, so that a burst of writes results in one notification per affected directory.
+ *
+ * Only directories passed to {@link #watch(File)} are watched, i.e. the cost depends on the number of shown
+ * directories and the number of changes, not on the size of the workspace.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class LocalWorkspaceChangeWatcher implements AutoCloseable {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(LocalWorkspaceChangeWatcher.class);
+
+    /** Default delay without new events before the collected changes are reported. */
+    static final long DEBOUNCE_MS = 300;
+
+    /** Maximum delay between the first event of a batch and its report. */
+    static final long MAX_DELAY_MS = 2000;
+
+    /** Maximum number of watched directories (each one uses an OS resource, e.g. an inotify watch). */
+    static final int MAX_WATCHED_DIRS = 2000;
+
+    /** The coalesced changes of one directory. */
+    static final class DirectoryChanges {
+        private final Path m_directory;
+
+        private final Set<String> m_names = new LinkedHashSet<>();
+
+        private final Set<String> m_created = new LinkedHashSet<>();
+
+        private boolean m_overflow;
+
+        private DirectoryChanges(final Path directory) {
+            m_directory = directory;
+        }
+
+        /**
+         * @return the watched directory
+         */
+        Path getDirectory() {
+            return m_directory;
+        }
+
+        /**
+         * @return the names of all changed (created, deleted or modified) children
+         */
+        Set<String> getNames() {
+            return Collections.unmodifiableSet(m_names);
+        }
+
+        /**
+         * @return the names of the children that have been created (and not deleted afterwards)
+         */
+        Set<String> getCreated() {
+            return Collections.unmodifiableSet(m_created);
+        }
+
+        /**
+         * @return whether events have been lost, i.e. the directory must be re-read completely
+         */
+        boolean isOverflow() {
+            return m_overflow;
+        }
+
+        private void add(final WatchEvent<?> event) {
+            if (event.kind() == OVERFLOW) {
+                m_overflow = true;
+                return;
+            }
+            String name = ((Path)event.context()).toString();
+            m_names.add(name);
+            if (event.kind() == ENTRY_CREATE) {
+                m_created.add(name);
+            } else if (event.kind() == ENTRY_DELETE) {
+                m_created.remove(name);
+            }
+        }
+    }
+
+    /** Receives the changes collected by the watcher. */
+    @FunctionalInterface
+    interface ChangeListener {
+        /**
+         * Called from the watcher thread with one batch of changes.
+         *
+         * @param changes the changes, one element per directory
+         */
+        void changed(Collection<DirectoryChanges> changes);
+    }
+
+    private final WatchService m_watchService;
+
+    private final ChangeListener m_listener;
+
+    private final long m_debounceMs;
+
+    private final Set<Path> m_watched = ConcurrentHashMap.newKeySet();
+
+    private final Thread m_thread;
+
+    private volatile boolean m_closed;
+
+    /**
+     * Creates and starts a new watcher.
+     *
+     * @param name the name of the watcher thread
+     * @param listener receives the changes
+     * @param debounceMs the delay without new events before changes are reported
+     * @throws IOException if the watch service cannot be created
+     */
+    LocalWorkspaceChangeWatcher(final String name, final ChangeListener listener, final long debounceMs)
+        throws IOException {
+        m_watchService = FileSystems.getDefault().newWatchService();
+        m_listener = listener;
+        m_debounceMs = debounceMs;
+        m_thread = new Thread(this::run, name);
+        m_thread.setDaemon(true);
+        m_thread.start();
+    }
+
+    /**
+     * Starts watching the given directory (if not watched already). Does nothing if the watcher is closed or the
+     * maximum number of watched directories is reached.
+     *
+     * @param dir the directory
+     */
+    void watch(final File dir) {
+        Path path = dir.toPath();
+        if (m_closed || m_watched.contains(path)) {
+            return;
+        }
+        if (m_watched.size() >= MAX_WATCHED_DIRS) {
+            LOGGER.debug("Not watching \"" + dir + "\" for changes, already watching " + MAX_WATCHED_DIRS
+                + " directories");
+            return;
+        }
+        if (m_watched.add(path)) {
+            try {
+                path.register(m_watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            } catch (IOException | ClosedWatchServiceException | SecurityException e) {
+                LOGGER.debug("Could not watch \"" + dir + "\" for changes: " + e.getMessage(), e);
+                m_watched.remove(path);
+            }
+        }
+    }
+
+    /**
+     * @param dir a directory
+     * @return whether the directory is watched
+     */
+    boolean isWatched(final File dir) {
+        return m_watched.contains(dir.toPath());
+    }
+
+    /**
+     * Stops the watcher thread and releases all watches.
+     */
+    @Override
+    public void close() {
+        m_closed = true;
+        m_thread.interrupt();
+        try {
+            m_watchService.close();
+        } catch (IOException e) {
+            LOGGER.debug("Could not close file watcher: " + e.getMessage(), e);
+        }
+        m_watched.clear();
+    }
+
+    private void run() {
+        try {
+            while (!m_closed) {
+                WatchKey key = m_watchService.take();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_MS);
+                Map<Path, DirectoryChanges> changes = new LinkedHashMap<>();
+                while (key != null) {
+                    collect(key, changes);
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    key = m_watchService.poll(Math.min(TimeUnit.MILLISECONDS.toNanos(m_debounceMs), remaining),
+                        TimeUnit.NANOSECONDS);
+                }
+                if (!changes.isEmpty()) {
+                    try {
+                        m_listener.changed(changes.values());
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Could not process file system changes: " + e.getMessage(), e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void collect(final WatchKey key, final Map<Path, DirectoryChanges> changes) {
+        Path dir = (Path)key.watchable();
+        DirectoryChanges dirChanges = changes.computeIfAbsent(dir, DirectoryChanges::new);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            dirChanges.add(event);
+        }
+        if (!key.reset()) {
+            // directory is gone or no longer accessible
+            m_watched.remove(dir);
+        }
+    }
+}
@@ -45,7 +45,11 @@
 package org.knime.workbench.explorer.localworkspace;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -69,6 +73,8 @@
 import org.eclipse.swt.widgets.MessageBox;
 import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.workflow.FileSingleNodeContainerPersistor;
+import org.knime.core.node.workflow.WorkflowPersistor;
 import org.knime.workbench.core.util.ImageRepository;
 import org.knime.workbench.core.util.ImageRepository.SharedImages;
 import org.knime.workbench.explorer.filesystem.AbstractExplorerFileStore;
@@ -94,6 +100,12 @@
 public class LocalWorkspaceContentProvider extends AbstractContentProvider {
     private static final NodeLogger LOGGER = NodeLogger.getLogger(LocalWorkspaceContentProvider.class);
 
+    private final LocalWorkspaceFileInfoCache m_fileInfoCache = new LocalWorkspaceFileInfoCache();
+
+    private LocalWorkspaceChangeWatcher m_changeWatcher;
+
+    private boolean m_changeWatcherFailed;
+
     /**
      * @param factory the factory that created us.
      * @param id mount id
@@ -114,6 +126,150 @@ private static boolean isChildOfOrSame(
         return isChildOfOrSame(candidateParent, parent);
     }
 
+    /**
+     * @return the cache for the types of the files of this mount
+     */
+    LocalWorkspaceFileInfoCache getFileInfoCache() {
+        return m_fileInfoCache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void refreshCachedInfo(final AbstractExplorerFileStore changedChild) {
+        if (changedChild == null) {
+            m_fileInfoCache.clear();
+            return;
+        }
+        try {
+            File file = changedChild.toLocalFile();
+            if (file != null) {
+                m_fileInfoCache.invalidateTree(file);
+            } else {
+                m_fileInfoCache.clear();
+            }
+        } catch (CoreException e) {
+            LOGGER.debug("Could not convert \"" + changedChild + "\" to a local file: " + e.getMessage(), e);
+            m_fileInfoCache.clear();
+        }
+    }
+
+    /**
+     * Watches the given directory for changes done outside of the explorer, e.g. by batch executors writing into
+     * the workspace. The watcher is created with the first watched directory.
+     */
+    private synchronized void watchForChanges(final LocalExplorerFileStore dir) {
+        if (m_changeWatcher == null) {
+            if (m_changeWatcherFailed) {
+                return;
+            }
+            try {
+                m_changeWatcher = new LocalWorkspaceChangeWatcher("KNIME Explorer File Watcher (" + getMountID() + ")",
+                    this::fileSystemChanged, LocalWorkspaceChangeWatcher.DEBOUNCE_MS);
+            } catch (IOException | UnsupportedOperationException e) {
+                LOGGER.info("Changes in \"" + getMountID() + "\" done outside of KNIME will only be shown after a "
+                    + "refresh: " + e.getMessage(), e);
+                m_changeWatcherFailed = true;
+                return;
+            }
+        }
+        try {
+            File file = dir.toLocalFile();
+            if (file != null) {
+                m_changeWatcher.watch(file);
+            }
+        } catch (CoreException e) {
+            LOGGER.debug("Could not convert \"" + dir + "\" to a local file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Called by the watcher thread. Drops the affected cache entries and tells the view which children have been
+     * added, removed or updated. Directories whose type may have changed (or that lost events) are refreshed.
+     */
+    private void fileSystemChanged(final Collection<LocalWorkspaceChangeWatcher.DirectoryChanges> changes) {
+        for (LocalWorkspaceChangeWatcher.DirectoryChanges c : changes) {
+            File dir = c.getDirectory().toFile();
+            LocalExplorerFileStore dirStore = fromLocalFile(dir);
+            if (dirStore == null) {
+                continue;
+            }
+            m_fileInfoCache.invalidate(dir);
+            List<LocalExplorerFileStore> added = new ArrayList<>();
+            List<LocalExplorerFileStore> removed = new ArrayList<>();
+            List<LocalExplorerFileStore> updated = new ArrayList<>();
+            boolean typeChanged = c.isOverflow();
+            Set<String> shownNames = null;
+            for (String name : c.getNames()) {
+                File file = new File(dir, name);
+                m_fileInfoCache.invalidateTree(file);
+                boolean exists = file.exists();
+                if (isTypeFile(name)) {
+                    if (exists && !c.getCreated().contains(name)) {
+                        if (!updated.contains(dirStore)) {
+                            updated.add(dirStore);
+                        }
+                    } else {
+                        typeChanged = true;
+                    }
+                }
+                if (typeChanged || isHiddenFile(name)) {
+                    continue;
+                }
+                LocalExplorerFileStore child = dirStore.getChild(name);
+                if (!exists) {
+                    removed.add(child);
+                } else if (c.getCreated().contains(name)) {
+                    if (shownNames == null) {
+                        shownNames = new HashSet<>();
+                        for (AbstractExplorerFileStore shown : getChildren(dirStore)) {
+                            shownNames.add(shown.getName());
+                        }
+                    }
+                    if (shownNames.contains(name)) {
+                        added.add(child);
+                    }
+                } else {
+                    updated.add(child);
+                }
+            }
+            if (typeChanged) {
+                refresh(dirStore);
+            } else if (!added.isEmpty() || !removed.isEmpty() || !updated.isEmpty()) {
+                fireContentDelta(dirStore, added, removed, updated);
+            }
+        }
+    }
+
+    private static boolean isTypeFile(final String name) {
+        return WorkflowPersistor.WORKFLOW_FILE.equals(name) || WorkflowPersistor.TEMPLATE_FILE.equals(name)
+            || FileSingleNodeContainerPersistor.SETTINGS_FILE_NAME.equals(name);
+    }
+
+    /**
+     * @return the store of this mount for the given file, null if the file is not inside the mount
+     */
+    private LocalExplorerFileStore fromLocalFile(final File file) {
+        try {
+            Path root = getRootStore().toLocalFile().toPath();
+            Path rel = root.relativize(file.toPath());
+            if (rel.startsWith("..")) {
+                return null;
+            }
+            StringBuilder fullPath = new StringBuilder();
+            for (Path p : rel) {
+                if (!p.toString().isEmpty()) {
+                    fullPath.append('/').append(p);
+                }
+            }
+            return (LocalExplorerFileStore)getFileStore(fullPath.length() == 0 ? "/" : fullPath.toString());
+        } catch (CoreException | IllegalArgumentException e) {
+            LOGGER.debug("Could not find the store for \"" + file + "\": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
     /*
      * ------------ Content Provider Methods --------------------
      */
@@ -143,6 +299,7 @@ public AbstractExplorerFileStore[] getChildren(final Object parentElement) {
             return NO_CHILD;
         }
         LocalExplorerFileStore parent = (LocalExplorerFileStore)parentElement;
+        watchForChanges(parent);
 
         if (AbstractExplorerFileStore.isNode(parent)) {
             return NO_CHILD;
@@ -314,7 +471,11 @@ public String toString() {
      * {@inheritDoc}
      */
     @Override
-    public void dispose() {
+    public synchronized void dispose() {
+        if (m_changeWatcher != null) {
+            m_changeWatcher.close();
+            m_changeWatcher = null;
+        }
     }
 
     /**
@@ -47,11 +47,9 @@
 import java.io.File;
 
 import org.eclipse.core.filesystem.EFS;
-import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.runtime.CoreException;
 import org.knime.core.node.NodeLogger;
-import org.knime.core.node.workflow.FileSingleNodeContainerPersistor;
 import org.knime.core.node.workflow.MetaNodeTemplateInformation;
 import org.knime.core.node.workflow.WorkflowPersistor;
 import org.knime.core.util.workflowalizer.TemplateMetadata;
@@ -60,20 +58,42 @@
 import org.knime.workbench.explorer.filesystem.AbstractExplorerFileInfo;
 
 
+/**
+ * File info of a {@link LocalWorkspaceFileStore}. Whether the file exists and its type (workflow, workflow group,
+ * etc.) are determined from the {@link LocalWorkspaceFileInfoCache} of the mount, so that rendering the explorer tree
+ * does not probe the file system over and over again.
+ */
 public class LocalWorkspaceFileInfo extends AbstractExplorerFileInfo {
     private static final NodeLogger LOGGER = NodeLogger.getLogger(LocalWorkspaceFileInfo.class);
 
     private final IFileStore m_file;
 
+    private final LocalWorkspaceFileInfoCache m_cache;
+
+    // the local file, null if the file store cannot be converted
+    private final File m_localFile;
+
     //caches the isComponent flag
     private Boolean m_isComponent = null;
 
     /**
      * @param file The file store this file info belongs to
+     * @param cache the cache of the mount the file belongs to
      */
-    LocalWorkspaceFileInfo(final IFileStore file) {
+    LocalWorkspaceFileInfo(final IFileStore file, final LocalWorkspaceFileInfoCache cache) {
         super(file.getName());
         m_file = file;
+        m_cache = cache;
+        m_localFile = toLocalFile(file);
+    }
+
+    private static File toLocalFile(final IFileStore file) {
+        try {
+            return file.toLocalFile(EFS.NONE, null);
+        } catch (CoreException e) {
+            LOGGER.debug("Could not convert \"" + file + "\" to a local file: " + e.getMessage(), e);
+            return null;
+        }
     }
 
     /**
@@ -81,7 +101,7 @@ public class LocalWorkspaceFileInfo extends AbstractExplorerFileInfo {
      */
     @Override
     public boolean exists() {
-        return m_file.fetchInfo().exists();
+        return m_cache.get(m_localFile).exists();
     }
 
     /**
@@ -89,7 +109,7 @@ public boolean exists() {
      */
     @Override
     public boolean isDirectory() {
-        return m_file.fetchInfo().isDirectory();
+        return m_cache.get(m_localFile).isDirectory();
     }
 
     /**
@@ -129,7 +149,7 @@ public final void setAttribute(final int attribute, final boolean value) {
      */
     @Override
     public boolean isWorkflow() {
-        return exists() && isWorkflow(m_file);
+        return isWorkflow(m_localFile);
     }
 
     /**
@@ -137,7 +157,7 @@ public boolean isWorkflow() {
      */
     @Override
     public boolean isWorkflowGroup() {
-        return exists() && isWorkflowGroup(m_file);
+        return isWorkflowGroup(m_localFile);
     }
 
     /**
@@ -145,7 +165,7 @@ public boolean isWorkflowGroup() {
      */
     @Override
     public boolean isWorkflowTemplate() {
-        return exists() && isWorkflowTemplate(m_file);
+        return isWorkflowTemplate(m_localFile);
     }
 
     /**
@@ -153,7 +173,7 @@ public boolean isWorkflowTemplate() {
      */
     @Override
     public boolean isComponentTemplate() {
-        return exists() && isWorkflowTemplate() && isComponentTemplate(m_file);
+        return isWorkflowTemplate() && isComponentTemplate(m_file);
     }
 
     /**
@@ -161,7 +181,7 @@ public boolean isComponentTemplate() {
      */
     @Override
     public boolean isMetaNodeTemplate() {
-        return exists() && isWorkflowTemplate() && !isComponentTemplate(m_file);
+        return isWorkflowTemplate() && !isComponentTemplate(m_file);
     }
 
     /**
@@ -169,7 +189,7 @@ public boolean isMetaNodeTemplate() {
      */
     @Override
     public boolean isNode() {
-        return exists() && isNode(m_file);
+        return isNode(m_localFile);
     }
 
     /**
@@ -177,7 +197,7 @@ public boolean isNode() {
      */
     @Override
     public boolean isFile() {
-        return exists() && isDataFile(m_file);
+        return isDataFile(m_localFile);
     }
 
     /**
@@ -193,47 +213,26 @@ public boolean isReservedSystemItem() {
      */
     @Override
     public boolean isMetaNode() {
-        return exists() && isMetaNode(m_file);
+        return isMetaNode(m_localFile);
     }
 
-    private static boolean isWorkflow(final IFileStore file) {
-        if (file == null || !file.fetchInfo().exists()) {
-            return false;
-        }
-        IFileStore tmplateFile = file.getChild(WorkflowPersistor.TEMPLATE_FILE); // metanode, no workflow
-        if (tmplateFile.fetchInfo().exists()) {
-            return false;
-        }
-
-        IFileStore wfFile = file.getChild(WorkflowPersistor.WORKFLOW_FILE); // no workflow at all
-        if (!wfFile.fetchInfo().exists()) {
-            return false;
-        }
-
-        IFileStore parentFile = file.getParent();
-        if (parentFile == null) {
-            return false;
-        }
-        IFileStore parentWfFile = parentFile.getChild(WorkflowPersistor.WORKFLOW_FILE); // metanode inside a workflow
-        return !parentWfFile.fetchInfo().exists();
+    private boolean isWorkflow(final File file) {
+        LocalWorkspaceFileInfoCache.Entry entry = m_cache.get(file);
+        // metanode templates are no workflows, metanodes inside a workflow neither
+        return entry.exists() && !entry.hasTemplateFile() && entry.hasWorkflowFile()
+            && file.getParentFile() != null && !m_cache.get(file.getParentFile()).hasWorkflowFile();
     }
 
-    private static boolean isWorkflowGroup(final IFileStore file) {
-        if (file == null || !file.fetchInfo().exists()) {
-            return false;
-        }
-        return file.fetchInfo().isDirectory() && !isWorkflow(file)
+    private boolean isWorkflowGroup(final File file) {
+        LocalWorkspaceFileInfoCache.Entry entry = m_cache.get(file);
+        return entry.exists() && entry.isDirectory() && !isWorkflow(file)
                 && !isMetaNode(file) && !isNode(file)
                 && !isWorkflowTemplate(file);
     }
 
-    private static boolean isWorkflowTemplate(final IFileStore file) {
-        if (file == null || !file.fetchInfo().exists()) {
-            return false;
-        }
-        IFileStore templateFile = file.getChild(
-                WorkflowPersistor.TEMPLATE_FILE);
-        return templateFile.fetchInfo().exists();
+    private boolean isWorkflowTemplate(final File file) {
+        LocalWorkspaceFileInfoCache.Entry entry = m_cache.get(file);
+        return entry.exists() && entry.hasTemplateFile();
     }
 
     private boolean isComponentTemplate(final IFileStore file) {
@@ -253,36 +252,23 @@ private boolean isComponentTemplate(final IFileStore file) {
         return m_isComponent;
     }
 
-    private static boolean isMetaNode(final IFileStore file) {
-        if (file == null || !file.fetchInfo().exists()) {
-            return false;
-        }
-        IFileStore wfFile = file.getChild(WorkflowPersistor.WORKFLOW_FILE);
-        IFileStore parentFile = file.getParent();
-        if (parentFile == null) {
-            return false;
-        }
-        IFileStore parentWfFile = parentFile.getChild(
-                WorkflowPersistor.WORKFLOW_FILE);
-        return wfFile.fetchInfo().exists() && parentWfFile.fetchInfo().exists();
+    private boolean isMetaNode(final File file) {
+        LocalWorkspaceFileInfoCache.Entry entry = m_cache.get(file);
+        return entry.exists() && entry.hasWorkflowFile() && file.getParentFile() != null
+            && m_cache.get(file.getParentFile()).hasWorkflowFile();
     }
 
-    private static boolean isNode(final IFileStore file) {
-        if (file == null || !file.fetchInfo().exists() || isMetaNode(file)) {
+    private boolean isNode(final File file) {
+        LocalWorkspaceFileInfoCache.Entry entry = m_cache.get(file);
+        if (!entry.exists() || isMetaNode(file)) {
             return false;
         }
-        IFileStore containerFile = file.getChild(
-                FileSingleNodeContainerPersistor.SETTINGS_FILE_NAME);
-        return containerFile.fetchInfo().exists()
-                && isWorkflow(file.getParent());
+        return entry.hasSettingsFile() && file.getParentFile() != null && isWorkflow(file.getParentFile());
     }
 
-    private static boolean isDataFile(final IFileStore file) {
-        if (file == null) {
-            return false;
-        }
-        final IFileInfo fileInfo = file.fetchInfo();
-        return fileInfo.exists() && !fileInfo.isDirectory();
+    private boolean isDataFile(final File file) {
+        LocalWorkspaceFileInfoCache.Entry entry = m_cache.get(file);
+        return entry.exists() && !entry.isDirectory();
     }
 
     /**
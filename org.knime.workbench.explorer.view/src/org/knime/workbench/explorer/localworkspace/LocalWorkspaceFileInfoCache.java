@@ -0,0 +1,264 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.localworkspace;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.knime.core.node.workflow.FileSingleNodeContainerPersistor;
+import org.knime.core.node.workflow.WorkflowPersistor;
+
+/**
+ * Caches the file system information that determines the type of the files of a local workspace mount (workflow,
+ * workflow group, template, node or data file). Each file is resolved at most once with one stat of the file and,
+ * for directories, one probe for each of <tt>workflow.knime</tt>, <tt>template.knime</tt> and <tt>settings.xml</tt>.
+ *
+ * The entries of a directory's children are dropped whenever the directory is listed again, and all entries below
+ * a file are dropped when the file is refreshed. Changes done outside of the explorer are picked up after at most
+ * {@link #MAX_AGE_MS} milliseconds. Expired entries of a directory are dropped when one of them is accessed, and only
+ * the entries of the {@link #MAX_DIRECTORIES} most recently used directories are kept.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class LocalWorkspaceFileInfoCache {
+
+    /** Maximum age of an entry in milliseconds. */
+    static final long MAX_AGE_MS = 5000;
+
+    /** Default maximum number of directories whose children's entries are kept. */
+    static final int MAX_DIRECTORIES = 1000;
+
+    private static final Entry MISSING = new Entry(false, false, false, false, false);
+
+    /** Resolved information about one file. */
+    static final class Entry {
+        private final boolean m_exists;
+
+        private final boolean m_isDirectory;
+
+        private final boolean m_hasWorkflowFile;
+
+        private final boolean m_hasTemplateFile;
+
+        private final boolean m_hasSettingsFile;
+
+        private final long m_created = System.nanoTime();
+
+        private Entry(final boolean exists, final boolean isDirectory, final boolean hasWorkflowFile,
+            final boolean hasTemplateFile, final boolean hasSettingsFile) {
+            m_exists = exists;
+            m_isDirectory = isDirectory;
+            m_hasWorkflowFile = hasWorkflowFile;
+            m_hasTemplateFile = hasTemplateFile;
+            m_hasSettingsFile = hasSettingsFile;
+        }
+
+        boolean exists() {
+            return m_exists;
+        }
+
+        boolean isDirectory() {
+            return m_isDirectory;
+        }
+
+        /** @return whether the file is a directory containing a <tt>workflow.knime</tt> file */
+        boolean hasWorkflowFile() {
+            return m_hasWorkflowFile;
+        }
+
+        /** @return whether the file is a directory containing a <tt>template.knime</tt> file */
+        boolean hasTemplateFile() {
+            return m_hasTemplateFile;
+        }
+
+        /** @return whether the file is a directory containing a <tt>settings.xml</tt> file */
+        boolean hasSettingsFile() {
+            return m_hasSettingsFile;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - m_created > TimeUnit.MILLISECONDS.toNanos(MAX_AGE_MS);
+        }
+    }
+
+    /** Entries by parent directory and file name, so that the entries of a directory's children can be dropped at
+     * once. */
+    private final Map<File, Map<String, Entry>> m_entries;
+
+    private final AtomicLong m_statCount = new AtomicLong();
+
+    /** Creates a cache that keeps the entries of at most {@link #MAX_DIRECTORIES} directories. */
+    LocalWorkspaceFileInfoCache() {
+        this(MAX_DIRECTORIES);
+    }
+
+    /**
+     * @param maxDirectories the maximum number of directories whose children's entries are kept, the least recently
+     *            used directory is dropped first
+     */
+    LocalWorkspaceFileInfoCache(final int maxDirectories) {
+        m_entries = Collections.synchronizedMap(new LinkedHashMap<File, Map<String, Entry>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<File, Map<String, Entry>> eldest) {
+                return size() > maxDirectories;
+            }
+        });
+    }
+
+    /**
+     * @param file a file, may be null
+     * @return the (cached) information about the file, never null
+     */
+    Entry get(final File file) {
+        if (file == null) {
+            return MISSING;
+        }
+        File parent = file.getParentFile();
+        if (parent == null) {
+            // file system root
+            return resolve(file);
+        }
+        Map<String, Entry> children = m_entries.computeIfAbsent(parent, p -> new ConcurrentHashMap<>());
+        Entry entry = children.get(file.getName());
+        if (entry == null || entry.isExpired()) {
+            if (entry != null) {
+                // the siblings were most likely resolved at the same time
+                children.values().removeIf(Entry::isExpired);
+            }
+            entry = resolve(file);
+            children.put(file.getName(), entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Drops the entries of the children of the given directory, e.g. because it has been listed again.
+     *
+     * @param dir the directory
+     */
+    void invalidateChildren(final File dir) {
+        m_entries.remove(dir);
+    }
+
+    /**
+     * Drops the entry of the given file.
+     *
+     * @param file the file
+     */
+    void invalidate(final File file) {
+        File parent = file.getParentFile();
+        if (parent != null) {
+            Map<String, Entry> siblings = m_entries.get(parent);
+            if (siblings != null) {
+                siblings.remove(file.getName());
+            }
+        }
+    }
+
+    /**
+     * Drops the entries of the given file and all files below it.
+     *
+     * @param file the file
+     */
+    void invalidateTree(final File file) {
+        invalidate(file);
+        String prefix = file.getPath() + File.separator;
+        synchronized (m_entries) {
+            m_entries.keySet().removeIf(dir -> dir.equals(file) || dir.getPath().startsWith(prefix));
+        }
+    }
+
+    /** Drops all entries. */
+    void clear() {
+        m_entries.clear();
+    }
+
+    /**
+     * @return the number of file system probes (stat calls) done to resolve entries so far
+     */
+    long getStatCount() {
+        return m_statCount.get();
+    }
+
+    /**
+     * @return the number of directories whose children's entries are currently cached
+     */
+    int getDirectoryCount() {
+        return m_entries.size();
+    }
+
+    private Entry resolve(final File file) {
+        Path path = file.toPath();
+        BasicFileAttributes attrs;
+        try {
+            m_statCount.incrementAndGet();
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException | SecurityException e) {
+            return new Entry(false, false, false, false, false);
+        }
+        if (!attrs.isDirectory()) {
+            return new Entry(true, false, false, false, false);
+        }
+        return new Entry(true, true, probe(path.resolve(WorkflowPersistor.WORKFLOW_FILE)),
+            probe(path.resolve(WorkflowPersistor.TEMPLATE_FILE)),
+            probe(path.resolve(FileSingleNodeContainerPersistor.SETTINGS_FILE_NAME)));
+    }
+
+    private boolean probe(final Path path) {
+        m_statCount.incrementAndGet();
+        return Files.exists(path);
+    }
+}
@@ -170,6 +170,8 @@ private LocalWorkspaceFileStore(final String mountID,
     public String[] childNames(final int options, final IProgressMonitor monitor)
             throws CoreException {
         String[] children = m_file.childNames(options, monitor);
+        // the children's types are resolved again once per listing
+        getFileInfoCache().invalidateChildren(m_file.toLocalFile(EFS.NONE, null));
         // remove .metadata, .project and workflowset.meta from the list of shown children
         ArrayList<String> filteredChildren = new ArrayList<String>(children.length);
         for (String c : children) {
@@ -185,7 +187,18 @@ public String[] childNames(final int options, final IProgressMonitor monitor)
      */
     @Override
     public LocalWorkspaceFileInfo fetchInfo() {
-        return new LocalWorkspaceFileInfo(m_file);
+        return new LocalWorkspaceFileInfo(m_file, getFileInfoCache());
+    }
+
+    /**
+     * @return the file info cache of the mount, or a new (empty) one if this store's mount is not mounted
+     */
+    private LocalWorkspaceFileInfoCache getFileInfoCache() {
+        AbstractContentProvider provider = getContentProvider();
+        if (provider instanceof LocalWorkspaceContentProvider) {
+            return ((LocalWorkspaceContentProvider)provider).getFileInfoCache();
+        }
+        return new LocalWorkspaceFileInfoCache();
     }
 
     /**
@@ -305,6 +318,7 @@ public void importAsWorkflow(final LocalExplorerFileStore workflowSource, final
     public AbstractExplorerFileStore mkdir(final int options,
             final IProgressMonitor monitor) throws CoreException {
         m_file.mkdir(options, monitor);
+        getFileInfoCache().invalidate(m_file.toLocalFile(EFS.NONE, null));
         refreshResource(getParent());
         return this;
     }
@@ -315,6 +329,13 @@ public AbstractExplorerFileStore mkdir(final int options,
     @Override
     public OutputStream openOutputStream(final int options,
             final IProgressMonitor monitor) throws CoreException {
+        // the file may be created and change the type of its directory (e.g. workflow.knime)
+        File file = m_file.toLocalFile(EFS.NONE, null);
+        LocalWorkspaceFileInfoCache cache = getFileInfoCache();
+        cache.invalidate(file);
+        if (file.getParentFile() != null) {
+            cache.invalidate(file.getParentFile());
+        }
         return m_file.openOutputStream(options, monitor);
     }
 
@@ -231,10 +231,39 @@ public final void refresh() {
     }
 
     public final void refresh(final AbstractExplorerFileStore changedChild) {
+        refreshCachedInfo(changedChild);
         fireLabelProviderChanged(new LabelProviderChangedEvent(this,
                 changedChild));
     }
 
+    /**
+     * Tells the view that the content of the given directory changed by the given files only. Use
+     * {@link #refresh(AbstractExplorerFileStore)} if the changes are not known in detail.
+     *
+     * @param parent the directory whose content changed
+     * @param added new children of the directory
+     * @param removed children that no longer exist
+     * @param updated files whose label may have changed
+     * @since 8.6
+     */
+    protected final void fireContentDelta(final AbstractExplorerFileStore parent,
+        final Collection<? extends AbstractExplorerFileStore> added,
+        final Collection<? extends AbstractExplorerFileStore> removed,
+        final Collection<? extends AbstractExplorerFileStore> updated) {
+        fireLabelProviderChanged(new ContentDeltaEvent(this, parent, added, removed, updated));
+    }
+
+    /**
+     * Called on a refresh before the view is told to update. Providers that cache information about their file stores
+     * must drop it for the given store and everything below it. The default implementation does nothing.
+     *
+     * @param changedChild the refreshed store, null if everything is refreshed
+     * @since 8.6
+     */
+    protected void refreshCachedInfo(final AbstractExplorerFileStore changedChild) {
+        // nothing cached by default
+    }
+
     /**
      * Save state and parameters.
      *
@@ -104,6 +104,14 @@ public class ContentDelegator extends LabelProvider
      */
     public static final String CONTENT_CHANGED = "CONTENT_CHANGED";
 
+    /**
+     * The property for known changes of the content of one directory. The new value of the event is the
+     * {@link ContentDeltaEvent} describing the changes.
+     *
+     * @since 8.6
+     */
+    public static final String CONTENT_DELTA = "CONTENT_DELTA";
+
     private static final NodeLogger LOGGER = NodeLogger
             .getLogger(ContentDelegator.class);
 
@@ -673,7 +681,10 @@ public void labelProviderChanged(final LabelProviderChangedEvent event) {
             AbstractContentProvider source =
                     (AbstractContentProvider)event.getSource();
             Object refresh = event.getElement();
-            if (refresh instanceof AbstractExplorerFileStore) {
+            if (event instanceof ContentDeltaEvent) {
+                notifyListeners(new PropertyChangeEvent(source,
+                        CONTENT_DELTA, null, event));
+            } else if (refresh instanceof AbstractExplorerFileStore) {
                 notifyListeners(new PropertyChangeEvent(source,
                         CONTENT_CHANGED, null, refresh));
             } else {
@@ -0,0 +1,121 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.view;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
+import org.knime.workbench.explorer.filesystem.AbstractExplorerFileStore;
+
+/**
+ * Event fired by a content provider if the content of one directory changed by a known set of files. Unlike a
+ * plain {@link LabelProviderChangedEvent} (which triggers a refresh of the element's subtree) this allows the view
+ * to only add, remove and update the affected items. Listeners not aware of this class see a change of the
+ * directory, i.e. {@link #getElement()} returns the directory.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 8.6
+ */
+public class ContentDeltaEvent extends LabelProviderChangedEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AbstractExplorerFileStore m_parent;
+
+    private final List<AbstractExplorerFileStore> m_added;
+
+    private final List<AbstractExplorerFileStore> m_removed;
+
+    private final List<AbstractExplorerFileStore> m_updated;
+
+    /**
+     * @param source the content provider that fires the event
+     * @param parent the directory whose content changed
+     * @param added new children of the directory
+     * @param removed children that no longer exist
+     * @param updated files whose label (e.g. the type) may have changed
+     */
+    public ContentDeltaEvent(final AbstractContentProvider source, final AbstractExplorerFileStore parent,
+        final Collection<? extends AbstractExplorerFileStore> added,
+        final Collection<? extends AbstractExplorerFileStore> removed,
+        final Collection<? extends AbstractExplorerFileStore> updated) {
+        super(source, parent);
+        m_parent = parent;
+        m_added = Collections.unmodifiableList(new ArrayList<>(added));
+        m_removed = Collections.unmodifiableList(new ArrayList<>(removed));
+        m_updated = Collections.unmodifiableList(new ArrayList<>(updated));
+    }
+
+    /**
+     * @return the directory whose content changed
+     */
+    public AbstractExplorerFileStore getParent() {
+        return m_parent;
+    }
+
+    /**
+     * @return the new children of the directory, not null
+     */
+    public List<AbstractExplorerFileStore> getAdded() {
+        return m_added;
+    }
+
+    /**
+     * @return the children that no longer exist, not null
+     */
+    public List<AbstractExplorerFileStore> getRemoved() {
+        return m_removed;
+    }
+
+    /**
+     * @return the files whose label may have changed, not null
+     */
+    public List<AbstractExplorerFileStore> getUpdated() {
+        return m_updated;
+    }
+}
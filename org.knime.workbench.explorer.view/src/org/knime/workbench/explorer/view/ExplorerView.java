@@ -160,7 +160,7 @@
 import org.knime.workbench.explorer.view.dnd.ExplorerDropListener;
 import org.knime.workbench.repository.view.FilterViewContributionItem;
 import org.knime.workbench.repository.view.TextualViewFilter;
-import org.knime.workbench.ui.SyncExecQueueDispatcher;
+import org.knime.workbench.ui.BatchingUIDispatcher;
 import org.knime.workbench.ui.navigator.ProjectWorkflowMap;
 
 /**
@@ -520,7 +520,7 @@ public void workflowChanged(final WorkflowEvent event) {
                     final AbstractExplorerFileStore fs =
                         ExplorerMountTable.getFileSystem().fromLocalFile(file);
                     if (fs != null) {
-                        SyncExecQueueDispatcher.asyncExec(new Runnable() {
+                        BatchingUIDispatcher.asyncExec(new Runnable() {
                             @Override
                             public void run() {
                                 if (m_viewer == null
@@ -575,11 +575,49 @@ public void propertyChange(final PropertyChangeEvent event) {
             } else {
                 refreshAsync();
             }
+        } else if (event != null && ContentDelegator.CONTENT_DELTA.equals(event.getProperty())
+                && (event.getNewValue() instanceof ContentDeltaEvent)) {
+            applyDeltaAsync((ContentDeltaEvent)event.getNewValue());
         } else {
             refreshAsync();
         }
     }
 
+    /**
+     * Only adds, removes and updates the items affected by the delta instead of refreshing the directory's subtree.
+     * With an active text filter the directory is refreshed as matching items must be expanded.
+     */
+    private void applyDeltaAsync(final ContentDeltaEvent delta) {
+        Display.getDefault().asyncExec(new Runnable() {
+            @Override
+            public void run() {
+                if (m_viewer == null || m_viewer.getControl().isDisposed()) {
+                    return;
+                }
+                Object parent = ContentDelegator.getTreeObjectFor(delta.getParent());
+                if (parent == null) {
+                    return;
+                }
+                for (ViewerFilter vf : m_viewer.getFilters()) {
+                    if ((vf instanceof TextualViewFilter) && ((TextualViewFilter)vf).hasNonEmptyQuery()) {
+                        m_viewer.refresh(parent);
+                        m_viewer.expandAll();
+                        return;
+                    }
+                }
+                if (!delta.getRemoved().isEmpty()) {
+                    m_viewer.remove(ContentDelegator.getTreeObjectList(delta.getRemoved()).toArray());
+                }
+                if (!delta.getAdded().isEmpty()) {
+                    m_viewer.add(parent, ContentDelegator.getTreeObjectList(delta.getAdded()).toArray());
+                }
+                if (!delta.getUpdated().isEmpty()) {
+                    m_viewer.update(ContentDelegator.getTreeObjectList(delta.getUpdated()).toArray(), null);
+                }
+            }
+        });
+    }
+
     private void refreshAsync() {
         refreshAsync((Object)null);
     }
@@ -640,7 +678,7 @@ public void setNextSelection(final Collection<AbstractExplorerFileStore> sel) {
 
     private void refreshAsync(final NodeID node) {
         if (m_refreshSet.put(node, node) == null) { // freshly added to set
-            SyncExecQueueDispatcher.asyncExec(new Runnable() {
+            BatchingUIDispatcher.asyncExec(new Runnable() {
                 @Override
                 public void run() {
                     if (m_viewer == null
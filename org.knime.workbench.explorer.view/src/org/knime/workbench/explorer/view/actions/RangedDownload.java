@@ -0,0 +1,455 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.view.actions;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+import org.knime.core.node.NodeLogger;
+import org.knime.workbench.explorer.filesystem.RemoteDownloadStream;
+
+/**
+ * Downloads the data of a {@link RemoteDownloadStream} that supports ranged reads into a local file. The file is
+ * preallocated and split into chunks which are fetched concurrently and written to their position in the file. The
+ * number of bytes written per chunk is persisted next to the target file, so a failed range is continued from where
+ * it stopped. A new instance on the same target only fetches what is still missing if the source has an
+ * {@link RemoteDownloadStream#getEntityTag() entity tag} and neither it nor the length changed; otherwise it starts
+ * over. Downloads that should be continued across separate downloads of the same item use the
+ * {@link #getPartFile(String) part file} of the item.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class RangedDownload {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(RangedDownload.class);
+
+    /** The default size of the chunks the download is split into. */
+    static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final int MAX_THREADS = 4;
+
+    private static final int BUFFSIZE = 256 * 1024;
+
+    private static final int MAX_RETRIES = 3;
+
+    private static final long RETRY_DELAY = 200;
+
+    private static final long PROGRESS_INTERVAL = 250;
+
+    private static final long STATE_MAGIC = 0x4b4e524400000002L;
+
+    private static final String PART_FILE_PREFIX = "KNIMEServerDownload-";
+
+    /** Part files (and their state) that haven't been modified for this long are deleted. */
+    static final long PART_FILE_MAX_AGE = TimeUnit.DAYS.toMillis(7);
+
+    private static final AtomicBoolean STALE_PART_FILES_DELETED = new AtomicBoolean();
+
+    /** Part files currently downloaded into, see {@link #claimPartFile(File)}. */
+    private static final Set<File> CLAIMED_PART_FILES = ConcurrentHashMap.newKeySet();
+
+    private final RemoteDownloadStream m_source;
+
+    private final File m_target;
+
+    private final File m_stateFile;
+
+    private final long m_length;
+
+    private final String m_entityTag;
+
+    private final int m_chunkSize;
+
+    /** Bytes written to the target file per chunk. */
+    private final AtomicLongArray m_written;
+
+    private final AtomicLong m_downloaded = new AtomicLong();
+
+    /**
+     * @param source the download, must support ranged reads and know its length
+     * @param target the file to download into; if a previous download of the same data (by entity tag) into the same
+     *            file failed, it is continued, otherwise a previous download is discarded
+     * @param chunkSize the size of the ranges the download is split into
+     * @throws IOException if the persisted state of a previous download can't be read
+     */
+    RangedDownload(final RemoteDownloadStream source, final File target, final int chunkSize) throws IOException {
+        m_source = source;
+        m_target = target;
+        m_stateFile = new File(target.getPath() + ".state");
+        m_length = source.length();
+        if (m_length < 0) {
+            throw new IllegalArgumentException("The length of a ranged download must be known");
+        }
+        m_entityTag = source.getEntityTag();
+        m_chunkSize = chunkSize;
+        m_written = new AtomicLongArray((int)((m_length + chunkSize - 1) / chunkSize));
+        readState();
+    }
+
+    /**
+     * Returns the file a download of the given item is stored in until it finished. The name only depends on the
+     * key, so a download that failed or was canceled is continued by the next download of the same item.
+     *
+     * @param sourceKey identifies the downloaded item, e.g. server and path
+     * @return the part file in the temp directory
+     */
+    static File getPartFile(final String sourceKey) {
+        StringBuilder name = new StringBuilder(PART_FILE_PREFIX);
+        try {
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(sourceKey.getBytes(StandardCharsets.UTF_8))) {
+                name.append(String.format("%02x", b));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE supports SHA-1
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        return new File(System.getProperty("java.io.tmpdir"), name.append(".part").toString());
+    }
+
+    /**
+     * Deletes the part files of abandoned downloads in the temp directory, see
+     * {@link #deleteStalePartFiles(File, long)}. Only the first call per session has an effect.
+     */
+    static void deleteStalePartFiles() {
+        if (STALE_PART_FILES_DELETED.compareAndSet(false, true)) {
+            deleteStalePartFiles(new File(System.getProperty("java.io.tmpdir")), PART_FILE_MAX_AGE);
+        }
+    }
+
+    /**
+     * Deletes part files and their state that haven't been modified for the given time and aren't claimed by a
+     * running download.
+     *
+     * @param dir the directory containing the part files
+     * @param maxAge the time in ms after which an unmodified part file is deleted
+     */
+    static void deleteStalePartFiles(final File dir, final long maxAge) {
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir.toPath(), PART_FILE_PREFIX + "*.part*")) {
+            for (Path p : files) {
+                String name = p.toString();
+                File partFile = new File(name.substring(0, name.lastIndexOf(".part") + ".part".length()));
+                if (!CLAIMED_PART_FILES.contains(partFile) && (now - p.toFile().lastModified() > maxAge)) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not delete stale downloads in " + dir + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Claims a part file for a download, so concurrent downloads of the same item don't write into the same file.
+     *
+     * @param partFile the part file, see {@link #getPartFile(String)}
+     * @return true if the file was claimed, false if another download currently uses it
+     */
+    static boolean claimPartFile(final File partFile) {
+        return CLAIMED_PART_FILES.add(partFile);
+    }
+
+    /**
+     * Releases a part file claimed by {@link #claimPartFile(File)}.
+     *
+     * @param partFile the part file
+     */
+    static void releasePartFile(final File partFile) {
+        CLAIMED_PART_FILES.remove(partFile);
+    }
+
+    /**
+     * @return the number of bytes downloaded into the target file so far (including bytes of a previous attempt)
+     */
+    long getDownloaded() {
+        return m_downloaded.get();
+    }
+
+    /**
+     * Downloads all missing chunks. Progress is reported from the calling thread, at most every
+     * {@value #PROGRESS_INTERVAL} ms, which is also how often cancellation is checked.
+     *
+     * @param progress receives the number of bytes downloaded so far
+     * @param canceled returns true if the download should stop
+     * @return true if the download finished, false if it was canceled
+     * @throws IOException if a range failed repeatedly or the target can't be written; the state is kept so the
+     *             download can be continued
+     */
+    boolean download(final LongConsumer progress, final BooleanSupplier canceled) throws IOException {
+        List<Integer> missing = new ArrayList<>();
+        for (int c = 0; c < m_written.length(); c++) {
+            if (m_written.get(c) < chunkEnd(c) - chunkStart(c)) {
+                missing.add(c);
+            }
+        }
+        int threads = Math.max(1, Math.min(MAX_THREADS, missing.size()));
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        AtomicBoolean stop = new AtomicBoolean();
+
+        try (RandomAccessFile file = new RandomAccessFile(m_target, "rw")) {
+            // preallocate, keeps the data of a previous attempt
+            file.setLength(m_length);
+            FileChannel channel = file.getChannel();
+            Runnable worker = () -> {
+                byte[] buffer = new byte[BUFFSIZE];
+                int i;
+                while (!stop.get() && (i = next.getAndIncrement()) < missing.size()) {
+                    try {
+                        downloadChunk(missing.get(i), channel, buffer, stop);
+                    } catch (IOException | RuntimeException e) {
+                        IOException ioe = e instanceof IOException ? (IOException)e
+                            : new IOException(e.getMessage(), e);
+                        failure.compareAndSet(null, ioe);
+                        stop.set(true);
+                    }
+                }
+            };
+
+            AtomicInteger threadCount = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "Workflow download " + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<?>> workers = new ArrayList<>(threads);
+                for (int t = 0; t < threads; t++) {
+                    workers.add(executor.submit(worker));
+                }
+                for (Future<?> w : workers) {
+                    while (true) {
+                        if (canceled.getAsBoolean()) {
+                            // let the workers stop after their current buffer
+                            stop.set(true);
+                        }
+                        try {
+                            w.get(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+                            break;
+                        } catch (TimeoutException e) {
+                            progress.accept(m_downloaded.get());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            stop.set(true);
+                            throw new InterruptedIOException("Download interrupted");
+                        } catch (ExecutionException e) {
+                            failure.compareAndSet(null, new IOException(e.getCause().getMessage(), e.getCause()));
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+                writeState(channel);
+            }
+        }
+        progress.accept(m_downloaded.get());
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        if (m_downloaded.get() < m_length) {
+            return false;
+        }
+        Files.deleteIfExists(m_stateFile.toPath());
+        return true;
+    }
+
+    /**
+     * Deletes the target file and the persisted state, e.g. after a download that can't be continued was canceled.
+     */
+    void discard() {
+        m_target.delete();
+        m_stateFile.delete();
+    }
+
+    private void downloadChunk(final int chunk, final FileChannel channel, final byte[] buffer,
+        final AtomicBoolean stop) throws IOException {
+        long end = chunkEnd(chunk);
+        int attempt = 0;
+        while (true) {
+            long offset = chunkStart(chunk) + m_written.get(chunk);
+            try (InputStream in = m_source.openRange(offset, end - offset)) {
+                while (offset < end) {
+                    int read = in.read(buffer, 0, (int)Math.min(buffer.length, end - offset));
+                    if (read < 0) {
+                        throw new EOFException("Range ended at " + offset + " instead of " + end);
+                    }
+                    ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+                    while (data.hasRemaining()) {
+                        offset += channel.write(data, offset);
+                    }
+                    m_written.addAndGet(chunk, read);
+                    m_downloaded.addAndGet(read);
+                    if (stop.get()) {
+                        return;
+                    }
+                }
+                return;
+            } catch (IOException e) {
+                // remember how far we got, the next attempt (or download) continues from there
+                writeState(channel);
+                if (++attempt > MAX_RETRIES || stop.get()) {
+                    throw e;
+                }
+                LOGGER.debug("Download of range " + offset + "-" + end + " failed (" + e.getMessage()
+                    + "), retrying", e);
+                try {
+                    Thread.sleep(RETRY_DELAY << (attempt - 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Download interrupted");
+                }
+            }
+        }
+    }
+
+    private long chunkStart(final int chunk) {
+        return (long)chunk * m_chunkSize;
+    }
+
+    private long chunkEnd(final int chunk) {
+        return Math.min(chunkStart(chunk) + m_chunkSize, m_length);
+    }
+
+    private void readState() throws IOException {
+        if (!m_stateFile.isFile()) {
+            return;
+        }
+        boolean matches = false;
+        // without an entity tag the data may have changed even if the length is the same
+        if ((m_entityTag != null) && (m_target.length() == m_length)) {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(m_stateFile.toPath()))) {
+                matches = in.readLong() == STATE_MAGIC && in.readLong() == m_length && in.readInt() == m_chunkSize
+                    && in.readInt() == m_written.length()
+                    && in.readBoolean() && in.readUTF().equals(m_entityTag);
+                if (matches) {
+                    for (int c = 0; c < m_written.length(); c++) {
+                        long written = in.readLong();
+                        m_written.set(c, written);
+                        m_downloaded.addAndGet(written);
+                    }
+                }
+            } catch (EOFException e) {
+                LOGGER.debug("Incomplete download state in " + m_stateFile + ", starting over", e);
+                matches = false;
+            }
+        }
+        if (!matches) {
+            // state of a different or unknown version of the data (or a different download), start over
+            for (int c = 0; c < m_written.length(); c++) {
+                m_written.set(c, 0);
+            }
+            m_downloaded.set(0);
+            discard();
+        }
+    }
+
+    /**
+     * Persists the number of bytes written per chunk. The data is forced to the disk before, so the state never claims
+     * bytes that are lost on a crash; the state file is replaced atomically.
+     */
+    private synchronized void writeState(final FileChannel channel) throws IOException {
+        // take the counts before forcing, workers may still write while the data is forced
+        long[] written = new long[m_written.length()];
+        for (int c = 0; c < written.length; c++) {
+            written[c] = m_written.get(c);
+        }
+        channel.force(false);
+        File tmpState = new File(m_stateFile.getPath() + ".tmp");
+        try (FileChannel stateChannel = FileChannel.open(tmpState.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(stateChannel));
+            out.writeLong(STATE_MAGIC);
+            out.writeLong(m_length);
+            out.writeInt(m_chunkSize);
+            out.writeInt(written.length);
+            out.writeBoolean(m_entityTag != null);
+            if (m_entityTag != null) {
+                out.writeUTF(m_entityTag);
+            }
+            for (long w : written) {
+                out.writeLong(w);
+            }
+            out.flush();
+            stateChannel.force(false);
+        }
+        Files.move(tmpState.toPath(), m_stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+}
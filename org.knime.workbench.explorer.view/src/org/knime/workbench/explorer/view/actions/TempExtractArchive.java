@@ -52,7 +52,6 @@
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
@@ -68,7 +67,6 @@
 import org.knime.workbench.explorer.view.actions.imports.IWorkflowImportElement;
 import org.knime.workbench.explorer.view.actions.imports.WorkflowImportElementFromArchive;
 import org.knime.workbench.explorer.view.actions.imports.WorkflowImportOperation;
-import org.knime.workbench.ui.navigator.ZipLeveledStructProvider;
 
 /**
  * An action to temporary extract a workflow archive file into a directory.
@@ -208,16 +206,7 @@ protected void unpackWorkflowIntoLocalDir() throws Exception {
 
         LocalExplorerFileStore destWorkflowDir = m_targetDir.getParent();
 
-        ZipFile zFile = new ZipFile(m_source);
-        ZipLeveledStructProvider importStructureProvider = new ZipLeveledStructProvider(zFile);
-        importStructureProvider.setStrip(1);
-
-        ZipEntry rootEntry = (ZipEntry)importStructureProvider.getRoot();
-        List<ZipEntry> rootChild = importStructureProvider.getChildren(rootEntry);
-        if (rootChild.size() == 1) {
-            // the zipped workflow normally contains only one dir
-            rootEntry = rootChild.get(0);
-        }
+        // the archive is opened (and its central directory read) only once, the import closes it
         WorkflowImportElementFromArchive root = collectWorkflowsFromZipFile(m_source);
         IWorkflowImportElement element = null;
         if (root.getChildren().size() == 1) {
@@ -230,12 +219,7 @@ protected void unpackWorkflowIntoLocalDir() throws Exception {
         LOGGER.debug("Unpacking workflow \"" + element.getName() + "\" into destination: "
             + destWorkflowDir.getMountIDWithFullPath());
         final WorkflowImportOperation importOp = new WorkflowImportOperation(element, destWorkflowDir);
-
-        try {
-            importOp.run(m_monitor);
-        } finally {
-            importStructureProvider.closeArchive();
-        }
+        importOp.run(m_monitor);
     }
 
     private WorkflowImportElementFromArchive collectWorkflowsFromZipFile(final File zipFile)
@@ -48,9 +48,17 @@
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.io.FileUtils;
@@ -83,6 +91,9 @@ public class WorkflowDownload extends TempExtractArchive {
 
     private final RemoteExplorerFileStore m_source;
 
+    /** Stream opened by {@link #schedule()} that is ready for download, null if the stream isn't opened yet. */
+    private RemoteDownloadStream m_preparedStream;
+
     /**
      * Creates a action with the source and parent directory.
      *
@@ -177,8 +188,10 @@ protected void runSyncInternal(final IProgressMonitor monitor) throws CoreExcept
         LOGGER.debug("Downloading '" + srcIdentifier
                 + "' into local destination '" + getTargetIdentifier() + "'");
 
+        final RemoteDownloadStream preparedStream = m_preparedStream;
+        m_preparedStream = null;
         final DownloadRunnable dwnLoader = new DownloadRunnable(
-                getSourceFile());
+                getSourceFile(), preparedStream);
         dwnLoader.run(monitor);
 
         // now wait for the download to finish
@@ -232,10 +245,54 @@ protected void runSyncInternal(final IProgressMonitor monitor) throws CoreExcept
     public void schedule() {
         ExplorerJob j = new ExplorerJob("Download of " + getSourceFile().getName() + " to "
                 + getTargetDir().getMountIDWithFullPath()) {
+            private volatile CompletableFuture<Void> m_ready;
+
             @Override
             protected IStatus run(final IProgressMonitor monitor2) {
                 monitor2.beginTask("Downloading " + getSourceFile().getName() + " to "
                         + getTargetDir().getMountIDWithFullPath() , 1);
+                if (!isSourceSupported()) {
+                    // fails with the appropriate message
+                    return download(monitor2);
+                }
+                try {
+                    m_preparedStream = getSourceFile().openDownloadStream();
+                } catch (CoreException e) {
+                    LOGGER.info("Failed downloading " + getSourceFile().getMountIDWithFullPath() + " to "
+                        + getTargetDir().getMountIDWithFullPath() + ": " + e.getMessage(), e);
+                    return e.getStatus();
+                }
+                monitor2.subTask("Compressing " + getSourceFile().getName() + " on the server");
+                // don't occupy a job thread while the server prepares the download; the thread that downloads is
+                // only started once the server is ready, but must be known to the job before run() returns
+                Thread downloadThread = new Thread(() -> {
+                    IStatus status;
+                    try {
+                        status = download(monitor2);
+                    } catch (RuntimeException ex) {
+                        LOGGER.error("Failed downloading " + getSourceFile().getMountIDWithFullPath() + ": "
+                            + ex.getMessage(), ex);
+                        status = new Status(IStatus.ERROR, ExplorerActivator.PLUGIN_ID, ex.getMessage(), ex);
+                    }
+                    done(status);
+                }, "Download of " + getSourceFile().getName());
+                downloadThread.setDaemon(true);
+                setThread(downloadThread);
+                m_ready = m_preparedStream.whenReadyForDownload();
+                m_ready.whenComplete((v, e) -> downloadThread.start());
+                return ASYNC_FINISH;
+            }
+
+            @Override
+            protected void canceling() {
+                CompletableFuture<Void> ready = m_ready;
+                if (ready != null) {
+                    // continues the download, which notices the cancellation and cancels the server
+                    ready.cancel(false);
+                }
+            }
+
+            private IStatus download(final IProgressMonitor monitor2) {
                 try {
                     runSync(monitor2);
                 } catch (CoreException e) {
@@ -258,8 +315,13 @@ protected IStatus run(final IProgressMonitor monitor2) {
      */
     protected static class DownloadRunnable implements Runnable {
 
+        /** How often the cancel state is checked while waiting for the server, in ms. */
+        private static final long CANCEL_CHECK_INTERVAL = 200;
+
         private final RemoteExplorerFileStore m_source;
 
+        private final RemoteDownloadStream m_stream;
+
         private final AtomicBoolean m_cancel = new AtomicBoolean(false);
 
         // this is also used as object to wait for the runnable to finish
@@ -288,10 +350,20 @@ public Status getStatus() {
          *
          */
         public DownloadRunnable(final RemoteExplorerFileStore source) {
+            this(source, null);
+        }
+
+        /**
+         * @param source the file store to download
+         * @param stream the already opened download stream of the source, or null to open it when running
+         * @since 8.6
+         */
+        public DownloadRunnable(final RemoteExplorerFileStore source, final RemoteDownloadStream stream) {
             if (source == null) {
                 throw new NullPointerException("Download source can't be null");
             }
             m_source = source;
+            m_stream = stream;
         }
 
         /**
@@ -318,26 +390,36 @@ public void run(final IProgressMonitor monitor) {
                     monitor.beginTask(progMsg.toString(),
                             IProgressMonitor.UNKNOWN);
                 }
-                RemoteDownloadStream in =
-                        m_source.openDownloadStream();
+                RemoteDownloadStream in = m_stream != null ? m_stream
+                        : m_source.openDownloadStream();
                 // wait for the server to finish zipping
-                while (!in.readyForDownload()) {
+                CompletableFuture<Void> ready = in.whenReadyForDownload();
+                while (true) {
                     if (monitor != null && monitor.isCanceled()) {
                         m_cancel.set(true);
                     }
                     if (m_cancel.get()) {
+                        ready.cancel(false);
                         m_tmpFile = null;
                         m_errorMsg = "Canceled.";
                         // cancel server
                         in.close();
                         return;
                     }
-                   Thread.sleep(1000);
+                    try {
+                        ready.get(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        // check for cancellation again
+                    } catch (CancellationException e) {
+                        m_cancel.set(true);
+                    } catch (ExecutionException e) {
+                        throw e.getCause();
+                    }
                 }
 
                 String size = " / <unknown>";
                 final String taskMessage = "Downloading " + m_source.getFullName()+ ": ";
-                long downloaded = 0;
                 boolean useKB = false;
                 boolean useGB = false;
 
@@ -359,33 +441,85 @@ public void run(final IProgressMonitor monitor) {
                     }
                     monitor.beginTask(taskMessage + (useKB ? "0 kB" : useGB ? "0 GB" : "0 MB") + size, kbyte);
                 }
-                m_tmpFile = File.createTempFile("KNIMEServerDownload", ".tmp");
-                LOGGER.debug("Received server download stream for '" + m_source
-                        + "', storing it '"
-                        + m_tmpFile.getAbsolutePath() + "'");
-
-                try (BufferedInputStream inStream = new BufferedInputStream(in, 1024 * 1024);
-                        FileOutputStream outStream = new FileOutputStream(m_tmpFile)) {
-                    int b;
-                    byte[] buffer = new byte[1024 * 1024];
-                    while ((b = inStream.read(buffer)) >= 0) {
-                        outStream.write(buffer, 0, b);
-                        if (monitor != null) {
-                            monitor.worked(b >> 10);
-                            downloaded += b;
-                            monitor.setTaskName(taskMessage
-                                + (useKB ? (downloaded >> 10) + " kB" : getDecimalSize(downloaded >> 10, useGB))
-                                + size);
-                            if (monitor.isCanceled()) {
-                                m_cancel.set(true);
+                final DownloadProgress progress = new DownloadProgress(monitor, taskMessage, size, useKB, useGB);
+
+                if (in.supportsRangedRead() && in.length() > RangedDownload.CHUNK_SIZE) {
+                    // fetch several ranges concurrently into the part file of the source, failed or canceled
+                    // downloads are continued where they stopped by the next download of the same source (only if
+                    // the entity tag tells that the data is still the same)
+                    RangedDownload.deleteStalePartFiles();
+                    File partFile = RangedDownload.getPartFile(getDownloadKey());
+                    boolean resumable = (in.getEntityTag() != null) && RangedDownload.claimPartFile(partFile);
+                    try {
+                        File target = resumable ? partFile : File.createTempFile("KNIMEServerDownload", ".tmp");
+                        LOGGER.debug("Received server download stream for '" + m_source + "', storing it '"
+                            + target.getAbsolutePath() + "'");
+                        RangedDownload download = new RangedDownload(in, target, RangedDownload.CHUNK_SIZE);
+                        if (download.getDownloaded() > 0) {
+                            LOGGER.debug("Continuing previous download of '" + m_source + "' at "
+                                + download.getDownloaded() + " bytes");
+                        }
+                        boolean finished;
+                        try {
+                            finished = download.download(progress::update, () -> {
+                                if (monitor != null && monitor.isCanceled()) {
+                                    m_cancel.set(true);
+                                }
+                                return m_cancel.get();
+                            });
+                        } catch (IOException e) {
+                            if (!resumable) {
+                                download.discard();
                             }
+                            throw e;
                         }
-                        if (m_cancel.get()) {
-                            m_tmpFile.delete();
+                        if (!finished) {
+                            if (!resumable) {
+                                download.discard();
+                            }
                             m_tmpFile = null;
                             m_errorMsg = "Canceled.";
                             return;
                         }
+                        if (resumable) {
+                            // move the finished download out of the way of the next download of the same source
+                            m_tmpFile = File.createTempFile("KNIMEServerDownload", ".tmp");
+                            Files.move(partFile.toPath(), m_tmpFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                        } else {
+                            m_tmpFile = target;
+                        }
+                    } finally {
+                        if (resumable) {
+                            RangedDownload.releasePartFile(partFile);
+                        }
+                        in.close();
+                    }
+                } else {
+                    m_tmpFile = File.createTempFile("KNIMEServerDownload", ".tmp");
+                    LOGGER.debug("Received server download stream for '" + m_source
+                            + "', storing it '"
+                            + m_tmpFile.getAbsolutePath() + "'");
+                    try (BufferedInputStream inStream = new BufferedInputStream(in, 1024 * 1024);
+                            FileOutputStream outStream = new FileOutputStream(m_tmpFile)) {
+                        int b;
+                        long downloaded = 0;
+                        byte[] buffer = new byte[1024 * 1024];
+                        while ((b = inStream.read(buffer)) >= 0) {
+                            outStream.write(buffer, 0, b);
+                            if (monitor != null) {
+                                downloaded += b;
+                                progress.update(downloaded);
+                                if (monitor.isCanceled()) {
+                                    m_cancel.set(true);
+                                }
+                            }
+                            if (m_cancel.get()) {
+                                m_tmpFile.delete();
+                                m_tmpFile = null;
+                                m_errorMsg = "Canceled.";
+                                return;
+                            }
+                        }
                     }
                 }
                 m_errorMsg = null;
@@ -417,6 +551,14 @@ public void run(final IProgressMonitor monitor) {
             }
         }
 
+        /**
+         * @return the key of the part file a ranged download of the source is stored in, see
+         *         {@link RangedDownload#getPartFile(String)}
+         */
+        private String getDownloadKey() {
+            return m_source.getRemoteHostID() + "|" + m_source.getMountIDWithFullPath();
+        }
+
         /**
          * Gets the size of the file with the first decimal digit.
          *
@@ -435,6 +577,55 @@ private static final String getDecimalSize(final long size, final boolean useGB)
             }
         }
 
+        /**
+         * Reports the download progress in kilobytes to a monitor. The task name (which contains the formatted size)
+         * is updated at most every {@value #MESSAGE_INTERVAL} ms.
+         */
+        private static final class DownloadProgress {
+
+            private static final long MESSAGE_INTERVAL = 250;
+
+            private final IProgressMonitor m_monitor;
+
+            private final String m_taskMessage;
+
+            private final String m_size;
+
+            private final boolean m_useKB;
+
+            private final boolean m_useGB;
+
+            private long m_reportedKB;
+
+            private long m_lastMessage;
+
+            DownloadProgress(final IProgressMonitor monitor, final String taskMessage, final String size,
+                final boolean useKB, final boolean useGB) {
+                m_monitor = monitor;
+                m_taskMessage = taskMessage;
+                m_size = size;
+                m_useKB = useKB;
+                m_useGB = useGB;
+            }
+
+            void update(final long downloaded) {
+                if (m_monitor == null) {
+                    return;
+                }
+                long kb = downloaded >> 10;
+                if (kb > m_reportedKB) {
+                    m_monitor.worked((int)(kb - m_reportedKB));
+                    m_reportedKB = kb;
+                }
+                long now = System.currentTimeMillis();
+                if (now - m_lastMessage >= MESSAGE_INTERVAL) {
+                    m_lastMessage = now;
+                    m_monitor.setTaskName(m_taskMessage
+                        + (m_useKB ? kb + " kB" : getDecimalSize(kb, m_useGB)) + m_size);
+                }
+            }
+        }
+
         /**
          * Doesn't cancel server side activities and doesn't interrupt until
          * server response is received.
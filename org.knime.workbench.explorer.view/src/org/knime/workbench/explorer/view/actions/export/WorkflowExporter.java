@@ -50,8 +50,15 @@
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.List;
 
 import org.eclipse.core.runtime.CoreException;
@@ -88,6 +95,16 @@ public final class WorkflowExporter {
 
     private final File m_exportFile;
 
+    /** Receives the files to export. */
+    @FunctionalInterface
+    interface ResourceVisitor {
+        /**
+         * @param file a file to export, or an empty directory
+         * @throws IOException if the file cannot be processed
+         */
+        void visit(File file) throws IOException;
+    }
+
     /**
      * @param exportFile
      * @param commonParent
@@ -109,19 +126,7 @@ public void doFinish(final IProgressMonitor monitor) throws CoreException {
 
         // start zipping
         monitor.beginTask("Archiving selected workflows... ", 10);
-        // if the data should be excluded from the export
-        // iterate over the resources and add only the wanted stuff
-        // i.e. the "intern" folder and "*.zip" files are excluded
-        final List<File> resourceList = new ArrayList<File>();
-        for (AbstractExplorerFileStore fs : m_elementsToExport) {
-            // add all files within the workflow or group
-            addResourcesFor(resourceList, fs, m_excludeData);
-        }
-
-        monitor.worked(1); // 10% for collecting the files...
         try {
-            SubProgressMonitor sub = new SubProgressMonitor(monitor, 9);
-
             File parentLoc = m_commonParent.toLocalFile();
             if (parentLoc == null) {
                 throw new CoreException(new Status(IStatus.ERROR, ExplorerActivator.PLUGIN_ID,
@@ -133,8 +138,27 @@ public void doFinish(final IProgressMonitor monitor) throws CoreException {
                 // keep the common workflow group (if exists) in the archive
                 stripOff = stripOff - 1;
             }
-            Zipper.zipFiles(resourceList, m_exportFile, stripOff, sub);
 
+            // if the data should be excluded from the export
+            // iterate over the resources and add only the wanted stuff
+            // i.e. the "intern" folder and "*.zip" files are excluded.
+            // The first pass only sums up the sizes for the progress, the files are not kept in memory
+            final long[] counts = new long[2];
+            for (AbstractExplorerFileStore fs : m_elementsToExport) {
+                visitResourcesFor(fs, m_excludeData, f -> {
+                    counts[0] += f.isDirectory() ? 0 : 1;
+                    counts[1] += Zipper.getWork(f);
+                });
+            }
+            monitor.worked(1); // 10% for collecting the files...
+
+            try (Zipper zipper = new Zipper(m_exportFile, stripOff, (int)Math.min(counts[0], Integer.MAX_VALUE),
+                counts[1], new SubProgressMonitor(monitor, 9))) {
+                for (AbstractExplorerFileStore fs : m_elementsToExport) {
+                    visitResourcesFor(fs, m_excludeData, zipper::add);
+                }
+                zipper.finish();
+            }
         } catch (final IOException t) {
             LOGGER.debug("Export of KNIME workflow(s) failed: " + t.getMessage(), t);
             throw new CoreException(new Status(IStatus.ERROR, ExplorerActivator.PLUGIN_ID, t.getMessage(), t));
@@ -249,12 +273,31 @@ public static void addResourcesFor(final List<File> resourceList, final Abstract
         if (resourceList == null) {
             throw new NullPointerException("Result list can't be null");
         }
+        try {
+            visitResourcesFor(element, excludeData, resourceList::add);
+        } catch (IOException e) {
+            throw new CoreException(new Status(IStatus.ERROR, ExplorerActivator.PLUGIN_ID, e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Same as {@link #addResourcesFor(List, AbstractExplorerFileStore, boolean)} but passes the files one by one to
+     * the visitor while walking the workflow directories instead of collecting them.
+     *
+     * @param element the resource representing the thing to export
+     * @param excludeData true if KNIME data files should be excluded
+     * @param visitor receives the files
+     * @throws CoreException if the element isn't local
+     * @throws IOException if a directory cannot be read or the visitor fails
+     */
+    static void visitResourcesFor(final AbstractExplorerFileStore element, final boolean excludeData,
+        final ResourceVisitor visitor) throws CoreException, IOException {
         if (AbstractExplorerFileStore.isWorkflow(element) || AbstractExplorerFileStore.isWorkflowTemplate(element)) {
-            addWorkflowContent(resourceList, element, excludeData);
+            addWorkflowContent(visitor, element, excludeData);
         } else if (AbstractExplorerFileStore.isDataFile(element)) {
-            addFile(resourceList, element);
+            addFile(visitor, element);
         } else if (AbstractExplorerFileStore.isWorkflowGroup(element)) {
-            addWorkflowGroupContent(resourceList, element);
+            addWorkflowGroupContent(visitor, element);
         } else {
             throw new IllegalArgumentException("Only resources of flows, templates or data files can be added (item \""
                     + element.getMountIDWithFullPath() + "\")");
@@ -264,69 +307,108 @@ public static void addResourcesFor(final List<File> resourceList, final Abstract
     /*
      * Adds files contained in workflow groups. Doesn't recurse. Adds the meta info file.
      */
-    private static void addWorkflowGroupContent(final List<File> resourceList, final AbstractExplorerFileStore group) throws CoreException {
+    private static void addWorkflowGroupContent(final ResourceVisitor visitor, final AbstractExplorerFileStore group)
+        throws CoreException, IOException {
         assert group.fetchInfo().isDirectory();
         File loc = group.toLocalFile();
         if (loc == null) {
             throw new CoreException(new Status(IStatus.ERROR, ExplorerActivator.PLUGIN_ID,
                 "Only local files can be exported (" + group.getFullName() + " has no local file).", null));
         }
-        resourceList.add(new File(loc, WorkflowPersistor.METAINFO_FILE));
+        visitor.visit(new File(loc, WorkflowPersistor.METAINFO_FILE));
     }
 
     /**
-     * Adds a file of the passed resourcelist.
+     * Passes a file to the visitor.
      *
-     * @param resourceList
+     * @param visitor
      * @param dataFile a file!
      * @throws CoreException
+     * @throws IOException
      */
-    private static void addFile(final List<File> resourceList, final AbstractExplorerFileStore dataFile)
-        throws CoreException {
+    private static void addFile(final ResourceVisitor visitor, final AbstractExplorerFileStore dataFile)
+        throws CoreException, IOException {
         assert dataFile.fetchInfo().isFile();
         File loc = dataFile.toLocalFile();
         if (loc == null) {
             throw new CoreException(new Status(IStatus.ERROR, ExplorerActivator.PLUGIN_ID,
                 "Only local files can be exported (" + dataFile.getFullName() + " has no local file).", null));
         }
-        resourceList.add(loc);
+        visitor.visit(loc);
     }
 
     /*
      * Call this on workflows or templates only. Includes everything except data tables, if excluded
      */
 
-    private static void addWorkflowContent(final List<File> resources, final AbstractExplorerFileStore flow,
-        final boolean excludeData) throws CoreException {
+    private static void addWorkflowContent(final ResourceVisitor visitor, final AbstractExplorerFileStore flow,
+        final boolean excludeData) throws CoreException, IOException {
         assert flow.fetchInfo().isDirectory();
         File loc = flow.toLocalFile();
         if (loc == null) {
             throw new CoreException(new Status(IStatus.ERROR, ExplorerActivator.PLUGIN_ID,
                 "Only local files can be exported (" + flow.getFullName() + " has no local file).", null));
         }
-        addEntireDirContent(resources, loc, excludeData);
+        addEntireDirContent(visitor, loc, excludeData);
     }
 
-    private static void addEntireDirContent(final List<File> resources, final File dir, final boolean excludeData)
-        throws CoreException {
-        File[] content = dir.listFiles();
-        if (content == null) {
-            throw new CoreException(new Status(IStatus.ERROR, ExplorerActivator.PLUGIN_ID,
-                "Unable to read folder content from " + dir.getAbsolutePath() + ". Can't export it.", null));
-        }
-        if (content.length == 0) { // see AP-13538 (empty dirs are ignored -- so we add them)
-            resources.add(dir);
-        }
-        for (File child : content) {
-            if (!KnimeFileUtil.isMetaNode(child) && excludeData && excludeResource(child)) {
-                continue;
-            }
-            if (!child.isDirectory()) {
-                resources.add(child);
-            } else {
-                addEntireDirContent(resources, child, excludeData);
-            }
-        }
+    private static void addEntireDirContent(final ResourceVisitor visitor, final File dir, final boolean excludeData)
+        throws IOException {
+        // follows links like File#isDirectory did before
+        Files.walkFileTree(dir.toPath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+            new SimpleFileVisitor<java.nio.file.Path>() {
+                /** Number of children (including excluded ones) of the directories currently visited. */
+                private final Deque<int[]> m_childCounts = new ArrayDeque<>();
+
+                @Override
+                public FileVisitResult preVisitDirectory(final java.nio.file.Path d, final BasicFileAttributes attrs) {
+                    if (!m_childCounts.isEmpty()) {
+                        m_childCounts.peek()[0]++;
+                        if (isExcluded(d.toFile(), excludeData)) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                    }
+                    m_childCounts.push(new int[1]);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final java.nio.file.Path file, final BasicFileAttributes attrs)
+                    throws IOException {
+                    if (!m_childCounts.isEmpty()) {
+                        m_childCounts.peek()[0]++;
+                    }
+                    File f = file.toFile();
+                    if (!isExcluded(f, excludeData)) {
+                        visitor.visit(f);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(final java.nio.file.Path file, final IOException exc)
+                    throws IOException {
+                    throw new IOException("Unable to read folder content from " + file.toAbsolutePath()
+                        + ". Can't export it.", exc);
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(final java.nio.file.Path d, final IOException exc)
+                    throws IOException {
+                    if (exc != null) {
+                        throw new IOException("Unable to read folder content from " + d.toAbsolutePath()
+                            + ". Can't export it.", exc);
+                    }
+                    if (m_childCounts.pop()[0] == 0) { // see AP-13538 (empty dirs are ignored -- so we add them)
+                        visitor.visit(d.toFile());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+    }
+
+    private static boolean isExcluded(final File child, final boolean excludeData) {
+        return excludeData && !KnimeFileUtil.isMetaNode(child) && excludeResource(child);
     }
 
 }
@@ -0,0 +1,405 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.view.actions.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes the records of a zip archive to a stream. Unlike {@link java.util.zip.ZipOutputStream} the entry data is
+ * written as is, which allows to compress the entries elsewhere (e.g. in parallel) and only assemble the archive
+ * sequentially. The archives can be read by {@link java.util.zip.ZipFile} and {@link java.util.zip.ZipInputStream};
+ * the Zip64 extensions are used for large entries and archives the same way the JDK does.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ZipArchiveWriter implements Closeable {
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+
+    private static final int DATA_DESCRIPTOR_SIG = 0x08074b50;
+
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+
+    private static final int ZIP64_END_SIG = 0x06064b50;
+
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+
+    private static final int END_SIG = 0x06054b50;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+
+    private static final int FLAG_UTF8 = 0x0800;
+
+    /** Information kept for the central directory. */
+    private static final class Entry {
+        private final byte[] m_name;
+
+        private final int m_method;
+
+        private final int m_flags;
+
+        private final long m_dosTime;
+
+        private final long m_offset;
+
+        private long m_crc;
+
+        private long m_size;
+
+        private long m_compressedSize;
+
+        private Entry(final byte[] name, final int method, final int flags, final long dosTime, final long offset) {
+            m_name = name;
+            m_method = method;
+            m_flags = flags;
+            m_dosTime = dosTime;
+            m_offset = offset;
+        }
+
+        private boolean isZip64() {
+            return m_size >= ZIP64_MAGIC || m_compressedSize >= ZIP64_MAGIC || m_offset >= ZIP64_MAGIC;
+        }
+
+        private int version() {
+            if (isZip64()) {
+                return 45;
+            }
+            return m_method == ZipEntry.DEFLATED ? 20 : 10;
+        }
+    }
+
+    private final OutputStream m_out;
+
+    private final byte[] m_buf = new byte[8];
+
+    private final List<Entry> m_entries = new ArrayList<>();
+
+    private long m_written;
+
+    private Entry m_current;
+
+    private long m_currentDataStart;
+
+    /**
+     * @param out the (buffered) stream to write the archive to, closed with this writer
+     */
+    ZipArchiveWriter(final OutputStream out) {
+        m_out = out;
+    }
+
+    /**
+     * Starts an entry whose checksum and sizes are known, followed by exactly <code>compressedSize</code> bytes
+     * written with {@link #write(byte[], int, int)} and {@link #closeEntry()}.
+     *
+     * @param name the entry name, ends with a slash for directories
+     * @param time the last modification time in milliseconds
+     * @param method {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}
+     * @param crc the CRC-32 of the uncompressed data
+     * @param size the uncompressed size
+     * @param compressedSize the size of the data written for the entry
+     * @throws IOException if writing fails
+     */
+    void putEntry(final String name, final long time, final int method, final long crc, final long size,
+        final long compressedSize) throws IOException {
+        Entry e = startEntry(name, time, method, FLAG_UTF8);
+        e.m_crc = crc;
+        e.m_size = size;
+        e.m_compressedSize = compressedSize;
+        boolean zip64 = size >= ZIP64_MAGIC || compressedSize >= ZIP64_MAGIC;
+        writeInt(LOCAL_HEADER_SIG);
+        writeShort(zip64 ? 45 : e.version());
+        writeShort(e.m_flags);
+        writeShort(method);
+        writeInt(e.m_dosTime);
+        writeInt(crc);
+        writeInt(zip64 ? ZIP64_MAGIC : compressedSize);
+        writeInt(zip64 ? ZIP64_MAGIC : size);
+        writeShort(e.m_name.length);
+        writeShort(zip64 ? 20 : 0);
+        writeBytes(e.m_name, 0, e.m_name.length);
+        if (zip64) {
+            writeShort(ZIP64_EXTRA_ID);
+            writeShort(16);
+            writeLong(size);
+            writeLong(compressedSize);
+        }
+        m_currentDataStart = m_written;
+    }
+
+    /**
+     * Starts a deflated entry whose checksum and sizes are only known after the data has been written with
+     * {@link #write(byte[], int, int)}; finish it with {@link #closeStreamedEntry(long, long)}.
+     *
+     * @param name the entry name
+     * @param time the last modification time in milliseconds
+     * @throws IOException if writing fails
+     */
+    void putStreamedEntry(final String name, final long time) throws IOException {
+        Entry e = startEntry(name, time, ZipEntry.DEFLATED, FLAG_UTF8 | FLAG_DATA_DESCRIPTOR);
+        writeInt(LOCAL_HEADER_SIG);
+        writeShort(e.version());
+        writeShort(e.m_flags);
+        writeShort(ZipEntry.DEFLATED);
+        writeInt(e.m_dosTime);
+        writeInt(0);
+        writeInt(0);
+        writeInt(0);
+        writeShort(e.m_name.length);
+        writeShort(0);
+        writeBytes(e.m_name, 0, e.m_name.length);
+        m_currentDataStart = m_written;
+    }
+
+    /**
+     * Writes data of the current entry.
+     *
+     * @param b the data
+     * @param off the offset in the array
+     * @param len the number of bytes to write
+     * @throws IOException if writing fails
+     */
+    void write(final byte[] b, final int off, final int len) throws IOException {
+        if (m_current == null) {
+            throw new IOException("No current zip entry");
+        }
+        writeBytes(b, off, len);
+    }
+
+    /**
+     * Closes an entry started with {@link #putEntry(String, long, int, long, long, long)}.
+     *
+     * @throws IOException if the number of bytes written doesn't match the compressed size
+     */
+    void closeEntry() throws IOException {
+        Entry e = m_current;
+        long written = m_written - m_currentDataStart;
+        m_current = null;
+        if (written != e.m_compressedSize) {
+            throw new IOException("Invalid entry size for \"" + new String(e.m_name, StandardCharsets.UTF_8)
+                + "\" (expected " + e.m_compressedSize + " but got " + written + " bytes)");
+        }
+    }
+
+    /**
+     * Closes an entry started with {@link #putStreamedEntry(String, long)} by writing its data descriptor.
+     *
+     * @param crc the CRC-32 of the uncompressed data
+     * @param size the uncompressed size
+     * @throws IOException if writing fails
+     */
+    void closeStreamedEntry(final long crc, final long size) throws IOException {
+        Entry e = m_current;
+        m_current = null;
+        e.m_crc = crc;
+        e.m_size = size;
+        e.m_compressedSize = m_written - m_currentDataStart;
+        writeInt(DATA_DESCRIPTOR_SIG);
+        writeInt(crc);
+        // same condition as ZipInputStream uses to decide whether the descriptor contains 8 byte sizes
+        if (e.m_compressedSize > ZIP64_MAGIC || size > ZIP64_MAGIC) {
+            writeLong(e.m_compressedSize);
+            writeLong(size);
+        } else {
+            writeInt(e.m_compressedSize);
+            writeInt(size);
+        }
+    }
+
+    /**
+     * Writes the central directory and closes the underlying stream.
+     *
+     * @throws IOException if writing fails
+     */
+    void finish() throws IOException {
+        if (m_current != null) {
+            throw new IOException("Zip entry not closed");
+        }
+        long centralStart = m_written;
+        for (Entry e : m_entries) {
+            writeCentralHeader(e);
+        }
+        long centralSize = m_written - centralStart;
+        int count = m_entries.size();
+        if (count >= ZIP64_MAGIC_COUNT || centralStart >= ZIP64_MAGIC || centralSize >= ZIP64_MAGIC) {
+            long zip64EndStart = m_written;
+            writeInt(ZIP64_END_SIG);
+            writeLong(44);
+            writeShort(45);
+            writeShort(45);
+            writeInt(0);
+            writeInt(0);
+            writeLong(count);
+            writeLong(count);
+            writeLong(centralSize);
+            writeLong(centralStart);
+            writeInt(ZIP64_LOCATOR_SIG);
+            writeInt(0);
+            writeLong(zip64EndStart);
+            writeInt(1);
+        }
+        writeInt(END_SIG);
+        writeShort(0);
+        writeShort(0);
+        writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+        writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+        writeInt(Math.min(centralSize, ZIP64_MAGIC));
+        writeInt(Math.min(centralStart, ZIP64_MAGIC));
+        writeShort(0);
+        m_out.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        m_out.close();
+    }
+
+    private Entry startEntry(final String name, final long time, final int method, final int flags)
+        throws IOException {
+        if (m_current != null) {
+            throw new IOException("Previous zip entry not closed");
+        }
+        Entry e = new Entry(name.getBytes(StandardCharsets.UTF_8), method, flags, toDosTime(time), m_written);
+        m_entries.add(e);
+        m_current = e;
+        return e;
+    }
+
+    private void writeCentralHeader(final Entry e) throws IOException {
+        int extraLength = 0;
+        if (e.m_size >= ZIP64_MAGIC) {
+            extraLength += 8;
+        }
+        if (e.m_compressedSize >= ZIP64_MAGIC) {
+            extraLength += 8;
+        }
+        if (e.m_offset >= ZIP64_MAGIC) {
+            extraLength += 8;
+        }
+        writeInt(CENTRAL_HEADER_SIG);
+        writeShort(e.version());
+        writeShort(e.version());
+        writeShort(e.m_flags);
+        writeShort(e.m_method);
+        writeInt(e.m_dosTime);
+        writeInt(e.m_crc);
+        writeInt(Math.min(e.m_compressedSize, ZIP64_MAGIC));
+        writeInt(Math.min(e.m_size, ZIP64_MAGIC));
+        writeShort(e.m_name.length);
+        writeShort(extraLength == 0 ? 0 : extraLength + 4);
+        writeShort(0); // comment length
+        writeShort(0); // disk number
+        writeShort(0); // internal attributes
+        writeInt(0); // external attributes
+        writeInt(Math.min(e.m_offset, ZIP64_MAGIC));
+        writeBytes(e.m_name, 0, e.m_name.length);
+        if (extraLength > 0) {
+            writeShort(ZIP64_EXTRA_ID);
+            writeShort(extraLength);
+            if (e.m_size >= ZIP64_MAGIC) {
+                writeLong(e.m_size);
+            }
+            if (e.m_compressedSize >= ZIP64_MAGIC) {
+                writeLong(e.m_compressedSize);
+            }
+            if (e.m_offset >= ZIP64_MAGIC) {
+                writeLong(e.m_offset);
+            }
+        }
+    }
+
+    /** Same conversion as {@link ZipEntry#setTime(long)}, in the default time zone. */
+    private static long toDosTime(final long time) {
+        LocalDateTime d = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        int year = d.getYear();
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long)(year - 1980) << 25) | (d.getMonthValue() << 21) | (d.getDayOfMonth() << 16)
+            | (d.getHour() << 11) | (d.getMinute() << 5) | (d.getSecond() >> 1);
+    }
+
+    private void writeShort(final int v) throws IOException {
+        m_buf[0] = (byte)v;
+        m_buf[1] = (byte)(v >>> 8);
+        writeBytes(m_buf, 0, 2);
+    }
+
+    private void writeInt(final long v) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            m_buf[i] = (byte)(v >>> (8 * i));
+        }
+        writeBytes(m_buf, 0, 4);
+    }
+
+    private void writeLong(final long v) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            m_buf[i] = (byte)(v >>> (8 * i));
+        }
+        writeBytes(m_buf, 0, 8);
+    }
+
+    private void writeBytes(final byte[] b, final int off, final int len) throws IOException {
+        m_out.write(b, off, len);
+        m_written += len;
+    }
+}
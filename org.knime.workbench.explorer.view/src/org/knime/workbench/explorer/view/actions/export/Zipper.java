@@ -47,16 +47,30 @@
  */
 package org.knime.workbench.explorer.view.actions.export;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.core.runtime.IPath;
@@ -65,15 +79,144 @@
 import org.eclipse.core.runtime.Path;
 
 /**
+ * Creates zip archives, compressing the files on all available cores. Files are added one by one (so the caller
+ * can stream them, e.g. from a directory walk) and are compressed ahead of the (sequential) assembly of the
+ * archive by a thread pool:
+ * <ul>
+ * <li>small files are read and deflated as a whole by one thread each,</li>
+ * <li>large files are split into blocks that are deflated in parallel, each block primed with the end of the
+ * previous one, and concatenated into one deflate stream,</li>
+ * <li>files that are already compressed (see {@link #isStoredUncompressed(String)}) or don't get smaller are
+ * stored without compression.</li>
+ * </ul>
+ * Memory use is bounded by the number of entries and blocks compressed ahead. Progress is reported in kilobytes.
  *
  * @author ohl, University of Konstanz
  */
-final class Zipper {
+final class Zipper implements AutoCloseable {
 
     private static final int BUFFSIZE = 1024 * 2048;
 
     private static final int COMPR_LEVEL = 9;
 
+    /** Size of the blocks large files are deflated in. */
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    /** Files larger than this are deflated in blocks, smaller ones are read into memory as a whole. */
+    static final long LARGE_FILE_SIZE = 4L * BLOCK_SIZE;
+
+    /** Deflate window size, i.e. the size of the dictionary each block is primed with. */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final int MAX_THREADS = 8;
+
+    private static final long CANCEL_CHECK_INTERVAL = 200;
+
+    /** Extensions of files that are compressed already and therefore stored without compression. */
+    private static final Set<String> STORED_EXTENSIONS = new HashSet<>(Arrays.asList("zip", "gz", "bz2", "xz", "7z",
+        "jar", "knwf", "knar", "table", "parquet", "orc", "png", "jpg", "jpeg", "gif", "mp3", "mp4"));
+
+    private enum Kind {
+            /** Entry for an (empty) directory. */
+            DIRECTORY,
+            /** Entry without content (empty or vanished file). */
+            EMPTY,
+            /** File compressed (or stored) as a whole by a worker. */
+            SMALL,
+            /** Large file deflated block-wise while being written. */
+            LARGE_DEFLATED,
+            /** Large file stored without compression, the checksum is computed by a worker. */
+            LARGE_STORED
+    }
+
+    /** Result of a worker for one entry. */
+    private static final class EntryData {
+        private final int m_method;
+
+        private final long m_crc;
+
+        private final long m_size;
+
+        private final byte[] m_data;
+
+        private EntryData(final int method, final long crc, final long size, final byte[] data) {
+            m_method = method;
+            m_crc = crc;
+            m_size = size;
+            m_data = data;
+        }
+    }
+
+    private static final class PendingEntry {
+        private final File m_file;
+
+        private final String m_name;
+
+        private final Kind m_kind;
+
+        private final long m_work;
+
+        private final Future<EntryData> m_data;
+
+        private PendingEntry(final File file, final String name, final Kind kind, final long work,
+            final Future<EntryData> data) {
+            m_file = file;
+            m_name = name;
+            m_kind = kind;
+            m_work = work;
+            m_data = data;
+        }
+    }
+
+    private final File m_outputFile;
+
+    private final int m_stripOff;
+
+    private final IProgressMonitor m_monitor;
+
+    private final ExecutorService m_executor;
+
+    private final int m_maxPending;
+
+    private final ZipArchiveWriter m_writer;
+
+    private final Deque<PendingEntry> m_pending = new ArrayDeque<>();
+
+    private boolean m_finished;
+
+    /** Number of bytes of the current entry that have been written, for the progress. */
+    private long m_entryBytes;
+
+    /**
+     * Creates a new archive.
+     *
+     * @param outputFile the compressed output archive
+     * @param stripOff number of segments in the path of each file that are stripped off before storing (if zero or
+     *            negative nothing is stripped off). The device is always removed.
+     * @param nrFiles the number of files that will be added (for the progress message only)
+     * @param totalWork the sum of {@link #getWork(File)} of all files that will be added, or a negative value if
+     *            unknown
+     * @param mon to report progress and check for cancellation (can be null)
+     * @throws IOException if the output file cannot be created
+     */
+    Zipper(final File outputFile, final int stripOff, final int nrFiles, final long totalWork,
+        final IProgressMonitor mon) throws IOException {
+        m_outputFile = outputFile;
+        m_stripOff = stripOff;
+        m_monitor = mon == null ? new NullProgressMonitor() : mon;
+        m_writer = new ZipArchiveWriter(new BufferedOutputStream(new FileOutputStream(outputFile), BUFFSIZE));
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS));
+        m_maxPending = 2 * threads;
+        AtomicInteger threadCount = new AtomicInteger();
+        m_executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "Workflow export " + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        m_monitor.beginTask("Compressing " + nrFiles + " files...",
+            totalWork < 0 ? IProgressMonitor.UNKNOWN : (int)Math.min(totalWork, Integer.MAX_VALUE));
+    }
+
     /**
      * Compresses multiple files into one archive. Allows for removing leading path segments of each file's path.
      *
@@ -88,95 +231,324 @@ final class Zipper {
      */
     public static void zipFiles(final Collection<File> files, final File outputFile, final int stripOff,
         final IProgressMonitor mon) throws IOException {
+        long work = 0;
+        int nrFiles = 0;
+        for (File f : files) {
+            if (f != null && !f.isDirectory()) {
+                work += getWork(f);
+                nrFiles += 1;
+            }
+        }
+        try (Zipper zipper = new Zipper(outputFile, stripOff, nrFiles, work, mon)) {
+            for (File f : files) {
+                if (f == null) {
+                    throw new IOException("Illegal file in archive list: <null>!");
+                }
+                zipper.add(f);
+            }
+            zipper.finish();
+        }
+    }
+
+    /**
+     * @param file a file to be archived
+     * @return the amount of work (in kilobytes, at least one per file) reported for the file
+     */
+    static long getWork(final File file) {
+        return file.isDirectory() ? 0 : (file.length() >>> 10) + 1;
+    }
 
-        IProgressMonitor monitor = mon;
-        if (monitor == null) {
-            monitor = new NullProgressMonitor();
+    /**
+     * @param name a file name
+     * @return whether a file with that name is stored without compression because its content is compressed
+     *         already
+     */
+    static boolean isStoredUncompressed(final String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && STORED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Adds a file to the archive. Directories are added as (empty) directory entries without their content.
+     *
+     * @param f the file to add
+     * @throws IOException if an I/O error occurred or the user canceled
+     */
+    void add(final File f) throws IOException {
+        checkCanceled();
+        IPath path = new Path(f.getAbsolutePath()).setDevice(null);
+        if (m_stripOff > 0 && path.segmentCount() > m_stripOff) {
+            path = path.removeFirstSegments(m_stripOff);
+        }
+        String entryName = path.makeRelative().toString();
+        PendingEntry entry;
+        if (f.isDirectory()) {
+            // mostly for empty directories (but non-empty dirs are accepted also)
+            entry = new PendingEntry(f, StringUtils.appendIfMissing(entryName, "/"), Kind.DIRECTORY, 0, null);
+        } else {
+            long length = f.length();
+            long work = getWork(f);
+            if (length == 0) {
+                // this is mainly for the .knimeLock file of open workflows; the file is locked and windows forbids
+                // mmap-ing locked files but FileInputStream seems to mmap files which leads to exceptions while
+                // reading the (non-existing) contents of the file
+                entry = new PendingEntry(f, entryName, Kind.EMPTY, work, null);
+            } else if (length <= LARGE_FILE_SIZE) {
+                entry = new PendingEntry(f, entryName, Kind.SMALL, work, m_executor.submit(() -> compressSmall(f)));
+            } else if (isStoredUncompressed(f.getName())) {
+                entry =
+                    new PendingEntry(f, entryName, Kind.LARGE_STORED, work, m_executor.submit(() -> checksum(f)));
+            } else {
+                entry = new PendingEntry(f, entryName, Kind.LARGE_DEFLATED, work, null);
+            }
         }
+        m_pending.add(entry);
+        while (m_pending.size() > m_maxPending) {
+            writeNext();
+        }
+    }
 
-        byte[] buf = new byte[BUFFSIZE];
-        IOException ioException = null;
+    /**
+     * Writes all pending entries and the central directory of the archive.
+     *
+     * @throws IOException if an I/O error occurred or the user canceled
+     */
+    void finish() throws IOException {
+        while (!m_pending.isEmpty()) {
+            writeNext();
+        }
+        m_writer.finish();
+        m_writer.close();
+        m_finished = true;
+    }
 
-        try (FileOutputStream outStream = new FileOutputStream(outputFile);
-                ZipOutputStream zout = new ZipOutputStream(new BufferedOutputStream(outStream, BUFFSIZE))) {
-            if (files.size() == 0) {
-                // cleanup done in the finally block
-                return;
+    /**
+     * Stops all workers. Deletes the output file if the archive has not been {@link #finish() finished}.
+     */
+    @Override
+    public void close() {
+        m_executor.shutdownNow();
+        m_monitor.done();
+        if (!m_finished) {
+            try {
+                m_writer.close();
+            } catch (IOException e) {
+                // deleted anyway
             }
+            m_outputFile.delete();
+        }
+    }
 
-            zout.setLevel(COMPR_LEVEL);
-            if (mon != null) {
-                // set the overall progress to the overall megabyte
-                int wrk = 0;
-                int nrFiles = 0;
-                for (File f : files) {
-                    if (!f.isDirectory()) {
-                        int megaBytes = (int)(f.length() >>> 20);
-                        wrk += megaBytes + 1;
-                        nrFiles += 1;
-                    }
-                }
-                monitor.beginTask("Compressing " + nrFiles + " files...", wrk);
+    private void writeNext() throws IOException {
+        PendingEntry e = m_pending.poll();
+        // entries are dated with the time they are written, as ZipOutputStream did
+        long time = System.currentTimeMillis();
+        m_entryBytes = 0;
+        try {
+            switch (e.m_kind) {
+                case DIRECTORY:
+                case EMPTY:
+                    m_writer.putEntry(e.m_name, time, ZipEntry.STORED, 0, 0, 0);
+                    m_writer.closeEntry();
+                    break;
+                case SMALL:
+                    EntryData data = get(e.m_data);
+                    m_writer.putEntry(e.m_name, time, data.m_method, data.m_crc, data.m_size, data.m_data.length);
+                    m_writer.write(data.m_data, 0, data.m_data.length);
+                    m_writer.closeEntry();
+                    break;
+                case LARGE_STORED:
+                    writeStored(e, get(e.m_data), time);
+                    break;
+                case LARGE_DEFLATED:
+                    writeDeflated(e, time);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown entry kind " + e.m_kind);
             }
-            for (File f : files) {
-                if (f == null) {
-                    ioException = new IOException("Illegal file in archive list: <null>!");
-                    // cleanup done in the finally block
-                    return;
+        } catch (IOException ioe) {
+            if (m_monitor.isCanceled()) {
+                throw ioe;
+            }
+            throw new IOException(String.format("Unable to add file \"%s\" to archive \"%s\": %s",
+                e.m_file.getAbsolutePath(), m_outputFile.getAbsoluteFile(), ioe.getMessage()), ioe);
+        }
+        worked(e.m_work - (m_entryBytes >>> 10));
+    }
+
+    private void writeStored(final PendingEntry e, final EntryData data, final long time) throws IOException {
+        m_writer.putEntry(e.m_name, time, ZipEntry.STORED, data.m_crc, data.m_size, data.m_size);
+        byte[] buf = new byte[BUFFSIZE];
+        long remaining = data.m_size;
+        try (InputStream in = new FileInputStream(e.m_file)) {
+            int read;
+            while (remaining > 0 && (read = in.read(buf, 0, (int)Math.min(buf.length, remaining))) >= 0) {
+                checkCanceled();
+                m_writer.write(buf, 0, read);
+                remaining -= read;
+                written(read);
+            }
+        }
+        // fails if the file has been truncated in the meantime
+        m_writer.closeEntry();
+    }
+
+    private void writeDeflated(final PendingEntry e, final long time) throws IOException {
+        m_writer.putStreamedEntry(e.m_name, time);
+        CRC32 crc = new CRC32();
+        long size = 0;
+        Deque<Future<byte[]>> blocks = new ArrayDeque<>();
+        try (InputStream in = new FileInputStream(e.m_file)) {
+            byte[] block = readBlock(in);
+            byte[] dictionary = null;
+            while (block != null) {
+                checkCanceled();
+                byte[] next = block.length == BLOCK_SIZE ? readBlock(in) : null;
+                if (next != null && next.length == 0) {
+                    next = null;
                 }
-                if (monitor.isCanceled()) {
-                    ioException = new IOException("Canceled.");
-                    // cleanup done in the finally block
-                    return;
+                crc.update(block);
+                size += block.length;
+                written(block.length);
+                final byte[] b = block;
+                final byte[] d = dictionary;
+                final boolean last = next == null;
+                blocks.add(m_executor.submit(() -> deflate(b, d, last)));
+                dictionary = Arrays.copyOfRange(block, Math.max(0, block.length - DICTIONARY_SIZE), block.length);
+                while (blocks.size() > m_maxPending) {
+                    writeBlock(blocks.poll());
                 }
+                block = next;
+            }
+        }
+        while (!blocks.isEmpty()) {
+            writeBlock(blocks.poll());
+        }
+        m_writer.closeStreamedEntry(crc.getValue(), size);
+    }
 
-                IPath path = new Path(f.getAbsolutePath()).setDevice(null);
-                if (stripOff > 0 && path.segmentCount() > stripOff) {
-                    path = path.removeFirstSegments(stripOff);
-                }
-                String entryName = path.makeRelative().toString();
-                if (f.isDirectory()) {
-                    // mostly for empty directories (but non-empty dirs are accepted also)
-                    zout.putNextEntry(new ZipEntry(StringUtils.appendIfMissing(entryName, "/")));
-                    zout.closeEntry();
-                } else if (f.length() == 0) {
-                    // this is mainly for the .knimeLock file of open workflows; the file is locked and windows forbids
-                    // mmap-ing locked files but FileInputStream seems to mmap files which leads to exceptions while
-                    // reading the (non-existing) contents of the file
-                    zout.putNextEntry(new ZipEntry(entryName));
-                    zout.closeEntry();
-                } else {
-                    try (InputStream in = new BufferedInputStream(new FileInputStream(f), BUFFSIZE)) {
-                        zout.putNextEntry(new ZipEntry(entryName));
-                        int read;
-                        while ((read = in.read(buf)) >= 0) {
-                            if (monitor.isCanceled()) {
-                                ioException = new IOException("Canceled.");
-                                // cleanup done in the finally block
-                                return;
-                            }
-                            zout.write(buf, 0, read);
-                        }
-                    } catch (IOException ioe) {
-                        ioException = new IOException(String.format("Unable to add file \"%s\" to archive \"%s\": %s",
-                            f.getAbsolutePath(), outputFile.getAbsoluteFile(), ioe.getMessage()), ioe);
-
-                    } finally {
-                        zout.closeEntry();
-                    }
+    private void writeBlock(final Future<byte[]> block) throws IOException {
+        byte[] deflated = get(block);
+        m_writer.write(deflated, 0, deflated.length);
+    }
+
+    private static byte[] readBlock(final InputStream in) throws IOException {
+        byte[] block = new byte[BLOCK_SIZE];
+        int length = 0;
+        int read;
+        while (length < BLOCK_SIZE && (read = in.read(block, length, BLOCK_SIZE - length)) >= 0) {
+            length += read;
+        }
+        return length == BLOCK_SIZE ? block : Arrays.copyOf(block, length);
+    }
+
+    /**
+     * Deflates the data into a raw deflate stream. The streams of consecutive blocks can be concatenated as each
+     * but the last one ends with a sync flush (i.e. on a byte boundary, without the final block marker).
+     *
+     * @param data the data to deflate
+     * @param dictionary the end of the preceding data, null for the first block
+     * @param last whether this is the last block of the stream
+     * @return the deflated data
+     */
+    private static byte[] deflate(final byte[] data, final byte[] dictionary, final boolean last) {
+        Deflater deflater = new Deflater(COMPR_LEVEL, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+            byte[] buf = new byte[64 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.write(buf, 0, deflater.deflate(buf));
                 }
-                int megaBytes = (int)(f.length() >>> 20);
-                monitor.worked(megaBytes + 1);
+            } else {
+                int length;
+                do {
+                    length = deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+                    out.write(buf, 0, length);
+                } while (length == buf.length);
             }
-        } catch (IOException ioe) {
-            ioException = ioe; // catch it to have variable assigned for finally block
+            return out.toByteArray();
         } finally {
-            monitor.done();
-            if (ioException != null) {
-                outputFile.delete();
-                throw ioException;
+            deflater.end();
+        }
+    }
+
+    private static EntryData compressSmall(final File f) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int)Math.min(f.length(), LARGE_FILE_SIZE));
+        try (InputStream in = new FileInputStream(f)) {
+            byte[] buf = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buf)) >= 0) {
+                out.write(buf, 0, read);
             }
         }
+        byte[] raw = out.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        if (!isStoredUncompressed(f.getName())) {
+            byte[] deflated = deflate(raw, null, true);
+            if (deflated.length < raw.length) {
+                return new EntryData(ZipEntry.DEFLATED, crc.getValue(), raw.length, deflated);
+            }
+        }
+        return new EntryData(ZipEntry.STORED, crc.getValue(), raw.length, raw);
+    }
 
+    private static EntryData checksum(final File f) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        byte[] buf = new byte[BUFFSIZE];
+        try (InputStream in = new FileInputStream(f)) {
+            int read;
+            while ((read = in.read(buf)) >= 0) {
+                crc.update(buf, 0, read);
+                size += read;
+            }
+        }
+        return new EntryData(ZipEntry.STORED, crc.getValue(), size, null);
+    }
+
+    private <T> T get(final Future<T> future) throws IOException {
+        while (true) {
+            checkCanceled();
+            try {
+                return future.get(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // check for cancellation again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted.", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException)cause;
+                }
+                throw new IOException(cause.getMessage(), cause);
+            }
+        }
+    }
+
+    private void checkCanceled() throws IOException {
+        if (m_monitor.isCanceled()) {
+            throw new IOException("Canceled.");
+        }
+    }
+
+    /** Reports progress while a large entry is written. */
+    private void written(final long bytes) {
+        long before = m_entryBytes >>> 10;
+        m_entryBytes += bytes;
+        worked((m_entryBytes >>> 10) - before);
+    }
+
+    private void worked(final long work) {
+        if (work > 0) {
+            m_monitor.worked((int)Math.min(work, Integer.MAX_VALUE));
+        }
     }
 }
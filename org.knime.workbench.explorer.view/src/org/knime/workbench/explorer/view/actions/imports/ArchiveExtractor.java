@@ -0,0 +1,248 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.explorer.view.actions.imports;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.ui.internal.wizards.datatransfer.ILeveledImportStructureProvider;
+import org.eclipse.ui.internal.wizards.datatransfer.ZipLeveledStructureProvider;
+
+/**
+ * Extracts an entry of an archive and its subtree into a local directory in one pass. The entries are taken from the
+ * provider's index (i.e. the central directory is read only once when the provider is created), all directories are
+ * created up front and the files of zip archives are extracted in parallel, each thread using its own buffer.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@SuppressWarnings("restriction")
+final class ArchiveExtractor {
+
+    private static final int BUFFSIZE = 1024 * 1024;
+
+    private static final int MAX_THREADS = 8;
+
+    private static final long PROGRESS_INTERVAL = 100;
+
+    private final ILeveledImportStructureProvider m_provider;
+
+    private final Set<Object> m_skippedEntries;
+
+    /**
+     * @param provider the provider of the archive; the files of zip archives are extracted in parallel (random
+     *            access), the files of other archives (i.e. tar) sequentially
+     * @param skippedEntries entries that are not extracted (together with their subtree)
+     */
+    ArchiveExtractor(final ILeveledImportStructureProvider provider, final Set<Object> skippedEntries) {
+        m_provider = provider;
+        m_skippedEntries = skippedEntries;
+    }
+
+    /**
+     * Extracts the entry and its subtree.
+     *
+     * @param entry the archive entry to extract
+     * @param target the file or directory the entry is extracted to
+     * @param monitor to report progress and check for cancellation
+     * @return the full paths of all extracted entries
+     * @throws IOException if extracting fails or the user canceled
+     */
+    List<String> extract(final Object entry, final File target, final IProgressMonitor monitor) throws IOException {
+        List<String> paths = new ArrayList<>();
+        List<File> dirs = new ArrayList<>();
+        List<Object> fileEntries = new ArrayList<>();
+        List<File> fileTargets = new ArrayList<>();
+        long totalBytes = 0;
+
+        // walk the subtree, parents are visited before their children
+        Deque<Object> entries = new ArrayDeque<>();
+        Deque<File> targets = new ArrayDeque<>();
+        entries.push(entry);
+        targets.push(target);
+        while (!entries.isEmpty()) {
+            Object e = entries.pop();
+            File t = targets.pop();
+            paths.add(m_provider.getFullPath(e));
+            if (m_provider.isFolder(e)) {
+                dirs.add(t);
+                for (Object child : m_provider.getChildren(e)) {
+                    if (!m_skippedEntries.contains(child)) {
+                        entries.push(child);
+                        targets.push(new File(t, new Path(m_provider.getFullPath(child)).lastSegment()));
+                    }
+                }
+            } else {
+                fileEntries.add(e);
+                fileTargets.add(t);
+                totalBytes += getSize(e);
+            }
+        }
+
+        monitor.beginTask("Extracting " + fileEntries.size() + " files...",
+            (int)Math.min((totalBytes >>> 10) + fileEntries.size(), Integer.MAX_VALUE));
+        try {
+            for (File dir : dirs) {
+                Files.createDirectories(dir.toPath());
+            }
+            extractFiles(fileEntries, fileTargets, monitor);
+        } finally {
+            monitor.done();
+        }
+        return paths;
+    }
+
+    private void extractFiles(final List<Object> fileEntries, final List<File> fileTargets,
+        final IProgressMonitor monitor) throws IOException {
+        if (fileEntries.isEmpty()) {
+            return;
+        }
+        int threads = 1;
+        if (m_provider instanceof ZipLeveledStructureProvider) {
+            threads = Math.max(1,
+                Math.min(Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS), fileEntries.size()));
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger filesDone = new AtomicInteger();
+        AtomicLong bytesDone = new AtomicLong();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            byte[] buffer = new byte[BUFFSIZE];
+            int i;
+            while (failure.get() == null && (i = next.getAndIncrement()) < fileEntries.size()) {
+                try {
+                    copy(fileEntries.get(i), fileTargets.get(i), buffer, bytesDone);
+                    filesDone.incrementAndGet();
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, new IOException("Unable to extract \""
+                        + m_provider.getFullPath(fileEntries.get(i)) + "\": " + e.getMessage(), e));
+                }
+            }
+        };
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "Workflow import " + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(worker));
+            }
+            long reported = 0;
+            for (Future<?> w : workers) {
+                while (true) {
+                    if (monitor.isCanceled()) {
+                        // let the workers stop after their current file
+                        failure.compareAndSet(null, new IOException("Canceled."));
+                    }
+                    try {
+                        w.get(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        // report progress and check for cancellation again
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        failure.compareAndSet(null, new IOException("Interrupted."));
+                        throw failure.get();
+                    } catch (ExecutionException e) {
+                        failure.compareAndSet(null, new IOException(e.getCause().getMessage(), e.getCause()));
+                        break;
+                    } finally {
+                        long work = (bytesDone.get() >>> 10) + filesDone.get();
+                        monitor.worked((int)(work - reported));
+                        reported = work;
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private void copy(final Object entry, final File target, final byte[] buffer, final AtomicLong bytesDone)
+        throws IOException {
+        try (InputStream in = m_provider.getContents(entry)) {
+            if (in == null) {
+                throw new IOException("Entry can't be read from the archive");
+            }
+            try (OutputStream out = Files.newOutputStream(target.toPath())) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    out.write(buffer, 0, read);
+                    bytesDone.addAndGet(read);
+                }
+            }
+        }
+    }
+
+    private static long getSize(final Object entry) {
+        return entry instanceof ZipEntry ? Math.max(0, ((ZipEntry)entry).getSize()) : 0;
+    }
+}
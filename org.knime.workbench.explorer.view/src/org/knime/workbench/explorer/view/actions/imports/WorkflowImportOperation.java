@@ -90,6 +90,9 @@ public class WorkflowImportOperation extends WorkspaceModifyOperation {
     /** Collection containing all unchecked workflows and workflows group. */
     private final Collection<IWorkflowImportElement> m_uncheckedWorkflows = new HashSet<>();
 
+    /** The archive entries of the unchecked workflows (and groups). */
+    private final Set<Object> m_uncheckedEntries = new HashSet<>();
+
     private final AbstractExplorerFileStore m_targetPath;
 
     private final Shell m_shell;
@@ -118,6 +121,11 @@ public WorkflowImportOperation(final Collection<IWorkflowImportElement> workflow
         m_targetPath = targetPath;
         m_shell = shell;
         m_uncheckedWorkflows.addAll(unchecked);
+        for (IWorkflowImportElement e : unchecked) {
+            if (e instanceof WorkflowImportElementFromArchive) {
+                m_uncheckedEntries.add(((WorkflowImportElementFromArchive)e).getEntry());
+            }
+        }
     }
 
     /**
@@ -258,7 +266,21 @@ protected void importWorkflowFromArchive(final WorkflowImportElementFromArchive
             } else {
                 tmpDestDir = destination;
             }
-            importArchiveEntry(archiveElement.getProvider(), archiveElement.getEntry(), tmpDestDir, monitor);
+            File localDestDir = tmpDestDir.toLocalFile();
+            if (localDestDir != null) {
+                // one pass over the archive, extracting directly into the file system
+                ArchiveExtractor extractor = new ArchiveExtractor(archiveElement.getProvider(), m_uncheckedEntries);
+                for (String path : extractor.extract(archiveElement.getEntry(), localDestDir, monitor)) {
+                    m_importedFiles.add(path.endsWith("/") ? path.substring(0, path.length() - 1) : path);
+                }
+                if (!(destination instanceof RemoteExplorerFileStore)) {
+                    // we operated on the file system directly. Refresh file stores.
+                    AbstractExplorerFileStore parent = destination.getParent();
+                    (parent != null ? parent : destination).refresh();
+                }
+            } else {
+                importArchiveEntry(archiveElement.getProvider(), archiveElement.getEntry(), tmpDestDir, monitor);
+            }
             if (destination instanceof RemoteExplorerFileStore) {
                 destination.getContentProvider().performUploadAsync((LocalExplorerFileStore)tmpDestDir,
                     (RemoteExplorerFileStore)destination, true, false, null);
@@ -287,10 +309,7 @@ private void importArchiveEntry(final ILeveledImportStructureProvider importProv
                 String path = importProvider.getFullPath(child);
 
                 /* Check if it is an unchecked item (AP-13299). */
-                final boolean isUnchecked = m_uncheckedWorkflows.stream()
-                    .anyMatch(e -> ((WorkflowImportElementFromArchive)e).getEntry().equals(child));
-
-                if (!isUnchecked) {
+                if (!m_uncheckedEntries.contains(child)) {
                     AbstractExplorerFileStore childDest = destination.getChild(new Path(path).lastSegment());
                     importArchiveEntry(importProvider, child, childDest, monitor);
                 }
@@ -0,0 +1,193 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.repository;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.swt.widgets.Display;
+import org.knime.workbench.core.util.ImageRepository;
+import org.knime.workbench.core.util.ImageRepository.SharedImages;
+
+/**
+ * Measures the throughput of lookups of already loaded icons in {@link ImageRepository} per thread count (the
+ * arguments of {@link #main(String[])}, default 1 2 4 8): by URL, by precomputed key, and by URL behind a global lock.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class IconLookupBenchmark {
+    private static final int LOOKUPS_PER_THREAD = 1_000_000;
+
+    private static final int WARMUP_RUNS = 2;
+
+    private static final int MEASURED_RUNS = 5;
+
+    private static final Object GLOBAL_LOCK = new Object();
+
+    private enum Mode {
+        URL, PRECOMPUTED_KEY, SERIALIZED
+    }
+
+    private final URL[] m_urls;
+
+    private final String[] m_keys;
+
+    private IconLookupBenchmark() {
+        List<URL> urls = new ArrayList<>();
+        for (SharedImages image : SharedImages.values()) {
+            if (image.getUrl() != null) {
+                urls.add(image.getUrl());
+            }
+        }
+        m_urls = urls.toArray(new URL[0]);
+        m_keys = new String[m_urls.length];
+        for (int i = 0; i < m_urls.length; i++) {
+            m_keys[i] = ImageRepository.getIconKey(m_urls[i]);
+        }
+    }
+
+    /** Loads all icons; returns the time in ms. */
+    private double load() {
+        long start = System.nanoTime();
+        for (URL url : m_urls) {
+            ImageRepository.getIconImage(url);
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /** Returns the lookups per second. */
+    private double run(final Mode mode, final int threads) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicLong nonNull = new AtomicLong();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom rand = ThreadLocalRandom.current();
+                long found = 0;
+                try {
+                    start.await();
+                    for (int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+                        int idx = rand.nextInt(m_urls.length);
+                        if (lookup(mode, idx) != null) {
+                            found++;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                nonNull.addAndGet(found);
+                done.countDown();
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long time = System.nanoTime() - begin;
+        if (nonNull.get() == 0) {
+            throw new IllegalStateException("No icon found");
+        }
+        return (long)threads * LOOKUPS_PER_THREAD / (time / 1e9);
+    }
+
+    private Object lookup(final Mode mode, final int idx) {
+        switch (mode) {
+            case URL:
+                return ImageRepository.getIconImage(m_urls[idx]);
+            case PRECOMPUTED_KEY:
+                return ImageRepository.getIconImage(m_urls[idx], m_keys[idx]);
+            case SERIALIZED:
+                synchronized (GLOBAL_LOCK) {
+                    return ImageRepository.getIconImage(m_urls[idx]);
+                }
+            default:
+                throw new IllegalArgumentException(mode.toString());
+        }
+    }
+
+    private static double median(final double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the numbers of concurrent threads, one run per number
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        int[] threadCounts = (args.length == 0) ? new int[]{1, 2, 4, 8}
+            : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        // the images are created on the default display
+        Display.getDefault();
+
+        IconLookupBenchmark benchmark = new IconLookupBenchmark();
+        System.out.printf("Loaded %d icons in %.2f ms%n", benchmark.m_urls.length, benchmark.load());
+
+        System.out.printf("%8s %18s %18s %18s%n", "threads", "url[lookups/s]", "key[lookups/s]", "serialized");
+        for (int threads : threadCounts) {
+            double[] medians = new double[Mode.values().length];
+            for (Mode mode : Mode.values()) {
+                for (int i = 0; i < WARMUP_RUNS; i++) {
+                    benchmark.run(mode, threads);
+                }
+                double[] results = new double[MEASURED_RUNS];
+                for (int i = 0; i < MEASURED_RUNS; i++) {
+                    results[i] = benchmark.run(mode, threads);
+                }
+                medians[mode.ordinal()] = median(results);
+            }
+            System.out.printf("%8d %18.0f %18.0f %18.0f%n", threads, medians[0], medians[1], medians[2]);
+        }
+    }
+}
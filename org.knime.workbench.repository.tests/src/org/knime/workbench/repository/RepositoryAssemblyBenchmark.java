@@ -0,0 +1,280 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.repository;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.knime.workbench.repository.model.IContainerObject;
+import org.knime.workbench.repository.model.RepositorySearchIndex;
+import org.knime.workbench.repository.model.Root;
+import org.knime.workbench.repository.model.SnapshotNodeTemplate;
+
+/**
+ * Benchmark for assembling the node repository from synthetic category and node extensions. It measures the separate
+ * phases of repository assembly (category de-duplication and sorting, category creation, node insertion and search
+ * index creation) for increasing numbers of extension elements. The synthetic extensions are created with a fixed
+ * seed, so that runs are comparable.
+ *
+ * <p>
+ * This is not a testcase. Run the {@link #main(String[])} method with the KNIME test target platform, optionally
+ * passing the element counts as arguments (default: 1000 5000 10000 50000).
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class RepositoryAssemblyBenchmark {
+    private static final long SEED = 20200401L;
+
+    private static final int WARMUP_RUNS = 3;
+
+    private static final int MEASURED_RUNS = 5;
+
+    /** Fraction of elements that are categories, the rest are nodes. */
+    private static final double CATEGORY_FRACTION = 0.1;
+
+    /** Fraction of categories that are contributed a second time by another plug-in. */
+    private static final double DUPLICATE_FRACTION = 0.05;
+
+    private static final int PLUGIN_COUNT = 50;
+
+    private static final int MAX_CATEGORIES_PER_PARENT = 12;
+
+    private final List<IConfigurationElement> m_categories = new ArrayList<>();
+
+    private final List<String[]> m_nodes = new ArrayList<>();
+
+    private final int m_uniqueCategories;
+
+    private RepositoryAssemblyBenchmark(final int elementCount) {
+        Random rand = new Random(SEED);
+        int categoryCount = Math.max(10, (int)(elementCount * CATEGORY_FRACTION));
+
+        List<String> categoryPaths = new ArrayList<>();
+        int[] childCounts = new int[categoryCount];
+        int topLevelCount = 0;
+        for (int i = 0; i < categoryCount; i++) {
+            String id = "c" + i;
+            String path;
+            int parent = (i == 0) ? -1 : rand.nextInt(i + 1) - 1;
+            if ((parent >= 0) && (childCounts[parent] >= MAX_CATEGORIES_PER_PARENT)) {
+                parent = -1;
+            }
+            if ((parent < 0) && (topLevelCount >= MAX_CATEGORIES_PER_PARENT)) {
+                // attach to the most recent category that still has room
+                parent = i - 1;
+                while (childCounts[parent] >= MAX_CATEGORIES_PER_PARENT) {
+                    parent--;
+                }
+            }
+            if (parent < 0) {
+                path = "/";
+                topLevelCount++;
+            } else {
+                path = categoryPaths.get(parent);
+                childCounts[parent]++;
+            }
+            categoryPaths.add(("/".equals(path) ? "/" : path + "/") + id);
+
+            String plugin = plugin(rand);
+            m_categories.add(createElement(plugin, "path", path, "level-id", id, "name", "Category " + i));
+            if (rand.nextDouble() < DUPLICATE_FRACTION) {
+                m_categories.add(createElement(plugin(rand), "path", path, "level-id", id, "name", "Category " + i));
+            }
+        }
+        m_uniqueCategories = categoryCount;
+        // extensions are not ordered by depth in the registry
+        Collections.shuffle(m_categories, rand);
+
+        for (int i = categoryCount; i < elementCount; i++) {
+            m_nodes.add(new String[]{"org.example.node.Node" + i + "Factory", "Node " + i,
+                categoryPaths.get(rand.nextInt(categoryCount)), plugin(rand)});
+        }
+    }
+
+    private static String plugin(final Random rand) {
+        return "org.knime.example.partner" + rand.nextInt(PLUGIN_COUNT);
+    }
+
+    private long[] run() {
+        long[] times = new long[4];
+
+        long start = System.nanoTime();
+        List<IConfigurationElement> categories = RepositoryManager.prepareCategories(m_categories);
+        times[0] = System.nanoTime() - start;
+        if (categories.size() != m_uniqueCategories) {
+            throw new IllegalStateException(
+                "Expected " + m_uniqueCategories + " unique categories, got " + categories.size());
+        }
+
+        Root root = new Root();
+        start = System.nanoTime();
+        for (IConfigurationElement e : categories) {
+            RepositoryFactory.createCategory(root, e);
+        }
+        times[1] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (String[] n : m_nodes) {
+            SnapshotNodeTemplate node = new SnapshotNodeTemplate(n[0], n[1], n[3]);
+            node.setCategoryPath(n[2]);
+            IContainerObject parent = root.findContainer(n[2]);
+            if (parent == null) {
+                throw new IllegalStateException("Category " + n[2] + " for node " + n[0] + " does not exist");
+            }
+            parent.addChild(node);
+        }
+        times[2] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        new RepositorySearchIndex(root);
+        times[3] = System.nanoTime() - start;
+        return times;
+    }
+
+    private static double medianMillis(final long[][] times, final int phase) {
+        long[] values = new long[times.length];
+        for (int i = 0; i < times.length; i++) {
+            values[i] = times[i][phase];
+        }
+        Arrays.sort(values);
+        return values[values.length / 2] / 1e6;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the total numbers of category and node elements, one run per number
+     */
+    public static void main(final String[] args) {
+        // avoid loading icons
+        System.setProperty("java.awt.headless", "true");
+
+        int[] sizes = (args.length == 0) ? new int[]{1000, 5000, 10000, 50000}
+            : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        System.out.printf("%10s %12s %12s %12s %12s %12s%n", "elements", "prepare[ms]", "categories", "nodes",
+            "index", "total");
+        for (int size : sizes) {
+            RepositoryAssemblyBenchmark benchmark = new RepositoryAssemblyBenchmark(size);
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                benchmark.run();
+            }
+            long[][] times = new long[MEASURED_RUNS][];
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                times[i] = benchmark.run();
+            }
+
+            double total = 0;
+            double[] medians = new double[4];
+            for (int phase = 0; phase < medians.length; phase++) {
+                medians[phase] = medianMillis(times, phase);
+                total += medians[phase];
+            }
+            System.out.printf("%10d %12.2f %12.2f %12.2f %12.2f %12.2f%n", size, medians[0], medians[1], medians[2],
+                medians[3], total);
+        }
+    }
+
+    /*
+     * Configuration elements are only accessed through a few methods, so a proxy is sufficient and avoids depending
+     * on the internal registry implementation.
+     */
+    private static IConfigurationElement createElement(final String pluginId, final String... attributes) {
+        Map<String, String> attributeMap = new HashMap<>();
+        for (int i = 0; i < attributes.length; i += 2) {
+            attributeMap.put(attributes[i], attributes[i + 1]);
+        }
+        IExtension extension = proxy(IExtension.class, (method, args) -> {
+            if ("getNamespaceIdentifier".equals(method.getName())) {
+                return pluginId;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        return proxy(IConfigurationElement.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getAttribute":
+                    return attributeMap.get(args[0]);
+                case "getDeclaringExtension":
+                    return extension;
+                case "getNamespaceIdentifier":
+                    return pluginId;
+                case "getName":
+                    return "category";
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args);
+    }
+
+    private static <T> T proxy(final Class<T> type, final Handler handler) {
+        return type.cast(Proxy.newProxyInstance(RepositoryAssemblyBenchmark.class.getClassLoader(),
+            new Class<?>[]{type}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                    default:
+                        return handler.invoke(method, args);
+                }
+            }));
+    }
+}
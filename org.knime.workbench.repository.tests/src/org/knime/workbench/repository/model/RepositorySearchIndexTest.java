@@ -0,0 +1,188 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.repository.model;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.BitSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testcases for {@link RepositorySearchIndex}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RepositorySearchIndexTest {
+    private Root m_root;
+
+    private Category m_input;
+
+    private Category m_read;
+
+    private Category m_empty;
+
+    private NodeTemplate m_csvReader;
+
+    private NodeTemplate m_tableReader;
+
+    private NodeTemplate m_rowFilter;
+
+    /**
+     * Creates a small repository.
+     */
+    @Before
+    public void setUp() {
+        m_root = new Root();
+        m_input = new Category("input", "Input", "org.knime.base");
+        m_root.addChild(m_input);
+        m_read = new Category("read", "Read", "org.knime.base");
+        m_input.addChild(m_read);
+        m_empty = new Category("empty", "Empty", "org.knime.base");
+        m_input.addChild(m_empty);
+        m_csvReader = new NodeTemplate("csv", "CSV Reader", "org.knime.base");
+        m_read.addChild(m_csvReader);
+        m_tableReader = new NodeTemplate("table", "Table Reader", "org.knime.base");
+        m_read.addChild(m_tableReader);
+
+        Category manipulation = new Category("manipulation", "Manipulation", "org.knime.base");
+        m_root.addChild(manipulation);
+        m_rowFilter = new NodeTemplate("rowfilter", "Row Filter", "org.knime.base");
+        manipulation.addChild(m_rowFilter);
+    }
+
+    /**
+     * Checks that substring queries of all lengths find the right elements.
+     */
+    @Test
+    public void testFindMatches() {
+        RepositorySearchIndex index = new RepositorySearchIndex(m_root);
+
+        assertMatches(index, index.findMatches("READER"), m_csvReader, m_tableReader);
+        assertMatches(index, index.findMatches("CSV READ"), m_csvReader);
+        assertMatches(index, index.findMatches("RO"), m_rowFilter);
+        assertMatches(index, index.findMatches("V"), m_csvReader);
+        assertMatches(index, index.findMatches("READ"), m_read, m_csvReader, m_tableReader);
+        assertMatches(index, index.findMatches("XYZ"));
+        assertMatches(index, index.findMatches("ROOT"));
+    }
+
+    /**
+     * Checks that ancestors of matches and node-bearing descendants of matching categories are selected.
+     */
+    @Test
+    public void testExpandMatches() {
+        RepositorySearchIndex index = new RepositorySearchIndex(m_root);
+
+        assertMatches(index, index.expandMatches(index.findMatches("CSV")), m_input, m_read, m_csvReader);
+        assertMatches(index, index.expandMatches(index.findMatches("INPUT")), m_input, m_read, m_csvReader,
+            m_tableReader);
+        assertMatches(index, index.expandMatches(index.findMatches("EMPTY")), m_input, m_empty);
+    }
+
+    /**
+     * Checks that the index detects structural changes to the tree.
+     */
+    @Test
+    public void testIsIndexOf() {
+        RepositorySearchIndex index = new RepositorySearchIndex(m_root);
+        assertThat("Index not valid for its root", index.isIndexOf(m_root), is(true));
+        assertThat("Index valid for another root", index.isIndexOf(new Root()), is(false));
+
+        m_read.addChild(new NodeTemplate("file", "File Reader", "org.knime.base"));
+        assertThat("Index still valid after adding a node", index.isIndexOf(m_root), is(false));
+        assertThat("Unexpected position for a node not in the index",
+            index.indexOf(m_read.getChildByID("file", false)), is(-1));
+    }
+
+    /**
+     * Checks the Tanimoto distance on bigram signatures.
+     */
+    @Test
+    public void testTanimotoDistance() {
+        int[] reader = RepositorySearchIndex.bigramSignature("READER");
+        assertThat("Unexpected number of distinct bigrams", reader.length, is(5));
+        assertThat("Unexpected distance to itself", RepositorySearchIndex.tanimotoDistance(reader, reader), is(0.0));
+        assertThat("Unexpected distance", RepositorySearchIndex.tanimotoDistance(reader,
+            RepositorySearchIndex.bigramSignature("READ")), is(1.0 - 3 / 5.0));
+        assertThat("Unexpected distance for empty signatures",
+            RepositorySearchIndex.tanimotoDistance(new int[0], RepositorySearchIndex.bigramSignature("X")), is(1.0));
+    }
+
+    /**
+     * Checks that nodes are ranked by score and ties are resolved in tree order.
+     */
+    @Test
+    public void testRankNodes() {
+        RepositorySearchIndex index = new RepositorySearchIndex(m_root);
+        BitSet all = new BitSet();
+        all.set(0, index.size());
+        double[] scores = new double[index.size()];
+        scores[index.indexOf(m_csvReader)] = 0.5;
+        scores[index.indexOf(m_tableReader)] = 0.5;
+        scores[index.indexOf(m_rowFilter)] = 0.1;
+
+        IRepositoryObject[] ranked = index.rankNodes(all, scores, 10);
+        assertThat("Unexpected number of ranked nodes", ranked.length, is(3));
+        assertThat("Unexpected node in first place", ranked[0], is((IRepositoryObject)m_rowFilter));
+        assertThat("Unexpected node in second place", ranked[1], is((IRepositoryObject)m_csvReader));
+        assertThat("Unexpected node in third place", ranked[2], is((IRepositoryObject)m_tableReader));
+
+        ranked = index.rankNodes(all, scores, 2);
+        assertThat("Unexpected number of ranked nodes", ranked.length, is(2));
+        assertThat("Unexpected node in second place", ranked[1], is((IRepositoryObject)m_csvReader));
+    }
+
+    private static void assertMatches(final RepositorySearchIndex index, final BitSet actual,
+        final IRepositoryObject... expected) {
+        BitSet expectedSet = new BitSet();
+        for (IRepositoryObject o : expected) {
+            expectedSet.set(index.indexOf(o));
+        }
+        assertThat("Unexpected matches", actual, is(expectedSet));
+    }
+}
@@ -73,6 +73,7 @@
 import org.knime.core.ui.wrapper.WorkflowManagerWrapper;
 import org.knime.workbench.core.util.ImageRepository;
 import org.knime.workbench.core.util.ImageRepository.SharedImages;
+import org.knime.workbench.repository.model.AbstractNodeTemplate;
 import org.knime.workbench.repository.model.Category;
 import org.knime.workbench.repository.model.DynamicNodeTemplate;
 import org.knime.workbench.repository.model.IContainerObject;
@@ -138,8 +139,7 @@ public static NodeTemplate createNode(final IConfigurationElement element) {
 
         if (!Boolean.valueOf(System.getProperty("java.awt.headless", "false"))) {
             // Load images from declaring plugin
-            Image icon = ImageRepository.getIconImage(factory);
-            node.setIcon(icon);
+            setIcon(node, factory.getIcon());
         }
 
         node.setCategoryPath(str(element.getAttribute("category-path"), "/"));
@@ -188,6 +188,8 @@ public static MetaNodeTemplate createMetaNode(
                 LOGGER.coding("Icon '" + iconPath + "' for metanode "
                         + categoryPath + "/" + name + " does not exist");
                 icon = ImageRepository.getIconImage(SharedImages.DefaultMetaNodeIcon);
+            } else {
+                template.setIconURL(findIcon(pluginId, iconPath));
             }
             template.setIcon(icon);
         }
@@ -265,6 +267,8 @@ public static Category createCategory(final Root root,
                     LOGGER.coding("Icon '" + element.getAttribute("icon") + "' for category " + cat.getPath() + "/"
                         + cat.getName() + " does not exist");
                     img = ImageRepository.getIconImage(SharedImages.DefaultCategoryIcon);
+                } else {
+                    cat.setIconURL(findIcon(pluginID, iconPath));
                 }
             }
             cat.setIcon(img);
@@ -318,6 +322,18 @@ public static Category createCategory(final Root root,
         return cat;
     }
 
+    // little helper, sets the icon of a node; the icon is looked up with the key the template computed for the URL
+    private static void setIcon(final AbstractNodeTemplate node, final URL iconURL) {
+        node.setIconURL(iconURL);
+        node.setIcon((iconURL == null) ? ImageRepository.getIconImage(SharedImages.DefaultNodeIcon)
+            : ImageRepository.getIconImage(iconURL, node.getIconKey()));
+    }
+
+    // little helper, returns the location of an icon inside a plug-in
+    private static URL findIcon(final String pluginID, final String path) {
+        return FileLocator.find(Platform.getBundle(pluginID), new Path(path), null);
+    }
+
     //
     // little helper, returns a default if s==null
     private static String str(final String s, final String defaultString) {
@@ -389,8 +405,7 @@ public static Collection<DynamicNodeTemplate> createNodeSet(
             node.setAfterID(nodeSet.getAfterID(factoryId));
 
             if (!Boolean.getBoolean("java.awt.headless")) {
-                Image icon = ImageRepository.getIconImage(factory);
-                node.setIcon(icon);
+                setIcon(node, factory.getIcon());
             }
 
             node.setCategoryPath(nodeSet.getCategoryPath(factoryId));
@@ -457,6 +472,8 @@ private static Category createCategory(final String pluginID,
                     LOGGER.coding(
                         "Icon '" + icon + "' for category " + cat.getPath() + "/" + cat.getName() + " does not exist");
                     img = ImageRepository.getIconImage(SharedImages.DefaultCategoryIcon);
+                } else {
+                    cat.setIconURL(findIcon(pluginID, icon));
                 }
             }
             cat.setIcon(img);
@@ -47,16 +47,21 @@
  */
 package org.knime.workbench.repository;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.eclipse.core.runtime.IConfigurationElement;
@@ -78,6 +83,7 @@
 import org.knime.workbench.repository.model.IRepositoryObject;
 import org.knime.workbench.repository.model.MetaNodeTemplate;
 import org.knime.workbench.repository.model.NodeTemplate;
+import org.knime.workbench.repository.model.RepositorySearchIndex;
 import org.knime.workbench.repository.model.Root;
 import org.osgi.framework.Bundle;
 
@@ -154,6 +160,20 @@ public interface Listener {
 
     private final Root m_completeRoot = new Root();
 
+    /**
+     * Node templates created from the node extensions, so that the factories don't need to be instantiated again for
+     * the second repository tree. The cached templates are part of the tree that has been read first, the other tree
+     * gets copies. The cache is cleared once both trees have been read and before a tree is rebuilt on its own.
+     */
+    private final Map<IConfigurationElement, NodeTemplate> m_createdNodes =
+            new ConcurrentHashMap<IConfigurationElement, NodeTemplate>();
+
+    /** Search index for {@link #m_root}, created as soon as the repository has been read completely. */
+    private volatile RepositorySearchIndex m_searchIndex;
+
+    /** Search index for the most recently requested other root (e.g. a transformed repository). */
+    private volatile RepositorySearchIndex m_otherSearchIndex;
+
     /**
      * Creates the repository model. This instantiates all contributed
      * category/node extensions found in the global Eclipse PluginRegistry, and
@@ -164,6 +184,10 @@ private RepositoryManager() {
 
     private void readRepository(final IProgressMonitor monitor) {
         assert !m_root.hasChildren();
+        if (!m_completeRoot.hasChildren()) {
+            // templates from a previous (e.g. canceled) read of this tree
+            m_createdNodes.clear();
+        }
         readCategories(monitor, m_root);
         if (monitor.isCanceled()) {
             return;
@@ -181,11 +205,25 @@ private void readRepository(final IProgressMonitor monitor) {
             return;
         }
         removeEmptyCategories(m_root);
+        if (m_completeRoot.hasChildren()) {
+            // both trees have been read
+            m_createdNodes.clear();
+        }
+        m_searchIndex = new RepositorySearchIndex(m_root);
         m_loadListeners.clear();
+        try {
+            RepositorySnapshot.write(m_root);
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("Could not write node repository snapshot: " + ex.getMessage(), ex);
+        }
     }
 
     private void readCompleteRepository(final IProgressMonitor monitor) {
         assert !m_completeRoot.hasChildren();
+        if (!m_root.hasChildren()) {
+            // templates from a previous (e.g. canceled) read of this tree
+            m_createdNodes.clear();
+        }
         readCategories(monitor, m_completeRoot);
         if (monitor.isCanceled()) {
             return;
@@ -203,6 +241,10 @@ private void readCompleteRepository(final IProgressMonitor monitor) {
             return;
         }
         removeEmptyCategories(m_completeRoot);
+        if (m_root.hasChildren()) {
+            // both trees have been read
+            m_createdNodes.clear();
+        }
         m_loadListeners.clear();
     }
 
@@ -284,45 +326,10 @@ private void readCategories(final IProgressMonitor monitor, final Root root) {
             allElements.addAll(Arrays.asList(elements));
         }
 
-        // remove duplicated categories
-        removeDuplicatesFromCategories(allElements);
-
-        // sort first by path-depth, so that everything is there in the
-        // right order
-        Collections.sort(allElements, new Comparator<IConfigurationElement>() {
-            @Override
-            public int compare(final IConfigurationElement o1,
-                    final IConfigurationElement o2) {
-                String element1 = o1.getAttribute("path");
-                String element2 = o2.getAttribute("path");
-                if (element1 == element2) {
-                    return 0;
-                } else if (element1 == null) {
-                    return -1;
-                } else if (element2 == null) {
-                    return 1;
-                } else if (element1.equals(element2)) {
-                    return 0;
-                } else if ("/".equals(element1)) {
-                    return -1;
-                } else if ("/".equals(element2)) {
-                    return 1;
-                } else {
-                    int countSlashes1 = 0;
-                    for (int i = 0; i < element1.length(); i++) {
-                        if (element1.charAt(i) == '/') { countSlashes1++; }
-                    }
-
-                    int countSlashes2 = 0;
-                    for (int i = 0; i < element2.length(); i++) {
-                        if (element2.charAt(i) == '/') { countSlashes2++; }
-                    }
-                    return countSlashes1 - countSlashes2;
-                }
-            }
-        });
+        // remove duplicated categories and sort first by path-depth, so that everything is there in the right order
+        List<IConfigurationElement> categoryElements = prepareCategories(allElements);
 
-        for (IConfigurationElement e : allElements) {
+        for (IConfigurationElement e : categoryElements) {
             if (monitor.isCanceled()) {
                 return;
             }
@@ -376,14 +383,22 @@ private void readNodes(final IProgressMonitor monitor, final Root root, final It
             uncategorized = root;
         }
 
-        while (it.hasNext()) {
-            IConfigurationElement elem = it.next();
+        // first create all node templates in parallel, then insert them into the tree in the original order
+        List<IConfigurationElement> elements = new ArrayList<IConfigurationElement>();
+        it.forEachRemaining(elements::add);
+        Object[] createdNodes = createNodes(monitor, elements);
+
+        for (int i = 0; i < elements.size(); i++) {
+            IConfigurationElement elem = elements.get(i);
             if (monitor.isCanceled()) {
                 return;
             }
 
             try {
-                NodeTemplate node = RepositoryFactory.createNode(elem);
+                if (createdNodes[i] instanceof Throwable) {
+                    throw (Throwable)createdNodes[i];
+                }
+                NodeTemplate node = (NodeTemplate)createdNodes[i];
 
                 LOGGER.debug("Found node extension '" + node.getID()
                         + "': " + node.getName());
@@ -458,6 +473,58 @@ private void readNodes(final IProgressMonitor monitor, final Root root, final It
         } // for configuration elements
     }
 
+    /**
+     * Creates the node templates for the given node extensions. The extensions are grouped by their contributing
+     * plug-in and each group is processed by a separate task in a fork-join pool. The creation checks for cancellation
+     * before every extension.
+     *
+     * @param monitor a progress monitor, used for canceling
+     * @param elements the node extensions
+     * @return an array with either the created {@link NodeTemplate} or the {@link Throwable} that occurred for each
+     *         extension; entries are <code>null</code> if creation has been canceled
+     */
+    private Object[] createNodes(final IProgressMonitor monitor, final List<IConfigurationElement> elements) {
+        final Object[] result = new Object[elements.size()];
+
+        Map<String, List<Integer>> indicesByPlugin = new LinkedHashMap<String, List<Integer>>();
+        for (int i = 0; i < elements.size(); i++) {
+            indicesByPlugin.computeIfAbsent(elements.get(i).getNamespaceIdentifier(), k -> new ArrayList<Integer>())
+                .add(i);
+        }
+
+        List<Callable<Void>> tasks = indicesByPlugin.values().stream().map(indices -> (Callable<Void>)() -> {
+            for (int i : indices) {
+                if (monitor.isCanceled()) {
+                    return null;
+                }
+                try {
+                    result[i] = createNode(elements.get(i));
+                } catch (Throwable t) {
+                    result[i] = t;
+                }
+            }
+            return null;
+        }).collect(Collectors.toList());
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            pool.invokeAll(tasks);
+        } finally {
+            pool.shutdown();
+        }
+        return result;
+    }
+
+    private NodeTemplate createNode(final IConfigurationElement elem) {
+        NodeTemplate node = m_createdNodes.get(elem);
+        if (node != null) {
+            return (NodeTemplate)node.deepCopy();
+        }
+        node = RepositoryFactory.createNode(elem);
+        m_createdNodes.put(elem, node);
+        return node;
+    }
+
     private void readNodeSets(final IProgressMonitor monitor) {
         //
         // Process the contributed node sets
@@ -564,55 +631,67 @@ private static IExtension[] getExtensions(final String pointID) {
         return point.getExtensions();
     }
 
-    private static void removeDuplicatesFromCategories(
-            final ArrayList<IConfigurationElement> allElements) {
-
-        // brute force search
-        for (int i = 0; i < allElements.size(); i++) {
-            for (int j = allElements.size() - 1; j > i; j--) {
-
-                String pathOuter = allElements.get(i).getAttribute("path");
-                String levelIdOuter =
-                        allElements.get(i).getAttribute("level-id");
-                String pathInner = allElements.get(j).getAttribute("path");
-                String levelIdInner =
-                        allElements.get(j).getAttribute("level-id");
-
-                if (pathOuter.equals(pathInner)
-                        && levelIdOuter.equals(levelIdInner)) {
-
-                    String nameI = allElements.get(i).getAttribute("name");
-                    String nameJ = allElements.get(j).getAttribute("name");
-
-                    // the removal is only reported in case the names
-                    // are not equal (if they are equal,the user will not
-                    // notice any difference (except possibly the picture))
-                    if (!nameI.equals(nameJ)) {
-                        String pluginI =
-                                allElements.get(i).getDeclaringExtension()
-                                        .getNamespaceIdentifier();
-                        String pluginJ =
-                                allElements.get(j).getDeclaringExtension()
-                                        .getNamespaceIdentifier();
-
-                        String message =
-                                "Category '" + pathOuter + "/" + levelIdOuter
-                                        + "' was found twice. Names are '"
-                                        + nameI + "'(Plugin: " + pluginI
-                                        + ") and '" + nameJ + "'(Plugin: "
-                                        + pluginJ
-                                        + "). The category with name '" + nameJ
-                                        + "' is ignored.";
-
-                        LOGGER.warn(message);
-                    }
+    /**
+     * Removes duplicate category definitions and sorts the remaining ones by the depth of their path, so that parent
+     * categories are created before their children. Two definitions are duplicates if they have the same path and
+     * level-id; only the first one is kept. Categories with the same depth keep their original order.
+     *
+     * @param allElements all category configuration elements
+     * @return a new list with the unique category elements in creation order
+     */
+    static List<IConfigurationElement> prepareCategories(final List<IConfigurationElement> allElements) {
+        Map<String, IConfigurationElement> uniqueElements =
+                new LinkedHashMap<String, IConfigurationElement>(allElements.size() * 2);
+        for (IConfigurationElement e : allElements) {
+            String path = e.getAttribute("path");
+            String levelId = e.getAttribute("level-id");
+            IConfigurationElement first = uniqueElements.putIfAbsent(path + '\0' + levelId, e);
+
+            // the removal is only reported in case the names are not equal (if they are equal,the user will not
+            // notice any difference (except possibly the picture))
+            if (first != null) {
+                String nameFirst = first.getAttribute("name");
+                String nameDuplicate = e.getAttribute("name");
+                if (!Objects.equals(nameFirst, nameDuplicate)) {
+                    String pluginFirst = first.getDeclaringExtension().getNamespaceIdentifier();
+                    String pluginDuplicate = e.getDeclaringExtension().getNamespaceIdentifier();
+                    LOGGER.warn("Category '" + path + "/" + levelId + "' was found twice. Names are '" + nameFirst
+                        + "'(Plugin: " + pluginFirst + ") and '" + nameDuplicate + "'(Plugin: " + pluginDuplicate
+                        + "). The category with name '" + nameDuplicate + "' is ignored.");
+                }
+            }
+        }
 
-                    // remove from the end of the list
-                    allElements.remove(j);
+        // sort keys contain the path depth in the upper and the original position in the lower half, which makes the
+        // sort stable and reads each path only once
+        List<IConfigurationElement> elements = new ArrayList<IConfigurationElement>(uniqueElements.values());
+        long[] sortKeys = new long[elements.size()];
+        for (int i = 0; i < sortKeys.length; i++) {
+            sortKeys[i] = ((long)getPathDepth(elements.get(i).getAttribute("path")) << 32) | i;
+        }
+        Arrays.sort(sortKeys);
 
-                }
+        List<IConfigurationElement> sorted = new ArrayList<IConfigurationElement>(sortKeys.length);
+        for (long key : sortKeys) {
+            sorted.add(elements.get((int)key));
+        }
+        return sorted;
+    }
+
+    /* Missing paths come first, then the root path, then all others by the number of slashes. */
+    private static int getPathDepth(final String path) {
+        if (path == null) {
+            return 0;
+        } else if ("/".equals(path)) {
+            return 1;
+        }
+        int countSlashes = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                countSlashes++;
             }
         }
+        return countSlashes + 2;
     }
 
     private static void removeEmptyCategories(
@@ -692,6 +771,60 @@ public synchronized Root getCompleteRoot() {
         return getCompleteRoot(new NullProgressMonitor());
     }
 
+    /**
+     * Returns a search index for the given repository root. The index for the repository root is created once after
+     * the repository has been read, indexes for other roots (e.g. transformed repositories) are created on demand and
+     * re-created whenever the root's structure changes. This method never blocks while the repository is being read.
+     *
+     * @param root a repository root
+     * @return a search index or <code>null</code> if the repository has not been read completely yet
+     * @since 4.2
+     */
+    public RepositorySearchIndex getSearchIndex(final Root root) {
+        RepositorySearchIndex index = m_searchIndex;
+        if ((index == null) || index.isIndexOf(root)) {
+            // either the repository is still being read (other roots are usually derived from the repository root
+            // and hence are incomplete, too) or it's the index we are looking for
+            return index;
+        }
+        if (root == m_root) {
+            // the repository root has been modified after reading
+            index = new RepositorySearchIndex(root);
+            m_searchIndex = index;
+            return index;
+        }
+
+        index = m_otherSearchIndex;
+        if ((index == null) || !index.isIndexOf(root)) {
+            index = new RepositorySearchIndex(root);
+            m_otherSearchIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the repository as it has been stored at the end of the last session, provided that the set of
+     * installed bundles has not changed since. The returned tree contains {@link Category categories} and
+     * {@link org.knime.workbench.repository.model.SnapshotNodeTemplate snapshot nodes} that don't have node factories
+     * and are only meant to be displayed while the actual repository is read.
+     *
+     * @return a new root with the snapshot's contents, or <code>null</code> if there is no valid snapshot or the
+     *         repository has already been read
+     * @since 4.2
+     */
+    public Root getRootSnapshot() {
+        if (m_searchIndex != null) {
+            // the repository has already been read
+            return null;
+        }
+        try {
+            return RepositorySnapshot.read();
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.debug("Could not read node repository snapshot: " + ex.getMessage(), ex);
+            return null;
+        }
+    }
+
     /**
      * Adds a listener which is notified while the node repository is loaded.
      * The listener is automatically removed from the list once the node
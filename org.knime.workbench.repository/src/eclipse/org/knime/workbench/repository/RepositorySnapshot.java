@@ -0,0 +1,309 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.swt.graphics.Image;
+import org.knime.core.node.NodeLogger;
+import org.knime.workbench.core.util.ImageRepository;
+import org.knime.workbench.core.util.ImageRepository.SharedImages;
+import org.knime.workbench.repository.model.AbstractContainerObject;
+import org.knime.workbench.repository.model.AbstractNodeTemplate;
+import org.knime.workbench.repository.model.Category;
+import org.knime.workbench.repository.model.IRepositoryObject;
+import org.knime.workbench.repository.model.Root;
+import org.knime.workbench.repository.model.SnapshotNodeTemplate;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads and writes snapshots of the node repository. A snapshot contains the tree structure with ids, names, category
+ * paths and icon locations, but no node factories. It is only valid for the set of installed bundles it has been
+ * created with, so that it can be shown at the next start while the actual repository is read.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class RepositorySnapshot {
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(RepositorySnapshot.class);
+
+    /** Increment whenever the file format changes. */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String FILE_NAME = "repository-snapshot.json";
+
+    private static final String BUNDLE_ENTRY = "bundleentry";
+
+    private static final String BUNDLE_RESOURCE = "bundleresource";
+
+    private RepositorySnapshot() {
+        // utility class
+    }
+
+    /**
+     * Writes a snapshot of the given repository.
+     *
+     * @param root the repository root
+     * @throws IOException if an error occurs while writing the snapshot
+     */
+    static void write(final Root root) throws IOException {
+        File file = getSnapshotFile();
+        if (file == null) {
+            return;
+        }
+        File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (JsonGenerator gen = new JsonFactory().createGenerator(tmpFile, JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeStringField("key", computeBundleSetKey());
+            gen.writeArrayFieldStart("children");
+            for (IRepositoryObject child : root.getChildren()) {
+                writeObject(gen, child);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        if (!tmpFile.renameTo(file)) {
+            file.delete();
+            if (!tmpFile.renameTo(file)) {
+                throw new IOException("Could not move snapshot to " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    private static void writeObject(final JsonGenerator gen, final IRepositoryObject object) throws IOException {
+        if (object instanceof Category) {
+            Category cat = (Category)object;
+            gen.writeStartObject();
+            gen.writeStringField("type", "category");
+            writeCommonFields(gen, cat);
+            gen.writeStringField("path", cat.getPath());
+            gen.writeStringField("description", cat.getDescription());
+            gen.writeBooleanField("locked", cat.isLocked());
+            writeIcon(gen, cat.getIconURL());
+            gen.writeArrayFieldStart("children");
+            for (IRepositoryObject child : cat.getChildren()) {
+                writeObject(gen, child);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        } else if (object instanceof AbstractNodeTemplate) {
+            AbstractNodeTemplate node = (AbstractNodeTemplate)object;
+            gen.writeStartObject();
+            gen.writeStringField("type", "node");
+            writeCommonFields(gen, node);
+            gen.writeStringField("categoryPath", node.getCategoryPath());
+            writeIcon(gen, node.getIconURL());
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeCommonFields(final JsonGenerator gen, final IRepositoryObject object)
+        throws IOException {
+        gen.writeStringField("id", object.getID());
+        gen.writeStringField("name", object.getName());
+        gen.writeStringField("plugin", object.getContributingPlugin());
+    }
+
+    private static void writeIcon(final JsonGenerator gen, final URL iconURL) throws IOException {
+        String ref = (iconURL == null) ? null : toIconReference(iconURL);
+        if (ref != null) {
+            gen.writeStringField("icon", ref);
+        }
+    }
+
+    /**
+     * Reads the snapshot of the repository, if there is one for the currently installed bundles.
+     *
+     * @return a new repository root or <code>null</code> if no valid snapshot exists
+     * @throws IOException if an error occurs while reading the snapshot
+     */
+    static Root read() throws IOException {
+        File file = getSnapshotFile();
+        if ((file == null) || !file.isFile()) {
+            return null;
+        }
+        JsonNode json = new ObjectMapper().readTree(file);
+        if (!computeBundleSetKey().equals(json.path("key").asText())) {
+            LOGGER.debug("Installed bundles have changed, ignoring node repository snapshot");
+            return null;
+        }
+
+        Root root = new Root();
+        root.setSortChildren(false);
+        readChildren(json.path("children"), root);
+        return root;
+    }
+
+    private static void readChildren(final JsonNode children, final AbstractContainerObject parent) {
+        boolean loadIcons = !Boolean.getBoolean("java.awt.headless");
+        for (JsonNode child : children) {
+            String id = child.path("id").asText();
+            String name = child.path("name").asText();
+            String plugin = child.path("plugin").asText();
+            if ("category".equals(child.path("type").asText())) {
+                Category cat = new Category(id, name, plugin, child.path("locked").asBoolean());
+                cat.setPath(child.path("path").asText("/"));
+                cat.setDescription(child.path("description").asText(""));
+                cat.setSortChildren(false);
+                if (loadIcons) {
+                    cat.setIcon(loadIcon(child, SharedImages.DefaultCategoryIcon));
+                }
+                parent.addChild(cat);
+                readChildren(child.path("children"), cat);
+            } else {
+                SnapshotNodeTemplate node = new SnapshotNodeTemplate(id, name, plugin);
+                node.setCategoryPath(child.path("categoryPath").asText("/"));
+                if (loadIcons) {
+                    node.setIcon(loadIcon(child, SharedImages.DefaultNodeIcon));
+                }
+                parent.addChild(node);
+            }
+        }
+    }
+
+    private static Image loadIcon(final JsonNode object, final SharedImages defaultIcon) {
+        URL url = object.has("icon") ? toIconURL(object.get("icon").asText()) : null;
+        Image icon = (url == null) ? null : ImageRepository.getIconImage(url);
+        return (icon == null) ? ImageRepository.getIconImage(defaultIcon) : icon;
+    }
+
+    /*
+     * Bundle URLs contain the bundle's runtime id and the framework instance, both of which are not stable across
+     * restarts. They are therefore stored with the bundle's symbolic name.
+     */
+    private static String toIconReference(final URL url) {
+        String protocol = url.getProtocol();
+        if (!BUNDLE_ENTRY.equals(protocol) && !BUNDLE_RESOURCE.equals(protocol)) {
+            return url.toExternalForm();
+        }
+        String host = url.getHost();
+        int dotIndex = host.indexOf('.');
+        try {
+            long bundleId = Long.parseLong((dotIndex < 0) ? host : host.substring(0, dotIndex));
+            Bundle bundle = getBundleContext().getBundle(bundleId);
+            return (bundle == null) ? null : (protocol + ":" + bundle.getSymbolicName() + ":" + url.getPath());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static URL toIconURL(final String ref) {
+        String[] parts = ref.split(":", 3);
+        if ((parts.length == 3) && (BUNDLE_ENTRY.equals(parts[0]) || BUNDLE_RESOURCE.equals(parts[0]))) {
+            Bundle bundle = Platform.getBundle(parts[1]);
+            if (bundle == null) {
+                return null;
+            }
+            return BUNDLE_ENTRY.equals(parts[0]) ? bundle.getEntry(parts[2]) : bundle.getResource(parts[2]);
+        }
+        try {
+            return new URL(ref);
+        } catch (MalformedURLException ex) {
+            LOGGER.debug("Invalid icon location in node repository snapshot: " + ref, ex);
+            return null;
+        }
+    }
+
+    private static File getSnapshotFile() {
+        KNIMERepositoryPlugin plugin = KNIMERepositoryPlugin.getDefault();
+        if (plugin == null) {
+            return null;
+        }
+        try {
+            return plugin.getStateLocation().append(FILE_NAME).toFile();
+        } catch (IllegalStateException ex) {
+            // no instance location
+            return null;
+        }
+    }
+
+    private static BundleContext getBundleContext() {
+        return FrameworkUtil.getBundle(RepositorySnapshot.class).getBundleContext();
+    }
+
+    /*
+     * The key identifies the set of installed bundles, including their versions and modification times.
+     */
+    private static String computeBundleSetKey() {
+        List<String> bundles = new ArrayList<String>();
+        for (Bundle b : getBundleContext().getBundles()) {
+            bundles.add(b.getSymbolicName() + "_" + b.getVersion() + "_" + b.getLastModified());
+        }
+        Collections.sort(bundles);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(Integer.toString(FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+            for (String b : bundles) {
+                digest.update(b.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder key = new StringBuilder();
+            for (byte by : digest.digest()) {
+                key.append(String.format("%02x", by));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // SHA-1 is always available
+            throw new IllegalStateException(ex);
+        }
+    }
+}
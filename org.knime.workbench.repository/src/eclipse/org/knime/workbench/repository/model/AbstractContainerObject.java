@@ -66,6 +66,8 @@ public abstract class AbstractContainerObject extends AbstractRepositoryObject
 
     private boolean m_isLocked = true;
 
+    private volatile long m_structureVersion;
+
     /**
      * Creates a new locked container object.
      *
@@ -169,6 +171,7 @@ public boolean addChild(final AbstractRepositoryObject child) {
         m_children.add(child);
         child.setParent(this);
         m_sortedChildren = null;
+        structureChanged();
         return true;
     }
 
@@ -178,6 +181,7 @@ public boolean addChild(final AbstractRepositoryObject child) {
     public void removeAllChildren() {
         m_children.clear();
         m_sortedChildren = null;
+        structureChanged();
     }
 
     /**
@@ -247,6 +251,7 @@ public void removeChild(final AbstractRepositoryObject child) {
         m_children.remove(child);
         child.detach();
         m_sortedChildren = null;
+        structureChanged();
     }
 
     /**
@@ -338,6 +343,7 @@ public boolean addChildAfter(final AbstractRepositoryObject child,
             if (it.next() == before) {
                 it.add(child);
                 m_sortedChildren = null;
+                structureChanged();
                 return true;
             }
         }
@@ -359,6 +365,7 @@ public boolean addChildBefore(final AbstractRepositoryObject child,
                 it.previous();
                 it.add(child);
                 m_sortedChildren = null;
+                structureChanged();
                 return true;
             }
         }
@@ -373,6 +380,30 @@ public boolean contains(final IRepositoryObject child) {
         return m_children.contains(child);
     }
 
+    /**
+     * Increments the structure version of the topmost container this object belongs to. Called whenever children are
+     * added or removed anywhere in the tree.
+     */
+    private void structureChanged() {
+        IContainerObject top = this;
+        while (top.getParent() != null) {
+            top = top.getParent();
+        }
+        if (top instanceof AbstractContainerObject) {
+            ((AbstractContainerObject)top).m_structureVersion++;
+        }
+    }
+
+    /**
+     * Returns the structure version of this container. The version is only maintained for the topmost container of
+     * a tree (usually the {@link Root}) and changes whenever children are added or removed anywhere below it.
+     *
+     * @return the current structure version
+     */
+    long getStructureVersion() {
+        return m_structureVersion;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -47,7 +47,10 @@
  */
 package org.knime.workbench.repository.model;
 
+import java.net.URL;
+
 import org.eclipse.swt.graphics.Image;
+import org.knime.workbench.core.util.ImageRepository;
 
 /**
  * Abstract base class of "leaf" objects (that is, objects without children).
@@ -58,6 +61,10 @@ public abstract class AbstractNodeTemplate extends AbstractRepositoryObject {
 
     private Image m_icon;
 
+    private URL m_iconURL;
+
+    private String m_iconKey;
+
     private String m_categoryPath;
 
     /**
@@ -79,6 +86,8 @@ protected AbstractNodeTemplate(final String id, final String name, final String
     protected AbstractNodeTemplate(final AbstractNodeTemplate copy) {
         super(copy);
         this.m_icon = copy.m_icon;
+        this.m_iconURL = copy.m_iconURL;
+        this.m_iconKey = copy.m_iconKey;
         this.m_categoryPath = copy.m_categoryPath;
     }
 
@@ -97,6 +106,38 @@ public void setIcon(final Image icon) {
         m_icon = icon;
     }
 
+    /**
+     * Returns the location the icon has been loaded from.
+     *
+     * @return the icon's URL or <code>null</code> if unknown
+     * @since 4.2
+     */
+    public URL getIconURL() {
+        return m_iconURL;
+    }
+
+    /**
+     * Sets the location the icon has been loaded from.
+     *
+     * @param iconURL the icon's URL, may be <code>null</code>
+     * @since 4.2
+     */
+    public void setIconURL(final URL iconURL) {
+        m_iconURL = iconURL;
+        m_iconKey = (iconURL == null) ? null : ImageRepository.getIconKey(iconURL);
+    }
+
+    /**
+     * Returns the key of the icon in the {@link ImageRepository}, computed once when the icon's URL is set.
+     *
+     * @return the key for {@link ImageRepository#getIconImage(URL, String)} or <code>null</code> if the icon's URL is
+     *         unknown
+     * @since 4.2
+     */
+    public String getIconKey() {
+        return m_iconKey;
+    }
+
     /**
      * @return Returns the categoryPath.
      */
@@ -47,6 +47,7 @@
  */
 package org.knime.workbench.repository.model;
 
+import java.net.URL;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -68,6 +69,8 @@ public class Category extends AbstractContainerObject {
 
     private Image m_icon;
 
+    private URL m_iconURL;
+
     /**
      * Creates a new category that is a copy of the given category.
      *
@@ -78,6 +81,7 @@ protected Category(final Category copy) {
         this.m_description = copy.m_description;
         this.m_path = copy.m_path;
         this.m_icon = copy.m_icon;
+        this.m_iconURL = copy.m_iconURL;
     }
 
     /**
@@ -159,6 +163,26 @@ public void setIcon(final Image icon) {
         m_icon = icon;
     }
 
+    /**
+     * Returns the location the icon has been loaded from.
+     *
+     * @return the icon's URL or <code>null</code> if unknown
+     * @since 4.2
+     */
+    public URL getIconURL() {
+        return m_iconURL;
+    }
+
+    /**
+     * Sets the location the icon has been loaded from.
+     *
+     * @param iconURL the icon's URL, may be <code>null</code>
+     * @since 4.2
+     */
+    public void setIconURL(final URL iconURL) {
+        m_iconURL = iconURL;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -191,12 +191,12 @@ private void processCategory(final AbstractContainerObject parent,
         }
 
         for (CustomNode node : category.getNodeList()) {
-            NodeTemplate oldNode = (NodeTemplate)nodeMap.get(node.getId());
+            AbstractRepositoryObject oldNode = (AbstractRepositoryObject)nodeMap.get(node.getId());
             if (oldNode == null) {
                 LOGGER.warn("Node '" + node.getId()
                         + "' does not exist in node repository");
             } else {
-                NodeTemplate newNode = (NodeTemplate)oldNode.deepCopy();
+                AbstractRepositoryObject newNode = (AbstractRepositoryObject)oldNode.deepCopy();
                 newNode.setParent(parent);
                 parent.addChild(newNode);
             }
@@ -0,0 +1,551 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.repository.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Search index over a repository tree. All names are normalized (upper-cased) once when the index is created and
+ * bigrams and trigrams of the names are kept in posting lists, so that a query only has to look at the candidates
+ * sharing its n-grams. The tree structure is stored in pre-order, i.e. the ancestors of an element are all elements
+ * whose pre-order interval encloses the element's position. This allows to compute the set of elements that have to
+ * be shown for a query once and to answer per-element requests in constant time.
+ *
+ * <p>
+ * For fuzzy search every name's bigram signature (the sorted distinct bigrams packed into ints) is computed once as
+ * well, so that Tanimoto distances can be computed by merging two int arrays.
+ * </p>
+ *
+ * <p>
+ * An index is a snapshot of the tree at the time of its creation. Use {@link #isIndexOf(Root)} to check whether it is
+ * still valid for a root.
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.2
+ */
+public final class RepositorySearchIndex {
+    private static final int MAX_GRAM_LENGTH = 3;
+
+    private final Root m_root;
+
+    private final long m_structureVersion;
+
+    private final IRepositoryObject[] m_objects;
+
+    private final Map<IRepositoryObject, Integer> m_positions;
+
+    private final int[] m_parents;
+
+    private final int[] m_subtreeEnds;
+
+    private final boolean[] m_isNode;
+
+    private final boolean[] m_containsNodes;
+
+    private final String[] m_names;
+
+    private final String[] m_alternativeNames;
+
+    private final int[][] m_signatures;
+
+    private final int[][] m_alternativeSignatures;
+
+    private final Map<Long, int[]> m_postings;
+
+    /**
+     * Creates a new index for the given repository root.
+     *
+     * @param root the repository root
+     */
+    public RepositorySearchIndex(final Root root) {
+        m_root = root;
+        m_structureVersion = root.getStructureVersion();
+
+        List<IRepositoryObject> objects = new ArrayList<IRepositoryObject>();
+        List<Integer> parents = new ArrayList<Integer>();
+        collect(root, -1, objects, parents);
+
+        int size = objects.size();
+        m_objects = objects.toArray(new IRepositoryObject[size]);
+        m_positions = new IdentityHashMap<IRepositoryObject, Integer>(size);
+        m_parents = new int[size];
+        m_subtreeEnds = new int[size];
+        m_isNode = new boolean[size];
+        m_containsNodes = new boolean[size];
+        m_names = new String[size];
+        m_alternativeNames = new String[size];
+        m_signatures = new int[size][];
+        m_alternativeSignatures = new int[size][];
+
+        for (int i = 0; i < size; i++) {
+            IRepositoryObject o = m_objects[i];
+            m_positions.put(o, i);
+            m_parents[i] = parents.get(i);
+            m_subtreeEnds[i] = i + 1;
+            m_isNode[i] = o instanceof AbstractNodeTemplate;
+            if (i > 0) {
+                // the root's name is never searched
+                m_names[i] = normalize(o.getName());
+                m_signatures[i] = bigramSignature(m_names[i]);
+            }
+            if (o instanceof MetaNodeTemplate) {
+                // with meta nodes also the name of the workflow manager is searched
+                m_alternativeNames[i] = normalize(((MetaNodeTemplate)o).getManager().getName());
+                m_alternativeSignatures[i] = bigramSignature(m_alternativeNames[i]);
+            }
+        }
+        // children come after their parents in pre-order, hence walking backwards completes all subtrees
+        for (int i = size - 1; i > 0; i--) {
+            int parent = m_parents[i];
+            m_subtreeEnds[parent] = Math.max(m_subtreeEnds[parent], m_subtreeEnds[i]);
+            m_containsNodes[parent] |= m_isNode[i] || m_containsNodes[i];
+        }
+
+        Map<Long, Postings> postings = new HashMap<Long, Postings>();
+        for (int i = 1; i < size; i++) {
+            addGrams(postings, m_names[i], i);
+            addGrams(postings, m_alternativeNames[i], i);
+        }
+        m_postings = new HashMap<Long, int[]>(postings.size() * 2);
+        for (Map.Entry<Long, Postings> e : postings.entrySet()) {
+            m_postings.put(e.getKey(), e.getValue().toArray());
+        }
+    }
+
+    private static void collect(final IRepositoryObject object, final int parent,
+        final List<IRepositoryObject> objects, final List<Integer> parents) {
+        int pos = objects.size();
+        objects.add(object);
+        parents.add(parent);
+        if (object instanceof IContainerObject) {
+            for (IRepositoryObject child : ((IContainerObject)object).getChildren()) {
+                collect(child, pos, objects, parents);
+            }
+        }
+    }
+
+    private static void addGrams(final Map<Long, Postings> postings, final String name, final int pos) {
+        if (name == null) {
+            return;
+        }
+        for (int n = 1; n <= MAX_GRAM_LENGTH; n++) {
+            for (int i = 0; i + n <= name.length(); i++) {
+                long key = gramKey(name, i, n);
+                Postings p = postings.get(key);
+                if (p == null) {
+                    p = new Postings();
+                    postings.put(key, p);
+                }
+                p.add(pos);
+            }
+        }
+    }
+
+    private static long gramKey(final String s, final int start, final int length) {
+        long key = length;
+        for (int i = start; i < start + length; i++) {
+            key = (key << 16) | s.charAt(i);
+        }
+        return key;
+    }
+
+    /**
+     * Normalizes a name or query in the same way as it is done for the indexed names.
+     *
+     * @param s any string, may be <code>null</code>
+     * @return the normalized string or <code>null</code>
+     */
+    public static String normalize(final String s) {
+        return (s == null) ? null : s.toUpperCase();
+    }
+
+    /**
+     * Computes the bigram signature of a string, i.e. the sorted array of all distinct bigrams with both characters
+     * packed into one int.
+     *
+     * @param s a (normalized) string, may be <code>null</code>
+     * @return the signature, <code>null</code> if the string is <code>null</code>
+     */
+    public static int[] bigramSignature(final String s) {
+        if (s == null) {
+            return null;
+        }
+        if (s.length() < 2) {
+            return new int[0];
+        }
+        int[] grams = new int[s.length() - 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (s.charAt(i) << 16) | s.charAt(i + 1);
+        }
+        Arrays.sort(grams);
+        int k = 1;
+        for (int i = 1; i < grams.length; i++) {
+            if (grams[i] != grams[k - 1]) {
+                grams[k++] = grams[i];
+            }
+        }
+        return (k == grams.length) ? grams : Arrays.copyOf(grams, k);
+    }
+
+    /**
+     * Computes the Tanimoto distance between two bigram signatures, i.e. one minus the size of the intersection
+     * divided by the size of the union.
+     *
+     * @param a a signature as returned by {@link #bigramSignature(String)}
+     * @param b another signature
+     * @return the distance between 0 and 1; 1 if both signatures are empty
+     */
+    public static double tanimotoDistance(final int[] a, final int[] b) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while ((i < a.length) && (j < b.length)) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                common++;
+                i++;
+                j++;
+            }
+        }
+        int union = a.length + b.length - common;
+        return (union > 0) ? 1.0 - common / (double)union : 1.0;
+    }
+
+    /**
+     * Returns whether this index has been created for the given root and the root's structure has not changed since.
+     *
+     * @param root a repository root
+     * @return <code>true</code> if the index is valid for the root, <code>false</code> otherwise
+     */
+    public boolean isIndexOf(final Root root) {
+        return (m_root == root) && (m_structureVersion == root.getStructureVersion());
+    }
+
+    /**
+     * Returns the number of indexed objects, including the root.
+     *
+     * @return the number of objects
+     */
+    public int size() {
+        return m_objects.length;
+    }
+
+    /**
+     * Returns the position of the given object in the index.
+     *
+     * @param object any object
+     * @return the position or -1 if the object is not part of the index
+     */
+    public int indexOf(final Object object) {
+        Integer pos = m_positions.get(object);
+        return (pos == null) ? -1 : pos;
+    }
+
+    /**
+     * Returns the object at the given position.
+     *
+     * @param pos a position
+     * @return the repository object
+     */
+    public IRepositoryObject getObject(final int pos) {
+        return m_objects[pos];
+    }
+
+    /**
+     * Returns whether the object at the given position is a node (or meta node) template.
+     *
+     * @param pos a position
+     * @return <code>true</code> for nodes, <code>false</code> for categories and the root
+     */
+    public boolean isNode(final int pos) {
+        return m_isNode[pos];
+    }
+
+    /**
+     * Returns the normalized name of the object at the given position.
+     *
+     * @param pos a position
+     * @return the normalized name, <code>null</code> for the root
+     */
+    public String getNormalizedName(final int pos) {
+        return m_names[pos];
+    }
+
+    /**
+     * Returns the normalized alternative name of the object at the given position, i.e. the workflow name of meta
+     * nodes.
+     *
+     * @param pos a position
+     * @return the normalized alternative name or <code>null</code> if the object does not have one
+     */
+    public String getNormalizedAlternativeName(final int pos) {
+        return m_alternativeNames[pos];
+    }
+
+    /**
+     * Returns the bigram signature of the normalized name of the object at the given position.
+     *
+     * @param pos a position
+     * @return the signature, <code>null</code> for the root
+     */
+    public int[] getSignature(final int pos) {
+        return m_signatures[pos];
+    }
+
+    /**
+     * Returns the bigram signature of the normalized alternative name of the object at the given position.
+     *
+     * @param pos a position
+     * @return the signature or <code>null</code> if the object does not have an alternative name
+     */
+    public int[] getAlternativeSignature(final int pos) {
+        return m_alternativeSignatures[pos];
+    }
+
+    /**
+     * Finds all objects whose (alternative) name contains the query.
+     *
+     * @param normalizedQuery a query that has been normalized with {@link #normalize(String)}
+     * @return a set of positions, with one bit for every object that matches
+     */
+    public BitSet findMatches(final String normalizedQuery) {
+        BitSet matches = new BitSet(m_objects.length);
+        if (normalizedQuery.isEmpty()) {
+            return matches;
+        }
+
+        int gramLength = Math.min(MAX_GRAM_LENGTH, normalizedQuery.length());
+        int[] candidates = null;
+        for (int i = 0; i + gramLength <= normalizedQuery.length(); i++) {
+            int[] posting = m_postings.get(gramKey(normalizedQuery, i, gramLength));
+            if (posting == null) {
+                return matches;
+            }
+            candidates = (candidates == null) ? posting : intersect(candidates, posting);
+            if (candidates.length == 0) {
+                return matches;
+            }
+        }
+
+        for (int pos : candidates) {
+            if (contains(m_names[pos], normalizedQuery) || contains(m_alternativeNames[pos], normalizedQuery)) {
+                matches.set(pos);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean contains(final String name, final String normalizedQuery) {
+        return (name != null) && name.contains(normalizedQuery);
+    }
+
+    private static int[] intersect(final int[] a, final int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while ((i < a.length) && (j < b.length)) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Computes the set of objects that have to be shown in a tree for the given matches. These are the matches
+     * themselves, all their ancestors (except the root), and all descendants of matching categories that are nodes or
+     * categories containing nodes.
+     *
+     * @param matches a set of positions as returned by {@link #findMatches(String)}
+     * @return a new set of positions
+     */
+    public BitSet expandMatches(final BitSet matches) {
+        BitSet selection = new BitSet(m_objects.length);
+        for (int pos = matches.nextSetBit(1); pos >= 0; pos = matches.nextSetBit(pos + 1)) {
+            if (selection.get(pos)) {
+                // already covered by a matching category further up, including the ancestors
+                continue;
+            }
+            if (!m_isNode[pos]) {
+                for (int d = pos + 1; d < m_subtreeEnds[pos]; d++) {
+                    if (m_isNode[d] || m_containsNodes[d]) {
+                        selection.set(d);
+                    }
+                }
+            }
+            // mark ancestors until the first one that has already been marked before
+            for (int a = pos; (a > 0) && !selection.get(a); a = m_parents[a]) {
+                selection.set(a);
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * Ranks the nodes among the given matches by ascending score and returns the best ones. Nodes with equal scores
+     * are returned in tree order. Categories are ignored.
+     *
+     * @param matches a set of positions
+     * @param scores the score for every position in the index, lower is better
+     * @param k the maximum number of nodes to return
+     * @return the best nodes in ascending order of their scores
+     */
+    public IRepositoryObject[] rankNodes(final BitSet matches, final double[] scores, final int k) {
+        // bounded max-heap holding the k best positions seen so far, the worst one at the top
+        int[] heap = new int[Math.max(0, k)];
+        int size = 0;
+        for (int pos = matches.nextSetBit(1); pos >= 0; pos = matches.nextSetBit(pos + 1)) {
+            if (!m_isNode[pos]) {
+                continue;
+            }
+            if (size < heap.length) {
+                heap[size] = pos;
+                siftUp(heap, size++, scores);
+            } else if ((size > 0) && isWorse(heap[0], pos, scores)) {
+                heap[0] = pos;
+                siftDown(heap, size, scores);
+            }
+        }
+
+        IRepositoryObject[] ranked = new IRepositoryObject[size];
+        while (size > 0) {
+            ranked[--size] = m_objects[heap[0]];
+            heap[0] = heap[size];
+            siftDown(heap, size, scores);
+        }
+        return ranked;
+    }
+
+    private static boolean isWorse(final int a, final int b, final double[] scores) {
+        int c = Double.compare(scores[a], scores[b]);
+        return (c > 0) || ((c == 0) && (a > b));
+    }
+
+    private static void siftUp(final int[] heap, final int index, final double[] scores) {
+        int i = index;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!isWorse(heap[i], heap[parent], scores)) {
+                return;
+            }
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(final int[] heap, final int size, final double[] scores) {
+        int i = 0;
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if ((left < size) && isWorse(heap[left], heap[worst], scores)) {
+                worst = left;
+            }
+            if ((right < size) && isWorse(heap[right], heap[worst], scores)) {
+                worst = right;
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(final int[] heap, final int i, final int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    /**
+     * Returns whether the object at the first position is an ancestor of the object at the second position.
+     *
+     * @param ancestor the position of the potential ancestor
+     * @param descendant the position of the potential descendant
+     * @return <code>true</code> if it is an ancestor, <code>false</code> otherwise
+     */
+    public boolean isAncestor(final int ancestor, final int descendant) {
+        return (ancestor < descendant) && (descendant < m_subtreeEnds[ancestor]);
+    }
+
+    private static final class Postings {
+        private int[] m_positions = new int[4];
+
+        private int m_size;
+
+        void add(final int pos) {
+            if ((m_size > 0) && (m_positions[m_size - 1] == pos)) {
+                return;
+            }
+            if (m_size == m_positions.length) {
+                m_positions = Arrays.copyOf(m_positions, m_size * 2);
+            }
+            m_positions[m_size++] = pos;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(m_positions, m_size);
+        }
+    }
+}
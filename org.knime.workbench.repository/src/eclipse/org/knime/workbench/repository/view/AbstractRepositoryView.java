@@ -67,7 +67,6 @@
 import org.eclipse.jface.viewers.IDoubleClickListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.TreeViewer;
-import org.eclipse.jface.viewers.ViewerComparator;
 import org.eclipse.jface.viewers.ViewerFilter;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.StackLayout;
@@ -164,6 +163,9 @@ public abstract class AbstractRepositoryView extends ViewPart implements Reposit
 
     private long m_lastViewUpdate = 0;
 
+    /** <code>true</code> while the snapshot from the last session is displayed instead of the repository. */
+    private volatile boolean m_showingSnapshot = false;
+
     /* indicator whether the additional information for each repository object already has been determined */
     private boolean m_additionalInfoAvailable = false;
 
@@ -173,6 +175,9 @@ public abstract class AbstractRepositoryView extends ViewPart implements Reposit
     /* fuzzy text filter combined with 'additional info' filter (e.g. streaming) */
     private AdditionalInfoViewFilter m_fuzzyTextInfoFilter;
 
+    /* fuzzy text filter, also ranks the nodes shown in the list */
+    private TanimotoTextualViewFilter m_fuzzyFilter;
+
     private Composite m_obscureLayer;
     private Label m_obscureLayerLabel;
     private Color m_partiallyObscuredFill;
@@ -409,9 +414,16 @@ public void setObscuringDisplay(final ObscuringState obscuringState) {
      * @param monitor a progress monitor, must not be <code>null</code>
      */
     protected void readRepository(final Composite parent, final IProgressMonitor monitor) {
+        Root snapshot = RepositoryManager.INSTANCE.getRootSnapshot();
+        if (snapshot != null) {
+            // show the repository from the last session until the actual one has been read
+            m_showingSnapshot = true;
+            updateRepositoryView(snapshot);
+        }
         RepositoryManager.INSTANCE.addLoadListener(this);
         Root repository = RepositoryManager.INSTANCE.getRoot(monitor);
 
+        m_showingSnapshot = false;
         updateRepositoryView(repository);
 
         Display.getDefault().asyncExec(new Runnable() {
@@ -613,13 +625,13 @@ private void initializeFilters() {
         final RepositoryViewFilter textFilter = new RepositoryViewFilter();
 
         //fuzzy text filter
-        final TanimotoTextualViewFilter fuzzyFilter = new TanimotoTextualViewFilter();
+        m_fuzzyFilter = new TanimotoTextualViewFilter();
 
         //text filter combined with 'additional info' filter (e.g. streaming)
         m_textInfoFilter = new AdditionalInfoViewFilter(textFilter, KEY_INFO_STREAMABLE);
 
         //fuzzy text filter combinded with the 'additional info' filter (e.g. streaming)
-        m_fuzzyTextInfoFilter = new AdditionalInfoViewFilter(fuzzyFilter, KEY_INFO_STREAMABLE);
+        m_fuzzyTextInfoFilter = new AdditionalInfoViewFilter(m_fuzzyFilter, KEY_INFO_STREAMABLE);
     }
 
     /* called whenever the search query changes (no matter in what search mode, i.e. fuzzy or text) */
@@ -629,13 +641,13 @@ private void onSearchQueryChanged() {
             if (m_fuzzyTextInfoFilter.getDelegateFilter().hasNonEmptyQuery()) {
                 if (!(m_viewer.getContentProvider() instanceof ListRepositoryContentProvider)) {
                     //only change the content provider if its not a list content provider already
-                    m_viewer.setContentProvider(new ListRepositoryContentProvider());
+                    //the nodes are already ranked by the fuzzy filter, hence no comparator
+                    m_viewer.setContentProvider(new ListRepositoryContentProvider(m_fuzzyFilter::getRankedNodes));
+                    m_viewer.setComparator(null);
 
                     //sync the additional info to be shown
                     onShowAdditionalInfoClicked();
                 }
-                m_viewer.setComparator(
-                    new ViewerComparator(m_fuzzyTextInfoFilter.getDelegateFilter().createComparator()));
             } else {
                 if (!(m_viewer.getContentProvider() instanceof RepositoryContentProvider)) {
                     //only change the content provider if its not a tree content provider already
@@ -665,8 +677,8 @@ private void onFuzzySearchButtonClicked(final AdditionalInfoViewFilter extFuzzyF
 
             //set the content provider. If search query is empty, show the tree, otherwise the list
             if(extTextFilter.getDelegateFilter().hasNonEmptyQuery()) {
-                m_viewer.setContentProvider(new ListRepositoryContentProvider());
-                m_viewer.setComparator(new ViewerComparator(extFuzzyFilter.getDelegateFilter().createComparator()));
+                m_viewer.setContentProvider(new ListRepositoryContentProvider(m_fuzzyFilter::getRankedNodes));
+                m_viewer.setComparator(null);
             } else {
                 m_viewer.setContentProvider(new RepositoryContentProvider());
                 m_viewer.setComparator(null);
@@ -826,7 +838,7 @@ public void newCategory(final Root root, final Category category) {
     @Override
     public void newNode(final Root root, final NodeTemplate node) {
         m_nodeCounter++;
-        if (System.currentTimeMillis() - m_lastViewUpdate < 500) {
+        if (m_showingSnapshot || (System.currentTimeMillis() - m_lastViewUpdate < 500)) {
             return;
         }
         updateRepositoryView(root);
@@ -840,7 +852,7 @@ public void newNode(final Root root, final NodeTemplate node) {
     @Override
     public void newMetanode(final Root root, final MetaNodeTemplate metanode) {
         m_nodeCounter++;
-        if (System.currentTimeMillis() - m_lastViewUpdate < 500) {
+        if (m_showingSnapshot || (System.currentTimeMillis() - m_lastViewUpdate < 500)) {
             return;
         }
         updateRepositoryView(root);
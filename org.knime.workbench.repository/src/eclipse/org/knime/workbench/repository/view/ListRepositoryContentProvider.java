@@ -49,6 +49,7 @@
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.Viewer;
@@ -65,12 +66,38 @@
 public class ListRepositoryContentProvider implements ITreeContentProvider {
     private Object m_root;
     private Object[] m_allElements;
+    private final Function<Object, Object[]> m_rankedElements;
+
+    /**
+     * Creates a content provider that returns all nodes in tree order.
+     */
+    public ListRepositoryContentProvider() {
+        this(null);
+    }
+
+    /**
+     * Creates a content provider that returns the elements in the order given by the function. If the function is
+     * <code>null</code> or returns <code>null</code> for an input, all nodes are returned in tree order.
+     *
+     * @param rankedElements a function returning the already ordered elements for an input element, may be
+     *            <code>null</code>
+     * @since 4.2
+     */
+    public ListRepositoryContentProvider(final Function<Object, Object[]> rankedElements) {
+        m_rankedElements = rankedElements;
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
     public Object[] getElements(final Object inputElement) {
+        Object[] ranked = (m_rankedElements != null) ? m_rankedElements.apply(inputElement) : null;
+        if (ranked != null) {
+            m_root = inputElement;
+            m_allElements = ranked;
+            return m_allElements;
+        }
         ArrayList<Object> list = new ArrayList<>();
         getObjects(inputElement, list);
         m_root = inputElement;
@@ -47,10 +47,15 @@
  */
 package org.knime.workbench.repository.view;
 
+import java.util.BitSet;
+
+import org.eclipse.jface.viewers.Viewer;
+import org.knime.workbench.repository.RepositoryManager;
 import org.knime.workbench.repository.model.AbstractNodeTemplate;
 import org.knime.workbench.repository.model.Category;
 import org.knime.workbench.repository.model.IRepositoryObject;
 import org.knime.workbench.repository.model.MetaNodeTemplate;
+import org.knime.workbench.repository.model.RepositorySearchIndex;
 import org.knime.workbench.repository.model.Root;
 
 /**
@@ -59,6 +64,79 @@
  * @author Florian Georg, University of Konstanz
  */
 public class RepositoryViewFilter extends TextualViewFilter {
+    private RepositorySearchIndex m_index;
+
+    private String m_indexedQuery;
+
+    private BitSet m_matches;
+
+    private BitSet m_selection;
+
+    /**
+     * If a search index is available for the viewer's input, the matching elements are computed once per query and
+     * looked up afterwards. Otherwise the tree is searched by {@link #doSelect(Object, Object, boolean)}.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean select(final Viewer viewer, final Object parentElement, final Object element) {
+        // this means that the filter has been cleared
+        if (!hasNonEmptyQuery()) {
+            return true;
+        }
+
+        RepositorySearchIndex index = getSearchIndex(viewer.getInput());
+        int pos = (index == null) ? -1 : index.indexOf(element);
+        if (pos < 0) {
+            return doSelect(parentElement, element, true);
+        }
+
+        updateMatches(index);
+        if ((element instanceof AbstractNodeTemplate) && (parentElement instanceof Root)) {
+            // flat lists pass the root as parent of all nodes, matching categories are not taken into account then
+            return m_matches.get(pos);
+        }
+        return m_selection.get(pos);
+    }
+
+    /**
+     * Returns the search index for the given viewer input.
+     *
+     * @param input the viewer's input
+     * @return a search index or <code>null</code> if none is available (yet)
+     */
+    static RepositorySearchIndex getSearchIndex(final Object input) {
+        return (input instanceof Root) ? RepositoryManager.INSTANCE.getSearchIndex((Root)input) : null;
+    }
+
+    /**
+     * Returns the matches of the current query in the given index. They are only computed again if the index or the
+     * query has changed since the last call.
+     *
+     * @param index the search index, never <code>null</code>
+     * @return a set of positions in the index
+     */
+    BitSet updateMatches(final RepositorySearchIndex index) {
+        if ((index != m_index) || !getQueryString().equals(m_indexedQuery)) {
+            m_matches = computeMatches(index);
+            m_selection = index.expandMatches(m_matches);
+            m_index = index;
+            m_indexedQuery = getQueryString();
+        }
+        return m_matches;
+    }
+
+    /**
+     * Computes the elements in the index that match the current query. The default implementation returns all
+     * elements whose name contains the query.
+     *
+     * @param index the search index, never <code>null</code>
+     * @return a set of positions in the index
+     * @since 4.2
+     */
+    protected BitSet computeMatches(final RepositorySearchIndex index) {
+        return index.findMatches(getQueryString());
+    }
 
     /**
      *  An element is selected if itself, a parent or a
@@ -45,16 +45,17 @@
 
 package org.knime.workbench.repository.view;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 
-import org.eclipse.jface.viewers.Viewer;
 import org.knime.workbench.repository.model.AbstractNodeTemplate;
-import org.knime.workbench.repository.model.Category;
+import org.knime.workbench.repository.model.IContainerObject;
 import org.knime.workbench.repository.model.IRepositoryObject;
 import org.knime.workbench.repository.model.MetaNodeTemplate;
-import org.knime.workbench.repository.model.Root;
+import org.knime.workbench.repository.model.RepositorySearchIndex;
 
 /**
  * A filter for items which computes the tanimoto distance to a given query and filters all nodes which have a distance
@@ -62,79 +63,83 @@
  *
  * @author Marcel Hanser, KNIME AG, Zurich, Switzerland
  */
-final class TanimotoTextualViewFilter extends TextualViewFilter {
+final class TanimotoTextualViewFilter extends RepositoryViewFilter {
     /**
      * Upper excluding bound of distances to a query a node may have to be labeled as a match.
      */
     private static final double UPPER_DISTANCE_BOUND = 0.85;
 
+    /* distance of every indexed name to the query the matches have been computed for */
+    private double[] m_distances;
+
     /**
+     * In addition to the elements containing the query, all elements within the distance bound are matches.
+     *
      * {@inheritDoc}
      */
     @Override
-    public boolean select(final Viewer viewer, final Object parentElement, final Object element) {
-
-        // this means that the filter has been cleared
-        if (!hasNonEmptyQuery()) {
-            return true;
+    protected BitSet computeMatches(final RepositorySearchIndex index) {
+        final String query = getQueryString();
+        final int[] querySignature = RepositorySearchIndex.bigramSignature(query);
+
+        BitSet matches = index.findMatches(query);
+        double[] distances = new double[index.size()];
+        distances[0] = 1.0;
+        for (int pos = 1; pos < distances.length; pos++) {
+            distances[pos] = RepositorySearchIndex.tanimotoDistance(querySignature, index.getSignature(pos));
+            if (!matches.get(pos) && ((distances[pos] < UPPER_DISTANCE_BOUND)
+                || isClose(index.getAlternativeSignature(pos), querySignature))) {
+                matches.set(pos);
+            }
         }
-        // call helper method
-        return doSelect(parentElement, element, true);
+        m_distances = distances;
+        return matches;
+    }
+
+    private static boolean isClose(final int[] signature, final int[] querySignature) {
+        return (signature != null)
+            && (RepositorySearchIndex.tanimotoDistance(querySignature, signature) < UPPER_DISTANCE_BOUND);
     }
 
     /**
-     * Copied from {@link TextualViewFilter}.
+     * Returns all matching nodes for the current query, ordered by their distance to the query.
+     *
+     * @param input the viewer's input
+     * @return the ranked nodes or <code>null</code> if there is no query
      */
-    @Override
-    protected boolean doSelect(final Object parentElement, final Object element, final boolean recurse) {
-        boolean selectThis = false;
-        // Node Template : Match against name
-        if (element instanceof AbstractNodeTemplate) {
+    Object[] getRankedNodes(final Object input) {
+        if (!hasNonEmptyQuery()) {
+            return null;
+        }
+        RepositorySearchIndex index = getSearchIndex(input);
+        if (index != null) {
+            BitSet matches = updateMatches(index);
+            return index.rankNodes(matches, m_distances, matches.cardinality());
+        }
 
-            // check against node name
-            selectThis = match(((AbstractNodeTemplate)element).getName());
+        // no index available yet, search the tree
+        List<AbstractNodeTemplate> nodes = new ArrayList<AbstractNodeTemplate>();
+        collectMatchingNodes(input, nodes);
+        final Comparator<String> comparator = createComparator();
+        Collections.sort(nodes, (a, b) -> comparator.compare(a.getName(), b.getName()));
+        return nodes.toArray();
+    }
+
+    private void collectMatchingNodes(final Object element, final List<AbstractNodeTemplate> nodes) {
+        if (element instanceof IContainerObject) {
+            for (IRepositoryObject child : ((IContainerObject)element).getChildren()) {
+                collectMatchingNodes(child, nodes);
+            }
+        } else if (element instanceof AbstractNodeTemplate) {
+            boolean matches = match(((AbstractNodeTemplate)element).getName());
             if (element instanceof MetaNodeTemplate) {
                 // with meta nodes also check the name of the workflow manager
-                selectThis |= match(((MetaNodeTemplate)element).getManager().getName());
-            }
-            if (selectThis) {
-                return true;
-            }
-            // we must also check towards root, as we want to include all
-            // children of a selected category
-            IRepositoryObject temp = (IRepositoryObject)parentElement;
-            while (!(temp instanceof Root)) {
-
-                // check parent category, but do *not* recurse !!!!
-                if (doSelect(temp.getParent(), temp, false)) {
-                    return true;
-                }
-                temp = temp.getParent();
+                matches |= match(((MetaNodeTemplate)element).getManager().getName());
             }
-        } else
-        // Category: Match against name and children
-        if (element instanceof Category) {
-            // check against node name
-            selectThis = match(((Category)element).getName());
-            if (selectThis) {
-                return true;
-            }
-
-            // check recursively against children, if needed
-            if (recurse) {
-                Category category = (Category)element;
-                IRepositoryObject[] children = category.getChildren();
-                for (int i = 0; i < children.length; i++) {
-                    // recursively check. return true on first matching child
-                    if (doSelect(category, children[i], true)) {
-                        return true;
-                    }
-
-                }
+            if (matches) {
+                nodes.add((AbstractNodeTemplate)element);
             }
         }
-
-        return false;
     }
 
     /**
@@ -154,58 +159,10 @@ protected boolean match(final String test) {
         }
     }
 
-
-    /**
-     * Copied from the Tanimoto BiGram distance from the distmatrix package.
-     */
     private static double computeTanimotoBiGramDistance(final String textA, final String textB) {
-
-        String a = textA.toUpperCase();
-        String b = textB.toUpperCase();
-
-        Set<String> gramsA = split(a, 2);
-        Set<String> gramsB = split(b, 2);
-
-        int nominator = cardinalityOfIntersection(gramsA, gramsB);
-        int inAButNotInB = cardinalityOfRelativeComplement(gramsA, gramsB);
-        int inBButNotInA = cardinalityOfRelativeComplement(gramsB, gramsA);
-
-        double denominator = nominator + inAButNotInB + inBButNotInA;
-
-        if (denominator > 0) {
-            return 1.0 - nominator / denominator;
-        } else {
-            return 1.0;
-        }
-    }
-
-    private static int cardinalityOfIntersection(final Set<String> a, final Set<String> b) {
-        int toReturn = 0;
-        for (String gram : a) {
-            if (b.contains(gram)) {
-                toReturn++;
-            }
-        }
-        return toReturn;
-    }
-
-    private static int cardinalityOfRelativeComplement(final Set<String> a, final Set<String> b) {
-        int toReturn = 0;
-        for (String gram : a) {
-            if (!b.contains(gram)) {
-                toReturn++;
-            }
-        }
-        return toReturn;
-    }
-
-    private static Set<String> split(final String a, final int count) {
-        Set<String> toReturn = new HashSet<String>(a.length() > 1 ? a.length() - 1 : 12);
-
-        for (int i = 0; i < a.length() - count + 1; i++) {
-            toReturn.add(a.substring(i, i + count));
-        }
-        return toReturn;
+        return RepositorySearchIndex.tanimotoDistance(
+            RepositorySearchIndex.bigramSignature(RepositorySearchIndex.normalize(textA)),
+            RepositorySearchIndex.bigramSignature(RepositorySearchIndex.normalize(textB)));
     }
 
     /**
@@ -217,14 +174,16 @@ public Comparator<String> createComparator() {
         // Actually there seems to be a concurrent execution somewhere,
         // so i decided to use a thread safe implementation.
         if (hasNonEmptyQuery()) {
-            final String currentQuery = getQueryString();
+            final int[] querySignature = RepositorySearchIndex.bigramSignature(getQueryString());
 
             return new Comparator<String>() {
 
                 @Override
                 public int compare(final String o1, final String o2) {
-                    double computeTanimotoBiGramDistanceO1 = computeTanimotoBiGramDistance(currentQuery, o1);
-                    double computeTanimotoBiGramDistanceO2 = computeTanimotoBiGramDistance(currentQuery, o2);
+                    double computeTanimotoBiGramDistanceO1 = RepositorySearchIndex.tanimotoDistance(querySignature,
+                        RepositorySearchIndex.bigramSignature(RepositorySearchIndex.normalize(o1)));
+                    double computeTanimotoBiGramDistanceO2 = RepositorySearchIndex.tanimotoDistance(querySignature,
+                        RepositorySearchIndex.bigramSignature(RepositorySearchIndex.normalize(o2)));
                     return Double.compare(computeTanimotoBiGramDistanceO1, computeTanimotoBiGramDistanceO2);
                 }
             };
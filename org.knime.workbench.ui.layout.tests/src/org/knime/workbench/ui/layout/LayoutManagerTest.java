@@ -0,0 +1,216 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.ui.layout;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.NodeUIInformation;
+import org.knime.core.ui.node.workflow.ConnectionContainerUI;
+import org.knime.core.ui.node.workflow.NodeContainerUI;
+import org.knime.core.ui.node.workflow.WorkflowManagerUI;
+
+/**
+ * Testcases for the incremental layout of {@link LayoutManager}, on a mocked workflow.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class LayoutManagerTest {
+
+    private static final NodeID ROOT = new NodeID(0);
+
+    private WorkflowManagerUI m_wfm;
+
+    private final List<NodeContainerUI> m_nodes = new ArrayList<NodeContainerUI>();
+
+    private final Map<NodeID, NodeUIInformation> m_uiInfos = new HashMap<NodeID, NodeUIInformation>();
+
+    private final Map<NodeID, Set<ConnectionContainerUI>> m_incoming =
+        new HashMap<NodeID, Set<ConnectionContainerUI>>();
+
+    private final Map<NodeID, Set<ConnectionContainerUI>> m_outgoing =
+        new HashMap<NodeID, Set<ConnectionContainerUI>>();
+
+    /**
+     * Creates the mocked workflow.
+     */
+    @Before
+    public void setUp() {
+        m_wfm = mock(WorkflowManagerUI.class);
+        when(m_wfm.getID()).thenReturn(ROOT);
+        when(m_wfm.getNodeContainers()).thenReturn(m_nodes);
+        when(m_wfm.containsNodeContainer(any())).thenReturn(true);
+        when(m_wfm.getNodeContainer(any())).thenAnswer(i -> {
+            for (NodeContainerUI nc : m_nodes) {
+                if (nc.getID().equals(i.getArgument(0))) {
+                    return nc;
+                }
+            }
+            return null;
+        });
+        when(m_wfm.getIncomingConnectionsFor(any())).thenAnswer(i -> m_incoming.get(i.getArgument(0)));
+        when(m_wfm.getOutgoingConnectionsFor(any())).thenAnswer(i -> m_outgoing.get(i.getArgument(0)));
+    }
+
+    private NodeContainerUI addNode(final int x, final int y) {
+        NodeID id = new NodeID(ROOT, m_nodes.size() + 1);
+        NodeContainerUI nc = mock(NodeContainerUI.class);
+        when(nc.getID()).thenReturn(id);
+        when(nc.getUIInformation()).thenAnswer(i -> m_uiInfos.get(id));
+        doAnswer(i -> m_uiInfos.put(id, i.getArgument(0))).when(nc).setUIInformation(any());
+        m_uiInfos.put(id, NodeUIInformation.builder().setNodeLocation(x, y, -1, -1).build());
+        m_incoming.put(id, new LinkedHashSet<ConnectionContainerUI>());
+        m_outgoing.put(id, new LinkedHashSet<ConnectionContainerUI>());
+        m_nodes.add(nc);
+        return nc;
+    }
+
+    private void connect(final NodeContainerUI source, final NodeContainerUI dest) {
+        ConnectionContainerUI conn = mock(ConnectionContainerUI.class);
+        when(conn.getSource()).thenReturn(source.getID());
+        when(conn.getDest()).thenReturn(dest.getID());
+        when(conn.getSourcePort()).thenReturn(1);
+        when(conn.getDestPort()).thenReturn(1);
+        m_outgoing.get(source.getID()).add(conn);
+        m_incoming.get(dest.getID()).add(conn);
+    }
+
+    private int[] bounds(final NodeContainerUI nc) {
+        return nc.getUIInformation().getBounds();
+    }
+
+    /**
+     * Nodes that are not laid out keep their coordinates, the laid out nodes are placed right of their predecessor.
+     */
+    @Test
+    public void testIncrementalLayoutKeepsOtherNodes() {
+        NodeContainerUI pred = addNode(100, 100);
+        NodeContainerUI inserted1 = addNode(20, 500);
+        NodeContainerUI inserted2 = addNode(40, 700);
+        NodeContainerUI succ = addNode(600, 100);
+        NodeContainerUI unrelated = addNode(100, 400);
+        connect(pred, inserted1);
+        connect(inserted1, inserted2);
+        connect(inserted2, succ);
+        Map<NodeID, int[]> before = new HashMap<NodeID, int[]>();
+        for (NodeContainerUI nc : Arrays.asList(pred, succ, unrelated)) {
+            before.put(nc.getID(), bounds(nc));
+        }
+
+        new LayoutManager(m_wfm, 42).doIncrementalLayout(Arrays.asList(inserted1, inserted2));
+
+        for (NodeContainerUI nc : Arrays.asList(pred, succ, unrelated)) {
+            assertThat("Coordinates of node " + nc.getID() + " changed", bounds(nc), is(before.get(nc.getID())));
+        }
+        assertTrue("Inserted node not right of its predecessor", bounds(inserted1)[0] > bounds(pred)[0]);
+        assertTrue("Inserted nodes in wrong order", bounds(inserted2)[0] > bounds(inserted1)[0]);
+        assertNoOverlaps(Arrays.asList(inserted1, inserted2));
+    }
+
+    /**
+     * Laid out nodes are moved down if they would overlap a node that keeps its position.
+     */
+    @Test
+    public void testIncrementalLayoutAvoidsFixedNodes() {
+        NodeContainerUI pred = addNode(100, 100);
+        NodeContainerUI inserted1 = addNode(20, 500);
+        NodeContainerUI inserted2 = addNode(40, 700);
+        // exactly where the inserted nodes would be placed without other nodes
+        List<NodeContainerUI> blocking = new ArrayList<NodeContainerUI>();
+        for (int x = 150; x <= 450; x += 25) {
+            blocking.add(addNode(x, 100));
+            blocking.add(addNode(x, 130));
+        }
+        connect(pred, inserted1);
+        connect(inserted1, inserted2);
+        Map<NodeID, int[]> before = new HashMap<NodeID, int[]>();
+        for (NodeContainerUI nc : m_nodes) {
+            if (nc != inserted1 && nc != inserted2) {
+                before.put(nc.getID(), bounds(nc));
+            }
+        }
+
+        new LayoutManager(m_wfm, 42).doIncrementalLayout(Arrays.asList(inserted1, inserted2));
+
+        for (Map.Entry<NodeID, int[]> e : before.entrySet()) {
+            assertThat("Coordinates of node " + e.getKey() + " changed", m_uiInfos.get(e.getKey()).getBounds(),
+                is(e.getValue()));
+        }
+        assertTrue("Inserted node not right of its predecessor", bounds(inserted1)[0] > bounds(pred)[0]);
+        assertNoOverlaps(Arrays.asList(inserted1, inserted2));
+    }
+
+    /** Checks that none of the given nodes overlaps one of the other nodes (with the default node size). */
+    private void assertNoOverlaps(final List<NodeContainerUI> laidOut) {
+        for (NodeContainerUI nc : laidOut) {
+            int[] b = bounds(nc);
+            for (NodeContainerUI other : m_nodes) {
+                if (laidOut.contains(other)) {
+                    continue;
+                }
+                int[] o = bounds(other);
+                boolean overlaps = b[0] < o[0] + 50 && o[0] < b[0] + 50 && b[1] < o[1] + 48 && o[1] < b[1] + 48;
+                assertTrue("Node " + nc.getID() + " at " + Arrays.toString(b) + " overlaps node " + other.getID()
+                    + " at " + Arrays.toString(o), !overlaps);
+            }
+        }
+    }
+}
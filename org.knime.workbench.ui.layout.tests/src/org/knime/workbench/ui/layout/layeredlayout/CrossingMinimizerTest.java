@@ -0,0 +1,147 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.ui.layout.layeredlayout;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.workbench.ui.layout.IndexedGraph;
+
+/**
+ * Testcases for {@link CrossingMinimizer}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CrossingMinimizerTest {
+    /**
+     * Checks the crossing count against counting all pairs of edges on random layerings.
+     */
+    @Test
+    public void testNumberOfCrossings() {
+        Random rand = new Random(20200402L);
+        for (int run = 0; run < 50; run++) {
+            int[][] layers = createLayers(rand);
+            IndexedGraph g = createGraph(layers, rand);
+            CrossingMinimizer cm = new CrossingMinimizer(g, layers, false, false);
+            assertThat("Unexpected number of crossings in run " + run, cm.numberOfCrossings(),
+                is(bruteForceCrossings(g)));
+        }
+    }
+
+    /**
+     * Checks that crossing minimization never increases the number of crossings.
+     */
+    @Test
+    public void testRunReducesCrossings() {
+        Random rand = new Random(20200403L);
+        for (int run = 0; run < 50; run++) {
+            int[][] layers = createLayers(rand);
+            IndexedGraph g = createGraph(layers, rand);
+            long before = bruteForceCrossings(g);
+            new CrossingMinimizer(g, layers, false, false).run();
+            assertTrue("Crossings increased in run " + run, bruteForceCrossings(g) <= before);
+        }
+    }
+
+    /** Creates random layers of consecutive node IDs. */
+    private static int[][] createLayers(final Random rand) {
+        int[][] layers = new int[2 + rand.nextInt(6)][];
+        int n = 0;
+        for (int l = 0; l < layers.length; l++) {
+            layers[l] = new int[1 + rand.nextInt(12)];
+            for (int i = 0; i < layers[l].length; i++) {
+                layers[l][i] = n++;
+            }
+        }
+        return layers;
+    }
+
+    /** Creates edges between consecutive layers only, x is the layer, y the position. */
+    private static IndexedGraph createGraph(final int[][] layers, final Random rand) {
+        IndexedGraph.Builder builder = new IndexedGraph.Builder(16, 16);
+        for (int l = 0; l < layers.length; l++) {
+            for (int i = 0; i < layers[l].length; i++) {
+                builder.addNode(l, i);
+            }
+        }
+        for (int l = 1; l < layers.length; l++) {
+            for (int u : layers[l - 1]) {
+                for (int v : layers[l]) {
+                    if (rand.nextDouble() < 0.3) {
+                        builder.addEdge(u, v);
+                    }
+                }
+            }
+        }
+        IndexedGraph g = builder.build();
+        for (int l = 0; l < layers.length; l++) {
+            for (int n : layers[l]) {
+                g.setLayer(n, l);
+            }
+        }
+        return g;
+    }
+
+    private static long bruteForceCrossings(final IndexedGraph g) {
+        long cross = 0;
+        for (int e1 = 0; e1 < g.m(); e1++) {
+            for (int e2 = e1 + 1; e2 < g.m(); e2++) {
+                if (g.getX(g.source(e1)) != g.getX(g.source(e2))) {
+                    continue;
+                }
+                double s = g.getY(g.source(e1)) - g.getY(g.source(e2));
+                double t = g.getY(g.target(e1)) - g.getY(g.target(e2));
+                if ((s < 0 && t > 0) || (s > 0 && t < 0)) {
+                    cross++;
+                }
+            }
+        }
+        return cross;
+    }
+}
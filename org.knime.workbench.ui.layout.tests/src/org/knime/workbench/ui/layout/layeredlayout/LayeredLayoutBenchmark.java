@@ -0,0 +1,140 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.ui.layout.layeredlayout;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.knime.workbench.ui.layout.Graph;
+import org.knime.workbench.ui.layout.Graph.Node;
+
+/**
+ * Benchmark for {@link SimpleLayeredLayouter#doLayout(Graph, java.util.Map)} on synthetic workflow-like DAGs of
+ * increasing size. Each node has one or two predecessors among the recently created nodes, so that the DAGs consist of
+ * long, interleaved branches as in real workflows, including edges that span several layers. Graphs and layouts use a
+ * fixed seed, so that runs are comparable.
+ *
+ * <p>
+ * This is not a testcase. Run the {@link #main(String[])} method, optionally passing the node counts as arguments
+ * (default: 100 300 600 1200 2400).
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class LayeredLayoutBenchmark {
+    private static final long SEED = 20200402L;
+
+    private static final int WARMUP_RUNS = 2;
+
+    private static final int MEASURED_RUNS = 5;
+
+    /** Predecessors are chosen among this many previously created nodes. */
+    private static final int WINDOW = 40;
+
+    /** Probability that a node has a second predecessor. */
+    private static final double JOIN_PROBABILITY = 0.4;
+
+    /** Probability that a node starts a new branch (i.e. is a source). */
+    private static final double SOURCE_PROBABILITY = 0.05;
+
+    private LayeredLayoutBenchmark() {
+    }
+
+    /**
+     * Creates a synthetic DAG with the given number of nodes.
+     *
+     * @param nodeCount the number of nodes
+     * @param seed the seed for the random structure
+     * @return a new graph
+     */
+    static Graph createGraph(final int nodeCount, final long seed) {
+        Random rand = new Random(seed);
+        Graph g = new Graph();
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = g.createNode("n" + i, 0, i);
+            if (i == 0 || rand.nextDouble() < SOURCE_PROBABILITY) {
+                continue;
+            }
+            int window = Math.min(i, WINDOW);
+            g.createEdge(nodes[i - 1 - rand.nextInt(window)], nodes[i]);
+            if (rand.nextDouble() < JOIN_PROBABILITY) {
+                // returns null if the edge exists already
+                g.createEdge(nodes[i - 1 - rand.nextInt(window)], nodes[i]);
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the node counts, optional
+     */
+    public static void main(final String[] args) {
+        int[] sizes = {100, 300, 600, 1200, 2400};
+        if (args.length > 0) {
+            sizes = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        }
+        System.out.println(String.format("%8s %8s %12s %12s", "nodes", "edges", "median[ms]", "min[ms]"));
+        for (int size : sizes) {
+            long[] times = new long[MEASURED_RUNS];
+            int edges = 0;
+            for (int run = -WARMUP_RUNS; run < MEASURED_RUNS; run++) {
+                Graph g = createGraph(size, SEED);
+                edges = g.m();
+                long start = System.nanoTime();
+                new SimpleLayeredLayouter(SEED).doLayout(g, null);
+                long time = System.nanoTime() - start;
+                if (run >= 0) {
+                    times[run] = time;
+                }
+            }
+            Arrays.sort(times);
+            System.out.println(String.format("%8d %8d %12.1f %12.1f", size, edges, times[MEASURED_RUNS / 2] / 1e6,
+                times[0] / 1e6));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.ui.layout.layeredlayout;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CancellationException;
+
+import org.junit.Test;
+import org.knime.workbench.ui.layout.Graph;
+import org.knime.workbench.ui.layout.Graph.Node;
+
+/**
+ * Testcases for {@link SimpleLayeredLayouter}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class SimpleLayeredLayouterTest {
+    /**
+     * Checks that a layout is reproducible by its seed and reports its number of crossings.
+     */
+    @Test
+    public void testSameSeedSameLayout() {
+        Graph g1 = LayeredLayoutBenchmark.createGraph(200, 7);
+        Graph g2 = LayeredLayoutBenchmark.createGraph(200, 7);
+        SimpleLayeredLayouter layouter1 = new SimpleLayeredLayouter(42);
+        SimpleLayeredLayouter layouter2 = new SimpleLayeredLayouter(42);
+        assertThat("Unexpected number of crossings before layout", layouter1.getNumberOfCrossings(), is(-1L));
+        layouter1.doLayout(g1, null);
+        layouter2.doLayout(g2, null);
+        assertTrue("Number of crossings not computed", layouter1.getNumberOfCrossings() >= 0);
+        assertThat("Different number of crossings for same seed", layouter2.getNumberOfCrossings(),
+            is(layouter1.getNumberOfCrossings()));
+        assertThat("Different layout for same seed", toString(g2), is(toString(g1)));
+    }
+
+    /**
+     * Checks that a canceled layout throws an exception and leaves the graph unchanged.
+     */
+    @Test
+    public void testCancel() {
+        Graph g = LayeredLayoutBenchmark.createGraph(50, 3);
+        String before = toString(g);
+        try {
+            new SimpleLayeredLayouter(42).doLayout(g, null, () -> true);
+            fail("Expected layout to be canceled");
+        } catch (CancellationException e) {
+            // expected
+        }
+        assertThat("Graph changed by canceled layout", toString(g), is(before));
+    }
+
+    private static String toString(final Graph g) {
+        StringBuilder b = new StringBuilder();
+        for (Node n : g.nodes()) {
+            b.append(g.getX(n)).append(',').append(g.getY(n)).append(';');
+        }
+        return b.append(g).toString();
+    }
+}
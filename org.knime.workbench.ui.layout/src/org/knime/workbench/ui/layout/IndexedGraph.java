@@ -0,0 +1,382 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.ui.layout;
+
+import java.util.Arrays;
+
+/**
+ * A compact, immutable graph structure for layout algorithms. Nodes and edges are identified by consecutive int IDs
+ * (in order of creation), the incident edges of all nodes are stored in compressed sparse row (CSR) format, and the
+ * coordinates and layers of the nodes are kept in primitive arrays. Additional node or edge properties are stored in
+ * plain arrays indexed by node or edge ID, see e.g. {@link #createIntNodeMap(int)}.
+ *
+ * <p>
+ * In contrast to {@link Graph} no objects are created per node or edge, hence layout algorithms work on contiguous
+ * memory without boxing coordinates or indices in hash maps. Instances are created with a {@link Builder}; only the
+ * coordinates and layers can be changed afterwards.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.2
+ */
+public final class IndexedGraph {
+
+    private final int[] m_source;
+
+    private final int[] m_target;
+
+    /** outgoing edges of node n are m_outEdges[m_outOffsets[n] .. m_outOffsets[n + 1] - 1]. */
+    private final int[] m_outOffsets;
+
+    private final int[] m_outEdges;
+
+    /** incoming edges of node n are m_inEdges[m_inOffsets[n] .. m_inOffsets[n + 1] - 1]. */
+    private final int[] m_inOffsets;
+
+    private final int[] m_inEdges;
+
+    private final double[] m_x;
+
+    private final double[] m_y;
+
+    private final int[] m_layer;
+
+    private IndexedGraph(final int nodeCount, final double[] x, final double[] y, final int edgeCount,
+        final int[] source, final int[] target) {
+        m_x = x;
+        m_y = y;
+        m_layer = new int[nodeCount];
+        m_source = source;
+        m_target = target;
+        m_outOffsets = new int[nodeCount + 1];
+        m_inOffsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            m_outOffsets[source[e] + 1]++;
+            m_inOffsets[target[e] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            m_outOffsets[n + 1] += m_outOffsets[n];
+            m_inOffsets[n + 1] += m_inOffsets[n];
+        }
+        // counting sort keeps the edges of each node in order of creation
+        m_outEdges = new int[edgeCount];
+        m_inEdges = new int[edgeCount];
+        int[] outFill = Arrays.copyOf(m_outOffsets, nodeCount);
+        int[] inFill = Arrays.copyOf(m_inOffsets, nodeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            m_outEdges[outFill[source[e]]++] = e;
+            m_inEdges[inFill[target[e]]++] = e;
+        }
+    }
+
+    /**
+     * @return the number of nodes contained in this graph
+     */
+    public int n() {
+        return m_x.length;
+    }
+
+    /**
+     * @return the number of edges contained in this graph
+     */
+    public int m() {
+        return m_source.length;
+    }
+
+    /**
+     * @param e an edge
+     * @return the edge's source node
+     */
+    public int source(final int e) {
+        return m_source[e];
+    }
+
+    /**
+     * @param e an edge
+     * @return the edge's target node
+     */
+    public int target(final int e) {
+        return m_target[e];
+    }
+
+    /**
+     * @param e an edge
+     * @param n one of the edge's nodes
+     * @return the other node of the edge
+     */
+    public int opposite(final int e, final int n) {
+        return m_source[e] == n ? m_target[e] : m_source[e];
+    }
+
+    /**
+     * @param n a node
+     * @return the number of outgoing edges
+     */
+    public int outDegree(final int n) {
+        return m_outOffsets[n + 1] - m_outOffsets[n];
+    }
+
+    /**
+     * @param n a node
+     * @return the number of incoming edges
+     */
+    public int inDegree(final int n) {
+        return m_inOffsets[n + 1] - m_inOffsets[n];
+    }
+
+    /**
+     * @param n a node
+     * @param i index of the edge, between 0 and {@link #outDegree(int)} - 1
+     * @return the i-th outgoing edge of the node (in order of creation)
+     */
+    public int outEdge(final int n, final int i) {
+        return m_outEdges[m_outOffsets[n] + i];
+    }
+
+    /**
+     * @param n a node
+     * @param i index of the edge, between 0 and {@link #inDegree(int)} - 1
+     * @return the i-th incoming edge of the node (in order of creation)
+     */
+    public int inEdge(final int n, final int i) {
+        return m_inEdges[m_inOffsets[n] + i];
+    }
+
+    /**
+     * returns the edge connecting two nodes, regardless of its direction.
+     *
+     * @param u a node
+     * @param v another node
+     * @return the (first) edge connecting u and v, or -1 if no such edge exists
+     */
+    public int getEdge(final int u, final int v) {
+        for (int i = m_outOffsets[u]; i < m_outOffsets[u + 1]; i++) {
+            if (m_target[m_outEdges[i]] == v) {
+                return m_outEdges[i];
+            }
+        }
+        for (int i = m_inOffsets[u]; i < m_inOffsets[u + 1]; i++) {
+            if (m_source[m_inEdges[i]] == v) {
+                return m_inEdges[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param n a node
+     * @return n's x-coordinate
+     */
+    public double getX(final int n) {
+        return m_x[n];
+    }
+
+    /**
+     * @param n a node
+     * @return n's y-coordinate
+     */
+    public double getY(final int n) {
+        return m_y[n];
+    }
+
+    /**
+     * @param n a node
+     * @param x the x-coordinate
+     */
+    public void setX(final int n, final double x) {
+        m_x[n] = x;
+    }
+
+    /**
+     * @param n a node
+     * @param y the y-coordinate
+     */
+    public void setY(final int n, final double y) {
+        m_y[n] = y;
+    }
+
+    /**
+     * @param n a node
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     */
+    public void setCoordinates(final int n, final double x, final double y) {
+        m_x[n] = x;
+        m_y[n] = y;
+    }
+
+    /**
+     * @param n a node
+     * @return the layer of the node, 0 if not set
+     */
+    public int getLayer(final int n) {
+        return m_layer[n];
+    }
+
+    /**
+     * @param n a node
+     * @param layer the layer of the node
+     */
+    public void setLayer(final int n, final int layer) {
+        m_layer[n] = layer;
+    }
+
+    /**
+     * create a map storing an int for each node in the graph.
+     *
+     * @param value the initial value
+     * @return an array indexed by node, filled with the given value
+     */
+    public int[] createIntNodeMap(final int value) {
+        int[] map = new int[n()];
+        if (value != 0) {
+            Arrays.fill(map, value);
+        }
+        return map;
+    }
+
+    /**
+     * create a map storing a double for each node in the graph.
+     *
+     * @param value the initial value
+     * @return an array indexed by node, filled with the given value
+     */
+    public double[] createDoubleNodeMap(final double value) {
+        double[] map = new double[n()];
+        Arrays.fill(map, value);
+        return map;
+    }
+
+    /**
+     * create a map storing a boolean for each node in the graph.
+     *
+     * @return an array indexed by node, containing <code>false</code> for each node
+     */
+    public boolean[] createBoolNodeMap() {
+        return new boolean[n()];
+    }
+
+    /**
+     * create a map storing a boolean for each edge in the graph.
+     *
+     * @return an array indexed by edge, containing <code>false</code> for each edge
+     */
+    public boolean[] createBoolEdgeMap() {
+        return new boolean[m()];
+    }
+
+    /**
+     * Creates an {@link IndexedGraph}. Nodes and edges get consecutive IDs in order of creation.
+     */
+    public static final class Builder {
+        private double[] m_x;
+
+        private double[] m_y;
+
+        private int m_nodeCount;
+
+        private int[] m_source;
+
+        private int[] m_target;
+
+        private int m_edgeCount;
+
+        /**
+         * @param expectedNodes expected number of nodes
+         * @param expectedEdges expected number of edges
+         */
+        public Builder(final int expectedNodes, final int expectedEdges) {
+            m_x = new double[Math.max(expectedNodes, 4)];
+            m_y = new double[m_x.length];
+            m_source = new int[Math.max(expectedEdges, 4)];
+            m_target = new int[m_source.length];
+        }
+
+        /**
+         * creates a new node.
+         *
+         * @param x the x-coordinate
+         * @param y the y-coordinate
+         * @return the ID of the new node
+         */
+        public int addNode(final double x, final double y) {
+            if (m_nodeCount == m_x.length) {
+                m_x = Arrays.copyOf(m_x, 2 * m_nodeCount);
+                m_y = Arrays.copyOf(m_y, 2 * m_nodeCount);
+            }
+            m_x[m_nodeCount] = x;
+            m_y[m_nodeCount] = y;
+            return m_nodeCount++;
+        }
+
+        /**
+         * creates an edge between given source and target nodes. In contrast to
+         * {@link Graph#createEdge(Graph.Node, Graph.Node)} this doesn't check whether the nodes are adjacent already.
+         *
+         * @param source the source node
+         * @param target the target node
+         * @return the ID of the new edge
+         */
+        public int addEdge(final int source, final int target) {
+            if (source < 0 || source >= m_nodeCount || target < 0 || target >= m_nodeCount) {
+                throw new IllegalArgumentException("Invalid edge (" + source + "," + target + ")");
+            }
+            if (m_edgeCount == m_source.length) {
+                m_source = Arrays.copyOf(m_source, 2 * m_edgeCount);
+                m_target = Arrays.copyOf(m_target, 2 * m_edgeCount);
+            }
+            m_source[m_edgeCount] = source;
+            m_target[m_edgeCount] = target;
+            return m_edgeCount++;
+        }
+
+        /**
+         * @return a new graph containing the nodes and edges added so far
+         */
+        public IndexedGraph build() {
+            return new IndexedGraph(m_nodeCount, Arrays.copyOf(m_x, m_nodeCount), Arrays.copyOf(m_y, m_nodeCount),
+                m_edgeCount, Arrays.copyOf(m_source, m_edgeCount), Arrays.copyOf(m_target, m_edgeCount));
+        }
+    }
+}
@@ -52,10 +52,23 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.draw2d.geometry.Point;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.workflow.ConnectionID;
@@ -71,6 +84,19 @@
 import org.knime.workbench.ui.layout.layeredlayout.SimpleLayeredLayouter;
 
 /**
+ * Lays out (a part of) a workflow. The layout can either be done in one go by
+ * {@link #doLayout(Collection)} or in three steps, of which only the first and
+ * the last need to run in the UI thread: {@link #createGraph(Collection, WorkflowEditor)}
+ * takes a snapshot of the nodes and connections, {@link #computeLayout(int, IProgressMonitor)}
+ * computes the layout of the snapshot, and {@link #applyLayout()} transfers the
+ * result to the workflow.
+ *
+ * An incremental layout ({@link #doIncrementalLayout(Collection)}) only lays
+ * out the given nodes, e.g. nodes that have just been inserted or re-wired. All
+ * other nodes keep their position; the given nodes are placed relative to their
+ * neighbors (and moved down if they would overlap other nodes). Only the
+ * connections of the given nodes are visited, so the layout itself is
+ * proportional to the change rather than to the size of the workflow.
  *
  * @author mader, University of Konstanz
  */
@@ -79,6 +105,14 @@ public class LayoutManager {
     private static final NodeLogger LOGGER = NodeLogger
             .getLogger(LayoutManager.class);
 
+    /** Interval in milliseconds in which cancellation is checked while waiting for the layouts. */
+    private static final long CANCEL_CHECK_INTERVAL = 100;
+
+    /** Size of a node figure, used if the bounds of a node don't contain its size. */
+    private static final int NODE_WIDTH = 50;
+
+    private static final int NODE_HEIGHT = 48;
+
     private WorkflowManagerUI m_wfm;
 
     private long m_initPlacementSeed;
@@ -106,6 +140,32 @@ public class LayoutManager {
 
     private Graph m_g;
 
+    // the nodes being laid out
+    private Collection<NodeContainerUI> m_allNodes;
+
+    // true if the nodes are placed relative to their fixed neighbors
+    private boolean m_incremental;
+
+    // connections from/to the nodes being laid out, flag states: isClusterInternal
+    private HashMap<ConnectionContainerUI, Boolean> m_allConns;
+
+    // incoming/outgoing nodes fixed during layout, null if there are none
+    private Map<Node, Boolean> m_anchorNodes;
+
+    // editor settings, read once when the graph is created
+    private boolean m_snapToGrid;
+
+    private int m_xStretch;
+
+    private int m_yStretch;
+
+    // the left upper corner of the node cluster
+    private int m_minX;
+
+    private int m_minY;
+
+    private long m_numberOfCrossings = -1;
+
     private HashMap<NodeID, NodeUIInformation> m_oldCoordinates;
 
     private HashMap<ConnectionID, ConnectionUIInformation> m_oldBendpoints;
@@ -136,23 +196,83 @@ public LayoutManager(final WorkflowManagerUI wfManager,
      *
      */
     public void doLayout(final Collection<NodeContainerUI> nodes) {
+        createGraph(nodes, null);
+        computeLayout(1, null);
+        applyLayout();
+    }
 
-        int X_STRETCH = 100;
-        int Y_STRETCH = 120;
+    /**
+     * Lays out only the given nodes and keeps all other nodes in place. The
+     * neighbors of the given nodes are fixed on the first and last layer, and
+     * the laid out nodes are positioned relative to them.
+     *
+     * @param changedNodes the nodes to lay out, e.g. nodes that have been
+     *            inserted or re-wired
+     * @since 4.2
+     */
+    public void doIncrementalLayout(final Collection<NodeContainerUI> changedNodes) {
+        createIncrementalGraph(changedNodes, null);
+        computeLayout(1, null);
+        applyLayout();
+    }
+
+    /**
+     * Creates the graph to lay out from the current node positions and
+     * connections, and reads the grid settings of the given editor. Must be
+     * called in the UI thread, before the layout is computed.
+     *
+     * @param nodes the nodes that should be laid out. If null, all nodes of the
+     *            workflow manager passed to the constructor are laid out.
+     * @param editor the editor whose grid settings are used, or null for the
+     *            active editor
+     * @since 4.2
+     */
+    public void createGraph(final Collection<NodeContainerUI> nodes, final WorkflowEditor editor) {
+        createGraph(nodes, editor, false);
+    }
 
-        if (WorkflowEditor.getActiveEditorSnapToGrid()) {
-            if (WorkflowEditor.getActiveEditorGridX() >= 70) {
-                X_STRETCH = WorkflowEditor.getActiveEditorGridX();
+    /**
+     * Creates the graph for an incremental layout of the given nodes, see
+     * {@link #doIncrementalLayout(Collection)}. Must be called in the UI
+     * thread, before the layout is computed.
+     *
+     * @param changedNodes the nodes to lay out, must not be empty
+     * @param editor the editor whose grid settings are used, or null for the
+     *            active editor
+     * @since 4.2
+     */
+    public void createIncrementalGraph(final Collection<NodeContainerUI> changedNodes,
+        final WorkflowEditor editor) {
+        if (changedNodes == null || changedNodes.isEmpty()) {
+            throw new IllegalArgumentException("No nodes to lay out");
+        }
+        createGraph(changedNodes, editor, true);
+    }
+
+    private void createGraph(final Collection<NodeContainerUI> nodes, final WorkflowEditor editor,
+        final boolean incremental) {
+        m_incremental = incremental;
+
+        m_snapToGrid = editor != null ? editor.getEditorSnapToGrid() : WorkflowEditor.getActiveEditorSnapToGrid();
+        m_xStretch = 100;
+        m_yStretch = 120;
+        if (m_snapToGrid) {
+            int gridX = editor != null ? editor.getEditorGridX() : WorkflowEditor.getActiveEditorGridX();
+            if (gridX >= 70) {
+                m_xStretch = gridX;
             } else {
-                X_STRETCH = WorkflowEditor.getActiveEditorGridXOffset(X_STRETCH);
+                m_xStretch = editor != null ? editor.getEditorGridXOffset(m_xStretch)
+                    : WorkflowEditor.getActiveEditorGridXOffset(m_xStretch);
             }
-            Y_STRETCH = WorkflowEditor.getActiveEditorGridYOffset(Y_STRETCH);
+            m_yStretch = editor != null ? editor.getEditorGridYOffset(m_yStretch)
+                : WorkflowEditor.getActiveEditorGridYOffset(m_yStretch);
         }
         // add all nodes that should be laid out to the graph
         Collection<NodeContainerUI> allNodes = nodes;
-        if (allNodes == null || allNodes.size() <= 1) {
+        if (!incremental && (allNodes == null || allNodes.size() <= 1)) {
             allNodes = m_wfm.getNodeContainers();
         }
+        m_allNodes = allNodes;
         // keep the left upper corner of the node cluster.
         // Nodes laid out are placed right and below
         int minX = Integer.MAX_VALUE;
@@ -164,18 +284,32 @@ public void doLayout(final Collection<NodeContainerUI> nodes) {
             NodeUIInformation ui = nc.getUIInformation();
             minX = (ui.getBounds()[0] < minX) ? ui.getBounds()[0] : minX;
             minY = (ui.getBounds()[1] < minY) ? ui.getBounds()[1] : minY;
-            if (WorkflowEditor.getActiveEditorSnapToGrid()) {
-                Point nextGridLocation = WorkflowEditor.getActiveEditorNextGridLocation(new Point(minX, minY));
+            if (m_snapToGrid) {
+                Point nextGridLocation = editor != null ? editor.getClosestGridLocation(new Point(minX, minY))
+                    : WorkflowEditor.getActiveEditorNextGridLocation(new Point(minX, minY));
                 minX = nextGridLocation.x;
                 minY = nextGridLocation.y;
             }
         }
+        m_minX = minX;
+        m_minY = minY;
 
         // find all connections that connect from/to our nodes,
         // keep a flag that states: isClusterInternal
         HashMap<ConnectionContainerUI, Boolean> allConns =
                 new HashMap<ConnectionContainerUI, Boolean>();
-        for (ConnectionContainerUI conn : m_wfm.getConnectionContainers()) {
+        Collection<ConnectionContainerUI> candidateConns;
+        if (allNodes == nodes) {
+            // only a part of the workflow: visit the connections of its nodes
+            candidateConns = new LinkedHashSet<ConnectionContainerUI>();
+            for (NodeContainerUI nc : allNodes) {
+                candidateConns.addAll(m_wfm.getIncomingConnectionsFor(nc.getID()));
+                candidateConns.addAll(m_wfm.getOutgoingConnectionsFor(nc.getID()));
+            }
+        } else {
+            candidateConns = m_wfm.getConnectionContainers();
+        }
+        for (ConnectionContainerUI conn : candidateConns) {
             Node src = null;
             if (!conn.getSource().equals(m_wfm.getID())) {
                 // if it's not a meta node incoming connection
@@ -197,6 +331,7 @@ public void doLayout(final Collection<NodeContainerUI> nodes) {
                 allConns.put(conn, isInternal);
             }
         }
+        m_allConns = allConns;
 
         // Add all connections (internal and leading in/out the cluster)
         // to the graph
@@ -211,7 +346,7 @@ public void doLayout(final Collection<NodeContainerUI> nodes) {
                 if (srcGraphNode == null) {
                     srcGraphNode =
                             m_g.createNode("Incoming " + portIdx, 0, portIdx
-                                    * Y_STRETCH);
+                                    * m_yStretch);
                     m_workbenchWFMInports.put(portIdx, srcGraphNode);
                 }
             } else {
@@ -233,7 +368,7 @@ public void doLayout(final Collection<NodeContainerUI> nodes) {
                 if (destGraphNode == null) {
                     destGraphNode =
                             m_g.createNode("Outgoing " + portIdx, 250, portIdx
-                                    * Y_STRETCH);
+                                    * m_yStretch);
                     m_workbenchWFMOutports.put(portIdx, destGraphNode);
                 }
             } else {
@@ -282,15 +417,172 @@ public void doLayout(final Collection<NodeContainerUI> nodes) {
             anchorsExist = true;
             anchorNodes.put(n, Boolean.TRUE);
         }
+        m_anchorNodes = anchorsExist ? anchorNodes : null;
+    }
 
-        SimpleLayeredLayouter layouter = new SimpleLayeredLayouter(m_initPlacementSeed);
-        layouter.setBalanceBranchings(!WorkflowEditor.getActiveEditorSnapToGrid());
-        if (anchorsExist) {
-            layouter.doLayout(m_g, anchorNodes);
-        } else {
-            layouter.doLayout(m_g, null);
+    /**
+     * Computes the layout of the graph created by
+     * {@link #createGraph(Collection, WorkflowEditor)}. Does not access the
+     * workflow or the editor and can therefore be called in any thread. If more
+     * than one seed is tried, the layouts are computed in parallel and the one
+     * with the fewest crossings is kept; the first seed is always the initial
+     * placement seed passed to the constructor.
+     *
+     * @param seedCount the number of random initial placements to try
+     * @param monitor a progress monitor that is checked for cancellation, may
+     *            be null
+     * @return the number of crossings of the computed layout
+     * @throws CancellationException if the monitor has been canceled; the
+     *             layout is then left unchanged
+     * @since 4.2
+     */
+    public long computeLayout(final int seedCount, final IProgressMonitor monitor) throws CancellationException {
+        IProgressMonitor mon = monitor == null ? new NullProgressMonitor() : monitor;
+        mon.beginTask("Computing layout", Math.max(seedCount, 1));
+        try {
+            if (seedCount <= 1) {
+                SimpleLayeredLayouter layouter = createLayouter(m_initPlacementSeed);
+                layouter.doLayout(m_g, m_anchorNodes, mon::isCanceled);
+                m_numberOfCrossings = layouter.getNumberOfCrossings();
+            } else {
+                computeBestLayout(seedCount, mon);
+            }
+            LOGGER.debug("Auto layout of " + m_g.n() + " nodes has " + m_numberOfCrossings + " crossings");
+            return m_numberOfCrossings;
+        } finally {
+            mon.done();
         }
+    }
+
+    private SimpleLayeredLayouter createLayouter(final long seed) {
+        SimpleLayeredLayouter layouter = new SimpleLayeredLayouter(seed);
+        layouter.setBalanceBranchings(!m_snapToGrid);
+        return layouter;
+    }
+
+    /** Lays out copies of the graph with different seeds in parallel, transfers the best one to the graph. */
+    private void computeBestLayout(final int seedCount, final IProgressMonitor monitor) {
+        Random seedGenerator = new Random(m_initPlacementSeed);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(seedCount, Runtime.getRuntime().availableProcessors()), r -> {
+                Thread t = new Thread(r, "Auto Layout " + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        try {
+            List<Graph> copies = new ArrayList<Graph>(seedCount);
+            List<Map<Node, Node>> nodeMaps = new ArrayList<Map<Node, Node>>(seedCount);
+            List<Map<Edge, Edge>> edgeMaps = new ArrayList<Map<Edge, Edge>>(seedCount);
+            List<Future<Long>> layouts = new ArrayList<Future<Long>>(seedCount);
+            for (int i = 0; i < seedCount; i++) {
+                long seed = (i == 0) ? m_initPlacementSeed : seedGenerator.nextLong();
+                Graph copy = new Graph();
+                Map<Edge, Edge> edgeMap = new HashMap<Edge, Edge>(2 * m_g.m());
+                Map<Node, Node> nodeMap = copyGraph(copy, edgeMap);
+                Map<Node, Boolean> anchorNodes = null;
+                if (m_anchorNodes != null) {
+                    anchorNodes = copy.createBoolNodeMap();
+                    for (Map.Entry<Node, Boolean> e : m_anchorNodes.entrySet()) {
+                        anchorNodes.put(nodeMap.get(e.getKey()), e.getValue());
+                    }
+                }
+                final Map<Node, Boolean> fixedNodes = anchorNodes;
+                copies.add(copy);
+                nodeMaps.add(nodeMap);
+                edgeMaps.add(edgeMap);
+                layouts.add(executor.submit(() -> {
+                    SimpleLayeredLayouter layouter = createLayouter(seed);
+                    layouter.doLayout(copy, fixedNodes, monitor::isCanceled);
+                    return layouter.getNumberOfCrossings();
+                }));
+            }
 
+            int best = -1;
+            long bestCrossings = Long.MAX_VALUE;
+            for (int i = 0; i < seedCount; i++) {
+                long crossings = waitForLayout(layouts.get(i), monitor);
+                // fewest crossings, the first seed wins ties
+                if (crossings < bestCrossings) {
+                    best = i;
+                    bestCrossings = crossings;
+                }
+                monitor.worked(1);
+            }
+            transferLayout(copies.get(best), nodeMaps.get(best), edgeMaps.get(best));
+            m_numberOfCrossings = bestCrossings;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long waitForLayout(final Future<Long> layout, final IProgressMonitor monitor) {
+        while (true) {
+            if (monitor.isCanceled()) {
+                throw new CancellationException("Layout has been canceled");
+            }
+            try {
+                return layout.get(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // check for cancellation again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Layout has been interrupted");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException)e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Copies nodes (with coordinates) and edges of the graph, in order of
+     * creation, into the given empty graph. The layouter keeps the identity of
+     * the edges (hidden edges are reinserted, not recreated), so the edge map
+     * stays valid after the copy has been laid out.
+     *
+     * @param edgeMap receives the copies of the edges
+     * @return the copies of the nodes
+     */
+    private Map<Node, Node> copyGraph(final Graph copy, final Map<Edge, Edge> edgeMap) {
+        HashMap<Node, Node> nodeMap = new HashMap<Node, Node>(2 * m_g.n());
+        for (Node n : m_g.nodes()) {
+            nodeMap.put(n, copy.createNode(n.toString(), m_g.getX(n), m_g.getY(n)));
+        }
+        for (Edge e : m_g.edges()) {
+            // never null, the graph has at most one edge between two nodes
+            // (parallel connections are collected in m_parallelConns)
+            edgeMap.put(e, copy.createEdge(nodeMap.get(e.source()), nodeMap.get(e.target())));
+        }
+        return nodeMap;
+    }
+
+    /** Sets coordinates and bendpoints of the graph to the ones of the laid out copy. */
+    private void transferLayout(final Graph copy, final Map<Node, Node> nodeMap, final Map<Edge, Edge> edgeMap) {
+        for (Node n : m_g.nodes()) {
+            Node c = nodeMap.get(n);
+            m_g.setCoordinates(n, copy.getX(c), copy.getY(c));
+        }
+        for (Edge e : m_g.edges()) {
+            Edge c = edgeMap.get(e);
+            m_g.bends(e).clear();
+            for (Point2D b : copy.bends(c)) {
+                m_g.addBend(e, b.getX(), b.getY());
+            }
+        }
+    }
+
+    /**
+     * Transfers the computed layout to the nodes and connections, and keeps
+     * their previous positions for undo. Nodes and connections that have been
+     * removed from the workflow since the graph was created are skipped. Must
+     * be called in the UI thread.
+     *
+     * @since 4.2
+     */
+    public void applyLayout() {
         // preserver the old stuff for undoers
         m_oldBendpoints = new HashMap<ConnectionID, ConnectionUIInformation>();
         m_oldCoordinates = new HashMap<NodeID, NodeUIInformation>();
@@ -301,25 +593,57 @@ public void doLayout(final Collection<NodeContainerUI> nodes) {
         // start at 0.
         double coordOffsetX = Integer.MAX_VALUE;
         double coordOffsetY = Integer.MAX_VALUE;
-        for (NodeContainerUI nc : allNodes) {
+        for (NodeContainerUI nc : m_allNodes) {
             Node gNode = m_workbenchToGraphNodes.get(nc);
             coordOffsetX = Math.min(coordOffsetX, m_g.getX(gNode));
             coordOffsetY = Math.min(coordOffsetY, m_g.getY(gNode));
         }
-        for (NodeContainerUI nc : allNodes) {
+        // the graph coordinate offset is mapped to this workflow location
+        int originX = m_minX;
+        int originY = m_minY;
+        if (m_incremental) {
+            // place the nodes relative to their fixed neighbors: right of the
+            // predecessors (or left of the successors), aligned with the
+            // topmost of them
+            boolean hasIncoming = !m_workbenchIncomingNodes.isEmpty();
+            Map<NodeContainerUI, Node> anchors = hasIncoming ? m_workbenchIncomingNodes : m_workbenchOutgoingNodes;
+            Node ref = null;
+            int refY = 0;
+            int anchorX = hasIncoming ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+            for (Map.Entry<NodeContainerUI, Node> e : anchors.entrySet()) {
+                NodeUIInformation ui = e.getKey().getUIInformation();
+                if (ui == null) {
+                    continue;
+                }
+                int[] b = ui.getBounds();
+                anchorX = hasIncoming ? Math.max(anchorX, b[0]) : Math.min(anchorX, b[0]);
+                if (ref == null || m_g.getY(e.getValue()) < m_g.getY(ref)) {
+                    ref = e.getValue();
+                    refY = b[1];
+                }
+            }
+            if (ref != null) {
+                coordOffsetX = m_g.getX(ref);
+                coordOffsetY = m_g.getY(ref);
+                originX = anchorX;
+                originY = refY;
+            }
+            originY += getIncrementalShift(coordOffsetX, coordOffsetY, originX, originY);
+        }
+        for (NodeContainerUI nc : m_allNodes) {
 
             NodeUIInformation uiInfo = nc.getUIInformation();
-            if (uiInfo != null) {
+            if (uiInfo != null && m_wfm.containsNodeContainer(nc.getID())) {
                 Node gNode = m_workbenchToGraphNodes.get(nc);
                 int[] b = uiInfo.getBounds();
                 int x = (int)Math.round((m_g.getX(gNode) - coordOffsetX)
-                        * X_STRETCH) + minX;
+                        * m_xStretch) + originX;
                 int y = (int)Math.round((m_g.getY(gNode) - coordOffsetY)
-                        * Y_STRETCH) + minY;
+                        * m_yStretch) + originY;
                 NodeUIInformation newCoord = NodeUIInformation.builder()
                         .setNodeLocation(x, y, b[2], b[3])
                         .setHasAbsoluteCoordinates(uiInfo.hasAbsoluteCoordinates())
-                        .setSnapToGrid(WorkflowEditor.getActiveEditorSnapToGrid()).build();
+                        .setSnapToGrid(m_snapToGrid).build();
                 LOGGER.debug("Node " + nc + " gets auto-layout coordinates "
                         + newCoord);
                 // save old coordinates for undo
@@ -330,7 +654,10 @@ public void doLayout(final Collection<NodeContainerUI> nodes) {
         }
 
         // delete old bendpoints - transfer new ones
-        for (ConnectionContainerUI conn : allConns.keySet()) {
+        for (ConnectionContainerUI conn : m_allConns.keySet()) {
+            if (!isContained(conn)) {
+                continue;
+            }
 
             // store old bendpoint for undo
             ConnectionUIInformation ui = conn.getUIInfo();
@@ -357,8 +684,8 @@ public void doLayout(final Collection<NodeContainerUI> nodes) {
                 int extraY = 24;
                 for (int i = 0; i < newBends.size(); i++) {
                     Point2D b = newBends.get(i);
-                    newUIBuilder.addBendpoint((int)Math.round((b.getX() - coordOffsetX) * X_STRETCH) + extraX + minX,
-                            (int)Math.round((b.getY() - coordOffsetY) * Y_STRETCH) + extraY + minY, i);
+                    newUIBuilder.addBendpoint((int)Math.round((b.getX() - coordOffsetX) * m_xStretch) + extraX + originX,
+                            (int)Math.round((b.getY() - coordOffsetY) * m_yStretch) + extraY + originY, i);
                 }
             }
             ConnectionUIInformation newUI = newUIBuilder.build();
@@ -367,6 +694,9 @@ public void doLayout(final Collection<NodeContainerUI> nodes) {
             // compute bendpoints for parallel connections (slightly offset)
             for (int i = 1; i < conns.size(); i++) { // idx 0 == conn!
                 ConnectionContainerUI parConn = conns.get(i);
+                if (!isContained(parConn)) {
+                    continue;
+                }
                 // destination port determines offset
                 int yOffset = (parConn.getDestPort() - conn.getDestPort()) * 10;
                 ConnectionUIInformation parUI =
@@ -377,6 +707,66 @@ public void doLayout(final Collection<NodeContainerUI> nodes) {
 
     }
 
+    /**
+     * Nodes of an incremental layout are placed next to their neighbors, where
+     * other nodes that keep their position may already be. Returns how far the
+     * laid out nodes (and their bendpoints) have to be moved down, in steps of
+     * one layer distance, so none of them overlaps one of the other nodes.
+     */
+    private int getIncrementalShift(final double coordOffsetX, final double coordOffsetY, final int originX,
+        final int originY) {
+        HashSet<NodeID> laidOut = new HashSet<NodeID>();
+        List<int[]> placed = new ArrayList<int[]>(m_allNodes.size());
+        for (NodeContainerUI nc : m_allNodes) {
+            laidOut.add(nc.getID());
+            NodeUIInformation uiInfo = nc.getUIInformation();
+            if (uiInfo != null) {
+                Node gNode = m_workbenchToGraphNodes.get(nc);
+                int x = (int)Math.round((m_g.getX(gNode) - coordOffsetX) * m_xStretch) + originX;
+                int y = (int)Math.round((m_g.getY(gNode) - coordOffsetY) * m_yStretch) + originY;
+                placed.add(getNodeBox(x, y, uiInfo.getBounds()));
+            }
+        }
+        List<int[]> fixed = new ArrayList<int[]>();
+        for (NodeContainerUI nc : m_wfm.getNodeContainers()) {
+            NodeUIInformation uiInfo = nc.getUIInformation();
+            if (uiInfo != null && !laidOut.contains(nc.getID())) {
+                int[] b = uiInfo.getBounds();
+                fixed.add(getNodeBox(b[0], b[1], b));
+            }
+        }
+        int shift = 0;
+        boolean overlaps = true;
+        while (overlaps) {
+            overlaps = false;
+            for (int i = 0; i < placed.size() && !overlaps; i++) {
+                int[] p = placed.get(i);
+                for (int[] f : fixed) {
+                    if (p[0] < f[2] && f[0] < p[2] && p[1] + shift < f[3] && f[1] < p[3] + shift) {
+                        overlaps = true;
+                        shift += m_yStretch;
+                        break;
+                    }
+                }
+            }
+        }
+        return shift;
+    }
+
+    /** @return left, top, right and bottom of a node at the given location */
+    private static int[] getNodeBox(final int x, final int y, final int[] bounds) {
+        int width = bounds[2] > 0 ? bounds[2] : NODE_WIDTH;
+        int height = bounds[3] > 0 ? bounds[3] : NODE_HEIGHT;
+        return new int[]{x, y, x + width, y + height};
+    }
+
+    /** @return whether source and destination of the connection are (still) contained in the workflow */
+    private boolean isContained(final ConnectionContainerUI conn) {
+        NodeID wfmID = m_wfm.getID();
+        return (conn.getSource().equals(wfmID) || m_wfm.containsNodeContainer(conn.getSource()))
+            && (conn.getDest().equals(wfmID) || m_wfm.containsNodeContainer(conn.getDest()));
+    }
+
     /**
      * Creates a new graph node with the coordinates from the UI info and the
      * label set to custom name.
@@ -403,6 +793,15 @@ private Node createGraphNodeForNC(final NodeContainerUI nc) {
 
     }
 
+    /**
+     * @return the number of crossings of the computed layout, or -1 if no
+     *         layout has been computed yet
+     * @since 4.2
+     */
+    public long getNumberOfCrossings() {
+        return m_numberOfCrossings;
+    }
+
     public Map<NodeID, NodeUIInformation> getOldNodeCoordinates() {
         return Collections.unmodifiableMap(m_oldCoordinates);
     }
@@ -49,19 +49,28 @@
 package org.knime.workbench.ui.layout.actions;
 
 import java.util.ArrayList;
+import java.util.Random;
 
 import org.eclipse.gef.ui.parts.ScrollingGraphicalViewer;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.knime.core.ui.node.workflow.NodeContainerUI;
+import org.knime.core.ui.wrapper.WorkflowManagerWrapper;
 import org.knime.workbench.core.util.ImageRepository;
 import org.knime.workbench.editor2.WorkflowEditor;
 import org.knime.workbench.editor2.actions.AbstractNodeAction;
 import org.knime.workbench.editor2.editparts.NodeContainerEditPart;
 import org.knime.workbench.ui.layout.Activator;
+import org.knime.workbench.ui.layout.LayoutManager;
 import org.knime.workbench.ui.layout.commands.AutoLayoutCommand;
 
 /**
- * Action to trigger auto layout.
+ * Action to trigger auto layout. The layout is computed in a background job
+ * (which can be canceled) and then applied as one undoable command. If only a
+ * few nodes are selected, they are laid out incrementally, i.e. next to their
+ * neighbors while all other nodes keep their position, see
+ * {@link LayoutManager#createIncrementalGraph(java.util.Collection, WorkflowEditor)}.
+ * Larger selections are laid out on their own and the whole workflow if nothing
+ * is selected.
  *
  * @author Peter Ohl, KNIME.com AG, Zurich
  */
@@ -70,6 +79,14 @@ public class AutoLayoutAction extends AbstractNodeAction {
     /** unique ID for this action. */
     public static final String ID = "knime.action.autolayout";
 
+    /** Selections of up to this many nodes are laid out incrementally. */
+    private static final int INCREMENTAL_LAYOUT_MAX_NODES = 10;
+
+    private final Random m_random = new Random();
+
+    // the running layout job, a new layout cancels the previous one
+    private AutoLayoutJob m_job;
+
     /**
      * @param editor The workflow editor
      */
@@ -106,7 +123,8 @@ public ImageDescriptor getDisabledImageDescriptor() {
      */
     @Override
     public String getToolTipText() {
-        return "Start Autolayout";
+        return "Start Autolayout (2 to " + INCREMENTAL_LAYOUT_MAX_NODES
+            + " selected nodes are placed next to their neighbors, the other nodes keep their position)";
     }
 
     /**
@@ -129,7 +147,29 @@ public synchronized void runOnNodes(final NodeContainerEditPart[] parts) {
                 nodes.add(p.getNodeContainer());
             }
         }
-        AutoLayoutCommand alc = new AutoLayoutCommand(getManager(), nodes);
+        // take the snapshot of the workflow here in the UI thread
+        LayoutManager layoutMgr =
+                new LayoutManager(WorkflowManagerWrapper.wrap(getManager()), m_random.nextLong());
+        if (nodes != null && nodes.size() > 1 && nodes.size() <= INCREMENTAL_LAYOUT_MAX_NODES) {
+            // e.g. a few nodes that have just been inserted or re-wired
+            layoutMgr.createIncrementalGraph(nodes, getEditor());
+        } else {
+            layoutMgr.createGraph(nodes, getEditor());
+        }
+
+        if (m_job != null) {
+            m_job.cancel();
+        }
+        m_job = new AutoLayoutJob(layoutMgr, this::applyLayout);
+        m_job.schedule();
+    }
+
+    /** Called in the UI thread once the layout is computed. */
+    private void applyLayout(final LayoutManager layoutMgr) {
+        if (getEditor().isClosed()) {
+            return;
+        }
+        AutoLayoutCommand alc = new AutoLayoutCommand(getManager(), layoutMgr);
         getCommandStack().execute(alc); // enables undo
 
         // update the actions
@@ -0,0 +1,108 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.ui.layout.actions;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Display;
+import org.knime.workbench.ui.layout.Activator;
+import org.knime.workbench.ui.layout.LayoutManager;
+
+/**
+ * Job that computes an auto layout in the background. The graph of the layout
+ * manager must have been created in the UI thread before the job is scheduled;
+ * once the layout is computed, the given consumer is called in the UI thread to
+ * apply it. Nothing is applied if the job is canceled.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class AutoLayoutJob extends Job {
+
+    /** Number of random initial placements tried in parallel, the layout with the fewest crossings is kept. */
+    private static final int SEED_COUNT = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private final LayoutManager m_layoutMgr;
+
+    private final Consumer<LayoutManager> m_applyLayout;
+
+    /**
+     * @param layoutMgr the layout manager, its graph must have been created already
+     * @param applyLayout called in the UI thread with the layout manager once the layout is computed
+     */
+    AutoLayoutJob(final LayoutManager layoutMgr, final Consumer<LayoutManager> applyLayout) {
+        super("Auto Layout");
+        m_layoutMgr = layoutMgr;
+        m_applyLayout = applyLayout;
+        setUser(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IStatus run(final IProgressMonitor monitor) {
+        try {
+            m_layoutMgr.computeLayout(SEED_COUNT, monitor);
+        } catch (CancellationException e) {
+            return Status.CANCEL_STATUS;
+        } catch (RuntimeException e) {
+            return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Auto layout failed: " + e.getMessage(), e);
+        }
+        if (monitor.isCanceled()) {
+            return Status.CANCEL_STATUS;
+        }
+        Display.getDefault().asyncExec(() -> {
+            if (!monitor.isCanceled()) {
+                m_applyLayout.accept(m_layoutMgr);
+            }
+        });
+        return Status.OK_STATUS;
+    }
+}
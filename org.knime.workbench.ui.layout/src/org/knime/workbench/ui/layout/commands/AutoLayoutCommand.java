@@ -75,6 +75,12 @@ public class AutoLayoutCommand extends AbstractKNIMECommand {
 
     private LayoutManager m_layoutMgr;
 
+    // true if the layout has been computed before the command was created
+    private final boolean m_isPrecomputed;
+
+    // true if only the given nodes are moved, see LayoutManager#doIncrementalLayout
+    private final boolean m_incremental;
+
     private long m_seed;
 
     private final Random m_random = new Random();
@@ -85,9 +91,43 @@ public class AutoLayoutCommand extends AbstractKNIMECommand {
      */
     public AutoLayoutCommand(final WorkflowManager wfm,
             final Collection<NodeContainerUI> nodes) {
+        this(wfm, nodes, false);
+    }
+
+    /**
+     * @param wfm
+     * @param nodes the nodes to lay out; if null (and not incremental), all
+     *            nodes are laid out
+     * @param incremental if true, only the given nodes are laid out relative
+     *            to their neighbors, all other nodes keep their position (see
+     *            {@link LayoutManager#doIncrementalLayout(Collection)})
+     * @since 4.2
+     */
+    public AutoLayoutCommand(final WorkflowManager wfm,
+            final Collection<NodeContainerUI> nodes, final boolean incremental) {
         super(wfm);
         m_wfm = wfm;
         m_nodes = nodes;
+        m_isPrecomputed = false;
+        m_incremental = incremental;
+    }
+
+    /**
+     * Creates a command that applies an already computed layout, see
+     * {@link LayoutManager#computeLayout(int, org.eclipse.core.runtime.IProgressMonitor)}.
+     * Redo applies the same layout again.
+     *
+     * @param wfm the workflow the layout has been computed for
+     * @param layoutMgr the layout manager holding the computed layout
+     * @since 4.2
+     */
+    public AutoLayoutCommand(final WorkflowManager wfm, final LayoutManager layoutMgr) {
+        super(wfm);
+        m_wfm = wfm;
+        m_nodes = null;
+        m_layoutMgr = layoutMgr;
+        m_isPrecomputed = true;
+        m_incremental = false;
     }
 
     /**
@@ -95,13 +135,21 @@ public AutoLayoutCommand(final WorkflowManager wfm,
      */
     @Override
     public void execute() {
+        if (m_isPrecomputed) {
+            m_layoutMgr.applyLayout();
+            return;
+        }
         m_seed = m_random.nextLong();
         doLayout(m_seed);
     }
 
     private void doLayout(final long seed) {
         m_layoutMgr = new LayoutManager(WorkflowManagerWrapper.wrap(m_wfm), seed);
-        m_layoutMgr.doLayout(m_nodes);
+        if (m_incremental) {
+            m_layoutMgr.doIncrementalLayout(m_nodes);
+        } else {
+            m_layoutMgr.doLayout(m_nodes);
+        }
     }
 
     /**
@@ -109,6 +157,10 @@ private void doLayout(final long seed) {
      */
     @Override
     public void redo() {
+        if (m_isPrecomputed) {
+            m_layoutMgr.applyLayout();
+            return;
+        }
         doLayout(m_seed);
     }
 
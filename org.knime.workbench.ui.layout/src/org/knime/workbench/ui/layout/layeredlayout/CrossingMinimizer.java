@@ -47,65 +47,110 @@
  */
 package org.knime.workbench.ui.layout.layeredlayout;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 
-import org.knime.workbench.ui.layout.Graph;
-import org.knime.workbench.ui.layout.Graph.Edge;
-import org.knime.workbench.ui.layout.Graph.Node;
+import org.knime.workbench.ui.layout.IndexedGraph;
 
 /**
  * reduces crossings of a given layering according to the average median
  * heuristic followed by a greedy switch (see, e.g., Eades and Wormald, 1994;
  * Mäkinen 1990).
- * 
+ *
+ * Crossings between two layers are counted with the accumulator tree of Barth,
+ * Jünger and Mutzel ("Simple and efficient bilayer cross counting", 2002) in
+ * O(E log V). To this end the neighbors of each node in the previous and next
+ * layer as well as the position of each node within its layer are kept in
+ * primitive arrays.
+ *
  * @author Martin Mader, University of Konstanz
  */
 public class CrossingMinimizer {
-    private Graph m_g;
+    private IndexedGraph m_g;
+
+    private int[][] m_layers;
 
-    private ArrayList<ArrayList<Node>> m_layers;
+    private boolean m_fixedSources;
 
-    private ArrayList<Node> m_fixedSources;
+    private boolean m_fixedSinks;
 
-    private ArrayList<Node> m_fixedSinks;
+    /** position of each node within its layer (equals its y-coordinate). */
+    private final int[] m_pos;
+
+    /** neighbors of each node in the previous layer. */
+    private final int[][] m_prevNeighbors;
+
+    /** neighbors of each node in the next layer. */
+    private final int[][] m_nextNeighbors;
 
     /**
-     * initializes the needed information for crossing minimization.
-     * 
+     * initializes the needed information for crossing minimization. The
+     * layers of the nodes must be set in the graph and the arrays of the
+     * layering are reordered in place.
+     *
      * @param g the graph to work on
-     * @param layers layering information
-     * @param fixedSources list of fixed sources
-     * @param fixedSinks list of fixed sinks
+     * @param layers layering information, the node IDs of each layer
+     * @param fixedSources whether the first layer consists of fixed sources
+     * @param fixedSinks whether the last layer consists of fixed sinks
      */
-    public CrossingMinimizer(final Graph g,
-            final ArrayList<ArrayList<Node>> layers,
-            final ArrayList<Node> fixedSources, final ArrayList<Node> fixedSinks) {
+    public CrossingMinimizer(final IndexedGraph g, final int[][] layers,
+            final boolean fixedSources, final boolean fixedSinks) {
         m_g = g;
         m_layers = layers;
         m_fixedSources = fixedSources;
         m_fixedSinks = fixedSinks;
+
+        int n = g.n();
+        m_pos = new int[n];
+        for (int[] layer : layers) {
+            for (int pos = 0; pos < layer.length; pos++) {
+                m_pos[layer[pos]] = pos;
+            }
+        }
+        m_prevNeighbors = new int[n][];
+        m_nextNeighbors = new int[n][];
+        int[] prev = new int[16];
+        int[] next = new int[16];
+        for (int id = 0; id < n; id++) {
+            int prevCount = 0;
+            int nextCount = 0;
+            int degree = g.inDegree(id) + g.outDegree(id);
+            if (prev.length < degree) {
+                prev = new int[degree];
+                next = new int[degree];
+            }
+            for (int i = 0; i < degree; i++) {
+                int e = i < g.inDegree(id) ? g.inEdge(id, i) : g.outEdge(id, i - g.inDegree(id));
+                int other = g.opposite(e, id);
+                int otherLayer = g.getLayer(other);
+                if (otherLayer == g.getLayer(id) - 1) {
+                    prev[prevCount++] = other;
+                } else if (otherLayer == g.getLayer(id) + 1) {
+                    next[nextCount++] = other;
+                }
+            }
+            m_prevNeighbors[id] = Arrays.copyOf(prev, prevCount);
+            m_nextNeighbors[id] = Arrays.copyOf(next, nextCount);
+        }
     }
 
     /**
      * runs crossing minimization.
      */
     public void run() {
-        if (m_layers.size() < 2) { // nothing to do
+        if (m_layers.length < 2) { // nothing to do
             return;
         }
-        int oldCrossings = Integer.MAX_VALUE;
-        int crossings = numberOfCrossings();
+        long oldCrossings = Long.MAX_VALUE;
+        long crossings = numberOfCrossings();
         int sourceOffset = 0;
         int sinkOffset = 0;
-        if (m_fixedSources != null) {
+        if (m_fixedSources) {
             sourceOffset = 1;
         }
-        if (m_fixedSinks != null) {
+        if (m_fixedSinks) {
             sinkOffset = 1;
         }
-        ArrayList<ArrayList<Node>> lastLayering;
+        int[][] lastLayering;
         // do layer by layer sweep; if we either have fixed sources or fixed
         // sinks, perform only once, since every other run will yield the same
         // result
@@ -113,41 +158,37 @@ public void run() {
             // store last layering
             lastLayering = copyLayering();
             // rightward sweep
-            for (int i = 1; i < m_layers.size() - sinkOffset; i++) {
-                orderByMedian(m_layers.get(i), m_layers.get(i - 1));
+            for (int i = 1; i < m_layers.length - sinkOffset; i++) {
+                orderByMedian(i, i - 1);
             }
             // leftward sweep
-            for (int i = m_layers.size() - 2; i >= sourceOffset; i--) {
-                orderByMedian(m_layers.get(i), m_layers.get(i + 1));
+            for (int i = m_layers.length - 2; i >= sourceOffset; i--) {
+                orderByMedian(i, i + 1);
             }
             // greedy switch
             greedySwitch(sourceOffset, sinkOffset);
             oldCrossings = crossings;
             crossings = numberOfCrossings();
-        } while (crossings < oldCrossings && m_fixedSources != null
-                && m_fixedSinks != null);
+        } while (crossings < oldCrossings && m_fixedSources
+                && m_fixedSinks);
         // if crossing number got worse use the next-to-last layering
         if (crossings > oldCrossings) {
             m_layers = lastLayering;
         }
-        for (ArrayList<Node> curLayer : m_layers) {
+        for (int[] curLayer : m_layers) {
             updateY(curLayer);
         }
     }
 
     /**
      * copies the current layering.
-     * 
+     *
      * @return
      */
-    private ArrayList<ArrayList<Node>> copyLayering() {
-        ArrayList<ArrayList<Node>> layers = new ArrayList<ArrayList<Node>>();
-        for (ArrayList<Node> layer : m_layers) {
-            ArrayList<Node> layerCopy = new ArrayList<Graph.Node>();
-            layers.add(layerCopy);
-            for (Node n : layer) {
-                layerCopy.add(n);
-            }
+    private int[][] copyLayering() {
+        int[][] layers = new int[m_layers.length][];
+        for (int i = 0; i < m_layers.length; i++) {
+            layers[i] = m_layers[i].clone();
         }
         return layers;
     }
@@ -155,46 +196,53 @@ private ArrayList<ArrayList<Node>> copyLayering() {
     /**
      * order the current layer by means of the average median of neighbors of
      * each node in the previous layer.
-     * 
-     * @param curLayer
-     * @param prevLayer
+     *
+     * @param cur index of the current layer
+     * @param prev index of the previous layer (in sweep direction)
      */
-    private void orderByMedian(final ArrayList<Node> curLayer,
-            final ArrayList<Node> prevLayer) {
-        for (Node v : curLayer) {
-            // get sorted list of neighbors in the previous layer
-            ArrayList<Node> neighbors = getNeighbors(v, prevLayer);
-            Collections.sort(neighbors, new Util.NodeByYComparator(m_g));
+    private void orderByMedian(final int cur, final int prev) {
+        int[] curLayer = m_layers[cur];
+        double[] neighborYs = new double[16];
+        for (int v : curLayer) {
+            // get sorted y-coordinates of neighbors in the previous layer
+            int[] neighbors = neighbors(v, prev);
+            int size = neighbors.length;
+            if (size == 0) {
+                continue;
+            }
+            if (neighborYs.length < size) {
+                neighborYs = new double[size];
+            }
+            for (int k = 0; k < size; k++) {
+                neighborYs[k] = m_pos[neighbors[k]];
+            }
+            Arrays.sort(neighborYs, 0, size);
             // set median position, or average of two medians if degree is even
-            int size = neighbors.size();
             int m1 = (int)Math.ceil(size / 2.0) - 1;
             int m2 = m1 + 1; // needed for even degree
-            if (size > 0) {
-                // median heuristic
-                // m_g.setY(v, m_g.getY(neighbors.get(m1)));
+            // median heuristic
+            // m_g.setY(v, neighborYs[m1]);
 
-                // average median heuristic
-                if (size % 2 == 1) {
-                    // odd degree
-                    m_g.setY(v, m_g.getY(neighbors.get(m1)));
-                } else {
-                    // even degree
-                    double y1 = m_g.getY(neighbors.get(m1));
-                    double y2 = m_g.getY(neighbors.get(m2));
-                    m_g.setY(v, (y1 + y2) / 2);
-                }
+            // average median heuristic
+            if (size % 2 == 1) {
+                // odd degree
+                m_g.setY(v, neighborYs[m1]);
+            } else {
+                // even degree
+                m_g.setY(v, (neighborYs[m1] + neighborYs[m2]) / 2);
             }
         }
         // sort current layer by medians
-        Collections.sort(curLayer, new LayerSortComparator(prevLayer));
+        Util.sort(curLayer, new LayerSortComparator(prev));
         // set corresponding y-coordinates
         updateY(curLayer);
     }
 
-    private void updateY(final ArrayList<Node> curLayer) {
-        double y = 0;
-        for (Node n : curLayer) {
+    private void updateY(final int[] curLayer) {
+        int y = 0;
+        for (int n : curLayer) {
             m_g.setY(n, y);
+            m_pos[n] = y;
             y++;
         }
     }
@@ -203,204 +251,206 @@ private void updateY(final ArrayList<Node> curLayer) {
      * perform a greedy switch going from first to last layer. In each layer,
      * switch consecutive nodes if crossing number is reduced. Fixed layers are
      * excluded by given offsets.
-     * 
+     *
+     * Only the crossings with the previous layer are considered. Switching two
+     * consecutive nodes only changes the crossings among the edges of these two
+     * nodes, hence the change is computed from their sorted neighbor positions
+     * without recounting the crossings of the whole layer.
+     *
      * @param sourceOffset
      * @param sinkOffset
      */
     private void greedySwitch(final int sourceOffset, final int sinkOffset) {
-        for (int i = sourceOffset; i < m_layers.size() - sinkOffset; i++) {
-            ArrayList<Node> curLayer = m_layers.get(i);
-            int oldCross = Integer.MAX_VALUE;
-            int cross = numberOfCrossingsPrevLayer(i);
-            int crossTemp = cross;
+        // the first layer has no previous layer, i.e. no crossings to reduce
+        for (int i = Math.max(1, sourceOffset); i < m_layers.length - sinkOffset; i++) {
+            int[] curLayer = m_layers[i];
+            // sorted positions of the neighbors in the previous layer, by
+            // position in the current layer
+            int[][] neighborPos = new int[curLayer.length][];
+            for (int j = 0; j < curLayer.length; j++) {
+                int[] neighbors = m_prevNeighbors[curLayer[j]];
+                int[] pos = new int[neighbors.length];
+                for (int k = 0; k < neighbors.length; k++) {
+                    pos[k] = m_pos[neighbors[k]];
+                }
+                Arrays.sort(pos);
+                neighborPos[j] = pos;
+            }
+            boolean switched;
             do {
-                for (int j = 0; j < curLayer.size() - 1; j++) {
-                    Node u = curLayer.get(j);
-                    Node v = curLayer.get(j + 1);
-                    switchNodes(u, v, curLayer, j);
+                switched = false;
+                for (int j = 0; j < curLayer.length - 1; j++) {
                     // if switch produces less crossings keep it
-                    // i.e., if switch produces equal or more crossings, switch
-                    // back
-                    int c = numberOfCrossingsPrevLayer(i);
-                    if (c >= crossTemp) {
-                        switchNodes(v, u, curLayer, j);
-                    } else {
-                        // crossing number is reduced -> store new crossing
-                        // number
-                        crossTemp = c;
+                    long keep = pairCrossings(neighborPos[j], neighborPos[j + 1]);
+                    long swap = pairCrossings(neighborPos[j + 1], neighborPos[j]);
+                    if (swap < keep) {
+                        switchNodes(curLayer[j], curLayer[j + 1], curLayer, j);
+                        int[] temp = neighborPos[j];
+                        neighborPos[j] = neighborPos[j + 1];
+                        neighborPos[j + 1] = temp;
+                        switched = true;
                     }
                 }
-                oldCross = cross;
-                cross = numberOfCrossingsPrevLayer(i);
-            } while (cross < oldCross);
-            Collections.sort(curLayer, new Util.NodeByYComparator(m_g));
+            } while (switched);
         }
     }
 
     /**
      * switch y-coordinates of nodes u and v, and their places in the respective
      * layer. Node u must be at index i, node v is at index i+1.
-     * 
+     *
      * @param u
      * @param v
      * @param layer
      * @param i
      */
-    private void switchNodes(final Node u, final Node v,
-            final ArrayList<Node> layer, final int i) {
+    private void switchNodes(final int u, final int v, final int[] layer,
+            final int i) {
         // coordinates
         double temp = m_g.getY(u);
         m_g.setY(u, m_g.getY(v));
         m_g.setY(v, temp);
+        m_pos[u] = i + 1;
+        m_pos[v] = i;
         // order in layer
-        layer.set(i, v);
-        layer.set(i + 1, u);
+        layer[i] = v;
+        layer[i + 1] = u;
     }
 
     /**
-     * counts the number of crossings in the whole layering.
-     * 
-     * @return
+     * counts the number of crossings among the edges of two nodes u and v of
+     * the same layer, if u is placed before v.
+     *
+     * @param uPos sorted positions of the neighbors of u in the other layer
+     * @param vPos sorted positions of the neighbors of v in the other layer
+     * @return the number of pairs of edges (u, a), (v, b) with a after b
      */
-    private int numberOfCrossings() {
-        int cross = 0;
-        for (int i = 1; i < m_layers.size(); i++) {
-            ArrayList<Node> curLayer = m_layers.get(i);
-            ArrayList<Node> prevLayer = m_layers.get(i - 1);
-            cross += numberCrossingTwoLayer(curLayer, prevLayer);
+    private static long pairCrossings(final int[] uPos, final int[] vPos) {
+        long cross = 0;
+        int k = 0;
+        for (int b : vPos) {
+            while (k < uPos.length && uPos[k] <= b) {
+                k++;
+            }
+            cross += uPos.length - k;
         }
         return cross;
     }
 
     /**
-     * counts the number of crossing within layer (i-1) and i (previously also between layer i and
-     * (i+1)).
-     * 
-     * @param i
+     * counts the number of crossings in the whole layering.
+     *
      * @return
      */
-    private int numberOfCrossingsPrevLayer(final int i) {
-        ArrayList<Node> curLayer = m_layers.get(i);
-        ArrayList<Node> prevLayer;
-        // ArrayList<Node> nextLayer;
-        int cross = 0;
-        if (i > 0) {
-            prevLayer = m_layers.get(i - 1);
-            cross += numberCrossingTwoLayer(curLayer, prevLayer);
+    long numberOfCrossings() {
+        long cross = 0;
+        for (int i = 1; i < m_layers.length; i++) {
+            cross += numberCrossingTwoLayer(i);
         }
-        // if (i < m_layers.size() - 1) {
-        // nextLayer = m_layers.get(i + 1);
-        // cross += numberCrossingTwoLayer(nextLayer, curLayer);
-        // }
         return cross;
     }
 
     /**
-     * counts the number of crossings between the two given layers. THIS IS
-     * REALLY BRUTE FORCE AND CAN BE MADE MORE EFFICIENT! (e.g., modifying
-     * mergesort to count inversions)
-     * 
-     * @param curLayer
-     * @param prevLayer
+     * counts the number of crossings between layer (i-1) and i by counting
+     * the inversions of the edges sorted by their position in layer (i-1) with
+     * respect to their position in layer i, using an accumulator tree.
+     *
+     * @param i index of the layer
      * @return
      */
-    private int numberCrossingTwoLayer(final ArrayList<Node> curLayer,
-            final ArrayList<Node> prevLayer) {
-        int cross = 0;
-        for (Node u1 : prevLayer) {
-            for (Node v1 : getNeighbors(u1, curLayer)) {
-                // inspect edge from prev layer to cur layer (u1,v1)
-                // now check against all other edges ending at curLayer at
-                // other nodes than u1 or v1
-                for (Node v2 : curLayer) {
-                    if (v1 != v2) {
-                        for (Node u2 : getNeighbors(v2, prevLayer)) {
-                            if (u2 != u1) {
-                                // check if e1 and e2 are crossing
-                                cross += checkCrossing(u1, v1, u2, v2);
-                            }
-                        }
+    private long numberCrossingTwoLayer(final int i) {
+        int[] prevLayer = m_layers[i - 1];
+        int q = m_layers[i].length;
+        if (q < 2 || prevLayer.length < 2) {
+            return 0;
+        }
+        int firstIndex = 1;
+        while (firstIndex < q) {
+            firstIndex *= 2;
+        }
+        int[] tree = new int[2 * firstIndex - 1];
+        firstIndex--;
+        long cross = 0;
+        int[] pos = new int[16];
+        // edges in lexicographical order of (position in layer i-1,
+        // position in layer i)
+        for (int u : prevLayer) {
+            int[] neighbors = m_nextNeighbors[u];
+            if (pos.length < neighbors.length) {
+                pos = new int[neighbors.length];
+            }
+            for (int k = 0; k < neighbors.length; k++) {
+                pos[k] = m_pos[neighbors[k]];
+            }
+            Arrays.sort(pos, 0, neighbors.length);
+            for (int k = 0; k < neighbors.length; k++) {
+                // insert the edge and add the number of edges inserted before
+                // that end further right (sum of right siblings on the way up)
+                int index = pos[k] + firstIndex;
+                tree[index]++;
+                while (index > 0) {
+                    if (index % 2 == 1) {
+                        cross += tree[index + 1];
                     }
+                    index = (index - 1) / 2;
+                    tree[index]++;
                 }
             }
         }
-        // all crossings have been counted twice!
-        return cross / 2;
-    }
-
-    /**
-     * check whether to edges (u1,v1) and (u2,v2) create a crossing.
-     * 
-     * @param u1 node of first edge on first layer
-     * @param v1 node of first edge on second layer
-     * @param u2 node of second edge on first layer
-     * @param v2 node of second edge on second layer
-     * @return 1 if edges cross, 0 otherwise
-     */
-    private int checkCrossing(final Node u1, final Node v1, final Node u2,
-            final Node v2) {
-        if (m_g.getY(u1) < m_g.getY(u2) && m_g.getY(v1) > m_g.getY(v2)) {
-            return 1;
-        } else if (m_g.getY(u1) > m_g.getY(u2) && m_g.getY(v1) < m_g.getY(v2)) {
-            return 1;
-        } else {
-            return 0;
-        }
+        return cross;
     }
 
     /**
-     * return the neighbors of a node n on the given layer.
-     * 
-     * @param n
-     * @param layer
-     * @return
+     * return the neighbors of a node in the given adjacent layer.
+     *
+     * @param id the node's number
+     * @param layer index of a layer adjacent to the node's layer
+     * @return the numbers of the neighbors
      */
-    private ArrayList<Node> getNeighbors(final Node n,
-            final ArrayList<Node> layer) {
-        ArrayList<Node> neighbors = new ArrayList<Graph.Node>();
-        for (Edge e : m_g.edges(n)) {
-            Node m = e.opposite(n);
-            if (layer.contains(m)) {
-                neighbors.add(m);
-            }
+    private int[] neighbors(final int id, final int layer) {
+        if (layer == m_g.getLayer(id) - 1) {
+            return m_prevNeighbors[id];
+        } else if (layer == m_g.getLayer(id) + 1) {
+            return m_nextNeighbors[id];
         }
-        return neighbors;
+        return new int[0];
     }
 
     /**
      * used to compare two nodes on a layer, after each nodes y-coordinate is
      * set to the median of its neighbors. If two nodes have equal median,
      * preference is given to odd-degree nodes.
-     * 
+     *
      * @author mader, University of Konstanz
      */
-    public class LayerSortComparator implements
-            Comparator<org.knime.workbench.ui.layout.Graph.Node> {
+    private final class LayerSortComparator implements Util.NodeComparator {
 
-        private ArrayList<Node> m_otherLayer;
+        private final int m_otherLayer;
 
         /**
          * constructor.
-         * 
+         *
          * @param otherLayer if medians are equal decision is made by degree of
          *            a node with respect to this layer
          */
-        public LayerSortComparator(final ArrayList<Node> otherLayer) {
+        LayerSortComparator(final int otherLayer) {
             m_otherLayer = otherLayer;
         }
 
         @Override
-        public int compare(final Node o1, final Node o2) {
+        public int compare(final int o1, final int o2) {
             if (m_g.getY(o1) < m_g.getY(o2)) {
                 return -1;
             } else if (m_g.getY(o1) > m_g.getY(o2)) {
                 return 1;
             } else {
                 // both have same median
-                // if o1 has odd degree choose this one
-                if (getNeighbors(o1, m_otherLayer).size() % 2 != 0) {
+                // if only one of them has odd degree choose this one
+                boolean odd1 = neighbors(o1, m_otherLayer).length % 2 != 0;
+                boolean odd2 = neighbors(o2, m_otherLayer).length % 2 != 0;
+                if (odd1 && !odd2) {
                     return -1;
-                } else if (getNeighbors(o2, m_otherLayer).size() % 2 != 0) {
+                } else if (odd2 && !odd1) {
                     return 1;
                 } else {
                     return 0;
@@ -0,0 +1,118 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.ui.layout.layeredlayout;
+
+import java.util.Arrays;
+
+/**
+ * growable list of node IDs, used to build layers without boxing.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class IntList {
+    private int[] m_values;
+
+    private int m_size;
+
+    IntList() {
+        m_values = new int[8];
+    }
+
+    IntList(final int[] values) {
+        m_values = Arrays.copyOf(values, Math.max(values.length, 8));
+        m_size = values.length;
+    }
+
+    int size() {
+        return m_size;
+    }
+
+    boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    int get(final int i) {
+        return m_values[i];
+    }
+
+    void add(final int value) {
+        if (m_size == m_values.length) {
+            m_values = Arrays.copyOf(m_values, 2 * m_size);
+        }
+        m_values[m_size++] = value;
+    }
+
+    boolean contains(final int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * removes the first occurrence of the given value, keeping the order of the remaining values.
+     *
+     * @return true if the value was contained
+     */
+    boolean remove(final int value) {
+        int i = indexOf(value);
+        if (i < 0) {
+            return false;
+        }
+        System.arraycopy(m_values, i + 1, m_values, i, m_size - i - 1);
+        m_size--;
+        return true;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(m_values, m_size);
+    }
+
+    private int indexOf(final int value) {
+        for (int i = 0; i < m_size; i++) {
+            if (m_values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -48,11 +48,8 @@
 package org.knime.workbench.ui.layout.layeredlayout;
 
 import java.util.ArrayList;
-import java.util.Map;
 
-import org.knime.workbench.ui.layout.Graph;
-import org.knime.workbench.ui.layout.Graph.Edge;
-import org.knime.workbench.ui.layout.Graph.Node;
+import org.knime.workbench.ui.layout.IndexedGraph;
 
 /**
  * assigns layers to the nodes of a graph by topological sorting.
@@ -64,27 +61,26 @@ public class Layerer {
     /**
      * Perform a topological sort to assign layers to nodes. If there are fixed
      * nodes they will be placed on the first or last layer, depending on
-     * whether they are sources or sinks.
+     * whether they are sources or sinks. The layer of each node is also set
+     * in the graph.
      * 
      * @param g the graph to be layered
-     * @param nodeLayer a map storing the layer of each node
      * @param fixedSources a list of sources to fix on the first layer, or null
      *            if none exist
      * @param fixedSinks a list of sinks to fix on the last layer, or null if
      *            none exist
-     * @return the list of layers, each layer containing an array list of nodes
+     * @return the list of layers, each layer containing a list of nodes
      */
-    static ArrayList<ArrayList<Node>> assignLayers(final Graph g,
-            final Map<Node, Integer> nodeLayer,
-            final ArrayList<Node> fixedSources, final ArrayList<Node> fixedSinks) {
+    static ArrayList<IntList> assignLayers(final IndexedGraph g,
+            final int[] fixedSources, final int[] fixedSinks) {
 
         // initialize residual degrees, and find first sources
-        ArrayList<ArrayList<Node>> layers = new ArrayList<ArrayList<Node>>();
-        Map<Node, Integer> residualDegree = g.createIntNodeMap();
-        ArrayList<Node> sources = new ArrayList<Node>();
-        for (Node n : g.nodes()) {
-            residualDegree.put(n, n.inDegree());
-            if (n.inDegree() == 0) {
+        ArrayList<IntList> layers = new ArrayList<IntList>();
+        int[] residualDegree = g.createIntNodeMap(0);
+        IntList sources = new IntList();
+        for (int n = 0; n < g.n(); n++) {
+            residualDegree[n] = g.inDegree(n);
+            if (g.inDegree(n) == 0) {
                 sources.add(n);
             }
         }
@@ -93,10 +89,10 @@ static ArrayList<ArrayList<Node>> assignLayers(final Graph g,
         int layer = 0;
         // handle fixed sources, if any
         if (fixedSources != null) {
-            layers.add(fixedSources);
-            for (Node n : fixedSources) {
+            layers.add(new IntList(fixedSources));
+            for (int n : fixedSources) {
                 sources.remove(n);
-                nodeLayer.put(n, layer);
+                g.setLayer(n, layer);
                 // check if any of the outgoing neighbors becomes a source
                 updateSources(g, n, sources, residualDegree);
             }
@@ -105,11 +101,12 @@ static ArrayList<ArrayList<Node>> assignLayers(final Graph g,
 
         // handle regular nodes
         while (!sources.isEmpty()) {
-            ArrayList<Node> nextSources = new ArrayList<Node>();
+            IntList nextSources = new IntList();
             // put all of the current sources on the current layer
             layers.add(sources);
-            for (Node n : sources) {
-                nodeLayer.put(n, layer);
+            for (int i = 0; i < sources.size(); i++) {
+                int n = sources.get(i);
+                g.setLayer(n, layer);
                 updateSources(g, n, nextSources, residualDegree);
             }
             // advance to the next layer
@@ -119,12 +116,14 @@ static ArrayList<ArrayList<Node>> assignLayers(final Graph g,
 
         // handle fixed sinks by putting them on the last layer
         if (fixedSinks != null) {
+            IntList fixedSinkList = new IntList(fixedSinks);
             // check if there are non-fixed sinks on the current last layer
             boolean lastLayerValid = true;
             int lastlayer = layers.size() - 1;
 
-            for (Node n : layers.get(lastlayer)) {
-                if (!fixedSinks.contains(n)) {
+            IntList last = layers.get(lastlayer);
+            for (int i = 0; i < last.size(); i++) {
+                if (!fixedSinkList.contains(last.get(i))) {
                     lastLayerValid = false;
                 }
             }
@@ -133,11 +132,11 @@ static ArrayList<ArrayList<Node>> assignLayers(final Graph g,
             // sinks to this layer, otherwise introduce new last layer
             if (!lastLayerValid) {
                 lastlayer++;
-                layers.add(new ArrayList<Graph.Node>());
+                layers.add(new IntList());
             }
-            for (Node n : fixedSinks) {
-                layers.get(nodeLayer.get(n)).remove(n);
-                nodeLayer.put(n, lastlayer);
+            for (int n : fixedSinks) {
+                layers.get(g.getLayer(n)).remove(n);
+                g.setLayer(n, lastlayer);
                 layers.get(lastlayer).add(n);
             }
         }
@@ -153,14 +152,14 @@ static ArrayList<ArrayList<Node>> assignLayers(final Graph g,
      * @param sources
      * @param residualDegree
      */
-    private static void updateSources(final Graph g, Node n,
-            ArrayList<Node> sources, Map<Node, Integer> residualDegree) {
-        for (Edge e : g.outEdges(n)) {
-            Node t = e.target();
-            int newDegree = residualDegree.get(t).intValue() - 1;
-            residualDegree.put(t, newDegree);
-            if (newDegree == 0)
+    private static void updateSources(final IndexedGraph g, final int n,
+            final IntList sources, final int[] residualDegree) {
+        for (int i = 0; i < g.outDegree(n); i++) {
+            int t = g.target(g.outEdge(n, i));
+            residualDegree[t]--;
+            if (residualDegree[t] == 0) {
                 sources.add(t);
+            }
         }
     }
 }
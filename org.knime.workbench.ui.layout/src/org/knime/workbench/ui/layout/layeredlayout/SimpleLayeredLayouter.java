@@ -48,14 +48,16 @@
 package org.knime.workbench.ui.layout.layeredlayout;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 
 import org.knime.workbench.ui.layout.Graph;
 import org.knime.workbench.ui.layout.Graph.Edge;
 import org.knime.workbench.ui.layout.Graph.Node;
+import org.knime.workbench.ui.layout.IndexedGraph;
 
 /**
  * computes a layered layout for a directed acyclic graph. Following the
@@ -67,6 +69,10 @@
  * ; except for coordinate assignment that is covered in "Brandes, Köpf: Fast
  * and simple horizontal coordinate assignment, 2001".
  *
+ * The stages work on an {@link IndexedGraph} created from the given graph,
+ * which also contains the dummy nodes of long edges; only the results are
+ * transferred back to the given graph.
+ *
  * @author Martin Mader, University of Konstanz
  */
 public class SimpleLayeredLayouter {
@@ -75,6 +81,8 @@ public class SimpleLayeredLayouter {
 
     private boolean m_balanceBranching = true;
 
+    private long m_numberOfCrossings = -1;
+
     /**
      * constructor initializing an arbitrary random instance for shuffling
      * layers.
@@ -110,6 +118,16 @@ public void setBalanceBranchings(final boolean balance) {
         m_balanceBranching = balance;
     }
 
+    /**
+     * @return the number of crossings between consecutive layers (including
+     *         the segments of long edges) of the last computed layout, or -1 if
+     *         no layout has been computed yet
+     * @since 4.2
+     */
+    public long getNumberOfCrossings() {
+        return m_numberOfCrossings;
+    }
+
     /**
      * computes an hierarchical layout of the given graph. If nodes are fixed by
      * means of the given map, they will end up on the first or last layer,
@@ -123,135 +141,179 @@ public void setBalanceBranchings(final boolean balance) {
      */
     public void doLayout(final Graph g, final Map<Node, Boolean> fixedNodes)
             throws RuntimeException {
+        doLayout(g, fixedNodes, () -> false);
+    }
+
+    /**
+     * computes an hierarchical layout of the given graph, see
+     * {@link #doLayout(Graph, Map)}. Cancellation is checked between the
+     * stages of the algorithm; the given graph is only modified if the layout
+     * has not been canceled.
+     *
+     * @param g the graph to perform layout on
+     * @param fixedNodes node map containing true if the respective node should
+     *            be fixed (only sources and sinks allowed)
+     * @param isCanceled returns true if the layout should be canceled, may be
+     *            called from any thread
+     * @throws CancellationException if the layout has been canceled
+     * @since 4.2
+     */
+    public void doLayout(final Graph g, final Map<Node, Boolean> fixedNodes,
+            final BooleanSupplier isCanceled) throws CancellationException {
+
+        // create the indexed graph, node IDs are in order of the graph's nodes
+        IndexedGraph.Builder builder = new IndexedGraph.Builder(g.n(), g.m());
+        Map<Node, Integer> ids = new HashMap<Node, Integer>(2 * g.n());
+        ArrayList<Node> nodes = new ArrayList<Node>(g.n());
+        for (Node n : g.nodes()) {
+            ids.put(n, builder.addNode(g.getX(n), g.getY(n)));
+            nodes.add(n);
+        }
+        ArrayList<Edge> edges = new ArrayList<Edge>(g.m());
+        for (Edge e : g.edges()) {
+            builder.addEdge(ids.get(e.source()), ids.get(e.target()));
+            edges.add(e);
+        }
+        IndexedGraph graph = builder.build();
 
         // create lists for fixed sources and sinks if necessary
-        ArrayList<Node> fixedSources = null;
-        ArrayList<Node> fixedSinks = null;
+        int[] fixedSources = null;
+        int[] fixedSinks = null;
         if (fixedNodes != null) {
-            fixedSources = new ArrayList<Graph.Node>();
-            fixedSinks = new ArrayList<Graph.Node>();
-            for (Node n : g.nodes()) {
-                if (fixedNodes.get(n)) {
-                    if (n.inDegree() == 0) {
-                        fixedSources.add(n);
-                    } else if (n.outDegree() == 0) {
-                        fixedSinks.add(n);
+            IntList sources = new IntList();
+            IntList sinks = new IntList();
+            for (int n = 0; n < graph.n(); n++) {
+                if (fixedNodes.get(nodes.get(n))) {
+                    if (graph.inDegree(n) == 0) {
+                        sources.add(n);
+                    } else if (graph.outDegree(n) == 0) {
+                        sinks.add(n);
                     }
                 }
             }
-            if (fixedSources.isEmpty()) {
-                fixedSources = null;
+            if (!sources.isEmpty()) {
+                fixedSources = sources.toArray();
             }
-            if (fixedSinks.isEmpty()) {
-                fixedSinks = null;
+            if (!sinks.isEmpty()) {
+                fixedSinks = sinks.toArray();
             }
         }
 
         // get layering of the graph
-        Map<Node, Integer> nodeLayer = g.createIntNodeMap();
-        ArrayList<ArrayList<Node>> layers =
-                Layerer.assignLayers(g, nodeLayer, fixedSources, fixedSinks);
+        ArrayList<IntList> layers =
+                Layerer.assignLayers(graph, fixedSources, fixedSinks);
+        checkCanceled(isCanceled);
 
-        // add dummy vertices for edges spanning several layers
-        ArrayList<Edge> hiddenEdges = new ArrayList<Graph.Edge>();
-        ArrayList<Node> dummyNodes = new ArrayList<Graph.Node>();
-        ArrayList<Edge> dummyEdges = new ArrayList<Graph.Edge>();
-        HashMap<Edge, ArrayList<Node>> hiddenEdgeToDummyVertices =
-                new HashMap<Graph.Edge, ArrayList<Node>>();
-        for (Edge e : g.edges()) {
-            int startLayer = nodeLayer.get(e.source()).intValue();
-            int endLayer = nodeLayer.get(e.target()).intValue();
-            int span = endLayer - startLayer;
+        // add dummy vertices for edges spanning several layers: create a new
+        // graph containing the original nodes (with the same IDs), the edges
+        // spanning one layer, and a chain of dummy nodes and edges for each
+        // hidden edge
+        IndexedGraph.Builder properBuilder =
+                new IndexedGraph.Builder(graph.n(), graph.m());
+        for (int n = 0; n < graph.n(); n++) {
+            properBuilder.addNode(graph.getX(n), graph.getY(n));
+        }
+        IntList hiddenEdges = new IntList();
+        for (int e = 0; e < graph.m(); e++) {
+            int span = graph.getLayer(graph.target(e)) - graph.getLayer(graph.source(e));
             if (span > 1) {
                 hiddenEdges.add(e);
+            } else {
+                properBuilder.addEdge(graph.source(e), graph.target(e));
             }
         }
-        // cannot modify graph in for-loop above, since it would create
-        // concurrent modification due to iterator
-        for (Edge e : hiddenEdges) {
-            // list for this edges dummy nodes
-            ArrayList<Node> eDummyNodes = new ArrayList<Graph.Node>();
-            int startLayer = nodeLayer.get(e.source()).intValue();
-            int endLayer = nodeLayer.get(e.target()).intValue();
-            int span = endLayer - startLayer;
-            Node last = e.source();
+        // dummy nodes of each hidden edge
+        int[][] hiddenEdgeToDummyVertices = new int[hiddenEdges.size()][];
+        IntList dummyLayers = new IntList();
+        for (int h = 0; h < hiddenEdges.size(); h++) {
+            int e = hiddenEdges.get(h);
+            int startLayer = graph.getLayer(graph.source(e));
+            int span = graph.getLayer(graph.target(e)) - startLayer;
+            int[] eDummyNodes = new int[span - 1];
+            int last = graph.source(e);
             for (int i = 1; i < span; i++) {
-                Node current =
-                        g.createNode("bend " + e + ", " + i, startLayer + i,
-                                g.getY(last));
+                int current = properBuilder.addNode(startLayer + i, graph.getY(graph.source(e)));
                 // add dummy to its layer
-                nodeLayer.put(current, startLayer + i);
                 layers.get(startLayer + i).add(current);
-                // add dummy edge to graph
-                Edge dEdge = g.createEdge(last, current);
-                dummyEdges.add(dEdge);
-                // add dummy vertex to the list of dummies for the original edge
-                eDummyNodes.add(current);
+                dummyLayers.add(startLayer + i);
+                properBuilder.addEdge(last, current);
+                eDummyNodes[i - 1] = current;
                 // proceed
                 last = current;
             }
             // add last dummy edge
-            g.createEdge(last, e.target());
-            // store list of dummy nodes for original edge
-            hiddenEdgeToDummyVertices.put(e, eDummyNodes);
-            // add this edges dummy Nodes to the list of all dummy nodes
-            dummyNodes.addAll(eDummyNodes);
+            properBuilder.addEdge(last, graph.target(e));
+            hiddenEdgeToDummyVertices[h] = eDummyNodes;
         }
-
-        // remove hidden edges
-        for (Edge e : hiddenEdges) {
-            g.removeEdge(e);
+        IndexedGraph proper = properBuilder.build();
+        boolean[] dummyNodes = proper.createBoolNodeMap();
+        for (int n = 0; n < graph.n(); n++) {
+            proper.setLayer(n, graph.getLayer(n));
+        }
+        for (int n = graph.n(); n < proper.n(); n++) {
+            proper.setLayer(n, dummyLayers.get(n - graph.n()));
+            dummyNodes[n] = true;
         }
 
         // set initial coordinates by layer
-        int layer = 0;
-        for (ArrayList<Node> currentLayer : layers) {
+        int[][] layerArrays = new int[layers.size()][];
+        for (int layer = 0; layer < layers.size(); layer++) {
+            int[] currentLayer = layers.get(layer).toArray();
             // sort first and last layer by y-coordinate if fixed
             if (layer == 0 && fixedSources != null) {
-                Collections.sort(currentLayer, new Util.NodeByYComparator(g));
+                Util.sortByY(proper, currentLayer);
             } else if (layer == layers.size() - 1 && fixedSinks != null) {
-                Collections.sort(currentLayer, new Util.NodeByYComparator(g));
+                Util.sortByY(proper, currentLayer);
             } else {
                 // here the ordering is shuffled, could also be done several
                 // times in the crossing minimization phase.
                 // I.e., every execution of the algorithm potentially yields
                 // another result!
-                Collections.shuffle(currentLayer, m_rnd);
+                shuffle(currentLayer);
                 // ordering could also be initialized by the current ordering
                 // from y-coordinates.
-                // Collections.sort(currentLayer, new
-                // Util.NodeByYComparator(g));
+                // Util.sortByY(proper, currentLayer);
             }
             // set coordinates from 0,1,...,size of layer
             int verticalCoord = 0;
-            for (Node n : currentLayer) {
-                g.setCoordinates(n, layer, verticalCoord);
+            for (int n : currentLayer) {
+                proper.setCoordinates(n, layer, verticalCoord);
                 verticalCoord++;
             }
-            layer++;
+            layerArrays[layer] = currentLayer;
         }
 
         /* Do crossing minimization */
         CrossingMinimizer cm =
-                new CrossingMinimizer(g, layers, fixedSources, fixedSinks);
+                new CrossingMinimizer(proper, layerArrays, fixedSources != null,
+                        fixedSinks != null);
         cm.run();
+        m_numberOfCrossings = cm.numberOfCrossings();
+        checkCanceled(isCanceled);
 
         /* Do vertical placement */
         VerticalCoordinateAssigner vca =
-                new VerticalCoordinateAssigner(g, layers, dummyNodes,
-                        dummyEdges);
+                new VerticalCoordinateAssigner(proper, layerArrays, dummyNodes);
         vca.setBalanceBranchings(m_balanceBranching);
         vca.run();
+        checkCanceled(isCanceled);
+
+        /* Transfer coordinates back to the original nodes */
+        for (int n = 0; n < graph.n(); n++) {
+            g.setCoordinates(nodes.get(n), proper.getX(n), proper.getY(n));
+        }
 
         /*
-         * Reinsert hidden edges with bendpoints, and remove dummy nodes and
-         * edges
+         * Reinsert hidden edges (at the end of the edge lists, as before) with
+         * the coordinates of their dummy nodes as bendpoints
          */
-        for (Edge hEdge : hiddenEdges) {
-            Edge e = g.reinsert(hEdge);
-            for (Node n : hiddenEdgeToDummyVertices.get(hEdge)) {
-                g.addBend(e, g.getX(n), g.getY(n));
-                g.removeNode(n); // also removes dummy edges!
+        for (int h = 0; h < hiddenEdges.size(); h++) {
+            g.removeEdge(edges.get(hiddenEdges.get(h)));
+        }
+        for (int h = 0; h < hiddenEdges.size(); h++) {
+            Edge e = g.reinsert(edges.get(hiddenEdges.get(h)));
+            for (int n : hiddenEdgeToDummyVertices[h]) {
+                g.addBend(e, proper.getX(n), proper.getY(n));
             }
         }
 
@@ -259,4 +321,23 @@ public void doLayout(final Graph g, final Map<Node, Boolean> fixedNodes)
         g.cleanBends();
     }
 
+    private static void checkCanceled(final BooleanSupplier isCanceled) {
+        if (isCanceled.getAsBoolean()) {
+            throw new CancellationException("Layout has been canceled");
+        }
+    }
+
+    /**
+     * shuffles the given nodes in the same way as
+     * {@link java.util.Collections#shuffle(java.util.List, Random)}.
+     */
+    private void shuffle(final int[] nodes) {
+        for (int i = nodes.length; i > 1; i--) {
+            int j = m_rnd.nextInt(i);
+            int temp = nodes[i - 1];
+            nodes[i - 1] = nodes[j];
+            nodes[j] = temp;
+        }
+    }
+
 }
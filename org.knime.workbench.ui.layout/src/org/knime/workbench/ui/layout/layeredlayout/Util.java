@@ -51,6 +51,7 @@
 
 import org.knime.workbench.ui.layout.Graph;
 import org.knime.workbench.ui.layout.Graph.Node;
+import org.knime.workbench.ui.layout.IndexedGraph;
 
 /**
  * 
@@ -68,4 +69,64 @@ public int compare(Node o1, Node o2) {
                     .getY(o2)));
         }
     }
+
+    /**
+     * compares two nodes of an {@link IndexedGraph} given by their IDs.
+     */
+    interface NodeComparator {
+        int compare(int u, int v);
+    }
+
+    /**
+     * sorts the given nodes by their y-coordinate. The sort is stable.
+     *
+     * @param g the graph
+     * @param nodes the node IDs to sort
+     */
+    static void sortByY(final IndexedGraph g, final int[] nodes) {
+        sort(nodes, (u, v) -> Double.compare(g.getY(u), g.getY(v)));
+    }
+
+    /**
+     * sorts the given nodes with a merge sort. The sort is stable, i.e. equal
+     * nodes keep their order.
+     *
+     * @param nodes the node IDs to sort
+     * @param c the comparator
+     */
+    static void sort(final int[] nodes, final NodeComparator c) {
+        if (nodes.length < 2) {
+            return;
+        }
+        mergeSort(nodes.clone(), nodes, 0, nodes.length, c);
+    }
+
+    /** sorts src[from, to) into dest[from, to); both contain the same values on entry. */
+    private static void mergeSort(final int[] src, final int[] dest, final int from, final int to,
+            final NodeComparator c) {
+        int length = to - from;
+        if (length < 8) {
+            // insertion sort
+            for (int i = from + 1; i < to; i++) {
+                int v = dest[i];
+                int j = i - 1;
+                while (j >= from && c.compare(dest[j], v) > 0) {
+                    dest[j + 1] = dest[j];
+                    j--;
+                }
+                dest[j + 1] = v;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(dest, src, from, mid, c);
+        mergeSort(dest, src, mid, to, c);
+        for (int i = from, p = from, q = mid; i < to; i++) {
+            if (q >= to || (p < mid && c.compare(src[p], src[q]) <= 0)) {
+                dest[i] = src[p++];
+            } else {
+                dest[i] = src[q++];
+            }
+        }
+    }
 }
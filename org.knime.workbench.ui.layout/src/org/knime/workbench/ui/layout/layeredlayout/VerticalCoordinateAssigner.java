@@ -47,58 +47,54 @@
  */
 package org.knime.workbench.ui.layout.layeredlayout;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
 
-import org.knime.workbench.ui.layout.Graph;
-import org.knime.workbench.ui.layout.Graph.Edge;
-import org.knime.workbench.ui.layout.Graph.Node;
+import org.knime.workbench.ui.layout.IndexedGraph;
 
 /**
  * handles vertical assignment of coordinates within layers, see
  * "Brandes, Köpf: Fast and simple horizontal coordinate assignment (GD 2001)".
  *
+ * All node and edge maps are arrays indexed by the node and edge IDs of the
+ * {@link IndexedGraph}, -1 represents a missing node.
+ *
  * @author Martin Mader, University of Konstanz
  */
 public class VerticalCoordinateAssigner {
 
-    private static final Double DELTA = 1.0;
+    private static final double DELTA = 1.0;
 
-    private Graph m_g;
+    private IndexedGraph m_g;
 
-    private ArrayList<ArrayList<Node>> m_layers;
+    private int[][] m_layers;
 
     // all variables named as close as possible to the above mentioned article
 
-    private HashMap<Node, Integer> m_pos = new HashMap<Graph.Node, Integer>();
+    private final int[] m_pos;
 
-    private HashMap<Node, Node> m_pred = new HashMap<Graph.Node, Graph.Node>();
+    private final int[] m_pred;
 
-    private HashMap<Edge, Boolean> m_innerSegment =
-            new HashMap<Graph.Edge, Boolean>();
+    private final boolean[] m_innerSegment;
 
-    private HashMap<Edge, Boolean> m_marked =
-            new HashMap<Graph.Edge, Boolean>();
+    private final boolean[] m_marked;
 
-    private HashMap<Node, Node> m_align = new HashMap<Graph.Node, Graph.Node>();
+    private final int[] m_align;
 
-    private HashMap<Node, Node> m_root = new HashMap<Graph.Node, Graph.Node>();
+    private final int[] m_root;
 
-    private HashMap<Node, Node> m_sink = new HashMap<Graph.Node, Graph.Node>();
+    private final int[] m_sink;
 
-    private HashMap<Node, Double> m_shift = new HashMap<Graph.Node, Double>();
+    private final double[] m_shift;
 
-    private HashMap<Node, Double> m_y = new HashMap<Graph.Node, Double>();
+    private final double[] m_y;
 
-    private HashMap<Node, Double> m_yLT = new HashMap<Graph.Node, Double>();
+    private final double[] m_yLT;
 
-    private HashMap<Node, Double> m_yLB = new HashMap<Graph.Node, Double>();
+    private final double[] m_yLB;
 
-    private HashMap<Node, Double> m_yRT = new HashMap<Graph.Node, Double>();
+    private final double[] m_yRT;
 
-    private HashMap<Node, Double> m_yRB = new HashMap<Graph.Node, Double>();
+    private final double[] m_yRB;
 
     private boolean m_balanceBranching = true;
 
@@ -106,48 +102,44 @@ public class VerticalCoordinateAssigner {
      * initializes data structures needed for vertical coordinate assignment.
      *
      * @param g the graph to work on
-     * @param layers the layering information
-     * @param dummyNodes list of dummy nodes
-     * @param dummyEdges list of dummy edges
+     * @param layers the layering information, the node IDs of each layer
+     * @param dummyNodes node map containing true for dummy nodes
      */
-    public VerticalCoordinateAssigner(final Graph g,
-            final ArrayList<ArrayList<Node>> layers,
-            final ArrayList<Node> dummyNodes, final ArrayList<Edge> dummyEdges) {
+    public VerticalCoordinateAssigner(final IndexedGraph g,
+            final int[][] layers, final boolean[] dummyNodes) {
         m_g = g;
         m_layers = layers;
+        int n = g.n();
+        m_pos = g.createIntNodeMap(0);
+        m_pred = g.createIntNodeMap(-1);
         // initialize pos and pred
-        for (int i = 0; i < m_layers.size(); i++) {
-            ArrayList<Node> layer = m_layers.get(i);
-            for (int pos = 0; pos < layer.size(); pos++) {
-                m_pos.put(layer.get(pos), pos);
-                if (pos == 0) {
-                    m_pred.put(layer.get(pos), null);
-                } else {
-                    m_pred.put(layer.get(pos), layer.get(pos - 1));
+        for (int i = 0; i < m_layers.length; i++) {
+            int[] layer = m_layers[i];
+            for (int pos = 0; pos < layer.length; pos++) {
+                m_pos[layer[pos]] = pos;
+                if (pos > 0) {
+                    m_pred[layer[pos]] = layer[pos - 1];
                 }
             }
         }
         // initialize edge maps
-        for (Edge e : m_g.edges()) {
-            m_marked.put(e, false);
-            // initialize inner segments, corrected later
-            m_innerSegment.put(e, false);
+        m_marked = g.createBoolEdgeMap();
+        // determine inner segments, i.e. edges between two dummy nodes
+        m_innerSegment = g.createBoolEdgeMap();
+        for (int e = 0; e < g.m(); e++) {
+            m_innerSegment[e] = dummyNodes[g.source(e)] && dummyNodes[g.target(e)];
         }
         // initialize node maps
-        for (Node n : m_g.nodes()) {
-            m_align.put(n, n);
-            m_root.put(n, n);
-            m_sink.put(n, n);
-            m_shift.put(n, Double.POSITIVE_INFINITY);
-            m_y.put(n, Double.NaN);
-        }
-        // determine inner segments
-        for (Edge e : dummyEdges) {
-            if (dummyNodes.contains(e.source())
-                    && dummyNodes.contains(e.target())) {
-                m_innerSegment.put(e, true);
-            }
-        }
+        m_align = new int[n];
+        m_root = new int[n];
+        m_sink = new int[n];
+        m_shift = new double[n];
+        m_y = new double[n];
+        m_yLT = new double[n];
+        m_yLB = new double[n];
+        m_yRT = new double[n];
+        m_yRB = new double[n];
+        initNodeMaps();
     }
 
     /**
@@ -188,8 +180,8 @@ public void run() {
         // balance between 4 alignments
         balance();
         // set final coordinates
-        for (Node n : m_g.nodes()) {
-            m_g.setY(n, m_y.get(n));
+        for (int n = 0; n < m_g.n(); n++) {
+            m_g.setY(n, m_y[n]);
         }
 
     }
@@ -199,23 +191,21 @@ public void run() {
      *
      * @param y
      */
-    private void storeCoordinates(final HashMap<Node, Double> y) {
-        for (Node n : m_g.nodes()) {
-            y.put(n, m_y.get(n));
-        }
+    private void storeCoordinates(final double[] y) {
+        System.arraycopy(m_y, 0, y, 0, m_y.length);
     }
 
     /**
      * initialize node maps needed for alignment and compaction phases.
      */
     private void initNodeMaps() {
-        for (Node n : m_g.nodes()) {
-            m_align.put(n, n);
-            m_root.put(n, n);
-            m_sink.put(n, n);
-            m_shift.put(n, Double.POSITIVE_INFINITY);
-            m_y.put(n, Double.NaN);
+        for (int n = 0; n < m_g.n(); n++) {
+            m_align[n] = n;
+            m_root[n] = n;
+            m_sink[n] = n;
         }
+        Arrays.fill(m_shift, Double.POSITIVE_INFINITY);
+        Arrays.fill(m_y, Double.NaN);
     }
 
     /*
@@ -226,33 +216,31 @@ private void initNodeMaps() {
      * mark conflicting edges.
      */
     private void markConflicts() {
-        if (m_layers.size() < 4) {
+        if (m_layers.length < 4) {
             // no conflicts possible since there cannot be any inner segments
             return;
         }
         // inner segments cannot occur between first and second layer, and
         // next-to-last and last layer
-        for (int i = 1; i < m_layers.size() - 2; i++) {
+        for (int i = 1; i < m_layers.length - 2; i++) {
             int k0 = 0;
             int l = 0;
-            for (int l1 = 0; l1 < m_layers.get(i + 1).size(); l1++) {
-                Node vl1 = m_layers.get(i + 1).get(l1);
-                Edge innerSegment = getInnerSegmentIncidentTo(vl1);
-                if (l1 == m_layers.get(i + 1).size() - 1
-                        || innerSegment != null) {
-                    int k1 = m_layers.get(i).size() - 1;
-                    if (innerSegment != null) {
-                        k1 =
-                                m_layers.get(i).indexOf(
-                                        innerSegment.opposite(vl1));
+            for (int l1 = 0; l1 < m_layers[i + 1].length; l1++) {
+                int vl1 = m_layers[i + 1][l1];
+                int innerSegment = getInnerSegmentIncidentTo(vl1);
+                if (l1 == m_layers[i + 1].length - 1
+                        || innerSegment >= 0) {
+                    int k1 = m_layers[i].length - 1;
+                    if (innerSegment >= 0) {
+                        k1 = m_pos[m_g.opposite(innerSegment, vl1)];
                     }
                     while (l <= l1) {
-                        Node vl = m_layers.get(i + 1).get(l);
-                        for (Edge e : m_g.inEdges(vl)) {
-                            Node vk = e.opposite(vl);
-                            int k = m_layers.get(i).indexOf(vk);
+                        int vl = m_layers[i + 1][l];
+                        for (int j = 0; j < m_g.inDegree(vl); j++) {
+                            int e = m_g.inEdge(vl, j);
+                            int k = m_pos[m_g.opposite(e, vl)];
                             if (k < k0 || k > k1) {
-                                m_marked.put(e, true);
+                                m_marked[e] = true;
                             }
                         }
                         l++;
@@ -269,17 +257,18 @@ private void markConflicts() {
      * exists.
      *
      * @param node
-     * @return
+     * @return the edge or -1
      */
-    private Edge getInnerSegmentIncidentTo(final Node node) {
-        for (Edge e : m_g.inEdges(node)) {
+    private int getInnerSegmentIncidentTo(final int node) {
+        for (int j = 0; j < m_g.inDegree(node); j++) {
             // if node is incident to inner segment this will be the only
             // incoming edge
-            if (m_innerSegment.get(e)) {
+            int e = m_g.inEdge(node, j);
+            if (m_innerSegment[e]) {
                 return e;
             }
         }
-        return null;
+        return -1;
     }
 
     /*
@@ -291,24 +280,24 @@ private Edge getInnerSegmentIncidentTo(final Node node) {
      * fashion.
      */
     private void horizontalAlignmentLeftTopmost() {
-        for (int i = 0; i < m_layers.size(); i++) {
+        for (int i = 0; i < m_layers.length; i++) {
             int r = -1;
-            for (int k = 0; k < m_layers.get(i).size(); k++) {
-                Node vk = m_layers.get(i).get(k);
-                ArrayList<Node> neighbors = getNeighbors(vk, true);
-                if (!neighbors.isEmpty()) {
-                    int d = neighbors.size();
+            for (int k = 0; k < m_layers[i].length; k++) {
+                int vk = m_layers[i][k];
+                int[] neighbors = getNeighbors(vk, true);
+                if (neighbors.length > 0) {
+                    int d = neighbors.length;
                     int m1 = (int)Math.floor((d + 1) / 2.0) - 1;
                     int m2 = (int)Math.ceil((d + 1) / 2.0) - 1;
                     for (int m = m1; m <= m2; m++) {
-                        if (m_align.get(vk) == vk) {
-                            Node um = neighbors.get(m);
-                            if (!m_marked.get(um.getEdge(vk))
-                                    && r < m_pos.get(um)) {
-                                m_align.put(um, vk);
-                                m_root.put(vk, m_root.get(um));
-                                m_align.put(vk, m_root.get(vk));
-                                r = m_pos.get(um);
+                        if (m_align[vk] == vk) {
+                            int um = neighbors[m];
+                            if (!m_marked[m_g.getEdge(um, vk)]
+                                    && r < m_pos[um]) {
+                                m_align[um] = vk;
+                                m_root[vk] = m_root[um];
+                                m_align[vk] = m_root[vk];
+                                r = m_pos[um];
                             }
                         }
                     }
@@ -323,24 +312,24 @@ private void horizontalAlignmentLeftTopmost() {
      * fashion.
      */
     private void horizontalAlignmentLeftBottommost() {
-        for (int i = 0; i < m_layers.size(); i++) {
-            int r = m_layers.size();
-            for (int k = m_layers.get(i).size() - 1; k >= 0; k--) {
-                Node vk = m_layers.get(i).get(k);
-                ArrayList<Node> neighbors = getNeighbors(vk, true);
-                if (!neighbors.isEmpty()) {
-                    int d = neighbors.size();
+        for (int i = 0; i < m_layers.length; i++) {
+            int r = m_layers.length;
+            for (int k = m_layers[i].length - 1; k >= 0; k--) {
+                int vk = m_layers[i][k];
+                int[] neighbors = getNeighbors(vk, true);
+                if (neighbors.length > 0) {
+                    int d = neighbors.length;
                     int m1 = (int)Math.floor((d + 1) / 2.0) - 1;
                     int m2 = (int)Math.ceil((d + 1) / 2.0) - 1;
                     for (int m = m2; m >= m1; m--) {
-                        if (m_align.get(vk) == vk) {
-                            Node um = neighbors.get(m);
-                            if (!m_marked.get(um.getEdge(vk))
-                                    && r > m_pos.get(um)) {
-                                m_align.put(um, vk);
-                                m_root.put(vk, m_root.get(um));
-                                m_align.put(vk, m_root.get(vk));
-                                r = m_pos.get(um);
+                        if (m_align[vk] == vk) {
+                            int um = neighbors[m];
+                            if (!m_marked[m_g.getEdge(um, vk)]
+                                    && r > m_pos[um]) {
+                                m_align[um] = vk;
+                                m_root[vk] = m_root[um];
+                                m_align[vk] = m_root[vk];
+                                r = m_pos[um];
                             }
                         }
                     }
@@ -355,24 +344,24 @@ private void horizontalAlignmentLeftBottommost() {
      * fashion.
      */
     private void horizontalAlignmentRightTopmost() {
-        for (int i = m_layers.size() - 1; i >= 0; i--) {
+        for (int i = m_layers.length - 1; i >= 0; i--) {
             int r = -1;
-            for (int k = 0; k < m_layers.get(i).size(); k++) {
-                Node vk = m_layers.get(i).get(k);
-                ArrayList<Node> neighbors = getNeighbors(vk, false);
-                if (!neighbors.isEmpty()) {
-                    int d = neighbors.size();
+            for (int k = 0; k < m_layers[i].length; k++) {
+                int vk = m_layers[i][k];
+                int[] neighbors = getNeighbors(vk, false);
+                if (neighbors.length > 0) {
+                    int d = neighbors.length;
                     int m1 = (int)Math.floor((d + 1) / 2.0) - 1;
                     int m2 = (int)Math.ceil((d + 1) / 2.0) - 1;
                     for (int m = m1; m <= m2; m++) {
-                        if (m_align.get(vk) == vk) {
-                            Node um = neighbors.get(m);
-                            if (!m_marked.get(um.getEdge(vk))
-                                    && r < m_pos.get(um)) {
-                                m_align.put(um, vk);
-                                m_root.put(vk, m_root.get(um));
-                                m_align.put(vk, m_root.get(vk));
-                                r = m_pos.get(um);
+                        if (m_align[vk] == vk) {
+                            int um = neighbors[m];
+                            if (!m_marked[m_g.getEdge(um, vk)]
+                                    && r < m_pos[um]) {
+                                m_align[um] = vk;
+                                m_root[vk] = m_root[um];
+                                m_align[vk] = m_root[vk];
+                                r = m_pos[um];
                             }
                         }
                     }
@@ -387,24 +376,24 @@ private void horizontalAlignmentRightTopmost() {
      * fashion.
      */
     private void horizontalAlignmentRightBottommost() {
-        for (int i = m_layers.size() - 1; i >= 0; i--) {
-            int r = m_layers.size();
-            for (int k = m_layers.get(i).size() - 1; k >= 0; k--) {
-                Node vk = m_layers.get(i).get(k);
-                ArrayList<Node> neighbors = getNeighbors(vk, false);
-                if (!neighbors.isEmpty()) {
-                    int d = neighbors.size();
+        for (int i = m_layers.length - 1; i >= 0; i--) {
+            int r = m_layers.length;
+            for (int k = m_layers[i].length - 1; k >= 0; k--) {
+                int vk = m_layers[i][k];
+                int[] neighbors = getNeighbors(vk, false);
+                if (neighbors.length > 0) {
+                    int d = neighbors.length;
                     int m1 = (int)Math.floor((d + 1) / 2.0) - 1;
                     int m2 = (int)Math.ceil((d + 1) / 2.0) - 1;
                     for (int m = m2; m >= m1; m--) {
-                        if (m_align.get(vk) == vk) {
-                            Node um = neighbors.get(m);
-                            if (!m_marked.get(um.getEdge(vk))
-                                    && r > m_pos.get(um)) {
-                                m_align.put(um, vk);
-                                m_root.put(vk, m_root.get(um));
-                                m_align.put(vk, m_root.get(vk));
-                                r = m_pos.get(um);
+                        if (m_align[vk] == vk) {
+                            int um = neighbors[m];
+                            if (!m_marked[m_g.getEdge(um, vk)]
+                                    && r > m_pos[um]) {
+                                m_align[um] = vk;
+                                m_root[vk] = m_root[um];
+                                m_align[vk] = m_root[vk];
+                                r = m_pos[um];
                             }
                         }
                     }
@@ -422,19 +411,14 @@ private void horizontalAlignmentRightBottommost() {
      * @param left true if left neighbors should be returned, false otherwise
      * @return
      */
-    private ArrayList<Node> getNeighbors(final Node n, final boolean left) {
-        ArrayList<Node> neighbors = new ArrayList<Graph.Node>();
-        Iterable<Edge> incidentEdges;
-        if (left) {
-            incidentEdges = m_g.inEdges(n);
-        } else {
-            incidentEdges = m_g.outEdges(n);
-        }
-        for (Edge e : incidentEdges) {
-            neighbors.add(e.opposite(n));
+    private int[] getNeighbors(final int n, final boolean left) {
+        int d = left ? m_g.inDegree(n) : m_g.outDegree(n);
+        int[] neighbors = new int[d];
+        for (int j = 0; j < d; j++) {
+            neighbors[j] = left ? m_g.source(m_g.inEdge(n, j)) : m_g.target(m_g.outEdge(n, j));
         }
         // sort by order in layer
-        Collections.sort(neighbors, new Util.NodeByYComparator(m_g));
+        Util.sortByY(m_g, neighbors);
         return neighbors;
     }
 
@@ -447,17 +431,17 @@ private ArrayList<Node> getNeighbors(final Node n, final boolean left) {
      * offsets.
      */
     private void verticalCompaction() {
-        for (Node v : m_g.nodes()) {
-            if (m_root.get(v) == v) {
+        for (int v = 0; v < m_g.n(); v++) {
+            if (m_root[v] == v) {
                 placeBlock(v);
             }
         }
-        for (Node v : m_g.nodes()) {
-            double y = m_y.get(m_root.get(v)).doubleValue();
-            m_y.put(v, y);
-            double shift = m_shift.get(m_sink.get(m_root.get(v))).doubleValue();
+        for (int v = 0; v < m_g.n(); v++) {
+            double y = m_y[m_root[v]];
+            m_y[v] = y;
+            double shift = m_shift[m_sink[m_root[v]]];
             if (shift < Double.POSITIVE_INFINITY) {
-                m_y.put(v, y + shift);
+                m_y[v] = y + shift;
             }
         }
 
@@ -468,27 +452,27 @@ private void verticalCompaction() {
      *
      * @param v
      */
-    private void placeBlock(final Node v) {
-        if (m_y.get(v).equals(Double.NaN)) {
-            m_y.put(v, 0.0);
-            Node w = v;
+    private void placeBlock(final int v) {
+        if (Double.isNaN(m_y[v])) {
+            m_y[v] = 0.0;
+            int w = v;
             do {
-                if (m_pos.get(w) > 0) {
-                    Node u = m_root.get(m_pred.get(w));
+                if (m_pos[w] > 0) {
+                    int u = m_root[m_pred[w]];
                     placeBlock(u);
-                    if (m_sink.get(v) == v) {
-                        m_sink.put(v, m_sink.get(u));
+                    if (m_sink[v] == v) {
+                        m_sink[v] = m_sink[u];
                     }
-                    if (m_sink.get(v) != m_sink.get(u)) {
+                    if (m_sink[v] != m_sink[u]) {
                         double shiftSinkU =
-                                Math.min(m_shift.get(m_sink.get(u)), m_y.get(v)
-                                        - m_y.get(u) - DELTA);
-                        m_shift.put(m_sink.get(u), shiftSinkU);
+                                Math.min(m_shift[m_sink[u]], m_y[v]
+                                        - m_y[u] - DELTA);
+                        m_shift[m_sink[u]] = shiftSinkU;
                     } else {
-                        m_y.put(v, Math.max(m_y.get(v), m_y.get(u) + DELTA));
+                        m_y[v] = Math.max(m_y[v], m_y[u] + DELTA);
                     }
                 }
-                w = m_align.get(w);
+                w = m_align[w];
             } while (w != v);
         }
 
@@ -504,43 +488,21 @@ private void placeBlock(final Node v) {
     private void balance() {
         // align to smallest height layout would come here
         // BUT it is not needed here in my opinion.
-        double[] height = new double[4];
-        height[0] = getHeight(m_yLT);
-        height[1] = getHeight(m_yLB);
-        height[2] = getHeight(m_yRT);
-        height[3] = getHeight(m_yRB);
-        // .... perform alignment ....
 
         // average median
-        for (Node n : m_g.nodes()) {
-            double[] y = new double[4];
-            y[0] = m_yLT.get(n);
-            y[1] = m_yLB.get(n);
-            y[2] = m_yRT.get(n);
-            y[3] = m_yRB.get(n);
+        double[] y = new double[4];
+        for (int n = 0; n < m_g.n(); n++) {
+            y[0] = m_yLT[n];
+            y[1] = m_yLB[n];
+            y[2] = m_yRT[n];
+            y[3] = m_yRB[n];
             Arrays.sort(y);
             if (m_balanceBranching) {
-                m_y.put(n, (y[1] + y[2]) / 2);
+                m_y[n] = (y[1] + y[2]) / 2;
             } else {
-                m_y.put(n, y[1]);
+                m_y[n] = y[1];
             }
         }
 
     }
-
-    /**
-     * get maximal height difference of coordinates given in y.
-     *
-     * @param y
-     * @return
-     */
-    private double getHeight(final HashMap<Node, Double> y) {
-        double max = 0;
-        double min = Double.POSITIVE_INFINITY;
-        for (Node n : m_g.nodes()) {
-            max = Math.max(max, y.get(n));
-            min = Math.min(min, y.get(n));
-        }
-        return max - min;
-    }
 }
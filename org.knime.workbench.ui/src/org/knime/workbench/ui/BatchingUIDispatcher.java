@@ -0,0 +1,283 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.ui;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.swt.widgets.Display;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Dispatches runnables to the UI thread in batches. Runnables that are queued with {@link #asyncExec(Runnable)} are
+ * collected and executed together in a single {@link Display#asyncExec(Runnable)} call, in the order in which they
+ * have been queued. This avoids one hand-off to the UI thread per runnable if many events arrive at once, e.g. when a
+ * loop adds hundreds of nodes.
+ *
+ * <p>
+ * A batch runs for at most {@link #FRAME_BUDGET_MILLIS} milliseconds; remaining runnables are executed in a new batch,
+ * so that the UI thread can process paint and input events in between. Runnables queued while a batch is executed
+ * always end up in the next batch.
+ *
+ * <p>
+ * Work that only needs to be done once no matter how many events caused it (e.g. refreshing a viewer) can be queued
+ * with {@link #asyncExecOnce(Runnable)}. Such a runnable is executed once at the end of the batch, regardless of how
+ * often it has been queued.
+ *
+ * <p>
+ * The dispatcher records the current queue depth and the latency between queuing and execution of the runnables.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.2
+ */
+public final class BatchingUIDispatcher {
+    /** Maximum time in milliseconds a batch may occupy the UI thread. */
+    public static final long FRAME_BUDGET_MILLIS = 20;
+
+    private static final long FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(FRAME_BUDGET_MILLIS);
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(BatchingUIDispatcher.class);
+
+    private static final Object LOCK = new Object();
+
+    /** Queued runnables together with their queuing time, guarded by {@link #LOCK}. */
+    private static List<QueuedRunnable> pending = new ArrayList<>();
+
+    /** Runnables that are executed once at the end of the next batch, guarded by {@link #LOCK}. */
+    private static LinkedHashSet<Runnable> pendingOnce = new LinkedHashSet<>();
+
+    /** Whether a batch has been handed to the display but not yet started, guarded by {@link #LOCK}. */
+    private static boolean scheduled;
+
+    private static volatile long lastBatchLatencyNanos;
+
+    private static volatile long maxLatencyNanos;
+
+    private static volatile int lastBatchSize;
+
+    private static volatile long batchCount;
+
+    private static volatile long runnableCount;
+
+    private BatchingUIDispatcher() {
+    }
+
+    /**
+     * Queues a runnable that is executed in the next batch on the UI thread.
+     *
+     * @param runnable the runnable to be processed
+     */
+    public static void asyncExec(final Runnable runnable) {
+        if (runnable == null) {
+            LOGGER.coding("Can't execute null runnable.");
+            return;
+        }
+        synchronized (LOCK) {
+            pending.add(new QueuedRunnable(runnable, System.nanoTime()));
+            scheduleBatch();
+        }
+    }
+
+    /**
+     * Queues a runnable that is executed once at the end of the next batch on the UI thread. If the same runnable
+     * instance is queued again before it has been executed, it will still only run once. Callers should therefore use
+     * the same runnable instance for the same kind of work, e.g. a final field.
+     *
+     * @param runnable the runnable to be processed
+     */
+    public static void asyncExecOnce(final Runnable runnable) {
+        if (runnable == null) {
+            LOGGER.coding("Can't execute null runnable.");
+            return;
+        }
+        synchronized (LOCK) {
+            pendingOnce.add(runnable);
+            scheduleBatch();
+        }
+    }
+
+    /**
+     * Returns the number of runnables that are queued but haven't been executed yet.
+     *
+     * @return the current queue depth
+     */
+    public static int getQueueDepth() {
+        synchronized (LOCK) {
+            return pending.size() + pendingOnce.size();
+        }
+    }
+
+    /**
+     * Returns the maximum time a runnable of the last batch has waited between being queued and being executed.
+     *
+     * @return the latency in milliseconds
+     */
+    public static double getLastBatchLatencyMillis() {
+        return lastBatchLatencyNanos / 1e6;
+    }
+
+    /**
+     * Returns the maximum time any runnable has waited between being queued and being executed.
+     *
+     * @return the latency in milliseconds
+     */
+    public static double getMaxLatencyMillis() {
+        return maxLatencyNanos / 1e6;
+    }
+
+    /**
+     * Returns the number of runnables executed in the last batch, including the ones queued with
+     * {@link #asyncExecOnce(Runnable)}.
+     *
+     * @return the size of the last batch
+     */
+    public static int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * Returns the number of batches executed so far.
+     *
+     * @return the number of batches
+     */
+    public static long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Returns the number of runnables executed so far, including the ones queued with
+     * {@link #asyncExecOnce(Runnable)}.
+     *
+     * @return the number of runnables
+     */
+    public static long getRunnableCount() {
+        return runnableCount;
+    }
+
+    /** Must be called while holding {@link #LOCK}. */
+    private static void scheduleBatch() {
+        if (scheduled) {
+            return;
+        }
+        Display display = Display.getDefault();
+        if (display.isDisposed()) {
+            LOGGER.error("Ignoring async execution of " + (pending.size() + pendingOnce.size())
+                + " runnable(s) since device is disposed.");
+            pending.clear();
+            pendingOnce.clear();
+            return;
+        }
+        scheduled = true;
+        display.asyncExec(BatchingUIDispatcher::runBatch);
+    }
+
+    private static void runBatch() {
+        final long start = System.nanoTime();
+        List<QueuedRunnable> batch;
+        LinkedHashSet<Runnable> batchOnce;
+        synchronized (LOCK) {
+            scheduled = false;
+            batch = pending;
+            batchOnce = pendingOnce;
+            pending = new ArrayList<>();
+            pendingOnce = new LinkedHashSet<>();
+        }
+
+        long maxLatency = 0;
+        int executed = 0;
+        while (executed < batch.size()) {
+            QueuedRunnable r = batch.get(executed++);
+            maxLatency = Math.max(maxLatency, System.nanoTime() - r.m_queued);
+            run(r.m_runnable);
+            if ((System.nanoTime() - start) > FRAME_BUDGET_NANOS) {
+                break;
+            }
+        }
+        for (Runnable r : batchOnce) {
+            run(r);
+        }
+
+        if (executed < batch.size()) {
+            // out of time: the remaining runnables go in front of the ones queued in the meantime
+            synchronized (LOCK) {
+                List<QueuedRunnable> remaining = new ArrayList<>(batch.size() - executed + pending.size());
+                remaining.addAll(batch.subList(executed, batch.size()));
+                remaining.addAll(pending);
+                pending = remaining;
+                scheduleBatch();
+            }
+        }
+
+        lastBatchLatencyNanos = maxLatency;
+        if (maxLatency > maxLatencyNanos) {
+            maxLatencyNanos = maxLatency;
+        }
+        lastBatchSize = executed + batchOnce.size();
+        batchCount++;
+        runnableCount += executed + batchOnce.size();
+    }
+
+    private static void run(final Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (Throwable t) {
+            LOGGER.error("Uncaught exception while executing " + runnable.getClass().getName() + " in UI thread: "
+                + t.getMessage(), t);
+        }
+    }
+
+    private static final class QueuedRunnable {
+        private final Runnable m_runnable;
+
+        private final long m_queued;
+
+        QueuedRunnable(final Runnable runnable, final long queued) {
+            m_runnable = runnable;
+            m_queued = queued;
+        }
+    }
+}
@@ -47,14 +47,7 @@
  */
 package org.knime.workbench.ui;
 
-import java.lang.Thread.UncaughtExceptionHandler;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.atomic.AtomicInteger;
-
 import org.eclipse.swt.widgets.Display;
-import org.knime.core.node.NodeLogger;
 
 /**
  * A static class offering functionality that should be used instead of the
@@ -70,64 +63,26 @@
  * There are three expensive operations: a static synchronization, the memory
  * allocation for the new array, and the array copy.
  *
- * <p>This class uses a {@link java.util.concurrent.ThreadPoolExecutor} to
- * queue runnables (which are then processed using
- * {@link Display#syncExec(Runnable)}.
+ * <p>This class used to queue runnables in a single-threaded executor, which
+ * handed them one by one to {@link Display#syncExec(Runnable)}. It now
+ * delegates to {@link BatchingUIDispatcher}.
  *
  * <p>The use of this class fixes bug #1551 (NodeFigure update events block UI),
  * i.e. the update events that are sent by a looping workflow block the UI.
  *
  * @author Bernd Wiswedel, University of Konstanz
+ * @deprecated use {@link BatchingUIDispatcher} instead, which hands off all queued runnables to the display in a
+ *             single batch rather than one {@link Display#syncExec(Runnable)} per runnable
  */
+@Deprecated
 public final class SyncExecQueueDispatcher {
 
-    private static final NodeLogger LOGGER =
-        NodeLogger.getLogger(SyncExecQueueDispatcher.class);
-
-    private static final ExecutorService EXECUTOR =
-        Executors.newSingleThreadExecutor(new ThreadFactory() {
-            private AtomicInteger m_threadCounter = new AtomicInteger();
-            @Override
-            public Thread newThread(final Runnable r) {
-                Thread t = new Thread(r, "KNIME Sync Exec Dispatcher-"
-                        + m_threadCounter.incrementAndGet());
-                t.setUncaughtExceptionHandler(new UncaughtExceptionHandler() {
-                    @Override
-                    public void uncaughtException(
-                            final Thread thread, final Throwable e) {
-                        LOGGER.error("Uncaught exception while queuing events "
-                                + "into main thread", e);
-                    }
-                });
-                t.setDaemon(true);
-                return t;
-            }
-        });
-
-    /** Queues a runnable in a local {@link ExecutorService}, that will hand off
-     * the runnable to the {@link Display#getDefault()} using the
-     * {@link Display#syncExec(Runnable)} method.
+    /** Queues a runnable that is executed on the UI thread; delegates to
+     * {@link BatchingUIDispatcher#asyncExec(Runnable)}.
      * @param runnable the runnable to be processed.
      */
     public static void asyncExec(final Runnable runnable) {
-        if (runnable == null) {
-            LOGGER.coding("Can't execute null runnable.");
-            return;
-        }
-        EXECUTOR.execute(new Runnable() {
-            @Override
-            public void run() {
-                Display display = Display.getDefault();
-                if (!display.isDisposed()) {
-                    display.syncExec(runnable);
-                } else {
-                    LOGGER.error("Ignoring async execution of runnable "
-                            + "(full class name \""
-                            + runnable.getClass().getName()
-                            + "\" since device is disposed.");
-                }
-            }
-        });
+        BatchingUIDispatcher.asyncExec(runnable);
     }
 
     private SyncExecQueueDispatcher() {
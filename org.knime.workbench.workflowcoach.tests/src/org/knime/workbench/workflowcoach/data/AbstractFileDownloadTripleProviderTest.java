@@ -0,0 +1,279 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.workflowcoach.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.commons.httpclient.HttpException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the conditional and failing downloads of {@link AbstractFileDownloadTripleProvider} against a local HTTP stub.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class AbstractFileDownloadTripleProviderTest {
+
+    private static final String PREVIOUS_CONTENT = "previously downloaded triples";
+
+    /** Temporary folder for the downloaded files. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    private HttpStub m_server;
+
+    private Path m_file;
+
+    private FileTime m_lastModified;
+
+    /**
+     * Starts the HTTP stub and creates a previously downloaded file.
+     *
+     * @throws IOException if the server socket or the file can't be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        m_server = new HttpStub();
+        m_file = m_tempFolder.getRoot().toPath().resolve("triples.json");
+        Files.write(m_file, PREVIOUS_CONTENT.getBytes(StandardCharsets.UTF_8));
+        m_lastModified = FileTime.from(System.currentTimeMillis() / 1000 - 86400, TimeUnit.SECONDS);
+        Files.setLastModifiedTime(m_file, m_lastModified);
+    }
+
+    /**
+     * Stops the HTTP stub.
+     *
+     * @throws IOException if the server socket can't be closed
+     */
+    @After
+    public void tearDown() throws IOException {
+        m_server.close();
+    }
+
+    private AbstractFileDownloadTripleProvider createProvider() {
+        return new AbstractFileDownloadTripleProvider(m_server.getUrl(), m_file) {
+            @Override
+            public String getName() {
+                return "Test";
+            }
+
+            @Override
+            public String getDescription() {
+                return "Triples from a local HTTP stub";
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+        };
+    }
+
+    private void assertFileUnchanged() throws IOException {
+        assertEquals("Content of previous download", PREVIOUS_CONTENT,
+            new String(Files.readAllBytes(m_file), StandardCharsets.UTF_8));
+        assertEquals("Modification time of previous download", m_lastModified, Files.getLastModifiedTime(m_file));
+        try (Stream<Path> files = Files.list(m_tempFolder.getRoot().toPath())) {
+            assertEquals("Files next to the download", 1, files.count());
+        }
+    }
+
+    /**
+     * An existing file is requested conditionally and kept if the server answers 304 Not Modified.
+     *
+     * @throws Exception if the update fails
+     */
+    @Test
+    public void testNotModified() throws Exception {
+        m_server.m_status = 304;
+        createProvider().update();
+
+        assertEquals("Number of requests", 1, m_server.m_requests.size());
+        assertNotNull("No conditional request", m_server.m_requests.get(0).get("if-modified-since"));
+        assertFileUnchanged();
+    }
+
+    /**
+     * Without a previous download the request is not conditional.
+     *
+     * @throws Exception if the update fails
+     */
+    @Test
+    public void testUnconditionalWithoutFile() throws Exception {
+        Files.delete(m_file);
+        AbstractFileDownloadTripleProvider provider = createProvider();
+        assertTrue("Update not required without file", provider.updateRequired());
+        m_server.m_status = 503;
+        try {
+            provider.update();
+            fail("Failed request didn't throw an exception");
+        } catch (HttpException e) {
+            // expected
+        }
+
+        assertNull("Conditional request without file", m_server.m_requests.get(0).get("if-modified-since"));
+        assertFalse("File created by failed request", Files.exists(m_file));
+    }
+
+    /**
+     * A failed request keeps the previous download.
+     *
+     * @throws Exception if the update fails unexpectedly
+     */
+    @Test
+    public void testFailedRequest() throws Exception {
+        m_server.m_status = 503;
+        try {
+            createProvider().update();
+            fail("Failed request didn't throw an exception");
+        } catch (HttpException e) {
+            // expected
+        }
+        assertFileUnchanged();
+    }
+
+    /**
+     * A download that doesn't contain node triples (e.g. a login page) is discarded and keeps the previous download.
+     *
+     * @throws Exception if the update fails unexpectedly
+     */
+    @Test
+    public void testInvalidDownload() throws Exception {
+        m_server.m_body = "<html><body>Please log in</body></html>";
+        try {
+            createProvider().update();
+            fail("Invalid download didn't throw an exception");
+        } catch (IOException e) {
+            assertEquals("Error message", "Downloaded file doesn't contain node recommendation data.",
+                e.getMessage());
+        }
+        assertFileUnchanged();
+    }
+
+    /**
+     * Answers every request with a configurable status and body and records the request headers.
+     */
+    private static final class HttpStub implements Closeable {
+
+        private final ServerSocket m_socket;
+
+        private volatile int m_status = 200;
+
+        private volatile String m_body = "";
+
+        /** Headers of the received requests, names in lower case. */
+        private final List<Map<String, String>> m_requests = new CopyOnWriteArrayList<>();
+
+        HttpStub() throws IOException {
+            m_socket = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+            Thread thread = new Thread(this::serve, "Workflow Coach HTTP stub");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        String getUrl() {
+            return "http://127.0.0.1:" + m_socket.getLocalPort() + "/triples.json";
+        }
+
+        private void serve() {
+            while (!m_socket.isClosed()) {
+                try (Socket s = m_socket.accept()) {
+                    BufferedReader in =
+                        new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.ISO_8859_1));
+                    Map<String, String> headers = new HashMap<>();
+                    in.readLine(); // request line
+                    String line;
+                    while (((line = in.readLine()) != null) && !line.isEmpty()) {
+                        int colon = line.indexOf(':');
+                        headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+                    }
+                    m_requests.add(headers);
+
+                    byte[] body = m_body.getBytes(StandardCharsets.UTF_8);
+                    OutputStream out = s.getOutputStream();
+                    out.write(("HTTP/1.1 " + m_status + " Stub\r\nContent-Length: " + body.length
+                        + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                    out.write(body);
+                    out.flush();
+                } catch (IOException e) {
+                    // socket closed or client gone
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            m_socket.close();
+        }
+    }
+}
@@ -48,16 +48,17 @@
  */
 package org.knime.workbench.workflowcoach;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.function.BiConsumer;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
@@ -106,17 +107,18 @@ public interface IUpdateListener {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(NodeRecommendationManager.class);
 
-    private static final String SOURCE_NODES_KEY = "<source_nodes>";
-
     private static final String NODE_NAME_SEP = "#";
 
     private static final String TRIPLE_PROVIDER_EXTENSION_POINT_ID = "org.knime.workbench.workflowcoach.nodetriples";
 
     private static final NodeRecommendationManager INSTANCE = new NodeRecommendationManager();
 
-    private final List<IUpdateListener> m_listeners = new ArrayList<>(1);
+    private final List<IUpdateListener> m_listeners = new CopyOnWriteArrayList<>();
+
+    private volatile List<NodeRecommendationModel> m_recommendations;
 
-    private List<Map<String, List<NodeRecommendation>>> m_recommendations;
+    /** The models that make up the current recommendations, by provider; only accessed in loadRecommendations. */
+    private Map<String, LoadedModel> m_loadedModels = Collections.emptyMap();
 
 
     static {
@@ -172,79 +174,54 @@ public void removeUpdateListener(final IUpdateListener listener) {
 
     /**
      * (Re-)Loads the recommendations for the node recommendation engine from the currently active node triple providers.
+     * The model of a provider whose data hasn't changed since it has been loaded last (according to
+     * {@link NodeTripleProvider#getLastUpdate()}) is reused. The new recommendations replace the current ones at once,
+     * i.e. concurrent calls to {@link #getNodeRecommendationFor(NativeNodeContainerUI...)} either see the old or the
+     * new recommendations. If all models are reused, e.g. because the recommendations have just been reloaded after an
+     * update, nothing is replaced and the listeners are not notified.
      *
      * @throws Exception if something went wrong while loading the statistics (e.g. a corrupt file)
      * @see #getNodeTripleProviders()
      */
-    public void loadRecommendations() throws Exception {
+    public synchronized void loadRecommendations() throws Exception {
         //read from multiple frequency sources
         List<NodeTripleProvider> providers = getNodeTripleProviders();
-        List<Map<String, List<NodeRecommendation>>> recommendations = new ArrayList<>(providers.size());
+        List<NodeRecommendationModel> recommendations = new ArrayList<>(providers.size());
+        Map<String, LoadedModel> loadedModels = new HashMap<>();
+        boolean changed = false;
 
         for (NodeTripleProvider provider : providers) {
             if (provider.isEnabled() && !updateRequired(provider)) {
-                Map<String, List<NodeRecommendation>> recommendationMap = new HashMap<>();
-                recommendations.add(recommendationMap);
-
-                provider.getNodeTriples().forEach(nf -> fillRecommendationsMap(recommendationMap, nf));
-
-                //aggregate multiple occurring id's
-                //but apply a different aggregation method to source nodes
-                BiConsumer<NodeRecommendation, NodeRecommendation> avgAggr = (np1, np2) -> {
-                    np1.increaseFrequency(np2.getFrequency(), 1);
-                };
-                BiConsumer<NodeRecommendation, NodeRecommendation> sumAggr = (np1, np2) -> {
-                    np1.increaseFrequency(np2.getFrequency(), 0);
-                };
-                recommendationMap.keySet().stream().forEach(s -> {
-                    if (s.equals(SOURCE_NODES_KEY)) {
-                        aggregate(recommendationMap.get(s), sumAggr);
-                    } else {
-                        aggregate(recommendationMap.get(s), avgAggr);
+                String providerKey = provider.getClass().getName() + NODE_NAME_SEP + provider.getName();
+                Optional<LocalDateTime> lastUpdate = provider.getLastUpdate();
+                LoadedModel loaded = m_loadedModels.get(providerKey);
+                if ((loaded == null) || !lastUpdate.isPresent() || !lastUpdate.equals(loaded.m_lastUpdate)) {
+                    //aggregate multiple occurring id's while reading the triples
+                    try (Stream<NodeTriple> triples = provider.getNodeTriples()) {
+                        loaded = new LoadedModel(lastUpdate, NodeRecommendationModel.create(triples,
+                            NodeRecommendationManager::findNodeTemplate, NodeRecommendationManager::isSourceNode));
                     }
-                });
+                    changed = true;
+                }
+                loadedModels.put(providerKey, loaded);
+                recommendations.add(loaded.m_model);
             }
         } //end for
 
+        if (!changed && (m_recommendations != null) && loadedModels.keySet().equals(m_loadedModels.keySet())) {
+            //same models as before
+            return;
+        }
+        m_loadedModels = loadedModels;
         m_recommendations = recommendations;
         m_listeners.stream().forEach(l -> l.updated());
     }
 
-    private static void fillRecommendationsMap(final Map<String, List<NodeRecommendation>> recommendationMap,
-        final NodeTriple nf) {
-        /* considering the successor only, i.e. for all entries where the predecessor and the node
-         * itself is not present
-         */
-        if (!nf.getNode().isPresent() && !nf.getPredecessor().isPresent() && isSourceNode(nf.getSuccessor())) {
-            add(recommendationMap, SOURCE_NODES_KEY, nf.getSuccessor(), nf.getCount());
-        }
-
-        /* considering the the node itself as successor, but only for those nodes that don't have a
-         * predecessor -> source nodes, i.e. nodes without an input port
-         */
-        if (!nf.getPredecessor().isPresent() && nf.getNode().isPresent() && isSourceNode(nf.getNode().get())) {
-            add(recommendationMap, SOURCE_NODES_KEY, nf.getNode().get(), nf.getCount());
-        }
-
-        /* without predecessor but with the node, if given*/
-        if (nf.getNode().isPresent()) {
-            add(recommendationMap, getKey(nf.getNode().get()), nf.getSuccessor(), nf.getCount());
-        }
-
-        /* considering predecessor, if given */
-        if (nf.getPredecessor().isPresent() && nf.getNode().isPresent()) {
-            add(recommendationMap,
-                getKey(nf.getPredecessor().get()) + NODE_NAME_SEP + getKey(nf.getNode().get()),
-                nf.getSuccessor(), nf.getCount());
-        }
-    }
-
-    private static boolean isSourceNode(final NodeInfo ni) {
-        NodeTemplate nt = findNodeTemplate(ni);
+    private static boolean isSourceNode(final NodeTemplate nt) {
         try {
-            return (nt != null) && (nt.getType() == NodeType.Source);
+            return nt.getType() == NodeType.Source;
         } catch (Exception ex) {
-            LOGGER.warn("Could not create factory instance for " + ni.getFactory() + ": " + ex.getMessage(), ex);
+            LOGGER.warn("Could not create factory instance for " + nt.getID() + ": " + ex.getMessage(), ex);
             return false;
         }
     }
@@ -260,19 +237,6 @@ private static boolean updateRequired(final NodeTripleProvider ntp) {
         return (ntp instanceof UpdatableNodeTripleProvider) && ((UpdatableNodeTripleProvider)ntp).updateRequired();
     }
 
-    /**
-     * Adds a new node recommendation to the map.
-     */
-    private static void add(final Map<String, List<NodeRecommendation>> recommendation, final String key,
-        final NodeInfo ni, final int count) {
-        List<NodeRecommendation> p = recommendation.computeIfAbsent(key, k -> new ArrayList<>());
-        //create the new node recommendation
-        NodeTemplate nt = findNodeTemplate(ni);
-        if (nt != null) {
-            p.add(new NodeRecommendation(nt, count));
-        }
-    }
-
     private static NodeTemplate findNodeTemplate(final NodeInfo ni) {
         NodeTemplate nt = RepositoryManager.INSTANCE.getNodeTemplate(ni.getFactory());
         if (nt == null) {
@@ -283,30 +247,6 @@ private static NodeTemplate findNodeTemplate(final NodeInfo ni) {
         return nt;
     }
 
-    /**
-     * Aggregates multiple occurring id's and takes the mean of the frequencies
-     *
-     * @param l the list is manipulated directly
-     * @param aggregationOperation the operation that aggregates the frequency of two node recommendations - important:
-     *            only the first node recommendation-object must be manipulated
-     */
-    private static void aggregate(final List<NodeRecommendation> l,
-        final BiConsumer<NodeRecommendation, NodeRecommendation> aggregationOperation) {
-        Map<String, NodeRecommendation> aggregates = new HashMap<>();
-
-        for (NodeRecommendation np : l) {
-            if (aggregates.containsKey(np.toString())) {
-                //aggregate
-                NodeRecommendation np2 = aggregates.get(np.toString());
-                aggregationOperation.accept(np2, np);
-            } else {
-                aggregates.put(np.toString(), np);
-            }
-        }
-        l.clear();
-        l.addAll(aggregates.values());
-    }
-
     /**
      * Determines lists of node recommendation based on the given nodes (e.g. that are selected in the workflow editor).
      * The {@link NodeRecommendation}s are determined based on the statistics of {@link NodeTriple}s (i.e. predecessor,
@@ -328,77 +268,49 @@ private static void aggregate(final List<NodeRecommendation> l,
      * If the array of given nodes is empty, all potential source nodes are recommended, i.e. all nodes 'n' in the node
      * triples list that don't have a predecessor 'p'.
      *
+     * The recommendations are precomputed or cached, this method is therefore cheap and may be called from any thread.
+     *
      * @param nnc if it's an empty array, source nodes only will be recommended, if more than one node is given, the
      *            node recommendations for different nodes will end up in the same list
-     * @return an array of lists of node recommendations, i.e. a list of node recommendations for each used node
-     *         {@link NodeTripleProvider}. It will return <code>null</code> if something went wrong with loading the
-     *         node statistics!
+     * @return an array of immutable lists of node recommendations, i.e. a list of node recommendations for each used
+     *         node {@link NodeTripleProvider}. It will return <code>null</code> if something went wrong with loading
+     *         the node statistics!
      */
     public List<NodeRecommendation>[] getNodeRecommendationFor(final NativeNodeContainerUI... nnc) {
-        if (m_recommendations == null) {
+        List<NodeRecommendationModel> recommendations = m_recommendations;
+        if (recommendations == null) {
             return null;
         }
+        if (nnc.length > 1) {
+            throw new UnsupportedOperationException("Recommendations for more than one node are not supported, yet.");
+        }
+
         @SuppressWarnings("unchecked")
-        List<NodeRecommendation>[] res = new List[m_recommendations.size()];
+        List<NodeRecommendation>[] res = new List[recommendations.size()];
         for (int idx = 0; idx < res.length; idx++) {
+            NodeRecommendationModel model = recommendations.get(idx);
             if (nnc.length == 0) {
                 //recommendations if no node is given -> source nodes are recommended
-                res[idx] = m_recommendations.get(idx).get(SOURCE_NODES_KEY);
-                if (res[idx] == null) {
-                    res[idx] = Collections.emptyList();
-                }
-            } else if (nnc.length == 1) {
-                String nodeID = getKey(nnc[0]);
-                Set<NodeRecommendation> set = new HashSet<NodeRecommendationManager.NodeRecommendation>();
-
+                res[idx] = model.getSourceNodeRecommendations();
+            } else {
                 /* recommendations based on the given node and possible predecessors */
-                for (int i = 0; i < nnc[0].getNrInPorts(); i++) {
+                int[] predecessorIDs = new int[nnc[0].getNrInPorts()];
+                for (int i = 0; i < predecessorIDs.length; i++) {
+                    predecessorIDs[i] = NodeRecommendationModel.UNKNOWN_NODE;
                     ConnectionContainerUI cc = nnc[0].getParent().getIncomingConnectionFor(nnc[0].getID(), i);
                     if (cc != null) {
                         //only take the predecessor if its not leaving the workflow (e.g. the actual predecessor is outside of a metanode)
                         if (cc.getType() != ConnectionType.WFMIN) {
                             NodeContainerUI predecessor = nnc[0].getParent().getNodeContainer(cc.getSource());
                             if (predecessor instanceof NativeNodeContainerUI) {
-                                List<NodeRecommendation> l = m_recommendations.get(idx)
-                                    .get(getKey((NativeNodeContainerUI)predecessor) + NODE_NAME_SEP + getKey(nnc[0]));
-                                if (l != null) {
-                                    set.addAll(l);
-                                }
+                                predecessorIDs[i] = getNodeId(model, (NativeNodeContainerUI)predecessor);
                             }
                         }
                     }
                 }
 
-                /* recommendation based on the given node only */
-                List<NodeRecommendation> p1 = m_recommendations.get(idx).get(nodeID);
-                if (p1 != null) {
-                    set.addAll(p1);
-                }
-
-                //add to the result list
-                res[idx] = new ArrayList<NodeRecommendationManager.NodeRecommendation>(set.size());
-                res[idx].addAll(set);
-            } else {
-                throw new UnsupportedOperationException(
-                    "Recommendations for more than one node are not supported, yet.");
-            }
-
-            /* post-process result */
-            Collections.sort(res[idx]);
-            if (nnc.length == 1) {
-                //remove the node, the recommendations have bee requested for, from the list
-                //in order to match the nodes [NodeFactory]#[NodeName] needs to be compared, otherwise it won't work with dynamically generated nodes
-                res[idx] = res[idx].stream().filter(nr -> !getKey(nr.getNodeTemplate()).equals(getKey(nnc[0])))
-                    .collect(Collectors.toList());
-            }
-
-            //update the total frequencies
-            int tmpFreqs = 0;
-            for (NodeRecommendation np : res[idx]) {
-                tmpFreqs += np.getFrequency();
-            }
-            for (NodeRecommendation np : res[idx]) {
-                np.setTotalFrequency(tmpFreqs);
+                /* merged with the recommendations based on the given node only, without the node itself */
+                res[idx] = model.getRecommendations(predecessorIDs, getNodeId(model, nnc[0]));
             }
         }
         return res;
@@ -410,19 +322,21 @@ public List<NodeRecommendation>[] getNodeRecommendationFor(final NativeNodeConta
      * @return the number of loaded providers
      */
     public int getNumLoadedProviders() {
-        if (m_recommendations == null) {
+        List<NodeRecommendationModel> recommendations = m_recommendations;
+        if (recommendations == null) {
             return 0;
         } else {
-            return m_recommendations.size();
+            return recommendations.size();
         }
     }
 
     /**
-     * @param nnc the native node container to create the key for
-     * @return the key to be used to look up the node recommendations
+     * @param model the recommendation model
+     * @param nnc the native node container to look up
+     * @return the node's id in the model
      */
-    private static String getKey(final NativeNodeContainerUI nnc) {
-        return nnc.getNodeFactoryClassName() + NODE_NAME_SEP + nnc.getName();
+    private static int getNodeId(final NodeRecommendationModel model, final NativeNodeContainerUI nnc) {
+        return model.getNodeId(nnc.getNodeFactoryClassName(), nnc.getName());
     }
 
     /**
@@ -433,40 +347,30 @@ private static String getKey(final NodeInfo ni) {
         return ni.getFactory() + NODE_NAME_SEP + ni.getName();
     }
 
-    /**
-     * @param nt the node template to create the key for
-     * @return the key to be used to look up the node recommendations and to filter the recommendations for the same
-     *         node they were requested for
-     */
-    private static String getKey(final NodeTemplate nt) {
-        return nt.getFactory().getName() + NODE_NAME_SEP + nt.getName();
-    }
-
     /**
      * Object representing one node recommendation, including the node template itself and a frequency as a measure of a
-     * certainty for the given recommendation.
+     * certainty for the given recommendation. Node recommendations are immutable.
      *
      * @author Martin Horn, University of Konstanz
      */
     public static class NodeRecommendation implements Comparable<NodeRecommendation> {
-        private int m_frequency;
+        private final int m_frequency;
 
         private final NodeTemplate m_node;
 
-        private int m_totalFrequency;
-
-        private int m_num = 1;
+        private final int m_totalFrequency;
 
         /**
          * Creates a new node recommendation for the given node.
          *
          * @param node the node
          * @param frequency a frequency of usage
+         * @param totalFrequency the total frequency of all recommendations in the same list
          */
-        NodeRecommendation(final NodeTemplate node, final int frequency) {
+        NodeRecommendation(final NodeTemplate node, final int frequency, final int totalFrequency) {
             m_node = node;
             m_frequency = frequency;
-            m_totalFrequency = frequency;
+            m_totalFrequency = totalFrequency;
         }
 
         /**
@@ -476,7 +380,7 @@ public static class NodeRecommendation implements Comparable<NodeRecommendation>
          * @return the frequency
          */
         public int getFrequency() {
-            return (int)Math.round(m_frequency / (double)m_num);
+            return m_frequency;
         }
 
         /**
@@ -488,31 +392,6 @@ public int getTotalFrequency() {
             return m_totalFrequency;
         }
 
-        /**
-         * Sets the overall frequency that is needed to express the frequency as a probability later on.
-         *
-         * @param frequency
-         */
-        private void setTotalFrequency(final int frequency) {
-            m_totalFrequency = frequency;
-        }
-
-        /**
-         * Increases the frequency by the given amount. Needed in order to aggregate frequencies of node recommendations
-         * that recommend the same node (e.g. if the selected node only is taken into account and the predecessor
-         * ignored). See {@link NodeRecommendationManager#aggregate(List)}.
-         *
-         * @param freqIncrease the amount of how much to increase the frequency
-         * @param countIncrease the amount the count should be increased by which the frequency is in the end divided by
-         *            when calling the {@link #getFrequency()}-method. If 1 is passed with every frequency increase, the
-         *            mean is essentially taken when finally calling {@link #getFrequency()}. If 0 is passed every time,
-         *            {@link #getFrequency()} will return sum of all frequencies provided here.
-         */
-        private void increaseFrequency(final int freqIncrease, final int countIncrease) {
-            m_frequency += freqIncrease;
-            m_num += countIncrease;
-        }
-
         /**
          * Returns the recommended node as {@link NodeTemplate}.
          *
@@ -568,6 +447,20 @@ public boolean equals(final Object obj) {
         }
     }
 
+    /**
+     * A provider's model together with the provider's last update time when the model has been created.
+     */
+    private static final class LoadedModel {
+        private final Optional<LocalDateTime> m_lastUpdate;
+
+        private final NodeRecommendationModel m_model;
+
+        LoadedModel(final Optional<LocalDateTime> lastUpdate, final NodeRecommendationModel model) {
+            m_lastUpdate = lastUpdate;
+            m_model = model;
+        }
+    }
+
     /**
      * Returns all available {@link NodeTripleProviderFactory}s. Node triple provider factories can be added via the
      * respective extension point.
@@ -0,0 +1,583 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.workbench.workflowcoach;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.knime.core.node.NodeInfo;
+import org.knime.core.node.NodeTriple;
+import org.knime.workbench.repository.model.NodeTemplate;
+import org.knime.workbench.workflowcoach.NodeRecommendationManager.NodeRecommendation;
+
+/**
+ * Compact, immutable representation of the node recommendations of a single
+ * {@link org.knime.workbench.workflowcoach.data.NodeTripleProvider}. Nodes are identified by int ids that are assigned
+ * to their factory and name. The aggregated recommendations are stored in primitive arrays, grouped by their context
+ * (predecessor and node, node only, or source nodes) and sorted by the context's key, so that all recommendations for
+ * a context are found by a binary search. Within a context the recommendations are ordered by decreasing frequency.
+ *
+ * <p>
+ * The final recommendation lists for source nodes and for single nodes are created right after loading; lists that
+ * merge the recommendations for a node with those for its predecessors are created on demand and kept in a small LRU
+ * cache. All returned lists are immutable and contain immutable {@link NodeRecommendation}s, the model can therefore be
+ * queried from any thread.
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NodeRecommendationModel {
+    /** Id returned for unknown nodes. */
+    static final int UNKNOWN_NODE = -1;
+
+    /** Context key for the source node recommendations, i.e. without predecessor and node. */
+    private static final long SOURCE_NODES_KEY = 0;
+
+    /** Maximum number of merged predecessor and node recommendation lists that are cached. */
+    private static final int MERGED_CACHE_SIZE = 64;
+
+    /** Node ids by factory and node name. */
+    private final Map<String, Map<String, Integer>> m_nodeIds;
+
+    /** Sorted keys of all contexts that have recommendations. */
+    private final long[] m_contextKeys;
+
+    /** Start of the recommendations for each context in {@link #m_templateIds}, plus the end as last element. */
+    private final int[] m_offsets;
+
+    private final int[] m_templateIds;
+
+    private final int[] m_frequencies;
+
+    private final NodeTemplate[] m_templates;
+
+    /** The id of the node each template represents, used to not recommend a node for itself. */
+    private final int[] m_templateNodeIds;
+
+    private final List<NodeRecommendation> m_sourceRecommendations;
+
+    /** Recommendations for each node id, regardless of the predecessor; <code>null</code> if there are none. */
+    private final List<NodeRecommendation>[] m_nodeRecommendations;
+
+    private final Map<MergeKey, List<NodeRecommendation>> m_mergedRecommendations =
+        new LinkedHashMap<MergeKey, List<NodeRecommendation>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<MergeKey, List<NodeRecommendation>> eldest) {
+                return size() > MERGED_CACHE_SIZE;
+            }
+        };
+
+    @SuppressWarnings("unchecked")
+    private NodeRecommendationModel(final Builder builder) {
+        m_nodeIds = builder.m_nodeIds;
+        m_templates = builder.m_templates.toArray(new NodeTemplate[builder.m_templates.size()]);
+
+        // sort the contexts by key and determine each context's position in the sorted order
+        int contextCount = builder.m_contextCount;
+        m_contextKeys = Arrays.copyOf(builder.m_contextKeys, contextCount);
+        Arrays.sort(m_contextKeys);
+        int[] contextRanks = new int[contextCount];
+        for (int i = 0; i < contextCount; i++) {
+            contextRanks[i] = Arrays.binarySearch(m_contextKeys, builder.m_contextKeys[i]);
+        }
+
+        // group the entries by context (in key order), keeping the order in which they have been found
+        int entryCount = builder.m_entryCount;
+        long[] entryOrder = new long[entryCount];
+        for (int e = 0; e < entryCount; e++) {
+            entryOrder[e] = ((long)contextRanks[builder.m_entryContexts[e]] << 32) | e;
+        }
+        Arrays.sort(entryOrder);
+
+        m_offsets = new int[contextCount + 1];
+        m_templateIds = new int[entryCount];
+        m_frequencies = new int[entryCount];
+        int start = 0;
+        while (start < entryCount) {
+            int rank = (int)(entryOrder[start] >>> 32);
+            int end = start + 1;
+            while ((end < entryCount) && ((int)(entryOrder[end] >>> 32) == rank)) {
+                end++;
+            }
+
+            // sort the context's entries by decreasing frequency
+            long[] byFrequency = new long[end - start];
+            for (int i = start; i < end; i++) {
+                int e = (int)entryOrder[i];
+                byFrequency[i - start] = ((long)(Integer.MAX_VALUE - builder.getFrequency(e)) << 32) | e;
+            }
+            Arrays.sort(byFrequency);
+            for (int i = start; i < end; i++) {
+                int e = (int)byFrequency[i - start];
+                m_templateIds[i] = builder.m_entryTemplates[e];
+                m_frequencies[i] = builder.getFrequency(e);
+            }
+
+            m_offsets[rank] = start;
+            start = end;
+        }
+        m_offsets[contextCount] = entryCount;
+        // contexts are only created together with an entry, i.e. none of them is empty
+
+        m_templateNodeIds = new int[m_templates.length];
+        for (int t = 0; t < m_templates.length; t++) {
+            Class<?> factory = m_templates[t].getFactory();
+            m_templateNodeIds[t] =
+                (factory == null) ? UNKNOWN_NODE : getNodeId(factory.getName(), m_templates[t].getName());
+        }
+
+        // precompute the recommendations for source nodes and for single nodes
+        int sourceContext = Arrays.binarySearch(m_contextKeys, SOURCE_NODES_KEY);
+        m_sourceRecommendations = (sourceContext < 0) ? Collections.emptyList()
+            : createRecommendations(new int[]{sourceContext}, UNKNOWN_NODE);
+        m_nodeRecommendations = new List[builder.m_nodeCount];
+        for (int context = 0; context < contextCount; context++) {
+            long key = m_contextKeys[context];
+            if ((key != SOURCE_NODES_KEY) && ((key >>> 32) == 0)) {
+                int nodeId = (int)key - 1;
+                m_nodeRecommendations[nodeId] = createRecommendations(new int[]{context}, nodeId);
+            }
+        }
+    }
+
+    /**
+     * Creates a new model from the given node triples. The triples are aggregated while the stream is consumed, no
+     * intermediate recommendation objects are created.
+     *
+     * @param triples the node triples
+     * @param templateResolver function that returns the node template for a node info, or <code>null</code> if the
+     *            node is not available
+     * @param isSourceNode predicate that tests whether a node template represents a source node
+     * @return a new model
+     */
+    static NodeRecommendationModel create(final Stream<NodeTriple> triples,
+        final Function<NodeInfo, NodeTemplate> templateResolver, final Predicate<NodeTemplate> isSourceNode) {
+        Builder builder = new Builder(templateResolver, isSourceNode);
+        triples.forEach(builder::add);
+        return new NodeRecommendationModel(builder);
+    }
+
+    /**
+     * Returns the id of the node with the given factory and name.
+     *
+     * @param factory the node factory's class name
+     * @param name the node's name
+     * @return the node's id or {@link #UNKNOWN_NODE} if the node does not occur in any triple
+     */
+    int getNodeId(final String factory, final String name) {
+        Map<String, Integer> byName = m_nodeIds.get(factory);
+        Integer id = (byName == null) ? null : byName.get(name);
+        return (id == null) ? UNKNOWN_NODE : id;
+    }
+
+    /**
+     * Returns the recommendations for source nodes, i.e. the nodes that are recommended if no node is selected.
+     *
+     * @return an immutable list of recommendations, sorted by decreasing frequency
+     */
+    List<NodeRecommendation> getSourceNodeRecommendations() {
+        return m_sourceRecommendations;
+    }
+
+    /**
+     * Returns the recommendations for a node. The recommendations for the node with each of the given predecessors
+     * are merged with the recommendations for the node only; if the same node is recommended more than once, the
+     * first recommendation (in the order of the predecessors) is used. The node itself is never recommended.
+     *
+     * @param predecessorIds the ids of the node's predecessors, may contain {@link #UNKNOWN_NODE}
+     * @param nodeId the node's id
+     * @return an immutable list of recommendations, sorted by decreasing frequency
+     */
+    List<NodeRecommendation> getRecommendations(final int[] predecessorIds, final int nodeId) {
+        if (nodeId == UNKNOWN_NODE) {
+            return Collections.emptyList();
+        }
+        List<NodeRecommendation> nodeRecommendations = m_nodeRecommendations[nodeId];
+
+        int[] contexts = new int[predecessorIds.length + 1];
+        int contextCount = 0;
+        for (int predecessorId : predecessorIds) {
+            if (predecessorId != UNKNOWN_NODE) {
+                int context = Arrays.binarySearch(m_contextKeys, contextKey(predecessorId, nodeId));
+                if (context >= 0) {
+                    contexts[contextCount++] = context;
+                }
+            }
+        }
+        if (contextCount == 0) {
+            return (nodeRecommendations == null) ? Collections.emptyList() : nodeRecommendations;
+        }
+        if (nodeRecommendations != null) {
+            contexts[contextCount++] = Arrays.binarySearch(m_contextKeys, contextKey(UNKNOWN_NODE, nodeId));
+        }
+
+        MergeKey key = new MergeKey(Arrays.copyOf(contexts, contextCount), nodeId);
+        synchronized (m_mergedRecommendations) {
+            return m_mergedRecommendations.computeIfAbsent(key, k -> createRecommendations(k.m_contexts, nodeId));
+        }
+    }
+
+    /**
+     * Merges the recommendations of the given contexts into an immutable list sorted by decreasing frequency, leaving
+     * out recommendations for the excluded node and duplicates. The total frequency of each recommendation is the sum
+     * of all frequencies in the list.
+     */
+    private List<NodeRecommendation> createRecommendations(final int[] contexts, final int excludedNodeId) {
+        int maxCount = 0;
+        for (int context : contexts) {
+            maxCount += m_offsets[context + 1] - m_offsets[context];
+        }
+
+        BitSet added = new BitSet(m_templates.length);
+        long[] order = new long[maxCount];
+        int count = 0;
+        long totalFrequency = 0;
+        for (int context : contexts) {
+            for (int i = m_offsets[context]; i < m_offsets[context + 1]; i++) {
+                int templateId = m_templateIds[i];
+                boolean excluded = (excludedNodeId != UNKNOWN_NODE) && (m_templateNodeIds[templateId] == excludedNodeId);
+                if (!excluded && !added.get(templateId)) {
+                    added.set(templateId);
+                    order[count++] = ((long)(Integer.MAX_VALUE - m_frequencies[i]) << 32) | i;
+                    totalFrequency += m_frequencies[i];
+                }
+            }
+        }
+        // sorting by decreasing frequency, ties are resolved by the order in which the entries have been added
+        Arrays.sort(order, 0, count);
+
+        int total = (int)Math.min(totalFrequency, Integer.MAX_VALUE);
+        NodeRecommendation[] result = new NodeRecommendation[count];
+        for (int j = 0; j < count; j++) {
+            int i = (int)order[j];
+            result[j] = new NodeRecommendation(m_templates[m_templateIds[i]], m_frequencies[i], total);
+        }
+        return Collections.unmodifiableList(Arrays.asList(result));
+    }
+
+    private static long contextKey(final int predecessorId, final int nodeId) {
+        return ((long)(predecessorId + 1) << 32) | (nodeId + 1);
+    }
+
+    /**
+     * Key of the LRU cache for merged recommendations.
+     */
+    private static final class MergeKey {
+        private final int[] m_contexts;
+
+        private final int m_nodeId;
+
+        MergeKey(final int[] contexts, final int nodeId) {
+            m_contexts = contexts;
+            m_nodeId = nodeId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(m_contexts) + m_nodeId;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof MergeKey)) {
+                return false;
+            }
+            MergeKey other = (MergeKey)obj;
+            return (m_nodeId == other.m_nodeId) && Arrays.equals(m_contexts, other.m_contexts);
+        }
+    }
+
+    /**
+     * Aggregates the triples into growable primitive arrays.
+     */
+    private static final class Builder {
+        private static final int UNRESOLVED = -2;
+
+        private final Function<NodeInfo, NodeTemplate> m_templateResolver;
+
+        private final Predicate<NodeTemplate> m_isSourceNode;
+
+        private final Map<String, Map<String, Integer>> m_nodeIds = new HashMap<>();
+
+        private int m_nodeCount;
+
+        /** Template id for each node id, {@link #UNRESOLVED} if not yet looked up. */
+        private int[] m_nodeTemplates = new int[64];
+
+        private final Map<NodeTemplate, Integer> m_templateIds = new IdentityHashMap<>();
+
+        private final List<NodeTemplate> m_templates = new ArrayList<>();
+
+        /** Whether the template is a source node: 0 = not yet determined, 1 = yes, -1 = no. */
+        private byte[] m_sourceTemplates = new byte[64];
+
+        private final LongIntMap m_contexts = new LongIntMap();
+
+        private long[] m_contextKeys = new long[64];
+
+        private int m_contextCount;
+
+        /** Maps context index and template id to the entry index. */
+        private final LongIntMap m_entries = new LongIntMap();
+
+        private int[] m_entryContexts = new int[256];
+
+        private int[] m_entryTemplates = new int[256];
+
+        private long[] m_entrySums = new long[256];
+
+        private int[] m_entryCounts = new int[256];
+
+        private int m_entryCount;
+
+        Builder(final Function<NodeInfo, NodeTemplate> templateResolver, final Predicate<NodeTemplate> isSourceNode) {
+            m_templateResolver = templateResolver;
+            m_isSourceNode = isSourceNode;
+            Arrays.fill(m_nodeTemplates, UNRESOLVED);
+        }
+
+        void add(final NodeTriple triple) {
+            Optional<NodeInfo> predecessor = triple.getPredecessor();
+            Optional<NodeInfo> node = triple.getNode();
+            int count = triple.getCount();
+
+            int successorId = nodeId(triple.getSuccessor());
+            int successorTemplate = templateId(successorId, triple.getSuccessor());
+            int nodeId = node.isPresent() ? nodeId(node.get()) : UNKNOWN_NODE;
+
+            /* considering the successor only, i.e. for all entries where the predecessor and the node
+             * itself is not present
+             */
+            if (!node.isPresent() && !predecessor.isPresent() && isSourceNode(successorTemplate)) {
+                add(SOURCE_NODES_KEY, successorTemplate, count, false);
+            }
+
+            /* considering the the node itself as successor, but only for those nodes that don't have a
+             * predecessor -> source nodes, i.e. nodes without an input port
+             */
+            if (!predecessor.isPresent() && node.isPresent()) {
+                int nodeTemplate = templateId(nodeId, node.get());
+                if (isSourceNode(nodeTemplate)) {
+                    add(SOURCE_NODES_KEY, nodeTemplate, count, false);
+                }
+            }
+
+            /* without predecessor but with the node, if given*/
+            if (node.isPresent()) {
+                add(contextKey(UNKNOWN_NODE, nodeId), successorTemplate, count, true);
+            }
+
+            /* considering predecessor, if given */
+            if (predecessor.isPresent() && node.isPresent()) {
+                add(contextKey(nodeId(predecessor.get()), nodeId), successorTemplate, count, true);
+            }
+        }
+
+        /**
+         * Adds a count to an entry. Frequencies for the same node are summed up for source nodes and averaged for all
+         * other contexts.
+         */
+        private void add(final long contextKey, final int templateId, final int count, final boolean average) {
+            if (templateId < 0) {
+                return;
+            }
+            int context = m_contexts.putIfAbsent(contextKey, m_contextCount);
+            if (context < 0) {
+                context = m_contextCount++;
+                if (context == m_contextKeys.length) {
+                    m_contextKeys = Arrays.copyOf(m_contextKeys, context * 2);
+                }
+                m_contextKeys[context] = contextKey;
+            }
+
+            int entry = m_entries.putIfAbsent(((long)context << 32) | templateId, m_entryCount);
+            if (entry < 0) {
+                entry = m_entryCount++;
+                if (entry == m_entryContexts.length) {
+                    int newLength = entry * 2;
+                    m_entryContexts = Arrays.copyOf(m_entryContexts, newLength);
+                    m_entryTemplates = Arrays.copyOf(m_entryTemplates, newLength);
+                    m_entrySums = Arrays.copyOf(m_entrySums, newLength);
+                    m_entryCounts = Arrays.copyOf(m_entryCounts, newLength);
+                }
+                m_entryContexts[entry] = context;
+                m_entryTemplates[entry] = templateId;
+                m_entrySums[entry] = count;
+                m_entryCounts[entry] = 1;
+            } else {
+                m_entrySums[entry] += count;
+                if (average) {
+                    m_entryCounts[entry]++;
+                }
+            }
+        }
+
+        int getFrequency(final int entry) {
+            return (int)Math.round(m_entrySums[entry] / (double)m_entryCounts[entry]);
+        }
+
+        private int nodeId(final NodeInfo ni) {
+            Map<String, Integer> byName = m_nodeIds.computeIfAbsent(ni.getFactory(), k -> new HashMap<>(2));
+            Integer id = byName.get(ni.getName());
+            if (id == null) {
+                id = m_nodeCount++;
+                byName.put(ni.getName(), id);
+                if (id == m_nodeTemplates.length) {
+                    m_nodeTemplates = Arrays.copyOf(m_nodeTemplates, id * 2);
+                    Arrays.fill(m_nodeTemplates, id, m_nodeTemplates.length, UNRESOLVED);
+                }
+            }
+            return id;
+        }
+
+        /**
+         * Returns the id of the node's template, or -1 if there is no template for the node. The template is only
+         * looked up once per node.
+         */
+        private int templateId(final int nodeId, final NodeInfo ni) {
+            int templateId = m_nodeTemplates[nodeId];
+            if (templateId == UNRESOLVED) {
+                NodeTemplate template = m_templateResolver.apply(ni);
+                if (template == null) {
+                    templateId = -1;
+                } else {
+                    templateId = m_templateIds.computeIfAbsent(template, t -> {
+                        m_templates.add(t);
+                        return m_templates.size() - 1;
+                    });
+                }
+                m_nodeTemplates[nodeId] = templateId;
+            }
+            return templateId;
+        }
+
+        private boolean isSourceNode(final int templateId) {
+            if (templateId < 0) {
+                return false;
+            }
+            if (templateId >= m_sourceTemplates.length) {
+                m_sourceTemplates = Arrays.copyOf(m_sourceTemplates, Math.max(templateId + 1, templateId * 2));
+            }
+            if (m_sourceTemplates[templateId] == 0) {
+                m_sourceTemplates[templateId] = m_isSourceNode.test(m_templates.get(templateId)) ? (byte)1 : (byte)-1;
+            }
+            return m_sourceTemplates[templateId] > 0;
+        }
+    }
+
+    /**
+     * Minimal open addressing hash map from <code>long</code> keys to non-negative <code>int</code> values, which
+     * avoids boxing while the triples are aggregated.
+     */
+    private static final class LongIntMap {
+        private long[] m_keys = new long[64];
+
+        private int[] m_values = newValues(64);
+
+        private int m_size;
+
+        private static int[] newValues(final int length) {
+            int[] values = new int[length];
+            Arrays.fill(values, -1);
+            return values;
+        }
+
+        private static int slot(final long key, final int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int)(h ^ (h >>> 32)) & mask;
+        }
+
+        /**
+         * Inserts the value if the key is not yet contained.
+         *
+         * @return the value that is already associated with the key, or -1 if the value has been inserted
+         */
+        int putIfAbsent(final long key, final int value) {
+            int mask = m_keys.length - 1;
+            int slot = slot(key, mask);
+            while (m_values[slot] >= 0) {
+                if (m_keys[slot] == key) {
+                    return m_values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            m_keys[slot] = key;
+            m_values[slot] = value;
+            if (++m_size > (m_keys.length >> 1)) {
+                grow();
+            }
+            return -1;
+        }
+
+        private void grow() {
+            long[] oldKeys = m_keys;
+            int[] oldValues = m_values;
+            m_keys = new long[oldKeys.length * 2];
+            m_values = newValues(oldKeys.length * 2);
+            int mask = m_keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) {
+                    int slot = slot(oldKeys[i], mask);
+                    while (m_values[slot] >= 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    m_keys[slot] = oldKeys[i];
+                    m_values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
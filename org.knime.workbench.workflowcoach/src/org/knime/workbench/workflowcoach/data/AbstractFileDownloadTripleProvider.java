@@ -60,14 +60,17 @@
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 
@@ -85,7 +88,9 @@
 import org.knime.core.node.NodeTriple;
 
 /**
- * A node triple provider that downloads the nodes triples from a url and stores it to a file.
+ * A node triple provider that downloads the nodes triples from a url and stores it to a file. The triples that are
+ * parsed while a download is checked are kept until the next call to {@link #getNodeTriples()}, so that a freshly
+ * downloaded file does not need to be parsed a second time.
  *
  * @author Martin Horn, University of Konstanz
  */
@@ -99,12 +104,21 @@ public abstract class AbstractFileDownloadTripleProvider implements UpdatableNod
      */
     private static final String TMP_FILE_NAME = "file_download.temp";
 
+    /**
+     * Triples parsed while checking a download, by the file they have been stored to. They are handed over to the next
+     * {@link #getNodeTriples()} call for the same file, as long as the file hasn't been modified in the meantime.
+     */
+    private static final Map<Path, ParsedFile> PARSED_DOWNLOADS = new ConcurrentHashMap<>();
+
     private final String m_url;
 
     private final Path m_file;
 
     private final Path m_tmpFile;
 
+    /** The triples parsed by the last call to {@link #checkDownloadedFile(Path)}. */
+    private volatile NodeFrequencies m_downloadedTriples;
+
     /**
      * Creates a new triple provider.
      *
@@ -113,9 +127,20 @@ public abstract class AbstractFileDownloadTripleProvider implements UpdatableNod
      *
      */
     protected AbstractFileDownloadTripleProvider(final String url, final String fileName) {
+        this(url, Paths.get(KNIMEConstants.getKNIMEHomeDir(), fileName));
+    }
+
+    /**
+     * Creates a new triple provider that stores the downloaded node triples to the given file.
+     *
+     * @param url the URL to download the file from
+     * @param file the file to store the downloaded nodes triples to
+     * @since 4.2
+     */
+    protected AbstractFileDownloadTripleProvider(final String url, final Path file) {
         m_url = url;
-        m_file = Paths.get(KNIMEConstants.getKNIMEHomeDir(), fileName);
-        m_tmpFile = Paths.get(KNIMEConstants.getKNIMEHomeDir(), TMP_FILE_NAME);
+        m_file = file;
+        m_tmpFile = file.resolveSibling(file.getFileName() + "_" + TMP_FILE_NAME);
     }
 
     /**
@@ -123,7 +148,13 @@ protected AbstractFileDownloadTripleProvider(final String url, final String file
      */
     @Override
     public Stream<NodeTriple> getNodeTriples() throws IOException {
-        return NodeFrequencies.from(Files.newInputStream(m_file)).getFrequencies().stream();
+        ParsedFile parsed = PARSED_DOWNLOADS.remove(m_file);
+        if ((parsed != null) && parsed.m_lastModified.equals(Files.getLastModifiedTime(m_file))) {
+            return parsed.m_triples.getFrequencies().stream();
+        }
+        try (InputStream in = Files.newInputStream(m_file)) {
+            return NodeFrequencies.from(in).getFrequencies().stream();
+        }
     }
 
     /**
@@ -166,9 +197,15 @@ public void update() throws Exception {
 
         //check the download and rename the file
         try {
+            m_downloadedTriples = null;
             checkDownloadedFile(m_tmpFile);
             Files.move(m_tmpFile, m_file, StandardCopyOption.REPLACE_EXISTING);
+            NodeFrequencies triples = m_downloadedTriples;
+            if (triples != null) {
+                PARSED_DOWNLOADS.put(m_file, new ParsedFile(triples, Files.getLastModifiedTime(m_file)));
+            }
         } finally {
+            m_downloadedTriples = null;
             //delete temporary file
             Files.deleteIfExists(m_tmpFile);
         }
@@ -184,8 +221,8 @@ public void update() throws Exception {
      *             downloaded file
      */
     protected void checkDownloadedFile(final Path file) throws IOException {
-        try {
-            NodeFrequencies.from(Files.newInputStream(file));
+        try (InputStream in = Files.newInputStream(file)) {
+            m_downloadedTriples = NodeFrequencies.from(in);
         } catch (IOException e) {
             throw new IOException("Downloaded file doesn't contain node recommendation data.");
         }
@@ -226,6 +263,17 @@ private static SimpleDateFormat getHttpDateFormat() {
         return dateFormat;
     }
 
+    private static final class ParsedFile {
+        private final NodeFrequencies m_triples;
+
+        private final FileTime m_lastModified;
+
+        ParsedFile(final NodeFrequencies triples, final FileTime lastModified) {
+            m_triples = triples;
+            m_lastModified = lastModified;
+        }
+    }
+
     private static void applyProxySettings(final HttpClient webClient, final URI uri) throws URISyntaxException {
         List<Proxy> l = ProxySelector.getDefault().select(uri);
         for (Proxy proxy : l) {
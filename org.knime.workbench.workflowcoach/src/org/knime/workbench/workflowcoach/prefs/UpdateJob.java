@@ -48,18 +48,29 @@
  */
 package org.knime.workbench.workflowcoach.prefs;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.knime.workbench.workflowcoach.NodeRecommendationManager;
 import org.knime.workbench.workflowcoach.data.UpdatableNodeTripleProvider;
 import org.osgi.framework.FrameworkUtil;
 
 /**
- * Job that performs the download of statistics for the node recommendations, e.g. from KNIME servers etc.
+ * Job that performs the download of statistics for the node recommendations, e.g. from KNIME servers etc. The
+ * providers are updated concurrently; afterwards the recommendations are reloaded via
+ * {@link NodeRecommendationManager#loadRecommendations()}, which only reads the providers whose data has changed.
  *
  * @author Martin Horn, University of Konstanz
  */
@@ -80,6 +91,12 @@ public interface UpdateListener {
         void updateFinished(Optional<Exception> e);
     }
 
+    /** Maximum number of providers that are updated at the same time. */
+    private static final int MAX_PARALLEL_UPDATES = 4;
+
+    /** Interval in milliseconds in which cancellation is checked while waiting for the updates. */
+    private static final long CANCEL_CHECK_INTERVAL = 200;
+
     private UpdateListener m_listener;
 
     private List<UpdatableNodeTripleProvider> m_providers;
@@ -126,14 +143,25 @@ private UpdateJob(final UpdateListener listener, final List<UpdatableNodeTripleP
      */
     @Override
     protected IStatus run(final IProgressMonitor monitor) {
-        Exception exception = null;
-        for (UpdatableNodeTripleProvider ntp : m_providers) {
-            try {
-                ntp.update();
-            } catch (Exception e) {
-                if (exception == null) {
-                    exception = e;
-                }
+        Exception exception;
+        try {
+            exception = updateProviders(monitor);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exception = e;
+        }
+        if (monitor.isCanceled()) {
+            monitor.done();
+            m_listener.updateFinished(Optional.of(new InterruptedException("Update has been canceled")));
+            return Status.CANCEL_STATUS;
+        }
+
+        //swap in the updated recommendations; unchanged providers are not read again
+        try {
+            NodeRecommendationManager.getInstance().loadRecommendations();
+        } catch (Exception e) {
+            if (exception == null) {
+                exception = e;
             }
         }
 
@@ -148,4 +176,60 @@ protected IStatus run(final IProgressMonitor monitor) {
                 "Error while updating the statistics for the node recommendations (Workflow Coach).", exception);
         }
     }
+
+    /**
+     * Updates all providers concurrently, each in its own thread.
+     *
+     * @return the first exception that occurred or <code>null</code> if all updates were successful
+     */
+    private Exception updateProviders(final IProgressMonitor monitor) throws InterruptedException {
+        if (m_providers.size() == 1) {
+            try {
+                m_providers.get(0).update();
+                return null;
+            } catch (Exception e) {
+                return e;
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(m_providers.size(), MAX_PARALLEL_UPDATES),
+            r -> {
+                Thread t = new Thread(r, "Workflow Coach update " + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        try {
+            List<Future<?>> updates = new ArrayList<>(m_providers.size());
+            for (UpdatableNodeTripleProvider ntp : m_providers) {
+                updates.add(executor.submit(() -> {
+                    ntp.update();
+                    return null;
+                }));
+            }
+
+            Exception exception = null;
+            for (Future<?> update : updates) {
+                while (true) {
+                    if (monitor.isCanceled()) {
+                        return null;
+                    }
+                    try {
+                        update.get(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        // check for cancellation again
+                    } catch (ExecutionException e) {
+                        if (exception == null) {
+                            exception = (e.getCause() instanceof Exception) ? (Exception)e.getCause() : e;
+                        }
+                        break;
+                    }
+                }
+            }
+            return exception;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }